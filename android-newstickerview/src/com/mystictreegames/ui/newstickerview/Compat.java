@@ -0,0 +1,135 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Trace;
+import android.view.View;
+
+/**
+ * Static helpers to access features of newer platform versions while still running on Froyo.
+ * Every version specific call lives in its own nested class so older VMs never resolve the missing
+ * methods.
+ */
+public class Compat {
+
+	/** Whether views support a render level alpha and hardware layers */
+	public static boolean hasViewAlpha() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+	}
+
+	/** Set the render level alpha of a view, does nothing on older devices */
+	public static void setAlpha(View view, float alpha) {
+		if ( hasViewAlpha() ) {
+			HoneycombCompat.setAlpha(view, alpha);
+		}
+	}
+
+	/** The render level alpha of a view, always opaque on older devices */
+	public static float getAlpha(View view) {
+		return hasViewAlpha() ? HoneycombCompat.getAlpha(view) : 1.f;
+	}
+
+	/**
+	 * Enable or disable a hardware layer for the view. Only enabled while needed, a layer costs
+	 * memory and is rebuilt whenever the view content changes.
+	 */
+	public static void setHardwareLayer(View view, boolean enabled) {
+		if ( hasViewAlpha() ) {
+			HoneycombCompat.setHardwareLayer(view, enabled);
+		}
+	}
+
+	/** Whether systrace sections can be emitted from the app */
+	public static boolean hasTrace() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+	}
+
+	/** Begin a systrace section, does nothing on older devices */
+	public static void beginTraceSection(String name) {
+		if ( hasTrace() ) {
+			JellyBeanMR2Compat.beginTraceSection(name);
+		}
+	}
+
+	/** End the innermost systrace section, does nothing on older devices */
+	public static void endTraceSection() {
+		if ( hasTrace() ) {
+			JellyBeanMR2Compat.endTraceSection();
+		}
+	}
+
+	/** Whether bitmaps can be decoded into existing bitmaps */
+	public static boolean canReuseBitmaps() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+	}
+
+	/**
+	 * Decode into the given bitmap, null for a new one, and make the decoded bitmap mutable so it can be
+	 * decoded into later on. Does nothing on older devices.
+	 */
+	public static void setReusableBitmap(BitmapFactory.Options options, Bitmap bitmap) {
+		if ( canReuseBitmaps() ) {
+			HoneycombCompat.setReusableBitmap(options, bitmap);
+		}
+	}
+
+	/** Trim the given thumbnail cache whenever the system asks for memory, only Ice Cream Sandwich and above ask */
+	static void registerTrimCallbacks(Context context, ThumbnailCache cache) {
+		if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH ) {
+			IceCreamSandwichCompat.registerTrimCallbacks(context, cache);
+		}
+	}
+
+	static class HoneycombCompat {
+		static void setAlpha(View view, float alpha) {
+			view.setAlpha(alpha);
+		}
+
+		static float getAlpha(View view) {
+			return view.getAlpha();
+		}
+
+		static void setHardwareLayer(View view, boolean enabled) {
+			final int layerType = enabled ? View.LAYER_TYPE_HARDWARE : View.LAYER_TYPE_NONE;
+			if ( view.getLayerType() != layerType ) {
+				view.setLayerType(layerType, null);
+			}
+		}
+
+		static void setReusableBitmap(BitmapFactory.Options options, Bitmap bitmap) {
+			options.inBitmap = bitmap;
+			options.inMutable = true;
+		}
+	}
+
+	static class IceCreamSandwichCompat {
+		static void registerTrimCallbacks(Context context, final ThumbnailCache cache) {
+			context.registerComponentCallbacks(new ComponentCallbacks2() {
+				public void onTrimMemory(int level) {
+					cache.trimMemory(level);
+				}
+
+				public void onLowMemory() {
+					cache.trimMemory(TRIM_MEMORY_COMPLETE);
+				}
+
+				public void onConfigurationChanged(Configuration newConfig) {
+				}
+			});
+		}
+	}
+
+	static class JellyBeanMR2Compat {
+		static void beginTraceSection(String name) {
+			Trace.beginSection(name);
+		}
+
+		static void endTraceSection() {
+			Trace.endSection();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.mystictreegames.ui.newstickerview;
+
+/**
+ * Time based fade animation. The alpha is computed from the time elapsed since the fade was requested,
+ * so the fade always ends exactly its duration after the request no matter when the frames arrive or
+ * how many get dropped. Plain java so it can be driven by any frame source.
+ */
+final class FadeAnimator {
+	/** No fade running */
+	public static final int FADE_NONE = 0;
+
+	/** Fading from transparent to opaque */
+	public static final int FADE_IN = 1;
+
+	/** Fading from opaque to transparent */
+	public static final int FADE_OUT = 2;
+
+	/** Current fade direction */
+	private int mDirection = FADE_NONE;
+
+	/** Duration of the fade in milliseconds */
+	private long mDuration;
+
+	/** Uptime the fade was requested at */
+	private long mStartTime;
+
+	/** Current alpha value */
+	private float mAlpha = 1.f;
+
+	/**
+	 * Start a new fade, any running fade is replaced. The fade runs from the given start time, the
+	 * frames only sample it, so whoever schedules after the fade can count on it ending at start plus
+	 * duration.
+	 * @param startTime Uptime the fade was requested at, in the same time base as the frame times
+	 */
+	public void start(int direction, long duration, long startTime) {
+		mDirection = direction;
+		mDuration = duration;
+		mStartTime = startTime;
+		mAlpha = (direction == FADE_IN) ? 0.f : 1.f;
+	}
+
+	/** Stop the fade leaving the alpha where it is */
+	public void cancel() {
+		mDirection = FADE_NONE;
+	}
+
+	/**
+	 * Advance the fade to the given frame time.
+	 * @return True once the fade has finished, the animator is idle afterwards.
+	 */
+	public boolean step(long frameTime) {
+		if ( mDirection == FADE_NONE ) {
+			return false;
+		}
+		final float progress = mDuration > 0 ? Utils.clamp((frameTime-mStartTime)/(float)mDuration, 0.f, 1.f) : 1.f;
+		mAlpha = (mDirection == FADE_IN) ? progress : 1.f-progress;
+		if ( progress >= 1.f ) {
+			cancel();
+			return true;
+		}
+		return false;
+	}
+
+	/** Uptime the last started fade ends at, later frames only tell that it did */
+	public long getEndTime() {
+		return mStartTime + mDuration;
+	}
+
+	/** Move the start of a running fade by the given time, used to skip time spent paused */
+	public void shift(long delta) {
+		if ( mDirection != FADE_NONE ) {
+			mStartTime += delta;
+		}
+	}
+
+	/** Current alpha value of the fade */
+	public float getAlpha() {
+		return mAlpha;
+	}
+
+	/** Force the alpha value, cancels any running fade */
+	public void setAlpha(float alpha) {
+		cancel();
+		mAlpha = alpha;
+	}
+
+	/** One of {@link #FADE_NONE}, {@link #FADE_IN} or {@link #FADE_OUT} */
+	public int getDirection() {
+		return mDirection;
+	}
+
+	/** Whether a fade is running */
+	public boolean isRunning() {
+		return mDirection != FADE_NONE;
+	}
+}
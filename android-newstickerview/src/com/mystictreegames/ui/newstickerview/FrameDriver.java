@@ -0,0 +1,175 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * Delivers frame callbacks in sync with the display. On Jelly Bean and above the {@link Choreographer}
+ * is used so every callback lands on a vsync, older devices fall back to a {@link Handler} that
+ * posts aligned to a fixed frame interval.
+ * <p>
+ * The frame time handed to the {@link Callback} is in the {@link SystemClock#uptimeMillis()} time base
+ * so animations can compute their state from elapsed time instead of counting steps. Posting a frame
+ * does not allocate.
+ */
+abstract class FrameDriver {
+	/** Frame interval used by the fallback driver, roughly 60fps */
+	public static final int FALLBACK_FRAME_INTERVAL = 16;
+
+	/** Refresh interval of a 60Hz display in microseconds, assumed until {@link #setRefreshRate(float)} */
+	public static final long DEFAULT_REFRESH_INTERVAL = 16667;
+
+	/**
+	 * Receiver of the frame callbacks.
+	 */
+	interface Callback {
+		/**
+		 * Called once per frame.
+		 * @param frameTimeMillis Time the frame started rendering in the uptime time base.
+		 */
+		void doFrame(long frameTimeMillis);
+	}
+
+	/** Our frame receiver */
+	protected final Callback mCallback;
+
+	/** Whether a frame has been requested but not delivered yet */
+	protected boolean bFramePending;
+
+	/** Refresh interval of the display in microseconds */
+	private long mRefreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+	protected FrameDriver(Callback callback) {
+		mCallback = callback;
+	}
+
+	/**
+	 * Create the best frame driver available on this device. Must be called from the UI thread.
+	 */
+	public static FrameDriver create(Callback callback) {
+		if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ) {
+			return new ChoreographerFrameDriver(callback);
+		}
+		return new HandlerFrameDriver(callback);
+	}
+
+	/** Request the next frame. Multiple requests before the frame arrives are coalesced. */
+	public final void postFrame() {
+		if ( !bFramePending ) {
+			bFramePending = true;
+			onPostFrame();
+		}
+	}
+
+	/** Cancel any pending frame request */
+	public final void cancelFrame() {
+		if ( bFramePending ) {
+			bFramePending = false;
+			onCancelFrame();
+		}
+	}
+
+	/** Whether a frame has been requested */
+	public final boolean isFramePending() {
+		return bFramePending;
+	}
+
+	/** Set the refresh rate in frames per second of the display the frames are drawn on */
+	public void setRefreshRate(float refreshRate) {
+		if ( refreshRate > 0 ) {
+			mRefreshInterval = Math.round(1000000/refreshRate);
+		}
+	}
+
+	/**
+	 * Interval between two frames in microseconds, the refresh interval of the display if the frames come
+	 * with its vsync and {@link #FALLBACK_FRAME_INTERVAL} otherwise.
+	 */
+	public final long getFrameInterval() {
+		return isVsync() ? mRefreshInterval : FALLBACK_FRAME_INTERVAL*1000L;
+	}
+
+	/** Whether the frames come with the vsync of the display */
+	protected abstract boolean isVsync();
+
+	/** Deliver a frame to the callback */
+	protected final void dispatchFrame(long frameTimeMillis) {
+		if ( bFramePending ) {
+			bFramePending = false;
+			mCallback.doFrame(frameTimeMillis);
+		}
+	}
+
+	protected abstract void onPostFrame();
+
+	protected abstract void onCancelFrame();
+
+	/**
+	 * Vsync driven frames. Kept in its own class so older VMs never have to resolve the
+	 * {@link Choreographer} class.
+	 */
+	static final class ChoreographerFrameDriver extends FrameDriver implements Choreographer.FrameCallback {
+		private final Choreographer mChoreographer;
+
+		ChoreographerFrameDriver(Callback callback) {
+			super(callback);
+			mChoreographer = Choreographer.getInstance();
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			// Choreographer uses the monotonic clock which is the same one uptimeMillis is based on
+			dispatchFrame(frameTimeNanos/1000000L);
+		}
+
+		@Override
+		protected void onPostFrame() {
+			mChoreographer.postFrameCallback(this);
+		}
+
+		@Override
+		protected boolean isVsync() {
+			return true;
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			mChoreographer.removeFrameCallback(this);
+		}
+	}
+
+	/**
+	 * Fallback for devices without a {@link Choreographer}. Frames are posted at the next multiple
+	 * of {@link #FALLBACK_FRAME_INTERVAL} so a busy main thread does not make them drift.
+	 */
+	static final class HandlerFrameDriver extends FrameDriver implements Runnable {
+		private final Handler mHandler = new Handler();
+
+		HandlerFrameDriver(Callback callback) {
+			super(callback);
+		}
+
+		@Override
+		public void run() {
+			dispatchFrame(SystemClock.uptimeMillis());
+		}
+
+		@Override
+		protected boolean isVsync() {
+			return false;
+		}
+
+		@Override
+		protected void onPostFrame() {
+			final long now = SystemClock.uptimeMillis();
+			mHandler.postAtTime(this, now - (now % FALLBACK_FRAME_INTERVAL) + FALLBACK_FRAME_INTERVAL);
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			mHandler.removeCallbacks(this);
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Resolves the links of news before they get tapped. Every link is parsed and the activity handling it
+ * is looked up on a background thread while its news is about to be shown, a tap then dispatches an
+ * intent that is already built. An intent is only aimed at an activity that got resolved for that very
+ * link, apps can handle single paths of a host.
+ * <p>
+ * Whether a link is dead is a hint only: from Android 11 on the package manager only sees the apps the
+ * caller declared it queries, a link it cannot resolve may still open. Every scheme and host remembers
+ * whether its last resolved link was dead, which is the hint for its links that were not resolved
+ * themselves. Links should be started no matter what their state is.
+ * <p>
+ * Resolutions expire after {@link #RESOLUTION_TTL} so newly installed or removed apps are noticed.
+ */
+final class LinkResolver {
+	public static final String TAG = "LinkResolver";
+
+	/** The link has not been resolved yet */
+	public static final int LINK_UNKNOWN = 0;
+
+	/** An activity handles the link */
+	public static final int LINK_RESOLVABLE = 1;
+
+	/** Nothing we can see handles the link, or other links of its host */
+	public static final int LINK_DEAD = 2;
+
+	/** Time in milliseconds a resolution is trusted */
+	public static final long RESOLUTION_TTL = 10*60*1000;
+
+	/** Number of schemes and hosts we keep hints for */
+	private static final int MAX_HOSTS = 64;
+
+	/** Number of links we keep resolutions for */
+	private static final int MAX_LINKS = 16;
+
+	/** Package of the system activity that lets the user pick between several handlers */
+	private static final String RESOLVER_PACKAGE = "android";
+
+	/** Resolves links of all tickers */
+	private static ExecutorService sResolver;
+
+	/** Resolver shared by all tickers of the app */
+	private static LinkResolver sDefault;
+
+	private final PackageManager mPackageManager;
+
+	/** Whether the last resolved link of a scheme and host was dead */
+	private final LinkedHashMap<String, HostHint> mHosts = new LinkedHashMap<String, HostHint>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, HostHint> eldest) {
+			return size() > MAX_HOSTS;
+		}
+	};
+
+	/** Resolutions by link */
+	private final LinkedHashMap<String, Resolution> mLinks = new LinkedHashMap<String, Resolution>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Resolution> eldest) {
+			return size() > MAX_LINKS;
+		}
+	};
+
+	/** Links queued on the resolver */
+	private final HashSet<String> mPending = new HashSet<String>();
+
+	LinkResolver(Context context) {
+		mPackageManager = context.getPackageManager();
+	}
+
+	/** The resolver shared by all tickers so they share their resolutions */
+	public static synchronized LinkResolver getDefault(Context context) {
+		if ( sDefault == null ) {
+			sDefault = new LinkResolver(context.getApplicationContext());
+		}
+		return sDefault;
+	}
+
+	/** Resolve a link in the background unless it is resolved already */
+	public synchronized void prepare(final String link) {
+		if ( link == null || link.length() == 0 || mPending.contains(link) || getResolution(link) != null ) {
+			return;
+		}
+		mPending.add(link);
+		getResolver().execute(new Runnable() {
+			public void run() {
+				resolve(link);
+				synchronized ( LinkResolver.this ) {
+					mPending.remove(link);
+				}
+			}
+		});
+	}
+
+	/**
+	 * One of {@link #LINK_UNKNOWN}, {@link #LINK_RESOLVABLE} or {@link #LINK_DEAD}. Links that were not
+	 * resolved themselves take the state of the last resolved link of their host.
+	 */
+	public synchronized int getState(String link) {
+		if ( link == null || link.length() == 0 ) {
+			return LINK_DEAD;
+		}
+		final Resolution resolution = getResolution(link);
+		if ( resolution != null ) {
+			return resolution.mIntent == null ? LINK_DEAD : LINK_RESOLVABLE;
+		}
+		final HostHint hint = getHostHint(keyOf(link));
+		if ( hint == null ) {
+			return LINK_UNKNOWN;
+		}
+		return hint.bDead ? LINK_DEAD : LINK_RESOLVABLE;
+	}
+
+	/**
+	 * Get the intent opening a link, prebuilt and aimed at its handler if the link got resolved. Other
+	 * links get a plain view intent the system resolves when it is started.
+	 */
+	public Intent getIntent(String link) {
+		synchronized ( this ) {
+			final Resolution resolution = getResolution(link);
+			if ( resolution != null && resolution.mIntent != null ) {
+				return new Intent(resolution.mIntent);
+			}
+		}
+		return new Intent(Intent.ACTION_VIEW, Uri.parse(link));
+	}
+
+	/** Forget the resolution of a link, e.g. once its handler could not be started */
+	public synchronized void forget(String link) {
+		mLinks.remove(link);
+	}
+
+	/** Forget everything, e.g. after packages got installed */
+	public synchronized void clear() {
+		mHosts.clear();
+		mLinks.clear();
+	}
+
+	/** Resolve a link, runs on the resolver thread */
+	private void resolve(String link) {
+		final Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(link));
+		final Resolution resolution = new Resolution();
+		try {
+			final ResolveInfo info = mPackageManager.resolveActivity(intent, PackageManager.MATCH_DEFAULT_ONLY);
+			if ( info != null && info.activityInfo != null ) {
+				if ( !RESOLVER_PACKAGE.equals(info.activityInfo.packageName) ) {
+					// A single default handler, aim right at it. The chooser is left to the system.
+					intent.setComponent(new ComponentName(info.activityInfo.packageName, info.activityInfo.name));
+				}
+				resolution.mIntent = intent;
+			}
+		} catch ( RuntimeException e ) {
+			// The package manager died, try again next time
+			Log.e(TAG, "Failed to resolve link '"+link+"': "+Log.getStackTraceString(e));
+			return;
+		}
+		resolution.mTime = SystemClock.uptimeMillis();
+		final HostHint hint = new HostHint();
+		hint.bDead = resolution.mIntent == null;
+		hint.mTime = resolution.mTime;
+		synchronized ( this ) {
+			mLinks.put(link, resolution);
+			mHosts.put(keyOf(link), hint);
+		}
+	}
+
+	/** Cached resolution of a link, null if unknown or expired */
+	private Resolution getResolution(String link) {
+		final Resolution resolution = mLinks.get(link);
+		if ( resolution != null && SystemClock.uptimeMillis() - resolution.mTime > RESOLUTION_TTL ) {
+			mLinks.remove(link);
+			return null;
+		}
+		return resolution;
+	}
+
+	/** Cached hint of a scheme and host, null if unknown or expired */
+	private HostHint getHostHint(String key) {
+		final HostHint hint = mHosts.get(key);
+		if ( hint != null && SystemClock.uptimeMillis() - hint.mTime > RESOLUTION_TTL ) {
+			mHosts.remove(key);
+			return null;
+		}
+		return hint;
+	}
+
+	/** Scheme and host of a link without parsing it, the whole link if it has no scheme */
+	static String keyOf(String link) {
+		final int colon = link.indexOf(':');
+		if ( colon <= 0 ) {
+			return link;
+		}
+		if ( !link.startsWith("//", colon + 1) ) {
+			// Opaque links like mailto: are handled by scheme only
+			return link.substring(0, colon).toLowerCase();
+		}
+		final int start = colon + 3;
+		int end = start;
+		while ( end < link.length() ) {
+			final char c = link.charAt(end);
+			if ( c == '/' || c == '?' || c == '#' ) {
+				break;
+			}
+			end++;
+		}
+		return link.substring(0, end).toLowerCase();
+	}
+
+	private static synchronized ExecutorService getResolver() {
+		if ( sResolver == null ) {
+			sResolver = Executors.newSingleThreadExecutor(Utils.newBackgroundThreadFactory(TAG));
+		}
+		return sResolver;
+	}
+
+	/**
+	 * What handles a link.
+	 */
+	static final class Resolution {
+		/** The prebuilt intent, aimed at the only default handler if there is one, null if the link is dead */
+		Intent mIntent;
+		long mTime;
+	}
+
+	/**
+	 * Whether the last resolved link of a scheme and host was dead.
+	 */
+	static final class HostHint {
+		boolean bDead;
+		long mTime;
+	}
+}
@@ -0,0 +1,428 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import android.os.Build;
+import android.os.Parcel;
+import android.os.ParcelFileDescriptor;
+import android.os.Parcelable;
+import android.util.Log;
+
+/**
+ * A whole list of news packed into a single compact buffer so it can be sent across processes in one
+ * go. Texts, links and image URIs are stored as UTF-8, the scheme and host of the links and image URIs
+ * as well as their directories are stored once in a shared string table. News are only decoded into
+ * {@link NewsHolder}s when they are accessed, pass a batch to {@link NewsTickerView#setNews(NewsBatch)}
+ * and the ticker only decodes the news it is about to show.
+ * <p>
+ * Small batches are written into the {@link Parcel} directly. Batches bigger than {@link #MAX_INLINE_SIZE}
+ * would exceed the binder transaction limit, from Ice Cream Sandwich on they are streamed through a pipe
+ * instead and only its file descriptor travels in the parcel.
+ * <p>
+ * The system refuses file descriptors in {@link android.content.Intent} and {@link android.os.Bundle}
+ * extras, so send large batches through a binder call, e.g. an AIDL interface, and keep batches sent as
+ * extras below {@link #MAX_INLINE_SIZE}. Reading a piped batch blocks until the whole buffer arrived, so
+ * unmarshal it on a binder or background thread. A pipe nobody reads from, e.g. because the parcel got
+ * dropped after an error, is closed after {@link #PIPE_TIMEOUT} so its writer does not wait forever.
+ */
+public final class NewsBatch implements Parcelable {
+	public static final String TAG = "NewsBatch";
+
+	/** Batches up to this size in bytes are written into the parcel itself */
+	public static final int MAX_INLINE_SIZE = 128*1024;
+
+	/** Milliseconds a piped batch waits to be read before its pipe is closed */
+	public static final long PIPE_TIMEOUT = 30*1000;
+
+	/** Magic number at the start of every batch, 'NTB1' */
+	static final int MAGIC = 0x4E544231;
+
+	/** Version of the layout, sender and receiver must agree on it */
+	static final int VERSION = 4;
+
+	/** Size of the header: magic, version, news count, string table size */
+	static final int HEADER_SIZE = 16;
+
+	/** Size of the fixed fields of a news: time, priority, weight, expiry, link prefix, image prefix */
+	static final int RECORD_SIZE = 28;
+
+	/** The buffer is written into the parcel */
+	private static final int TRANSPORT_INLINE = 0;
+
+	/** The buffer is streamed through a pipe */
+	private static final int TRANSPORT_PIPE = 1;
+
+	/** Streams piped batches, a thread per batch that is being read */
+	private static ExecutorService sPipeWriters;
+
+	/** Closes pipes that were not read in time */
+	private static ScheduledExecutorService sPipeTimeouts;
+
+	/** The encoded batch, never modified */
+	private final byte[] mData;
+
+	/** Read view of mData, only absolute reads are used so it can be shared between threads */
+	private final ByteBuffer mBuffer;
+
+	/** Number of news */
+	private final int mCount;
+
+	/** Position of the offset table of the news */
+	private final int mOffsetTable;
+
+	/** The decoded string table */
+	private final String[] mPrefixes;
+
+	/** Read only list view, created on demand */
+	private List<NewsHolder> mList;
+
+	private NewsBatch(byte[] data) {
+		mData = data;
+		mBuffer = ByteBuffer.wrap(data);
+		if ( data.length < HEADER_SIZE || mBuffer.getInt(0) != MAGIC ) {
+			throw new IllegalArgumentException("Not a news batch");
+		}
+		if ( mBuffer.getInt(4) != VERSION ) {
+			throw new IllegalArgumentException("News batch of version "+mBuffer.getInt(4)+", expected "+VERSION);
+		}
+		mCount = mBuffer.getInt(8);
+		final int prefixCount = mBuffer.getInt(12);
+
+		// The table is small, decode it right away
+		mPrefixes = new String[prefixCount];
+		int offset = HEADER_SIZE;
+		for ( int i = 0; i < prefixCount; i++ ) {
+			final int parent = mBuffer.getInt(offset);
+			final int length = mBuffer.getInt(offset + 4);
+			final String prefix = decode(offset + 8, length);
+			mPrefixes[i] = parent >= 0 ? mPrefixes[parent] + prefix : prefix;
+			offset += 8 + length;
+		}
+		mOffsetTable = offset;
+	}
+
+	/** Pack the given news into a batch */
+	public static NewsBatch create(List<NewsHolder> news) {
+		try {
+			return new NewsBatch(encode(news));
+		} catch ( UnsupportedEncodingException e ) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Number of news in the batch */
+	public int size() {
+		return mCount;
+	}
+
+	/** Size of the encoded batch in bytes */
+	public int getByteSize() {
+		return mData.length;
+	}
+
+	/** Decode the news at the given position, a new holder is created on every call */
+	public NewsHolder get(int index) {
+		if ( index < 0 || index >= mCount ) {
+			throw new IndexOutOfBoundsException("Index "+index+", size "+mCount);
+		}
+		int offset = mBuffer.getInt(mOffsetTable + index*4);
+		final int time = mBuffer.getInt(offset);
+		final int priority = mBuffer.getInt(offset + 4);
+		final int weight = mBuffer.getInt(offset + 8);
+		final long expiry = mBuffer.getLong(offset + 12);
+		final int prefix = mBuffer.getInt(offset + 20);
+		final int imagePrefix = mBuffer.getInt(offset + 24);
+		offset += RECORD_SIZE;
+		final int textLength = mBuffer.getInt(offset);
+		final String text = decode(offset + 4, textLength);
+		offset += 4 + textLength;
+		final int linkLength = mBuffer.getInt(offset);
+		final String link = decode(offset + 4, linkLength);
+		offset += 4 + linkLength;
+		final int imageLength = mBuffer.getInt(offset);
+		final String image = decode(offset + 4, imageLength);
+		offset += 4 + imageLength;
+		final int idLength = mBuffer.getInt(offset);
+		final NewsHolder news = new NewsHolder(text, prefix >= 0 ? mPrefixes[prefix] + link : link, time, priority, weight, expiry);
+		if ( imagePrefix >= 0 || imageLength > 0 ) {
+			news.mImage = imagePrefix >= 0 ? mPrefixes[imagePrefix] + image : image;
+		}
+		news.mId = idLength > 0 ? decode(offset + 4, idLength) : null;
+		return news;
+	}
+
+	/** Read only list view of the batch, news are decoded when accessed */
+	public List<NewsHolder> asList() {
+		if ( mList == null ) {
+			mList = new BatchList();
+		}
+		return mList;
+	}
+
+	@Override
+	public int describeContents() {
+		return mData.length > MAX_INLINE_SIZE && canUsePipe() ? CONTENTS_FILE_DESCRIPTOR : 0;
+	}
+
+	@Override
+	public void writeToParcel(Parcel dest, int flags) {
+		if ( mData.length > MAX_INLINE_SIZE && canUsePipe() ) {
+			try {
+				final ParcelFileDescriptor[] pipe = ParcelFileDescriptor.createPipe();
+				dest.writeInt(TRANSPORT_PIPE);
+				dest.writeInt(mData.length);
+				// The parcel keeps its own duplicate of the descriptor
+				dest.writeFileDescriptor(pipe[0].getFileDescriptor());
+				pipe[0].close();
+				startPipeWriter(pipe[1]);
+				return;
+			} catch ( IOException e ) {
+				Log.e(TAG, "Failed to create pipe, writing "+mData.length+" bytes inline: "+Log.getStackTraceString(e));
+			}
+		}
+		dest.writeInt(TRANSPORT_INLINE);
+		dest.writeByteArray(mData);
+	}
+
+	/** Pipes are available from Gingerbread on, closing them unblocks their writer from Ice Cream Sandwich on */
+	private static boolean canUsePipe() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+	}
+
+	/**
+	 * Stream our buffer into the pipe, blocks until the other side read it so it needs its own thread.
+	 * If the other side did not read it within {@link #PIPE_TIMEOUT} the pipe is closed, which makes the
+	 * blocked write fail.
+	 */
+	private void startPipeWriter(final ParcelFileDescriptor writeSide) {
+		final OutputStream out = new ParcelFileDescriptor.AutoCloseOutputStream(writeSide);
+		final ScheduledFuture<?> timeout = getPipeTimeouts().schedule(new Runnable() {
+			public void run() {
+				Log.e(TAG, "News batch of "+mData.length+" bytes was not read within "+PIPE_TIMEOUT+"ms, closing its pipe");
+				closeQuietly(out);
+			}
+		}, PIPE_TIMEOUT, TimeUnit.MILLISECONDS);
+		getPipeWriters().execute(new Runnable() {
+			public void run() {
+				try {
+					out.write(mData);
+				} catch ( IOException e ) {
+					// The reader went away or never came
+					Log.e(TAG, "Failed to write news batch: "+Log.getStackTraceString(e));
+				} finally {
+					timeout.cancel(false);
+					closeQuietly(out);
+				}
+			}
+		});
+	}
+
+	private static synchronized ExecutorService getPipeWriters() {
+		if ( sPipeWriters == null ) {
+			sPipeWriters = Executors.newCachedThreadPool(Utils.newBackgroundThreadFactory(TAG));
+		}
+		return sPipeWriters;
+	}
+
+	private static synchronized ScheduledExecutorService getPipeTimeouts() {
+		if ( sPipeTimeouts == null ) {
+			sPipeTimeouts = Executors.newSingleThreadScheduledExecutor(Utils.newBackgroundThreadFactory(TAG));
+		}
+		return sPipeTimeouts;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch ( IOException e ) {
+			// Nothing we can do
+		}
+	}
+
+	/** Read a batch written by {@link #writeToParcel(Parcel, int)} */
+	private static byte[] readData(Parcel in) {
+		if ( in.readInt() == TRANSPORT_INLINE ) {
+			return in.createByteArray();
+		}
+		final byte[] data = new byte[in.readInt()];
+		final ParcelFileDescriptor readSide = in.readFileDescriptor();
+		final DataInputStream stream = new DataInputStream(new ParcelFileDescriptor.AutoCloseInputStream(readSide));
+		try {
+			stream.readFully(data);
+		} catch ( IOException e ) {
+			throw new IllegalStateException("Failed to read news batch", e);
+		} finally {
+			closeQuietly(stream);
+		}
+		return data;
+	}
+
+	public static final Parcelable.Creator<NewsBatch> CREATOR = new Parcelable.Creator<NewsBatch>() {
+		public NewsBatch createFromParcel(final Parcel in) {
+			return new NewsBatch(readData(in));
+		}
+
+		public NewsBatch[] newArray(final int size) {
+			return new NewsBatch[size];
+		}
+	};
+
+	/**
+	 * Encode news into the batch layout:
+	 * <pre>
+	 * header:  magic, version, news count, prefix count
+	 * prefixes: parent prefix or -1, length, UTF-8 bytes
+	 * offsets: one int per news
+	 * news:    time, priority, weight, expiry, prefix of the link or -1, prefix of the image or -1,
+	 *          text length, UTF-8 text, link length, UTF-8 rest of the link, image length, UTF-8 rest
+	 *          of the image URI, id length, UTF-8 id
+	 * </pre>
+	 * Links and image URIs are split into 'scheme://host/' and the directory that follows, both are
+	 * stored once. A news without an image has no image prefix and an empty image URI.
+	 */
+	static byte[] encode(List<NewsHolder> news) throws UnsupportedEncodingException {
+		final int count = news.size();
+		final HashMap<String, Integer> prefixIndex = new HashMap<String, Integer>();
+		final ArrayList<byte[]> prefixBytes = new ArrayList<byte[]>();
+		final ArrayList<Integer> prefixParents = new ArrayList<Integer>();
+		final int[] prefixes = new int[count];
+		final int[] imagePrefixes = new int[count];
+		final byte[][] texts = new byte[count][];
+		final byte[][] links = new byte[count][];
+		final byte[][] images = new byte[count][];
+		final byte[][] ids = new byte[count][];
+
+		int itemsSize = 0;
+		for ( int i = 0; i < count; i++ ) {
+			final NewsHolder holder = news.get(i);
+			texts[i] = holder.mNews != null ? holder.mNews.getBytes("UTF-8") : new byte[0];
+			links[i] = splitPrefix(holder.mLink != null ? holder.mLink : "", prefixes, i, prefixIndex, prefixBytes, prefixParents);
+			images[i] = splitPrefix(holder.mImage != null ? holder.mImage : "", imagePrefixes, i, prefixIndex, prefixBytes, prefixParents);
+			ids[i] = holder.mId != null ? holder.mId.getBytes("UTF-8") : new byte[0];
+			itemsSize += RECORD_SIZE + 16 + texts[i].length + links[i].length + images[i].length + ids[i].length;
+		}
+
+		int tableSize = 0;
+		for ( int i = 0; i < prefixBytes.size(); i++ ) {
+			tableSize += 8 + prefixBytes.get(i).length;
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + tableSize + count*4 + itemsSize);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(count);
+		buffer.putInt(prefixBytes.size());
+		for ( int i = 0; i < prefixBytes.size(); i++ ) {
+			buffer.putInt(prefixParents.get(i));
+			buffer.putInt(prefixBytes.get(i).length);
+			buffer.put(prefixBytes.get(i));
+		}
+		int offset = HEADER_SIZE + tableSize + count*4;
+		for ( int i = 0; i < count; i++ ) {
+			buffer.putInt(offset);
+			offset += RECORD_SIZE + 16 + texts[i].length + links[i].length + images[i].length + ids[i].length;
+		}
+		for ( int i = 0; i < count; i++ ) {
+			final NewsHolder holder = news.get(i);
+			buffer.putInt(holder.mTime);
+			buffer.putInt(holder.mPriority);
+			buffer.putInt(holder.mWeight);
+			buffer.putLong(holder.mExpiry);
+			buffer.putInt(prefixes[i]);
+			buffer.putInt(imagePrefixes[i]);
+			buffer.putInt(texts[i].length);
+			buffer.put(texts[i]);
+			buffer.putInt(links[i].length);
+			buffer.put(links[i]);
+			buffer.putInt(images[i].length);
+			buffer.put(images[i]);
+			buffer.putInt(ids[i].length);
+			buffer.put(ids[i]);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Split a URI into the 'scheme://host/' and directory prefixes of the string table and the rest.
+	 * @param prefixes Receives the index of the longest prefix at the given position, -1 if there is none
+	 * @return The rest of the URI as UTF-8
+	 */
+	private static byte[] splitPrefix(String uri, int[] prefixes, int position, HashMap<String, Integer> index,
+			List<byte[]> bytes, List<Integer> parents) throws UnsupportedEncodingException {
+		int prefix = -1;
+		int start = 0;
+		final int scheme = uri.indexOf("://");
+		if ( scheme > 0 ) {
+			final int host = uri.indexOf('/', scheme + 3);
+			if ( host > 0 ) {
+				prefix = internPrefix(uri.substring(0, host + 1), -1, 0, index, bytes, parents);
+				start = host + 1;
+				final int dir = uri.lastIndexOf('/');
+				if ( dir > host ) {
+					prefix = internPrefix(uri.substring(0, dir + 1), prefix, start, index, bytes, parents);
+					start = dir + 1;
+				}
+			}
+		}
+		prefixes[position] = prefix;
+		return uri.substring(start).getBytes("UTF-8");
+	}
+
+	/**
+	 * Get the index of a prefix in the string table, adding it if needed. A prefix with a parent only
+	 * stores the part after the first parentLength characters.
+	 */
+	private static int internPrefix(String prefix, int parent, int parentLength, HashMap<String, Integer> index,
+			List<byte[]> bytes, List<Integer> parents) throws UnsupportedEncodingException {
+		final Integer existing = index.get(prefix);
+		if ( existing != null ) {
+			return existing;
+		}
+		final String stored = prefix.substring(parentLength);
+		final int id = bytes.size();
+		bytes.add(stored.getBytes("UTF-8"));
+		parents.add(parent);
+		index.put(prefix, id);
+		return id;
+	}
+
+	private String decode(int offset, int length) {
+		try {
+			return new String(mData, offset, length, "UTF-8");
+		} catch ( UnsupportedEncodingException e ) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Read only list view of the batch.
+	 */
+	final class BatchList extends AbstractList<NewsHolder> implements RandomAccess {
+		@Override
+		public NewsHolder get(int index) {
+			return NewsBatch.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return mCount;
+		}
+	}
+}
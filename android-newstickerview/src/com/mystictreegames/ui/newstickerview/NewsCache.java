@@ -0,0 +1,477 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Persistent store of the last news a ticker received, keyed by a feed id. Lets a ticker show its first
+ * news straight from disk while the app is still fetching fresh ones.
+ * <p>
+ * Every feed is kept in its own compact binary file: a header, a table with the offset of every news
+ * and the news themselves as UTF-8. Loading a feed maps the file into memory and only checks its header
+ * and that the offset table fits, news are bounds checked and decoded one by one when the ticker asks for
+ * them. A file with a bad header or a truncated offset table is dropped and taken as not cached, a
+ * corrupt news reads as null. Files are written to a temporary
+ * file first and then renamed over the old one so a crash never leaves a half written feed behind. Once
+ * all feeds together exceed the maximum size the least recently used ones are deleted.
+ */
+public class NewsCache {
+	public static final String TAG = "NewsCache";
+
+	/** Default maximum size of all cached feeds in bytes */
+	public static final long DEFAULT_MAX_SIZE = 1024*1024;
+
+	/** Name of the cache directory inside the apps cache dir */
+	public static final String DEFAULT_DIRECTORY = "newsticker";
+
+	/** Magic number at the start of every cache file, 'NTC1' */
+	static final int MAGIC = 0x4E544331;
+
+	/** Version of the file layout, files of other versions are dropped */
+	static final int VERSION = 4;
+
+	/** Size of the header: magic, version, news count */
+	static final int HEADER_SIZE = 12;
+
+	/** Size of the fixed fields of a news: time, priority, weight, expiry */
+	static final int RECORD_SIZE = 20;
+
+	static final String FILE_SUFFIX = ".news";
+	static final String SEEN_SUFFIX = ".seen";
+	static final String TEMP_SUFFIX = ".tmp";
+
+	/** Default instance */
+	private static NewsCache sDefault;
+
+	/** Directory holding the feeds */
+	private final File mDirectory;
+
+	/** Maximum size of all feeds together */
+	private final long mMaxSize;
+
+	/** Single background thread all writes are serialized on */
+	private final ExecutorService mWriter = Executors.newSingleThreadExecutor(Utils.newBackgroundThreadFactory(TAG));
+
+	/** Latest list of every feed with a queued write */
+	private final HashMap<String, List<NewsHolder>> mPendingWrites = new HashMap<String, List<NewsHolder>>();
+
+	/**
+	 * Create a cache in the given directory.
+	 * @param maxSize Maximum size of all feeds together in bytes
+	 */
+	public NewsCache(File directory, long maxSize) {
+		mDirectory = directory;
+		mMaxSize = maxSize;
+	}
+
+	/** The default cache inside the cache dir of the app */
+	public static synchronized NewsCache getDefault(Context context) {
+		if ( sDefault == null ) {
+			sDefault = new NewsCache(new File(context.getApplicationContext().getCacheDir(), DEFAULT_DIRECTORY), DEFAULT_MAX_SIZE);
+		}
+		return sDefault;
+	}
+
+	/**
+	 * Load the news of a feed. Only the header is read and the size of the offset table checked against
+	 * the file length, so loading does not page in the news. They are checked and decoded when accessed.
+	 * @return An unmodifiable list backed by the mapped file or null if the feed is not cached
+	 */
+	public List<NewsHolder> load(String feedId) {
+		final File file = getFile(feedId);
+		if ( !file.exists() ) {
+			return null;
+		}
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			final FileChannel channel = raf.getChannel();
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			final MappedNewsList news = MappedNewsList.wrap(buffer);
+			if ( news == null ) {
+				// Truncated, corrupt or of an old layout, it is of no use anymore
+				Log.e(TAG, "Dropping invalid cache file of feed '"+feedId+"'");
+				file.delete();
+				return null;
+			}
+			// Remember that we used it for the eviction
+			file.setLastModified(System.currentTimeMillis());
+			return news;
+		} catch ( IOException e ) {
+			Log.e(TAG, "Failed to load feed '"+feedId+"': "+Log.getStackTraceString(e));
+		} finally {
+			closeQuietly(raf);
+		}
+		return null;
+	}
+
+	/**
+	 * Store the news of a feed, replacing any previous version. Blocks until written, use
+	 * {@link #storeAsync(String, List)} from the UI thread.
+	 */
+	public void store(String feedId, List<NewsHolder> news) {
+		try {
+			write(getFile(feedId), encode(news));
+			trim();
+		} catch ( IOException e ) {
+			Log.e(TAG, "Failed to store feed '"+feedId+"': "+Log.getStackTraceString(e));
+		}
+	}
+
+	/**
+	 * Store the news of a feed on a background thread, the list must not be modified afterwards. If the
+	 * feed is stored again before the write started only the latest list gets written.
+	 */
+	public void storeAsync(final String feedId, final List<NewsHolder> news) {
+		synchronized ( mPendingWrites ) {
+			if ( mPendingWrites.put(feedId, news) != null ) {
+				// A write of this feed is queued already, it picks up the new list
+				return;
+			}
+		}
+		mWriter.execute(new Runnable() {
+			public void run() {
+				final List<NewsHolder> latest;
+				synchronized ( mPendingWrites ) {
+					latest = mPendingWrites.remove(feedId);
+				}
+				store(feedId, latest);
+			}
+		});
+	}
+
+	/**
+	 * Load the seen news of a feed stored by {@link #storeSeenAsync(String, byte[])}.
+	 * @return The serialized seen news or null if there are none
+	 */
+	byte[] loadSeen(String feedId) {
+		final File file = getFile(feedId, SEEN_SUFFIX);
+		if ( !file.exists() ) {
+			return null;
+		}
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			final byte[] data = new byte[(int) raf.length()];
+			raf.readFully(data);
+			return data;
+		} catch ( IOException e ) {
+			Log.e(TAG, "Failed to load seen news of feed '"+feedId+"': "+Log.getStackTraceString(e));
+		} finally {
+			closeQuietly(raf);
+		}
+		return null;
+	}
+
+	/** Store the serialized seen news of a feed on the background thread, the data must not be modified afterwards */
+	void storeSeenAsync(final String feedId, final byte[] data) {
+		mWriter.execute(new Runnable() {
+			public void run() {
+				try {
+					write(getFile(feedId, SEEN_SUFFIX), data);
+				} catch ( IOException e ) {
+					Log.e(TAG, "Failed to store seen news of feed '"+feedId+"': "+Log.getStackTraceString(e));
+				}
+			}
+		});
+	}
+
+	/** Run the given task on the background thread once all writes queued so far are done */
+	public void runAfterWrites(Runnable task) {
+		mWriter.execute(task);
+	}
+
+	/** Remove a feed and its seen news */
+	public void remove(String feedId) {
+		getFile(feedId).delete();
+		getFile(feedId, SEEN_SUFFIX).delete();
+	}
+
+	/**
+	 * Delete the least recently used feeds until all of them fit into the maximum size. The seen news of
+	 * a feed count towards its size and go together with it, temporary files of writes are left alone.
+	 */
+	public void trim() {
+		final File[] files = mDirectory.listFiles(new FilenameFilter() {
+			public boolean accept(File directory, String name) {
+				return name.endsWith(FILE_SUFFIX);
+			}
+		});
+		if ( files == null ) {
+			return;
+		}
+		long size = 0;
+		for ( File file : files ) {
+			size += file.length() + getSeenFile(file).length();
+		}
+		if ( size <= mMaxSize ) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File a, File b) {
+				final long diff = a.lastModified() - b.lastModified();
+				return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+			}
+		});
+		for ( int i = 0; i < files.length && size > mMaxSize; i++ ) {
+			final File seen = getSeenFile(files[i]);
+			final long length = files[i].length() + seen.length();
+			if ( files[i].delete() ) {
+				seen.delete();
+				size -= length;
+			}
+		}
+	}
+
+	/** The seen news file that belongs to a feed file */
+	private File getSeenFile(File feedFile) {
+		final String name = feedFile.getName();
+		return new File(mDirectory, name.substring(0, name.length() - FILE_SUFFIX.length()) + SEEN_SUFFIX);
+	}
+
+	/**
+	 * Write a file through a temporary file that is renamed over it, so it is either written completely
+	 * or not at all.
+	 */
+	private void write(File file, byte[] data) throws IOException {
+		final File temp = new File(mDirectory, file.getName() + TEMP_SUFFIX);
+		FileOutputStream out = null;
+		try {
+			if ( !mDirectory.exists() && !mDirectory.mkdirs() ) {
+				throw new IOException("Could not create "+mDirectory);
+			}
+			out = new FileOutputStream(temp);
+			out.write(data);
+			out.flush();
+			out.getFD().sync();
+			out.close();
+			out = null;
+			if ( !temp.renameTo(file) ) {
+				throw new IOException("Could not rename "+temp+" to "+file);
+			}
+		} catch ( IOException e ) {
+			temp.delete();
+			throw e;
+		} finally {
+			closeQuietly(out);
+		}
+	}
+
+	/** The file of a feed */
+	File getFile(String feedId) {
+		return getFile(feedId, FILE_SUFFIX);
+	}
+
+	/** A file of a feed, the id is hex encoded so any string is a valid id */
+	File getFile(String feedId, String suffix) {
+		final StringBuilder name = new StringBuilder(feedId.length()*4 + suffix.length());
+		for ( int i = 0; i < feedId.length(); i++ ) {
+			final String hex = Integer.toHexString(feedId.charAt(i));
+			for ( int j = hex.length(); j < 4; j++ ) {
+				name.append('0');
+			}
+			name.append(hex);
+		}
+		name.append(suffix);
+		return new File(mDirectory, name.toString());
+	}
+
+	/**
+	 * Encode news into the cache file layout, null news are skipped. Lists that provide {@link NewsRecords}
+	 * are encoded straight from their records without creating holders.
+	 */
+	static byte[] encode(List<NewsHolder> news) {
+		if ( news instanceof NewsRecords ) {
+			return encode((NewsRecords) news);
+		}
+		final ArrayList<NewsHolder> holders = new ArrayList<NewsHolder>(news.size());
+		for ( NewsHolder holder : news ) {
+			if ( holder != null ) {
+				holders.add(holder);
+			}
+		}
+		return encode(NewsRecords.HolderRecords.of(holders));
+	}
+
+	/**
+	 * Encode news records into the cache file layout:
+	 * <pre>
+	 * header:  magic, version, news count
+	 * offsets: one int per news
+	 * news:    time, priority, weight, expiry, text length, UTF-8 text, link length, UTF-8 link,
+	 *          image length, UTF-8 image URI, id length, UTF-8 id
+	 * </pre>
+	 */
+	static byte[] encode(NewsRecords news) {
+		final int count = news.size();
+		final byte[][] texts = new byte[count][];
+		final byte[][] links = new byte[count][];
+		final byte[][] images = new byte[count][];
+		final byte[][] ids = new byte[count][];
+		int length = HEADER_SIZE + count*4;
+		for ( int i = 0; i < count; i++ ) {
+			texts[i] = news.getUtf8(i, NewsRecords.FIELD_TEXT);
+			links[i] = news.getUtf8(i, NewsRecords.FIELD_LINK);
+			images[i] = news.getUtf8(i, NewsRecords.FIELD_IMAGE);
+			ids[i] = news.getUtf8(i, NewsRecords.FIELD_ID);
+			length += RECORD_SIZE + 16 + texts[i].length + links[i].length + images[i].length + ids[i].length;
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(count);
+		int offset = HEADER_SIZE + count*4;
+		for ( int i = 0; i < count; i++ ) {
+			buffer.putInt(offset);
+			offset += RECORD_SIZE + 16 + texts[i].length + links[i].length + images[i].length + ids[i].length;
+		}
+		for ( int i = 0; i < count; i++ ) {
+			buffer.putInt(news.getTime(i));
+			buffer.putInt(news.getPriority(i));
+			buffer.putInt(news.getWeight(i));
+			buffer.putLong(news.getExpiry(i));
+			buffer.putInt(texts[i].length);
+			buffer.put(texts[i]);
+			buffer.putInt(links[i].length);
+			buffer.put(links[i]);
+			buffer.putInt(images[i].length);
+			buffer.put(images[i]);
+			buffer.putInt(ids[i].length);
+			buffer.put(ids[i]);
+		}
+		return buffer.array();
+	}
+
+	private static void closeQuietly(java.io.Closeable closeable) {
+		if ( closeable != null ) {
+			try {
+				closeable.close();
+			} catch ( IOException e ) {
+				// Nothing we can do
+			}
+		}
+	}
+
+	/**
+	 * Read only news list backed by a cache file mapped into memory. News are decoded every time
+	 * they are accessed, only absolute reads are used so it can be shared between threads.
+	 */
+	static final class MappedNewsList extends AbstractList<NewsHolder> implements RandomAccess {
+		private final ByteBuffer mBuffer;
+		private final int mCount;
+
+		private MappedNewsList(ByteBuffer buffer, int count) {
+			mBuffer = buffer;
+			mCount = count;
+		}
+
+		/**
+		 * Validate the header and that the offset table fits into the buffer and wrap it, null if it is not
+		 * a valid cache file. Nothing past the header is read so the news are not paged in, every news is
+		 * bounds checked by {@link #get(int)} instead.
+		 */
+		static MappedNewsList wrap(ByteBuffer buffer) {
+			final int limit = buffer.limit();
+			if ( limit < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ) {
+				return null;
+			}
+			final int count = buffer.getInt(8);
+			if ( count < 0 || HEADER_SIZE + (long) count*4 > limit ) {
+				return null;
+			}
+			return new MappedNewsList(buffer, count);
+		}
+
+		/** End of the length prefixed field at the given offset, -1 if it does not fit into the buffer */
+		private int fieldEnd(int offset) {
+			final int limit = mBuffer.limit();
+			if ( offset < 0 || offset > limit - 4 ) {
+				return -1;
+			}
+			final int length = mBuffer.getInt(offset);
+			final long end = offset + 4L + length;
+			return length < 0 || end > limit ? -1 : (int) end;
+		}
+
+		/** Decode the length prefixed field at the given offset, null if it is empty */
+		private String decodeField(int offset) {
+			final int length = mBuffer.getInt(offset);
+			return length > 0 ? decode(offset + 4, length) : null;
+		}
+
+		/**
+		 * Decode a news. A news whose offset or fields do not fit into the file reads as null, like a null
+		 * news of a list.
+		 */
+		@Override
+		public NewsHolder get(int index) {
+			if ( index < 0 || index >= mCount ) {
+				throw new IndexOutOfBoundsException("Index "+index+", size "+mCount);
+			}
+			final int offset = mBuffer.getInt(HEADER_SIZE + index*4);
+			if ( offset < HEADER_SIZE + mCount*4 ) {
+				Log.e(TAG, "Corrupt offset of cached news "+index);
+				return null;
+			}
+			final int text = offset + RECORD_SIZE;
+			final int link = fieldEnd(text);
+			final int image = link >= 0 ? fieldEnd(link) : -1;
+			final int id = image >= 0 ? fieldEnd(image) : -1;
+			if ( id < 0 || fieldEnd(id) < 0 ) {
+				Log.e(TAG, "Corrupt cached news "+index);
+				return null;
+			}
+			final int time = mBuffer.getInt(offset);
+			final int priority = mBuffer.getInt(offset + 4);
+			final int weight = mBuffer.getInt(offset + 8);
+			final long expiry = mBuffer.getLong(offset + 12);
+			final String textValue = decodeField(text);
+			final String linkValue = decodeField(link);
+			final NewsHolder news = new NewsHolder(textValue != null ? textValue : "", linkValue != null ? linkValue : "",
+					time, priority, weight, expiry);
+			news.mImage = decodeField(image);
+			news.mId = decodeField(id);
+			return news;
+		}
+
+		@Override
+		public int size() {
+			return mCount;
+		}
+
+		private String decode(int offset, int length) {
+			final byte[] bytes = new byte[length];
+			for ( int i = 0; i < length; i++ ) {
+				bytes[i] = mBuffer.get(offset + i);
+			}
+			try {
+				return new String(bytes, "UTF-8");
+			} catch ( UnsupportedEncodingException e ) {
+				// UTF-8 is always supported
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
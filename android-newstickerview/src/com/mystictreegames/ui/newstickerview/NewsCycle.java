@@ -0,0 +1,298 @@
+package com.mystictreegames.ui.newstickerview;
+
+/**
+ * Schedule of the paged ticker, without any platform dependency so the {@link NewsTickerView} and the
+ * {@link TickerSimulation} run the very same code. A news comes in with a fade in or a transition, stays
+ * for its dwell time and goes with a fade out, or right away if the next one comes in with a transition.
+ * The time line counts down the whole cycle from one swap to the next.
+ * <p>
+ * The cycle owns the animators and the time line, the host owns the timers and the frames and does
+ * whatever has to be drawn. Every step of the cycle is planned from the time the previous one was due,
+ * not from the frame or timer that noticed it, so a late frame or timer does not push all following
+ * swaps back. Paused time is skipped as a whole.
+ */
+final class NewsCycle {
+	/** Default time in seconds a news is shown */
+	public static final int DEFAULT_UPDATE_RATE = 10;
+
+	/** Duration of the fade in and the fade out in milliseconds */
+	public static final int FADE_DURATION = 1000;
+
+	/**
+	 * A step that starts at most this late still starts at the time it was due, anything later is
+	 * treated as a fresh start. Covers a late frame or timer, not a stalled thread.
+	 */
+	static final long CATCH_UP_LIMIT = FADE_DURATION/4;
+
+	/** What the host of the cycle has to do */
+	interface Host {
+		/** The current news has been shown long enough, fade it out or swap right away */
+		void onNewsTimeout();
+
+		/** The current news faded out, the next news is due */
+		void onFadedOut();
+
+		/** The current news faded in, its dwell time is running */
+		void onFadedIn();
+
+		/** The transition to the current news finished, its dwell time is running */
+		void onTransitionFinished();
+
+		/** The fade advanced, apply the new alpha */
+		void onFadeFrame(long frameTime);
+
+		/** The transition advanced, redraw it */
+		void onTransitionFrame();
+
+		/** Request the next frame */
+		void postFrame();
+	}
+
+	private final Host mHost;
+
+	private final FadeAnimator mFade = new FadeAnimator();
+	private final FadeAnimator mTransition = new FadeAnimator();
+	private final TimeLine mTimeLine = new TimeLine();
+
+	/** Fires once the current news has been shown long enough, see {@link #onDwellTimeout()} */
+	private TickerTimer mDwellTimer;
+
+	/** Fires once the time line has to be redrawn */
+	private TickerTimer mTimeLineTimer;
+
+	/** Dwell time of the current news in milliseconds */
+	private long mDwell;
+
+	/** Uptime the next step of the cycle is due at, -1 if it is not planned */
+	private long mDue = -1;
+
+	/** Dwell time that was left when we got paused, -1 if the dwell timer was not running */
+	private long mRemainingDwell = -1;
+
+	/** Uptime we got paused at */
+	private long mPausedAt;
+
+	/** Time of the last scroll frame, -1 to start over with the next one */
+	private long mLastScrollFrameTime = -1;
+
+	public NewsCycle(Host host) {
+		mHost = host;
+	}
+
+	/** Time from a swap with a fade in to the next swap: fade in, dwell minus the fade in and fade out */
+	public static long timeToSwap(long dwell) {
+		return dwell + FADE_DURATION;
+	}
+
+	/** Time from a swap with a transition to the next swap: the transition, then the whole dwell time */
+	public static long timeToSwap(long dwell, long transitionDuration) {
+		return transitionDuration + dwell;
+	}
+
+	/** Delay of the dwell timer once the fade in finished, the fade in counts towards the dwell time */
+	public static long dwellAfterFadeIn(long dwell) {
+		return dwell - FADE_DURATION;
+	}
+
+	/** Uptime to redraw the time line at for its next visible change, at most once per frame */
+	public static long timeLineWakeUp(long nextChange, long now) {
+		return Math.max(nextChange, now + FrameDriver.FALLBACK_FRAME_INTERVAL);
+	}
+
+	/**
+	 * Use the given timers from now on, a scheduled dwell timer moves over to the new one. The host
+	 * releases the old timers.
+	 */
+	public void setTimers(TickerTimer dwellTimer, TickerTimer timeLineTimer) {
+		long wakeUp = -1;
+		if ( mDwellTimer != null ) {
+			wakeUp = mDwellTimer.getWakeUpTime();
+			mDwellTimer.cancel();
+			mTimeLineTimer.cancel();
+		}
+		mDwellTimer = dwellTimer;
+		mTimeLineTimer = timeLineTimer;
+		if ( wakeUp >= 0 ) {
+			mDwellTimer.scheduleAt(wakeUp);
+		}
+	}
+
+	/** The fade of the news text */
+	public FadeAnimator getFade() {
+		return mFade;
+	}
+
+	/** The transition between two news, its alpha is the progress of the transition */
+	public FadeAnimator getTransition() {
+		return mTransition;
+	}
+
+	/** The countdown of the current news */
+	public TimeLine getTimeLine() {
+		return mTimeLine;
+	}
+
+	/** Start of a step that was due at mDue, now if it is not planned or too late to catch up */
+	private long startOf(long now) {
+		final long due = mDue;
+		mDue = -1;
+		return due >= 0 && due <= now && now - due <= CATCH_UP_LIMIT ? due : now;
+	}
+
+	/**
+	 * A new news came in, fade it in and count down its dwell time plus the fade.
+	 * @param dwell Time in milliseconds the news is shown, the fade in included
+	 */
+	public void startFadeIn(long dwell) {
+		final long start = startOf(TickerClock.get().uptimeMillis());
+		mDwell = dwell;
+		mFade.start(FadeAnimator.FADE_IN, FADE_DURATION, start);
+		mTimeLine.start(start, timeToSwap(dwell));
+		mHost.postFrame();
+	}
+
+	/**
+	 * A new news came in with a transition, run it and count down the transition plus the dwell time.
+	 * @param dwell Time in milliseconds the news is shown once the transition finished
+	 */
+	public void startTransition(long duration, long dwell) {
+		final long start = startOf(TickerClock.get().uptimeMillis());
+		mDwell = dwell;
+		mTransition.start(FadeAnimator.FADE_IN, duration, start);
+		mTimeLine.start(start, timeToSwap(dwell, duration));
+		mHost.postFrame();
+	}
+
+	/** Fade the current news out, {@link Host#onFadedOut()} is called once it is gone */
+	public void startFadeOut() {
+		final long start = startOf(TickerClock.get().uptimeMillis());
+		mFade.start(FadeAnimator.FADE_OUT, FADE_DURATION, start);
+		mDue = mFade.getEndTime();
+		mHost.postFrame();
+	}
+
+	/** Called by the dwell timer of the host */
+	public void onDwellTimeout() {
+		// The swap or fade out that follows was due when the timer was, not when it got to run
+		mDue = mDwellTimer.getFiredWakeUpTime();
+		mHost.onNewsTimeout();
+	}
+
+	/** Advance the transition and the fade to the given frame time */
+	public void onFrame(long frameTime) {
+		if ( mTransition.isRunning() ) {
+			final boolean bFinished = mTransition.step(frameTime);
+			mHost.onTransitionFrame();
+			if ( bFinished ) {
+				mDwellTimer.scheduleAt(mTransition.getEndTime() + mDwell);
+				mHost.onTransitionFinished();
+			} else {
+				mHost.postFrame();
+			}
+		}
+		final int direction = mFade.getDirection();
+		if ( direction != FadeAnimator.FADE_NONE ) {
+			final boolean bFinished = mFade.step(frameTime);
+			mHost.onFadeFrame(frameTime);
+			if ( !bFinished ) {
+				mHost.postFrame();
+			} else if ( direction == FadeAnimator.FADE_IN ) {
+				// Count from the end of the fade, not from the frame that noticed it
+				mDwellTimer.scheduleAt(mFade.getEndTime() + dwellAfterFadeIn(mDwell));
+				mHost.onFadedIn();
+			} else {
+				mHost.onFadedOut();
+			}
+		}
+	}
+
+	/** Whether a fade or transition needs frames */
+	public boolean isAnimating() {
+		return mFade.isRunning() || mTransition.isRunning();
+	}
+
+	/** Stop the dwell time of the current news, nothing is due until the next news comes in */
+	public void cancelDwell() {
+		mDwellTimer.cancel();
+		mRemainingDwell = -1;
+		mDue = -1;
+	}
+
+	/** Run the given dwell time once we get resumed, the current one is dropped */
+	public void holdDwell(long remaining) {
+		mRemainingDwell = remaining;
+	}
+
+	/** Stop everything that is scheduled, the time spent paused is skipped by {@link #resume()} */
+	public void pause() {
+		mPausedAt = TickerClock.get().uptimeMillis();
+		final long remaining = mDwellTimer.cancel();
+		if ( remaining >= 0 ) {
+			mRemainingDwell = remaining;
+		}
+		mTimeLineTimer.cancel();
+	}
+
+	/** Continue where we left off when we got paused, the host requests the frames if {@link #isAnimating()} */
+	public void resume() {
+		final long now = TickerClock.get().uptimeMillis();
+		final long pausedFor = now - mPausedAt;
+		mFade.shift(pausedFor);
+		mTransition.shift(pausedFor);
+		mTimeLine.shift(pausedFor);
+		if ( mDue >= 0 ) {
+			mDue += pausedFor;
+		}
+		if ( mLastScrollFrameTime >= 0 ) {
+			mLastScrollFrameTime += pausedFor;
+		}
+		if ( mRemainingDwell >= 0 ) {
+			mDwellTimer.scheduleAt(now + mRemainingDwell);
+			mRemainingDwell = -1;
+		}
+	}
+
+	/** Forget the paused state, the cycle starts over with the next news */
+	public void reset() {
+		mRemainingDwell = -1;
+		mDue = -1;
+	}
+
+	/**
+	 * Update the length of the time line for now and schedule the timer for its next visible change.
+	 * @param bShow Whether the time line is shown at all, a hidden one has no length and needs no timer
+	 * @return The new length of the time line
+	 */
+	public int updateTimeLine(boolean bShow) {
+		mTimeLineTimer.cancel();
+		final long now = TickerClock.get().uptimeMillis();
+		final int length = bShow ? mTimeLine.computeLength(now) : 0;
+		mTimeLine.setLength(length);
+		final long nextChange = mTimeLine.nextChangeTime(length);
+		if ( bShow && nextChange >= 0 ) {
+			mTimeLineTimer.scheduleAt(timeLineWakeUp(nextChange, now));
+		}
+		return length;
+	}
+
+	/** Stop redrawing the time line until the next {@link #updateTimeLine(boolean)} */
+	public void cancelTimeLine() {
+		mTimeLineTimer.cancel();
+	}
+
+	/**
+	 * Distance the scroll moved since the previous frame, by the elapsed time so the speed is constant no
+	 * matter the frame rate. The first frame after a restart does not move, time spent paused is skipped.
+	 * @param speed Scroll speed in pixels per second
+	 */
+	public float scroll(long frameTime, float speed) {
+		final float distance = mLastScrollFrameTime >= 0 ? speed*(frameTime - mLastScrollFrameTime)/1000.f : 0.f;
+		mLastScrollFrameTime = frameTime;
+		return distance;
+	}
+
+	/** Start the scroll over, the next frame does not move */
+	public void restartScroll() {
+		mLastScrollFrameTime = -1;
+	}
+}
@@ -0,0 +1,206 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps the positions of an old news list to the positions of a new one so the ticker can keep
+ * showing the same news after the list got updated. Two news are the same news if they share their
+ * link, news without a link are matched by their text. Computing a diff is linear in the size of both
+ * lists.
+ */
+final class NewsDiff {
+	/** New position of every old position, -1 if removed */
+	private final int[] mOldToNew;
+
+	/** Old positions whose news content changed */
+	private final boolean[] mChanged;
+
+	/** Number of news in the new list */
+	private final int mNewSize;
+
+	private int mInserted;
+	private int mRemoved;
+	private int mChangedCount;
+
+	private NewsDiff(int oldSize, int newSize) {
+		mOldToNew = new int[oldSize];
+		mChanged = new boolean[oldSize];
+		mNewSize = newSize;
+	}
+
+	/** The key used to identify a news across lists */
+	public static String keyOf(NewsHolder news) {
+		if ( news == null ) {
+			return "";
+		}
+		if ( news.mId != null && news.mId.length() > 0 ) {
+			return news.mId;
+		}
+		if ( news.mLink != null && news.mLink.length() > 0 ) {
+			return news.mLink;
+		}
+		return news.mNews != null ? news.mNews : "";
+	}
+
+	/** Whether two news with the same key show different content */
+	private static boolean contentChanged(NewsHolder a, NewsHolder b) {
+		if ( a == b ) {
+			return false;
+		}
+		if ( a == null || b == null ) {
+			return true;
+		}
+		return !Utils.equals(a.mNews, b.mNews) || !Utils.equals(a.mLink, b.mLink) || a.mTime != b.mTime
+				|| a.mPriority != b.mPriority || a.mWeight != b.mWeight || a.mExpiry != b.mExpiry || !Utils.equals(a.mImage, b.mImage);
+	}
+
+	/**
+	 * Compute the diff between two lists. Duplicated keys are matched in order of appearance.
+	 */
+	public static NewsDiff compute(List<NewsHolder> oldList, List<NewsHolder> newList) {
+		final int oldSize = oldList != null ? oldList.size() : 0;
+		final int newSize = newList != null ? newList.size() : 0;
+		final NewsDiff diff = new NewsDiff(oldSize, newSize);
+
+		// Index the new list, duplicates are chained in order
+		final HashMap<String, Integer> first = new HashMap<String, Integer>(newSize*2);
+		final int[] next = new int[newSize];
+		final int[] last = new int[newSize];
+		for ( int i = 0; i < newSize; i++ ) {
+			next[i] = -1;
+			final String key = keyOf(newList.get(i));
+			final Integer head = first.get(key);
+			if ( head == null ) {
+				first.put(key, i);
+				last[i] = i;
+			} else {
+				next[last[head]] = i;
+				last[head] = i;
+			}
+		}
+
+		int kept = 0;
+		for ( int i = 0; i < oldSize; i++ ) {
+			final NewsHolder news = oldList.get(i);
+			final String key = keyOf(news);
+			final Integer head = first.get(key);
+			if ( head == null ) {
+				diff.mOldToNew[i] = -1;
+				diff.mRemoved++;
+				continue;
+			}
+			final int newIndex = head;
+			diff.mOldToNew[i] = newIndex;
+			kept++;
+			if ( contentChanged(news, newList.get(newIndex)) ) {
+				diff.mChanged[i] = true;
+				diff.mChangedCount++;
+			}
+			// Consume the match so the next duplicate gets the next position
+			if ( next[newIndex] >= 0 ) {
+				first.put(key, next[newIndex]);
+			} else {
+				first.remove(key);
+			}
+		}
+		diff.mInserted = newSize - kept;
+		return diff;
+	}
+
+	/** Diff for news appended to the end of a list */
+	public static NewsDiff forAppend(int oldSize, int count) {
+		final NewsDiff diff = new NewsDiff(oldSize, oldSize + count);
+		for ( int i = 0; i < oldSize; i++ ) {
+			diff.mOldToNew[i] = i;
+		}
+		diff.mInserted = count;
+		return diff;
+	}
+
+	/** Diff for a single news removed from a list */
+	public static NewsDiff forRemove(int oldSize, int index) {
+		return forRemove(oldSize, index, 1);
+	}
+	
+	/** Diff for a range of news removed from a list */
+	public static NewsDiff forRemove(int oldSize, int index, int count) {
+		final NewsDiff diff = new NewsDiff(oldSize, oldSize - count);
+		for ( int i = 0; i < oldSize; i++ ) {
+			diff.mOldToNew[i] = i < index ? i : (i < index + count ? -1 : i - count);
+		}
+		diff.mRemoved = count;
+		return diff;
+	}
+
+	/** Diff for a single news replaced in a list */
+	public static NewsDiff forUpdate(int oldSize, int index) {
+		final NewsDiff diff = new NewsDiff(oldSize, oldSize);
+		for ( int i = 0; i < oldSize; i++ ) {
+			diff.mOldToNew[i] = i;
+		}
+		diff.mChanged[index] = true;
+		diff.mChangedCount = 1;
+		return diff;
+	}
+
+	/** New position of the news at the given old position, -1 if it got removed */
+	public int getNewIndex(int oldIndex) {
+		if ( oldIndex < 0 || oldIndex >= mOldToNew.length ) {
+			return -1;
+		}
+		return mOldToNew[oldIndex];
+	}
+
+	/**
+	 * New position of the first news at or after the given old position that is still present,
+	 * wrapping around the end of the old list.
+	 * @return The new position, 0 if no old news survived but the new list is not empty, -1 if it is empty.
+	 */
+	public int getNextSurvivor(int oldIndex) {
+		final int oldSize = mOldToNew.length;
+		for ( int i = 0; i < oldSize; i++ ) {
+			final int newIndex = mOldToNew[(Math.max(oldIndex, 0) + i) % oldSize];
+			if ( newIndex >= 0 ) {
+				return newIndex;
+			}
+		}
+		return mNewSize > 0 ? 0 : -1;
+	}
+
+	/** Whether the news at the given old position is still present but its content changed */
+	public boolean isChanged(int oldIndex) {
+		return oldIndex >= 0 && oldIndex < mChanged.length && mChanged[oldIndex];
+	}
+
+	/** Number of news in the new list */
+	public int getNewSize() {
+		return mNewSize;
+	}
+
+	public int getInsertedCount() {
+		return mInserted;
+	}
+
+	public int getRemovedCount() {
+		return mRemoved;
+	}
+
+	public int getChangedCount() {
+		return mChangedCount;
+	}
+
+	/** Whether both lists are identical */
+	public boolean isEmpty() {
+		return mInserted == 0 && mRemoved == 0 && mChangedCount == 0 && isOrderKept();
+	}
+
+	private boolean isOrderKept() {
+		for ( int i = 0; i < mOldToNew.length; i++ ) {
+			if ( mOldToNew[i] != i ) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -16,8 +16,35 @@ public class NewsHolder implements Parcelable {
 	/** The news link */
 	public String	mLink;
 	
-	/** The time the news will be shown */
-	public Integer	mTime;
+	/** The time in seconds the news will be shown */
+	public int		mTime;
+	
+	/** How soon the news is shown once it got added, each step moves it one round ahead of the others */
+	public int		mPriority = 0;
+	
+	/** How often the news is shown compared to the others, a weight of 2 shows it twice as often as 1 */
+	public int		mWeight = 1;
+	
+	/** Wall clock time in milliseconds after which the news is not shown anymore, 0 if it never expires */
+	public long		mExpiry = 0;
+	
+	/**
+	 * Stable id of the news given by the feed, e.g. its guid. Null identifies the news by its link, or its
+	 * text if it has no link, see {@link #getId()}
+	 */
+	public String	mId = null;
+	
+	/**
+	 * URI of the image shown next to the news, null if it has none. http, https, content, file and
+	 * android.resource URIs as well as plain file paths are supported, see {@link NewsTickerView#setShowImages(boolean)}
+	 */
+	public String	mImage = null;
+	
+	/** Key the cached id was computed from, compared by reference since the fields may be replaced */
+	private volatile String mIdKey;
+	
+	/** Id of mIdKey, written before the key */
+	private long mIdHash;
 	
 	/**
 	 * Create a news holder with all requited data
@@ -31,17 +58,52 @@ public class NewsHolder implements Parcelable {
 	/**
 	 * Create a news holder with all requited data
 	 */
-	public NewsHolder( String news, String link, Integer time ) {
+	public NewsHolder( String news, String link, int time ) {
 		mNews = news;
 		mLink = link;
 		mTime = time;
 	}
 	
+	/**
+	 * Create a news holder that is scheduled by priority and weight, see {@link NewsTickerView#setScheduledRotation(boolean)}
+	 */
+	public NewsHolder( String news, String link, int time, int priority, int weight, long expiry ) {
+		this(news, link, time);
+		mPriority = priority;
+		mWeight = weight;
+		mExpiry = expiry;
+	}
+	
+	/** 64 bit id of the news, equal for equal news across lists, feed updates and sessions. Only hashed again if its key changed. */
+	public long getId() {
+		final String key = NewsDiff.keyOf(this);
+		if ( key != mIdKey ) {
+			mIdHash = Utils.hash64(key);
+			mIdKey = key;
+		}
+		return mIdHash;
+	}
+	
+	/** Whether the news has an image */
+	public boolean hasImage() {
+		return mImage != null && mImage.length() > 0;
+	}
+	
+	/** Whether the news expired at the given wall clock time */
+	public boolean isExpired(long now) {
+		return mExpiry > 0 && now >= mExpiry;
+	}
+	
 	/** Create from parcel */
     private NewsHolder(final Parcel in) {
     	mNews = in.readString();
     	mLink = in.readString();
     	mTime = in.readInt();
+    	mPriority = in.readInt();
+    	mWeight = in.readInt();
+    	mExpiry = in.readLong();
+    	mImage = in.readString();
+    	mId = in.readString();
     }
     
     @Override
@@ -54,6 +116,11 @@ public class NewsHolder implements Parcelable {
         dest.writeString(mNews);
         dest.writeString(mLink);
         dest.writeInt(mTime);
+        dest.writeInt(mPriority);
+        dest.writeInt(mWeight);
+        dest.writeLong(mExpiry);
+        dest.writeString(mImage);
+        dest.writeString(mId);
     }
 	
 	public static final Parcelable.Creator<NewsHolder> CREATOR = new Parcelable.Creator<NewsHolder>() {
@@ -0,0 +1,33 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.List;
+
+/**
+ * Pages news into a ticker for feeds too big to be held in memory at once. The ticker only holds a
+ * window of pages around the news it shows, asks for the next page once it gets close to the end of
+ * the window and drops pages it has shown. Set it with {@link NewsTickerView#setNewsPageSource(NewsPageSource, int, int)}.
+ */
+public abstract class NewsPageSource {
+	/**
+	 * Receives a requested page, can be called from any thread.
+	 */
+	public interface PageCallback {
+		/** The page got loaded, an empty page marks the end of the feed */
+		void onPageLoaded(List<NewsHolder> news);
+
+		/** The page could not be loaded, it is requested again the next time the ticker needs it */
+		void onPageFailed();
+	}
+
+	/**
+	 * Load a page of news asynchronously. Called on the UI thread, only one page is requested at a time.
+	 * After the end of the feed was reported the ticker starts over at position 0.
+	 * @param position Position of the first news of the page in the feed
+	 * @param count Number of news requested, the page may hold fewer
+	 */
+	public abstract void loadPage(int position, int count, PageCallback callback);
+
+	/** The number of news held by the ticker changed, called on the UI thread */
+	public void onWindowChanged(int windowSize) {
+	}
+}
@@ -0,0 +1,381 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Xml;
+
+/**
+ * Streaming parser that turns a feed into {@link NewsHolder}s. Parsers are pull based and hand every
+ * news out as soon as its element is complete, so the first news is available long before a big
+ * document has been read. Used by {@link NewsSource} on a background thread.
+ */
+public abstract class NewsParser {
+	/**
+	 * Receives the parsed news.
+	 */
+	public interface Callback {
+		/**
+		 * Called for every parsed news, may block to slow the parser down.
+		 * @return False to stop parsing
+		 */
+		boolean onNews(NewsHolder news) throws InterruptedException;
+	}
+
+	/** Time in seconds given to parsed news that do not define their own */
+	protected int mDefaultTime = NewsCycle.DEFAULT_UPDATE_RATE;
+
+	/** RFC 3339 date and time, the time and its fraction and the zone are optional */
+	private static final Pattern DATE_PATTERN = Pattern.compile(
+			"(\\d{4})-(\\d{2})-(\\d{2})(?:[Tt ](\\d{2}):(\\d{2})(?::(\\d{2})(?:\\.(\\d{1,3})\\d*)?)?)?\\s*(?:([Zz])|([+-])(\\d{2}):?(\\d{2}))?");
+
+	/** Parser for RSS 2.0 and Atom feeds, the format is detected from the elements */
+	public static NewsParser xml() {
+		return new XmlFeedParser();
+	}
+
+	/**
+	 * Parser for JSON feeds, either an array of news objects or an object holding such an array.
+	 * Requires Honeycomb or above.
+	 */
+	public static NewsParser json() {
+		return new JsonFeedParser();
+	}
+
+	/** Set the time in seconds given to parsed news that do not define their own */
+	public NewsParser setDefaultTime(int seconds) {
+		mDefaultTime = seconds;
+		return this;
+	}
+
+	/**
+	 * Parse the given stream, the stream is not closed.
+	 * @throws InterruptedException If the parsing thread got interrupted
+	 */
+	public abstract void parse(InputStream in, Callback callback) throws IOException, InterruptedException;
+
+	/** Parse an int, the given default if it is not a number */
+	static int parseInt(String value, int defaultValue) {
+		try {
+			return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+		} catch ( NumberFormatException e ) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Parse an expiry, either milliseconds since the epoch or an RFC 3339 date like 2013-07-01T12:00:00Z.
+	 * Dates without a zone are taken as UTC.
+	 * @return The wall clock time in milliseconds, 0 if it is neither
+	 */
+	static long parseExpiry(String value) {
+		if ( value == null ) {
+			return 0;
+		}
+		value = value.trim();
+		try {
+			return Math.max(0, Long.parseLong(value));
+		} catch ( NumberFormatException e ) {
+			// Not a plain number, maybe a date
+		}
+		final Matcher matcher = DATE_PATTERN.matcher(value);
+		if ( !matcher.matches() ) {
+			return 0;
+		}
+		final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		calendar.clear();
+		calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1, Integer.parseInt(matcher.group(3)),
+				parseInt(matcher.group(4), 0), parseInt(matcher.group(5), 0), parseInt(matcher.group(6), 0));
+		long time = calendar.getTimeInMillis();
+		if ( matcher.group(7) != null ) {
+			final String fraction = matcher.group(7);
+			time += Integer.parseInt(fraction)*(fraction.length() == 1 ? 100 : (fraction.length() == 2 ? 10 : 1));
+		}
+		if ( matcher.group(9) != null ) {
+			final int offset = (Integer.parseInt(matcher.group(10))*60 + Integer.parseInt(matcher.group(11)))*60*1000;
+			time += "+".equals(matcher.group(9)) ? -offset : offset;
+		}
+		return time;
+	}
+
+	/** Trim the text, null if nothing is left */
+	static String emptyToNull(String text) {
+		if ( text == null ) {
+			return null;
+		}
+		text = text.trim();
+		return text.length() > 0 ? text : null;
+	}
+
+	/** Trim the text and collapse all whitespace to single spaces */
+	static String collapseWhitespace(String text) {
+		if ( text == null ) {
+			return null;
+		}
+		final int length = text.length();
+		final StringBuilder builder = new StringBuilder(length);
+		boolean bSpace = false;
+		for ( int i = 0; i < length; i++ ) {
+			final char c = text.charAt(i);
+			if ( Character.isWhitespace(c) ) {
+				bSpace = builder.length() > 0;
+			} else {
+				if ( bSpace ) {
+					builder.append(' ');
+					bSpace = false;
+				}
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * RSS and Atom parser. RSS news are &lt;item&gt; elements with a &lt;link&gt; text, Atom news are
+	 * &lt;entry&gt; elements with a &lt;link href&gt; attribute. Both may schedule a news with
+	 * &lt;priority&gt; and &lt;weight&gt; elements and let it expire with an &lt;expires&gt; element, e.g. the
+	 * one of the Atom age extension, of any namespace. See {@link NewsParser#parseExpiry(String)} for its format.
+	 * <p>
+	 * The image of a news is taken from a &lt;media:thumbnail url&gt;, else from the first image of an RSS
+	 * &lt;enclosure url&gt;, a &lt;media:content url&gt; or an Atom &lt;link rel="enclosure" href&gt;.
+	 * Enclosures and media with a type or medium other than an image are skipped.
+	 * <p>
+	 * The stable id of a news is taken from the RSS &lt;guid&gt; or the Atom &lt;id&gt;.
+	 */
+	static final class XmlFeedParser extends NewsParser {
+		@Override
+		public void parse(InputStream in, Callback callback) throws IOException, InterruptedException {
+			try {
+				final XmlPullParser parser = Xml.newPullParser();
+				// Let the parser detect the encoding from the prolog
+				parser.setInput(in, null);
+
+				int itemDepth = -1;
+				String title = null;
+				String link = null;
+				String image = null;
+				String thumbnail = null;
+				String id = null;
+				int priority = 0;
+				int weight = 1;
+				long expiry = 0;
+				for ( int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next() ) {
+					if ( Thread.interrupted() ) {
+						throw new InterruptedException();
+					}
+					if ( event == XmlPullParser.START_TAG ) {
+						final String name = localName(parser.getName());
+						if ( itemDepth < 0 ) {
+							if ( "item".equals(name) || "entry".equals(name) ) {
+								itemDepth = parser.getDepth();
+								title = null;
+								link = null;
+								image = null;
+								thumbnail = null;
+								id = null;
+								priority = 0;
+								weight = 1;
+								expiry = 0;
+							}
+						} else if ( parser.getDepth() == itemDepth + 1 ) {
+							if ( "title".equals(name) ) {
+								title = parser.nextText();
+							} else if ( "link".equals(name) && "enclosure".equals(parser.getAttributeValue(null, "rel")) ) {
+								image = image != null ? image : readImage(parser, "href");
+							} else if ( "link".equals(name) && link == null ) {
+								link = readLink(parser);
+							} else if ( "enclosure".equals(name) || "content".equals(name) ) {
+								// Atom content has no url and is skipped
+								image = image != null ? image : readImage(parser, "url");
+							} else if ( "thumbnail".equals(name) ) {
+								thumbnail = thumbnail != null ? thumbnail : readImage(parser, "url");
+							} else if ( "guid".equals(name) || "id".equals(name) ) {
+								id = emptyToNull(parser.nextText());
+							} else if ( "priority".equals(name) ) {
+								priority = parseInt(parser.nextText(), 0);
+							} else if ( "weight".equals(name) ) {
+								weight = parseInt(parser.nextText(), 1);
+							} else if ( "expires".equals(name) ) {
+								expiry = parseExpiry(parser.nextText());
+							}
+						}
+					} else if ( event == XmlPullParser.END_TAG && parser.getDepth() == itemDepth ) {
+						itemDepth = -1;
+						if ( title == null ) {
+							continue;
+						}
+						final NewsHolder news = new NewsHolder(collapseWhitespace(title), link != null ? link.trim() : "", mDefaultTime, priority, weight, expiry);
+						news.mImage = thumbnail != null ? thumbnail : image;
+						news.mId = id;
+						if ( !callback.onNews(news) ) {
+							return;
+						}
+					}
+				}
+			} catch ( XmlPullParserException e ) {
+				final IOException error = new IOException("Malformed feed: "+e.getMessage());
+				error.initCause(e);
+				throw error;
+			}
+		}
+
+		/** Atom links are attributes, RSS links the element text. Atom links other than 'alternate' are skipped. */
+		private static String readLink(XmlPullParser parser) throws XmlPullParserException, IOException {
+			final String href = parser.getAttributeValue(null, "href");
+			if ( href != null ) {
+				final String rel = parser.getAttributeValue(null, "rel");
+				return rel == null || "alternate".equals(rel) ? href : null;
+			}
+			return parser.nextText();
+		}
+
+		/** The URI in the given attribute of an enclosure or media element, null if there is none or it is not an image */
+		private static String readImage(XmlPullParser parser, String attribute) {
+			final String uri = parser.getAttributeValue(null, attribute);
+			final String type = parser.getAttributeValue(null, "type");
+			final String medium = parser.getAttributeValue(null, "medium");
+			if ( uri == null || uri.trim().length() == 0 || (type != null && !type.startsWith("image/")) || (medium != null && !"image".equals(medium)) ) {
+				return null;
+			}
+			return uri.trim();
+		}
+
+		/** Strip the namespace prefix of an element name */
+		private static String localName(String name) {
+			final int colon = name.indexOf(':');
+			return colon >= 0 ? name.substring(colon + 1) : name;
+		}
+	}
+
+	/**
+	 * JSON parser. News are objects with a title, an optional link, an optional image URI, an optional
+	 * stable id, an optional time in seconds and optional scheduling fields: priority, weight and an expiry
+	 * in the format of {@link NewsParser#parseExpiry(String)}.
+	 * The field names can be changed. The news array is either the document itself or the first
+	 * array found in the top level object.
+	 */
+	public static final class JsonFeedParser extends NewsParser {
+		private String mTitleField = "title";
+		private String mLinkField = "link";
+		private String mTimeField = "time";
+		private String mPriorityField = "priority";
+		private String mWeightField = "weight";
+		private String mExpiryField = "expiry";
+		private String mImageField = "image";
+		private String mIdField = "id";
+
+		/** Set the names of the fields of a news object */
+		public JsonFeedParser setFields(String title, String link, String time) {
+			mTitleField = title;
+			mLinkField = link;
+			mTimeField = time;
+			return this;
+		}
+
+		/** Set the names of the scheduling fields of a news object */
+		public JsonFeedParser setScheduleFields(String priority, String weight, String expiry) {
+			mPriorityField = priority;
+			mWeightField = weight;
+			mExpiryField = expiry;
+			return this;
+		}
+
+		/** Set the name of the image URI field of a news object */
+		public JsonFeedParser setImageField(String image) {
+			mImageField = image;
+			return this;
+		}
+
+		/** Set the name of the stable id field of a news object, the id may be a string or a number */
+		public JsonFeedParser setIdField(String id) {
+			mIdField = id;
+			return this;
+		}
+
+		@Override
+		public void parse(InputStream in, Callback callback) throws IOException, InterruptedException {
+			final JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+			if ( reader.peek() == JsonToken.BEGIN_ARRAY ) {
+				parseArray(reader, callback);
+				return;
+			}
+			reader.beginObject();
+			while ( reader.hasNext() ) {
+				reader.nextName();
+				if ( reader.peek() == JsonToken.BEGIN_ARRAY ) {
+					parseArray(reader, callback);
+					return;
+				}
+				reader.skipValue();
+			}
+		}
+
+		private void parseArray(JsonReader reader, Callback callback) throws IOException, InterruptedException {
+			reader.beginArray();
+			while ( reader.hasNext() ) {
+				if ( Thread.interrupted() ) {
+					throw new InterruptedException();
+				}
+				if ( reader.peek() != JsonToken.BEGIN_OBJECT ) {
+					reader.skipValue();
+					continue;
+				}
+				String title = null;
+				String link = "";
+				String image = null;
+				String id = null;
+				int time = mDefaultTime;
+				int priority = 0;
+				int weight = 1;
+				long expiry = 0;
+				reader.beginObject();
+				while ( reader.hasNext() ) {
+					final String name = reader.nextName();
+					if ( reader.peek() == JsonToken.NULL ) {
+						reader.skipValue();
+					} else if ( name.equals(mTitleField) ) {
+						title = reader.nextString();
+					} else if ( name.equals(mLinkField) ) {
+						link = reader.nextString();
+					} else if ( name.equals(mImageField) ) {
+						image = reader.nextString();
+					} else if ( name.equals(mIdField) ) {
+						// Numbers are read as strings too
+						id = emptyToNull(reader.nextString());
+					} else if ( name.equals(mTimeField) ) {
+						time = reader.nextInt();
+					} else if ( name.equals(mPriorityField) ) {
+						priority = reader.nextInt();
+					} else if ( name.equals(mWeightField) ) {
+						weight = reader.nextInt();
+					} else if ( name.equals(mExpiryField) ) {
+						// Numbers are read as strings too
+						expiry = parseExpiry(reader.nextString());
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+				if ( title == null ) {
+					continue;
+				}
+				final NewsHolder news = new NewsHolder(collapseWhitespace(title), link, time, priority, weight, expiry);
+				news.mImage = image != null && image.length() > 0 ? image : null;
+				news.mId = id;
+				if ( !callback.onNews(news) ) {
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.List;
+
+/**
+ * Read access to the fields of the news of a list by position, for lists that create their holders on
+ * access like the list view of a {@link NewsStore}. The scheduler reads the fields it ranks by and the
+ * {@link NewsCache} encodes a list through it, so neither creates a holder or a string for every news
+ * of a large list. Implementations must allow reads from any thread.
+ */
+interface NewsRecords {
+	/** The text of a news, see {@link #getUtf8(int, int)} */
+	int FIELD_TEXT = 0;
+
+	/** The link of a news */
+	int FIELD_LINK = 1;
+
+	/** The image URI of a news */
+	int FIELD_IMAGE = 2;
+
+	/** The id the feed gave a news, see {@link NewsHolder#mId} */
+	int FIELD_ID = 3;
+
+	/** Number of news */
+	int size();
+
+	/** Time in seconds the news at the given position is shown */
+	int getTime(int index);
+
+	/** Priority of the news at the given position, see {@link NewsHolder#mPriority} */
+	int getPriority(int index);
+
+	/** Weight of the news at the given position, see {@link NewsHolder#mWeight} */
+	int getWeight(int index);
+
+	/** Expiry of the news at the given position, see {@link NewsHolder#mExpiry} */
+	long getExpiry(int index);
+
+	/** A string field of the news at the given position as UTF-8, empty if it is not set */
+	byte[] getUtf8(int index, int field);
+
+	/**
+	 * Records of a plain news list, read through its holders.
+	 */
+	static final class HolderRecords implements NewsRecords {
+		private final List<NewsHolder> mNews;
+
+		private HolderRecords(List<NewsHolder> news) {
+			mNews = news;
+		}
+
+		/** The records of a list, the list itself if it provides them */
+		static NewsRecords of(List<NewsHolder> news) {
+			return news instanceof NewsRecords ? (NewsRecords) news : new HolderRecords(news);
+		}
+
+		public int size() {
+			return mNews.size();
+		}
+
+		public int getTime(int index) {
+			final NewsHolder news = mNews.get(index);
+			return news != null ? news.mTime : 0;
+		}
+
+		public int getPriority(int index) {
+			final NewsHolder news = mNews.get(index);
+			return news != null ? news.mPriority : 0;
+		}
+
+		public int getWeight(int index) {
+			final NewsHolder news = mNews.get(index);
+			return news != null ? news.mWeight : 1;
+		}
+
+		public long getExpiry(int index) {
+			final NewsHolder news = mNews.get(index);
+			return news != null ? news.mExpiry : 0;
+		}
+
+		public byte[] getUtf8(int index, int field) {
+			final NewsHolder news = mNews.get(index);
+			final String value = news != null ? fieldOf(news, field) : null;
+			return value != null ? Utils.toUtf8(value) : Utils.EMPTY_BYTES;
+		}
+
+		private static String fieldOf(NewsHolder news, int field) {
+			switch ( field ) {
+				case FIELD_TEXT:
+					return news.mNews;
+				case FIELD_LINK:
+					return news.mLink;
+				case FIELD_IMAGE:
+					return news.mImage;
+				case FIELD_ID:
+					return news.mId;
+				default:
+					throw new IllegalArgumentException("Unknown field "+field);
+			}
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.List;
+
+/**
+ * Decides which news of the paged ticker comes next, without any platform dependency so the
+ * {@link NewsTickerView} and the {@link TickerSimulation} share the very same rotation. Holds the
+ * position of the current news and picks the next one from a restored news, the {@link NewsScheduler}
+ * if the rotation is scheduled, or in list order preferring unseen news. Breaking news are not part of
+ * the rotation, the ticker queues them itself. When the news come and go is up to the {@link NewsCycle}.
+ */
+final class NewsRotation {
+	/** Number of news looked at for an unseen one before the rotation simply goes on */
+	static final int UNSEEN_SCAN_LIMIT = 256;
+
+	/** Position of the current news, -1 before the first swap */
+	private int mIndex = -1;
+
+	/** Picks the news by priority, weight and expiry, null for list order */
+	private NewsScheduler mScheduler = null;
+
+	/** Ids of the seen news, null unless unseen news go first */
+	private SeenFilter mSeen = null;
+
+	/** Id of the news that was shown when the ticker state got saved */
+	private long mRestoredNewsId = 0;
+
+	/** Whether the news of mRestoredNewsId has yet to be looked up */
+	private boolean bRestoreNews = false;
+
+	/** Position of the current news, -1 before the first swap */
+	public int getIndex() {
+		return mIndex;
+	}
+
+	/** Move the current position, -1 starts over with the first news */
+	public void setIndex(int index) {
+		mIndex = index;
+	}
+
+	/** Pick the news by priority, weight and expiry instead of list order */
+	public void setScheduled(boolean scheduled, List<NewsHolder> news) {
+		if ( scheduled && mScheduler == null ) {
+			mScheduler = new NewsScheduler();
+			mScheduler.reset(news);
+		} else if ( !scheduled ) {
+			mScheduler = null;
+		}
+	}
+
+	public boolean isScheduled() {
+		return mScheduler != null;
+	}
+
+	/** Whether the news simply come in list order, so every news before the current one has been shown */
+	public boolean isRoundRobin() {
+		return mScheduler == null && mSeen == null;
+	}
+
+	/** Prefer the news not in the given filter, null to go in plain list order */
+	public void setSeen(SeenFilter seen) {
+		mSeen = seen;
+	}
+
+	/** Continue with the news of the given id once the next news is picked, if it is still there */
+	public void restore(long newsId) {
+		mRestoredNewsId = newsId;
+		bRestoreNews = true;
+	}
+
+	/** Start over with a new list, the current position is kept */
+	public void reset(List<NewsHolder> news) {
+		if ( mScheduler != null ) {
+			mScheduler.reset(news);
+		}
+	}
+
+	/**
+	 * Follow a change of the list. The current position moves with its news, if the news is gone the
+	 * rotation continues with the news that followed it.
+	 */
+	public void remap(List<NewsHolder> news, NewsDiff diff) {
+		if ( mScheduler != null ) {
+			mScheduler.remap(news, diff);
+		}
+		if ( mIndex < 0 || news.isEmpty() ) {
+			return;
+		}
+		final int newIndex = diff.getNewIndex(mIndex);
+		if ( newIndex >= 0 ) {
+			mIndex = newIndex;
+		} else {
+			final int next = diff.getNextSurvivor(mIndex);
+			mIndex = (next - 1 + news.size()) % news.size();
+		}
+	}
+
+	/**
+	 * Move on to the next news. A scheduled rotation ends once all news expired, expired news are never
+	 * shown again.
+	 * @param now Current wall clock time, see {@link TickerClock#currentTimeMillis()}
+	 * @return The new current position or -1 if the rotation is scheduled and no news is left, the
+	 * current position stays then
+	 */
+	public int next(List<NewsHolder> news, long now) {
+		final int index = pickNext(news, now);
+		if ( index >= 0 ) {
+			mIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Move back to the news before the current one in list order.
+	 * @return The new current position
+	 */
+	public int previous(List<NewsHolder> news) {
+		mIndex = peekPrevious(news);
+		return mIndex;
+	}
+
+	/** Position {@link #next(List, long)} would move to without changing anything, -1 if none */
+	public int peekNext(List<NewsHolder> news, long now) {
+		if ( bRestoreNews ) {
+			final int restored = indexOfNews(news, mRestoredNewsId);
+			if ( restored >= 0 ) {
+				return restored;
+			}
+		}
+		return mScheduler != null ? mScheduler.peek(now) : nextRoundRobinIndex(news, mIndex);
+	}
+
+	/** Position {@link #previous(List)} would move to */
+	public int peekPrevious(List<NewsHolder> news) {
+		final int size = news.size();
+		return mIndex <= 0 ? size - 1 : Math.min(mIndex, size) - 1;
+	}
+
+	/**
+	 * Positions of the news the rotation brings in next without changing anything, the scheduled ones or
+	 * the round robin ones.
+	 * @return The number of positions written, 0 if the rotation is scheduled and no news is left
+	 */
+	public int peekUpcoming(List<NewsHolder> news, long now, int[] upcoming) {
+		if ( mScheduler != null ) {
+			return mScheduler.peek(now, upcoming);
+		}
+		final int count = Math.min(upcoming.length, news.size());
+		int after = mIndex;
+		for ( int i = 0; i < count; i++ ) {
+			after = upcoming[i] = nextRoundRobinIndex(news, after);
+		}
+		return count;
+	}
+
+	private int pickNext(List<NewsHolder> news, long now) {
+		if ( bRestoreNews ) {
+			// Continue with the news we showed before our state got saved
+			bRestoreNews = false;
+			final int restored = indexOfNews(news, mRestoredNewsId);
+			if ( restored >= 0 ) {
+				return restored;
+			}
+		}
+		if ( mScheduler != null ) {
+			// Nothing left once everything expired, the list order would bring the expired news back
+			return mScheduler.next(now);
+		}
+		return nextRoundRobinIndex(news, mIndex);
+	}
+
+	/** The news after the given position, the first unseen one if unseen news are preferred */
+	private int nextRoundRobinIndex(List<NewsHolder> news, int after) {
+		final int size = news.size();
+		final int next = (after + 1) % size;
+		if ( mSeen == null ) {
+			return next;
+		}
+		final int count = Math.min(size, UNSEEN_SCAN_LIMIT);
+		for ( int i = 0; i < count; i++ ) {
+			final int index = (next + i) % size;
+			if ( !mSeen.contains(news.get(index).getId()) ) {
+				return index;
+			}
+		}
+		// Everything close by was seen, just go on
+		return next;
+	}
+
+	/** Position of the news with the given id, -1 if there is none. Walks the whole list. */
+	private static int indexOfNews(List<NewsHolder> news, long id) {
+		final int size = news.size();
+		for ( int i = 0; i < size; i++ ) {
+			final NewsHolder holder = news.get(i);
+			if ( holder != null && holder.getId() == id ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
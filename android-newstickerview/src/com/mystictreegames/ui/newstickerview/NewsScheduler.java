@@ -0,0 +1,186 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the next news by priority, weight and expiry instead of plain round robin. Uses stride
+ * scheduling: every news has a pass value, the news with the lowest pass is shown next and its pass
+ * then advances by a stride inversely proportional to its weight, so a news with twice the weight is
+ * shown twice as often. News enter the rotation with their priority as a head start of whole rounds.
+ * Picking the next news is O(log n), expired news are dropped when they come up without touching the
+ * news list.
+ */
+final class NewsScheduler {
+	/** Stride of a news with a weight of 1 */
+	static final long STRIDE = 1 << 16;
+
+	private final PriorityQueue<Entry> mQueue = new PriorityQueue<Entry>(16, new Comparator<Entry>() {
+		public int compare(Entry a, Entry b) {
+			if ( a.mPass != b.mPass ) {
+				return a.mPass < b.mPass ? -1 : 1;
+			}
+			// Keep the list order between equal passes
+			return a.mIndex - b.mIndex;
+		}
+	});
+
+	/** Entry of every list position, null once it expired */
+	private Entry[] mEntries = new Entry[0];
+
+	/** Pass of the last picked news */
+	private long mVirtualTime = 0;
+
+	/** Scratch space of {@link #peek(long, int[])} */
+	private Entry[] mPeekEntries = new Entry[0];
+	private long[] mPeekPasses = new long[0];
+
+	/** Schedule a new list from scratch, the fields are read through its records so no holders get created */
+	public void reset(List<NewsHolder> news) {
+		final NewsRecords records = news != null ? NewsRecords.HolderRecords.of(news) : null;
+		final int size = records != null ? records.size() : 0;
+		mQueue.clear();
+		mEntries = new Entry[size];
+		for ( int i = 0; i < size; i++ ) {
+			mEntries[i] = newEntry(i, records);
+			mQueue.add(mEntries[i]);
+		}
+	}
+
+	/** Follow a change of the list, news that are still present keep their place in the rotation */
+	public void remap(List<NewsHolder> news, NewsDiff diff) {
+		final Entry[] oldEntries = mEntries;
+		final Entry[] entries = new Entry[diff.getNewSize()];
+		for ( int i = 0; i < oldEntries.length; i++ ) {
+			final int newIndex = diff.getNewIndex(i);
+			if ( newIndex >= 0 && oldEntries[i] != null ) {
+				entries[newIndex] = oldEntries[i];
+			}
+		}
+		final NewsRecords records = NewsRecords.HolderRecords.of(news);
+		mQueue.clear();
+		for ( int i = 0; i < entries.length; i++ ) {
+			if ( entries[i] == null ) {
+				entries[i] = newEntry(i, records);
+			} else {
+				entries[i].mIndex = i;
+				entries[i].mStride = strideOf(records.getWeight(i));
+				entries[i].mExpiry = records.getExpiry(i);
+			}
+			mQueue.add(entries[i]);
+		}
+		mEntries = entries;
+	}
+
+	/**
+	 * Pick the next news.
+	 * @param now Current wall clock time, news that expired before are dropped
+	 * @return The list position of the news or -1 if no news is left
+	 */
+	public int next(long now) {
+		Entry entry;
+		while ( (entry = mQueue.poll()) != null ) {
+			if ( entry.mExpiry > 0 && now >= entry.mExpiry ) {
+				mEntries[entry.mIndex] = null;
+				continue;
+			}
+			mVirtualTime = entry.mPass;
+			entry.mPass += entry.mStride;
+			mQueue.add(entry);
+			return entry.mIndex;
+		}
+		return -1;
+	}
+
+	/**
+	 * The news {@link #next(long)} would pick without picking it.
+	 * @return The list position of the news or -1 if no news is left
+	 */
+	public int peek(long now) {
+		Entry entry;
+		while ( (entry = mQueue.peek()) != null ) {
+			if ( entry.mExpiry > 0 && now >= entry.mExpiry ) {
+				mQueue.poll();
+				mEntries[entry.mIndex] = null;
+				continue;
+			}
+			return entry.mIndex;
+		}
+		return -1;
+	}
+
+	/**
+	 * The news the next calls of {@link #next(long)} would pick, without picking them. Only the news
+	 * with the lowest passes can come up within that many picks, they are taken off the queue, played
+	 * forward on a copy of their passes and put back unchanged.
+	 * @param now Current wall clock time, news that expired before are dropped
+	 * @param upcoming Receives the list positions, a news with a high weight may come up more than once
+	 * @return The number of positions written, less than requested if fewer news are left
+	 */
+	public int peek(long now, int[] upcoming) {
+		final int count = upcoming.length;
+		if ( mPeekEntries.length < count ) {
+			mPeekEntries = new Entry[count];
+			mPeekPasses = new long[count];
+		}
+		int candidates = 0;
+		Entry entry;
+		while ( candidates < count && (entry = mQueue.poll()) != null ) {
+			if ( entry.mExpiry > 0 && now >= entry.mExpiry ) {
+				mEntries[entry.mIndex] = null;
+				continue;
+			}
+			mPeekEntries[candidates] = entry;
+			mPeekPasses[candidates] = entry.mPass;
+			candidates++;
+		}
+		for ( int i = 0; i < candidates; i++ ) {
+			mQueue.add(mPeekEntries[i]);
+		}
+		int written = 0;
+		while ( candidates > 0 && written < count ) {
+			// Same order as the queue: lowest pass first, list order between equal passes
+			int best = 0;
+			for ( int i = 1; i < candidates; i++ ) {
+				if ( mPeekPasses[i] < mPeekPasses[best] || (mPeekPasses[i] == mPeekPasses[best] && mPeekEntries[i].mIndex < mPeekEntries[best].mIndex) ) {
+					best = i;
+				}
+			}
+			upcoming[written++] = mPeekEntries[best].mIndex;
+			mPeekPasses[best] += mPeekEntries[best].mStride;
+		}
+		for ( int i = 0; i < candidates; i++ ) {
+			mPeekEntries[i] = null;
+		}
+		return written;
+	}
+
+	/** Number of news still in the rotation */
+	public int getActiveCount() {
+		return mQueue.size();
+	}
+
+	private Entry newEntry(int index, NewsRecords records) {
+		final Entry entry = new Entry();
+		entry.mIndex = index;
+		entry.mPass = mVirtualTime - records.getPriority(index)*STRIDE;
+		entry.mStride = strideOf(records.getWeight(index));
+		entry.mExpiry = records.getExpiry(index);
+		return entry;
+	}
+
+	private static long strideOf(int weight) {
+		return STRIDE / Math.max(1, weight);
+	}
+
+	/**
+	 * Scheduling state of one news.
+	 */
+	static final class Entry {
+		int mIndex;
+		long mPass;
+		long mStride;
+		long mExpiry;
+	}
+}
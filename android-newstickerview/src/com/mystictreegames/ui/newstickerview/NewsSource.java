@@ -0,0 +1,322 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.os.Handler;
+import android.util.Log;
+
+/**
+ * Loads news from a feed and streams them into a ticker while the feed is still being read. The
+ * pipeline is: a {@link StreamOpener} providing the raw feed, a {@link NewsParser} running on a
+ * background executor, an optional {@link Filter} and a bounded buffer the parser blocks on once the
+ * UI thread falls behind. The UI thread drains the buffer at most once per {@link #DELIVERY_INTERVAL},
+ * the very first news is handed over right away so it can be shown before the rest of the feed arrived.
+ * <p>
+ * Loads are started and their results delivered on the thread calling {@link #load(Listener)}, which
+ * needs a looper. Use {@link #load(NewsTickerView)} to feed a ticker directly.
+ */
+public class NewsSource {
+	public static final String TAG = "NewsSource";
+
+	/** Default number of parsed news buffered for the UI thread */
+	public static final int DEFAULT_BUFFER_SIZE = 64;
+
+	/** Minimum time in milliseconds between two deliveries after the first one */
+	public static final int DELIVERY_INTERVAL = 100;
+
+	/** Connect and read timeout of feeds loaded from a URL */
+	public static final int HTTP_TIMEOUT = 15000;
+
+	/** Executor shared by all sources that do not have their own */
+	private static ExecutorService sDefaultExecutor;
+
+	/**
+	 * Opens the raw feed, called on the background thread.
+	 */
+	public interface StreamOpener {
+		InputStream open() throws IOException;
+	}
+
+	/**
+	 * Decides which parsed news make it into the ticker, called on the background thread.
+	 */
+	public interface Filter {
+		/** @return The news to deliver, possibly a changed one, or null to drop it */
+		NewsHolder filter(NewsHolder news);
+	}
+
+	/**
+	 * Receives the news of a load on the thread that started it.
+	 */
+	public interface Listener {
+		/**
+		 * A batch of news got parsed. The list is reused, copy it if you need it after returning.
+		 * @param bFirst True for the first batch of the load
+		 */
+		void onNewsParsed(List<NewsHolder> news, boolean bFirst);
+
+		/** The feed has been read completely */
+		void onSourceFinished(int count);
+
+		/** Opening or parsing the feed failed, news parsed before the error have been delivered */
+		void onSourceFailed(IOException error);
+	}
+
+	private final StreamOpener mOpener;
+	private final NewsParser mParser;
+	private Filter mFilter = null;
+	private int mBufferSize = DEFAULT_BUFFER_SIZE;
+	private int mMaxNews = Integer.MAX_VALUE;
+	private ExecutorService mExecutor = null;
+
+	/** The running load, null if none */
+	private Load mLoad = null;
+
+	public NewsSource(StreamOpener opener, NewsParser parser) {
+		mOpener = opener;
+		mParser = parser;
+	}
+
+	/** Source reading a feed from an http or https URL */
+	public static NewsSource fromUrl(final String url, NewsParser parser) {
+		return new NewsSource(new StreamOpener() {
+			public InputStream open() throws IOException {
+				final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+				connection.setConnectTimeout(HTTP_TIMEOUT);
+				connection.setReadTimeout(HTTP_TIMEOUT);
+				final int status = connection.getResponseCode();
+				if ( status != HttpURLConnection.HTTP_OK ) {
+					connection.disconnect();
+					throw new IOException("HTTP "+status+" for "+url);
+				}
+				return new BufferedInputStream(connection.getInputStream());
+			}
+		}, parser);
+	}
+
+	/** Source reading a feed from a local file */
+	public static NewsSource fromFile(final File file, NewsParser parser) {
+		return new NewsSource(new StreamOpener() {
+			public InputStream open() throws IOException {
+				return new BufferedInputStream(new FileInputStream(file));
+			}
+		}, parser);
+	}
+
+	/** Set the filter stage, null to deliver every news */
+	public void setFilter(Filter filter) {
+		mFilter = filter;
+	}
+
+	/** Set how many parsed news may wait for the UI thread before the parser blocks */
+	public void setBufferSize(int size) {
+		mBufferSize = Math.max(1, size);
+	}
+
+	/** Stop reading the feed after the given number of news passed the filter */
+	public void setMaxNews(int maxNews) {
+		mMaxNews = maxNews;
+	}
+
+	/** Run the parser on the given executor instead of the shared one */
+	public void setExecutor(ExecutorService executor) {
+		mExecutor = executor;
+	}
+
+	/** Whether a load is running */
+	public boolean isLoading() {
+		return mLoad != null;
+	}
+
+	/** Start loading the feed, cancels a running load */
+	public void load(Listener listener) {
+		cancel();
+		mLoad = new Load(listener);
+		mLoad.start(mExecutor != null ? mExecutor : getDefaultExecutor());
+	}
+
+	/**
+	 * Load the feed into a ticker. The first news replaces what the ticker shows, all others are
+	 * appended to the rotation as they arrive.
+	 */
+	public void load(final NewsTickerView ticker) {
+		ticker.onStartLoading();
+		load(new Listener() {
+			public void onNewsParsed(List<NewsHolder> news, boolean bFirst) {
+				if ( bFirst ) {
+					ticker.setNews(news);
+				} else {
+					ticker.appendNews(news);
+				}
+			}
+
+			public void onSourceFinished(int count) {
+				if ( count == 0 ) {
+					ticker.onNoNewsFound();
+				}
+			}
+
+			public void onSourceFailed(IOException error) {
+				if ( !ticker.hasNews() ) {
+					ticker.onNewsLoadingFailed();
+				}
+			}
+		});
+	}
+
+	/** Cancel the running load, nothing is delivered afterwards */
+	public void cancel() {
+		if ( mLoad != null ) {
+			mLoad.cancel();
+			mLoad = null;
+		}
+	}
+
+	private static synchronized ExecutorService getDefaultExecutor() {
+		if ( sDefaultExecutor == null ) {
+			sDefaultExecutor = Executors.newCachedThreadPool(Utils.newBackgroundThreadFactory(TAG));
+		}
+		return sDefaultExecutor;
+	}
+
+	/**
+	 * A single load, the parser side runs on the executor and the delivery side on the thread that
+	 * started it.
+	 */
+	final class Load implements Runnable, NewsParser.Callback {
+		private final Listener mListener;
+		private final Handler mHandler = new Handler();
+		private final ArrayBlockingQueue<NewsHolder> mBuffer = new ArrayBlockingQueue<NewsHolder>(mBufferSize);
+		private final Filter mLoadFilter = mFilter;
+		private final int mLoadMaxNews = mMaxNews;
+		private final AtomicBoolean bDeliveryPosted = new AtomicBoolean();
+		private Future<?> mFuture;
+		private volatile boolean bCancelled = false;
+
+		/** Number of news handed to the buffer, parser thread only */
+		private int mParsed = 0;
+
+		/** Number of news delivered, delivery thread only */
+		private int mDelivered = 0;
+
+		/** Batch handed to the listener, reused */
+		private final ArrayList<NewsHolder> mBatch = new ArrayList<NewsHolder>();
+
+		private final Runnable mDeliver = new Runnable() {
+			public void run() {
+				bDeliveryPosted.set(false);
+				deliver();
+			}
+		};
+
+		Load(Listener listener) {
+			mListener = listener;
+		}
+
+		void start(ExecutorService executor) {
+			mFuture = executor.submit(this);
+		}
+
+		void cancel() {
+			bCancelled = true;
+			mFuture.cancel(true);
+			mHandler.removeCallbacks(mDeliver);
+		}
+
+		/** Parser side */
+		public void run() {
+			InputStream in = null;
+			IOException error = null;
+			try {
+				in = mOpener.open();
+				mParser.parse(in, this);
+			} catch ( IOException e ) {
+				error = e;
+			} catch ( RuntimeException e ) {
+				// A broken opener, filter or parser fails the load instead of the executor thread
+				error = new IOException("Failed to read feed: "+e);
+				error.initCause(e);
+			} catch ( InterruptedException e ) {
+				// Cancelled
+				return;
+			} finally {
+				if ( in != null ) {
+					try {
+						in.close();
+					} catch ( IOException e ) {
+						// Nothing we can do
+					}
+				}
+			}
+			final IOException result = error;
+			mHandler.post(new Runnable() {
+				public void run() {
+					finish(result);
+				}
+			});
+		}
+
+		public boolean onNews(NewsHolder news) throws InterruptedException {
+			if ( bCancelled ) {
+				return false;
+			}
+			if ( mLoadFilter != null ) {
+				news = mLoadFilter.filter(news);
+				if ( news == null ) {
+					return true;
+				}
+			}
+			// Blocks while the UI thread is behind
+			mBuffer.put(news);
+			mParsed++;
+			if ( bDeliveryPosted.compareAndSet(false, true) ) {
+				mHandler.postDelayed(mDeliver, mParsed == 1 ? 0 : DELIVERY_INTERVAL);
+			}
+			return mParsed < mLoadMaxNews;
+		}
+
+		/** Hand everything buffered to the listener */
+		private void deliver() {
+			if ( bCancelled ) {
+				return;
+			}
+			mBuffer.drainTo(mBatch);
+			if ( !mBatch.isEmpty() ) {
+				final boolean bFirst = mDelivered == 0;
+				mDelivered += mBatch.size();
+				mListener.onNewsParsed(mBatch, bFirst);
+				mBatch.clear();
+			}
+		}
+
+		private void finish(IOException error) {
+			if ( bCancelled ) {
+				return;
+			}
+			mHandler.removeCallbacks(mDeliver);
+			deliver();
+			if ( mLoad == this ) {
+				mLoad = null;
+			}
+			if ( error != null ) {
+				Log.e(TAG, "Failed to load feed after "+mDelivered+" news: "+Log.getStackTraceString(error));
+				mListener.onSourceFailed(error);
+			} else {
+				mListener.onSourceFinished(mDelivered);
+			}
+		}
+	}
+}
@@ -0,0 +1,451 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Memory lean storage for very large news lists. Instead of one {@link NewsHolder} with its strings per
+ * news all texts are packed into a single char buffer and all links, image URIs and ids into a byte
+ * buffer each, every one with an offset array, and the times and scheduling fields are kept in primitive arrays. A store with tens of thousands of news needs a
+ * handful of objects instead of three per news.
+ * <p>
+ * Holders and strings are only created when a news is accessed through {@link #get(int)} or the list view,
+ * pass the store to {@link NewsTickerView#setNews(NewsStore)} and the ticker only creates them for the
+ * news it shows. The accessors for single fields do not allocate anything but the returned string.
+ * <p>
+ * News can only be appended, a list view keeps seeing the news that were there when it got created.
+ * Like the ticker the store is not thread safe, fill it on one thread and hand it over when done. A list
+ * view only reads the part of the buffers that is never written again, it can be read from any thread
+ * while the store keeps growing.
+ */
+public final class NewsStore {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** Number of news */
+	private int mSize;
+
+	/** Time of every news in seconds */
+	private int[] mTimes;
+
+	/** Priority of every news, see {@link NewsHolder#mPriority} */
+	private int[] mPriorities;
+
+	/** Weight of every news, see {@link NewsHolder#mWeight} */
+	private int[] mWeights;
+
+	/** Expiry of every news, see {@link NewsHolder#mExpiry} */
+	private long[] mExpiries;
+
+	/** All texts back to back */
+	private char[] mText;
+
+	/** Start of the text of every news in mText, the entry after the last news holds the end */
+	private int[] mTextOffsets;
+
+	/** All links back to back */
+	private final ByteColumn mLinks;
+
+	/** All image URIs back to back, empty for news without an image */
+	private final ByteColumn mImages;
+
+	/** All ids given by the feed back to back, empty for news without one */
+	private final ByteColumn mIds;
+
+	public NewsStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/** Create a store with room for the given number of news */
+	public NewsStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+		mTimes = new int[capacity];
+		mPriorities = new int[capacity];
+		mWeights = new int[capacity];
+		mExpiries = new long[capacity];
+		mTextOffsets = new int[capacity + 1];
+		mText = new char[capacity*64];
+		mLinks = new ByteColumn(capacity, 48);
+		mImages = new ByteColumn(capacity, 0);
+		mIds = new ByteColumn(capacity, 0);
+	}
+
+	/** Create a store holding the given news */
+	public static NewsStore of(List<NewsHolder> news) {
+		final NewsStore store = new NewsStore(news.size());
+		final int count = news.size();
+		for ( int i = 0; i < count; i++ ) {
+			store.add(news.get(i));
+		}
+		return store;
+	}
+
+	/** Append a news */
+	public void add(NewsHolder news) {
+		append(news.mNews, news.mLink, news.mImage, news.mId, news.mTime, news.mPriority, news.mWeight, news.mExpiry);
+	}
+
+	/** Append a news without creating a holder for it */
+	public void add(String news, String link, int time) {
+		add(news, link, time, 0, 1, 0);
+	}
+
+	/** Append a scheduled news without creating a holder for it, see {@link NewsHolder#NewsHolder(String, String, int, int, int, long)} */
+	public void add(String news, String link, int time, int priority, int weight, long expiry) {
+		append(news, link, null, null, time, priority, weight, expiry);
+	}
+
+	private void append(String news, String link, String image, String id, int time, int priority, int weight, long expiry) {
+		if ( news == null ) {
+			news = "";
+		}
+		ensureCapacity(mSize + 1);
+
+		final int textStart = mTextOffsets[mSize];
+		mText = ensureChars(mText, textStart + news.length());
+		news.getChars(0, news.length(), mText, textStart);
+		mTextOffsets[mSize + 1] = textStart + news.length();
+
+		mLinks.set(mSize, link);
+		mImages.set(mSize, image);
+		mIds.set(mSize, id);
+		mTimes[mSize] = time;
+		mPriorities[mSize] = priority;
+		mWeights[mSize] = weight;
+		mExpiries[mSize] = expiry;
+		mSize++;
+	}
+
+	/** Number of news */
+	public int size() {
+		return mSize;
+	}
+
+	/** Time in seconds the news at the given position is shown */
+	public int getTime(int index) {
+		checkIndex(index);
+		return mTimes[index];
+	}
+
+	/** Priority of the news at the given position */
+	public int getPriority(int index) {
+		checkIndex(index);
+		return mPriorities[index];
+	}
+
+	/** Weight of the news at the given position */
+	public int getWeight(int index) {
+		checkIndex(index);
+		return mWeights[index];
+	}
+
+	/** Expiry of the news at the given position */
+	public long getExpiry(int index) {
+		checkIndex(index);
+		return mExpiries[index];
+	}
+
+	/** Text of the news at the given position */
+	public String getText(int index) {
+		checkIndex(index);
+		return textOf(mText, mTextOffsets, index);
+	}
+
+	/** Link of the news at the given position */
+	public String getLink(int index) {
+		checkIndex(index);
+		return mLinks.get(index);
+	}
+
+	/** Image URI of the news at the given position, null if it has none */
+	public String getImage(int index) {
+		checkIndex(index);
+		return mImages.getOrNull(index);
+	}
+
+	/** Id the feed gave the news at the given position, null if it has none, see {@link NewsHolder#mId} */
+	public String getId(int index) {
+		checkIndex(index);
+		return mIds.getOrNull(index);
+	}
+
+	/** Create a holder for the news at the given position, a new one on every call */
+	public NewsHolder get(int index) {
+		final NewsHolder news = new NewsHolder(getText(index), getLink(index), getTime(index), getPriority(index), getWeight(index), getExpiry(index));
+		news.mImage = getImage(index);
+		news.mId = getId(index);
+		return news;
+	}
+
+	/** Read only list view of the news stored right now, holders are created when accessed */
+	public List<NewsHolder> asList() {
+		return new StoreList(this);
+	}
+
+	/** Release the spare room of the buffers once the store is filled */
+	public void trimToSize() {
+		mTimes = copyOf(mTimes, mSize);
+		mPriorities = copyOf(mPriorities, mSize);
+		mWeights = copyOf(mWeights, mSize);
+		mExpiries = copyOf(mExpiries, mSize);
+		mTextOffsets = copyOf(mTextOffsets, mSize + 1);
+		final char[] text = new char[mTextOffsets[mSize]];
+		System.arraycopy(mText, 0, text, 0, text.length);
+		mText = text;
+		mLinks.trimToSize(mSize);
+		mImages.trimToSize(mSize);
+		mIds.trimToSize(mSize);
+	}
+
+	private void checkIndex(int index) {
+		if ( index < 0 || index >= mSize ) {
+			throw new IndexOutOfBoundsException("Index "+index+", size "+mSize);
+		}
+	}
+
+	private void ensureCapacity(int count) {
+		if ( count <= mTimes.length ) {
+			return;
+		}
+		final int capacity = Math.max(count, mTimes.length*2);
+		mTimes = copyOf(mTimes, capacity);
+		mPriorities = copyOf(mPriorities, capacity);
+		mWeights = copyOf(mWeights, capacity);
+		mExpiries = copyOf(mExpiries, capacity);
+		mTextOffsets = copyOf(mTextOffsets, capacity + 1);
+		mLinks.ensureCapacity(capacity, mSize);
+		mImages.ensureCapacity(capacity, mSize);
+		mIds.ensureCapacity(capacity, mSize);
+	}
+
+	private static String textOf(char[] text, int[] offsets, int index) {
+		final int start = offsets[index];
+		return new String(text, start, offsets[index + 1] - start);
+	}
+
+	private static boolean isLatin1(String string) {
+		final int length = string.length();
+		for ( int i = 0; i < length; i++ ) {
+			if ( string.charAt(i) > 0xFF ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		final int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		final long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private static char[] ensureChars(char[] array, int length) {
+		if ( length <= array.length ) {
+			return array;
+		}
+		final char[] grown = new char[Math.max(length, array.length*2)];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static byte[] ensureBytes(byte[] array, int length) {
+		if ( length <= array.length ) {
+			return array;
+		}
+		final byte[] grown = new byte[Math.max(length, array.length*2)];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	/**
+	 * Strings of every news back to back with an offset array, for the fields that are almost always plain
+	 * ASCII like links. Those are stored with a byte per char, any other string as UTF-8. Null is stored as
+	 * the empty string. Strings are only ever appended, a {@link #snapshot()} shares the buffers and keeps
+	 * reading the strings that were there when it got taken.
+	 */
+	static final class ByteColumn {
+		/** All strings back to back as ISO-8859-1 or UTF-8 */
+		private byte[] mBytes;
+
+		/** Start of every string in mBytes, the entry after the last string holds the end */
+		private int[] mOffsets;
+
+		/** Whether the string is stored as UTF-8 rather than a byte per char */
+		private boolean[] mWide;
+
+		ByteColumn(int capacity, int bytesPerString) {
+			mBytes = new byte[capacity*bytesPerString];
+			mOffsets = new int[capacity + 1];
+			mWide = new boolean[capacity];
+		}
+
+		private ByteColumn(byte[] bytes, int[] offsets, boolean[] wide) {
+			mBytes = bytes;
+			mOffsets = offsets;
+			mWide = wide;
+		}
+
+		/** A column reading the current buffers, appending to this one does not change it */
+		ByteColumn snapshot() {
+			return new ByteColumn(mBytes, mOffsets, mWide);
+		}
+
+		/** Store the string at the given position, which must be the number of strings stored so far */
+		void set(int index, String value) {
+			if ( value == null ) {
+				value = "";
+			}
+			final int start = mOffsets[index];
+			final boolean bWide = !isLatin1(value);
+			final byte[] utf8 = bWide ? Utils.toUtf8(value) : null;
+			final int length = bWide ? utf8.length : value.length();
+			mBytes = ensureBytes(mBytes, start + length);
+			if ( bWide ) {
+				System.arraycopy(utf8, 0, mBytes, start, length);
+			} else {
+				for ( int i = 0; i < length; i++ ) {
+					mBytes[start + i] = (byte) value.charAt(i);
+				}
+			}
+			mOffsets[index + 1] = start + length;
+			mWide[index] = bWide;
+		}
+
+		String get(int index) {
+			final int start = mOffsets[index];
+			final int length = mOffsets[index + 1] - start;
+			if ( mWide[index] ) {
+				return Utils.fromUtf8(mBytes, start, length);
+			}
+			final char[] chars = new char[length];
+			for ( int i = 0; i < length; i++ ) {
+				chars[i] = (char) (mBytes[start + i] & 0xFF);
+			}
+			return new String(chars);
+		}
+
+		/** The string at the given position, null if it is empty */
+		String getOrNull(int index) {
+			return mOffsets[index + 1] > mOffsets[index] ? get(index) : null;
+		}
+
+		byte[] getUtf8(int index) {
+			final int start = mOffsets[index];
+			final int length = mOffsets[index + 1] - start;
+			if ( mWide[index] ) {
+				final byte[] bytes = new byte[length];
+				System.arraycopy(mBytes, start, bytes, 0, length);
+				return bytes;
+			}
+			return Utils.latin1ToUtf8(mBytes, start, length);
+		}
+
+		void ensureCapacity(int capacity, int size) {
+			mOffsets = copyOf(mOffsets, capacity + 1);
+			final boolean[] wide = new boolean[capacity];
+			System.arraycopy(mWide, 0, wide, 0, size);
+			mWide = wide;
+		}
+
+		void trimToSize(int size) {
+			ensureCapacity(size, size);
+			final byte[] bytes = new byte[mOffsets[size]];
+			System.arraycopy(mBytes, 0, bytes, 0, bytes.length);
+			mBytes = bytes;
+		}
+	}
+
+	/**
+	 * Read only list view of the first news of the store. Holds on to the buffers of the store as they
+	 * were when it got created, the store only ever writes past them or into new buffers.
+	 */
+	static final class StoreList extends AbstractList<NewsHolder> implements RandomAccess, NewsRecords {
+		private final int mCount;
+		private final int[] mTimes;
+		private final int[] mPriorities;
+		private final int[] mWeights;
+		private final long[] mExpiries;
+		private final char[] mText;
+		private final int[] mTextOffsets;
+		private final ByteColumn mLinks;
+		private final ByteColumn mImages;
+		private final ByteColumn mIds;
+
+		StoreList(NewsStore store) {
+			mCount = store.mSize;
+			mTimes = store.mTimes;
+			mPriorities = store.mPriorities;
+			mWeights = store.mWeights;
+			mExpiries = store.mExpiries;
+			mText = store.mText;
+			mTextOffsets = store.mTextOffsets;
+			mLinks = store.mLinks.snapshot();
+			mImages = store.mImages.snapshot();
+			mIds = store.mIds.snapshot();
+		}
+
+		@Override
+		public NewsHolder get(int index) {
+			checkIndex(index);
+			final NewsHolder news = new NewsHolder(textOf(mText, mTextOffsets, index), mLinks.get(index), mTimes[index],
+					mPriorities[index], mWeights[index], mExpiries[index]);
+			news.mImage = mImages.getOrNull(index);
+			news.mId = mIds.getOrNull(index);
+			return news;
+		}
+
+		@Override
+		public int size() {
+			return mCount;
+		}
+
+		public int getTime(int index) {
+			checkIndex(index);
+			return mTimes[index];
+		}
+
+		public int getPriority(int index) {
+			checkIndex(index);
+			return mPriorities[index];
+		}
+
+		public int getWeight(int index) {
+			checkIndex(index);
+			return mWeights[index];
+		}
+
+		public long getExpiry(int index) {
+			checkIndex(index);
+			return mExpiries[index];
+		}
+
+		public byte[] getUtf8(int index, int field) {
+			checkIndex(index);
+			switch ( field ) {
+				case FIELD_TEXT:
+					final int start = mTextOffsets[index];
+					return Utils.toUtf8(mText, start, mTextOffsets[index + 1] - start);
+				case FIELD_LINK:
+					return mLinks.getUtf8(index);
+				case FIELD_IMAGE:
+					return mImages.getUtf8(index);
+				case FIELD_ID:
+					return mIds.getUtf8(index);
+				default:
+					throw new IllegalArgumentException("Unknown field "+field);
+			}
+		}
+
+		private void checkIndex(int index) {
+			if ( index < 0 || index >= mCount ) {
+				throw new IndexOutOfBoundsException("Index "+index+", size "+mCount);
+			}
+		}
+	}
+}
@@ -1,25 +1,39 @@
 package com.mystictreegames.ui.newstickerview;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
-import android.net.Uri;
+import android.graphics.drawable.Drawable;
 import android.os.Handler;
 import android.os.Message;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.View.OnTouchListener;
+import android.view.ViewGroup;
+import android.view.WindowManager;
 import android.view.animation.Animation;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -35,6 +49,9 @@ import android.widget.TextView;
  * Clicking on the ticker will open the assigned URL which can be a simple URI for the intent system. Swiping
  * will change to the next news.
  * <p>
+ * Like any view the ticker must be used from the UI thread. The only exception is {@link #publishNews(List)}
+ * which hands a news snapshot over from any thread without locking.
+ * <p>
  * <b>TODO:</b>
  * <ul>
  * <li>News counter: add a page like or bullet list type feature so the user knows how many news and in which one they are</li>
@@ -45,24 +62,101 @@ import android.widget.TextView;
 public class NewsTickerView extends TextView implements OnTouchListener {
 	public static final String TAG = "NewsTickerView";
 	
-	/** Our news list */
-	private List<NewsHolder> mNewsList = null;
+	/**
+	 * Our news list, an unmodifiable snapshot that gets replaced on every change. Only written on the
+	 * UI thread, volatile so publishers can diff against it from their own thread.
+	 */
+	private volatile List<NewsHolder> mNewsList = null;
+	
+	/** Latest news snapshot published from any thread, picked up by the UI thread */
+	private final AtomicReference<PendingNews> mPendingNews = new AtomicReference<PendingNews>();
 	
-	public static final int DEFAULT_UPDATE_RATE = 10;
+	/** The news currently shown, stays valid even if it got removed from the list */
+	private NewsHolder mCurrentNews = null;
+	
+	public static final int DEFAULT_UPDATE_RATE = NewsCycle.DEFAULT_UPDATE_RATE;
 	public static final int MIN_UPDATE_RATE = 2;
 	
+	/** @deprecated Fades are frame synchronized now, this step rate is not used anymore */
+	@Deprecated
 	public static final int FADE_ANIMATION_RATE = 33;
+	/** @deprecated Fades are frame synchronized now, this step rate is not used anymore */
+	@Deprecated
 	public static final float FADE_ANIMATION_RATE_SECS = FADE_ANIMATION_RATE/1000.f;
-	public static final int FADE_TIME = 1;
+	public static final int FADE_TIME = NewsCycle.FADE_DURATION/1000;
+	
+	/** Duration of a single fade in milliseconds */
+	public static final int FADE_DURATION = NewsCycle.FADE_DURATION;
+	
+	/** Show one news at a time and swap them after their time ran out */
+	public static final int TICKER_MODE_PAGED = 0;
+	
+	/** Scroll all news continuously from right to left like a stock ticker */
+	public static final int TICKER_MODE_SCROLL = 1;
+	
+	/** Default scroll speed of the scroll mode in pixels per second */
+	public static final int DEFAULT_SCROLL_SPEED = 80;
+	
+	/** Duration of the crossfade that brings in breaking news */
+	public static final int BREAKING_NEWS_TRANSITION_DURATION = 300;
+	
+	/** Number of news looked at for an unseen one before the rotation simply goes on */
+	public static final int UNSEEN_SCAN_LIMIT = NewsRotation.UNSEEN_SCAN_LIMIT;
+	
+	/** Number of upcoming news whose text layouts are built in advance */
+	public static final int LAYOUT_PREFETCH_COUNT = 3;
+	
+	/** Systrace section names, only emitted while metrics are set */
+	private static final String TRACE_CHANGE_NEWS = "NewsTicker#changeNews";
+	private static final String TRACE_DRAW = "NewsTicker#onDraw";
+	private static final String TRACE_FADE = "NewsTicker#fade";
+	
+	/** Fade by changing the alpha of the text color, redraws the text every frame */
+	public static final int FADE_MODE_TEXT_COLOR = 0;
 	
-	/** Number of move action to be considered a swipe */
+	/** Fade by changing the alpha of the view, rendered through a hardware layer held during the fade */
+	public static final int FADE_MODE_LAYER_ALPHA = 1;
+	
+	/** @deprecated Swipes are detected by distance and velocity now, this threshold is not used anymore */
+	@Deprecated
 	public static final int MOVE_ACTOIN_THRESHOLD = 3;
 	
-	/** Current applied alpha value */
-	private float mFadeAlpha = 1;
+	/** Fades, transitions, dwell time and time line of the paged mode, shared with the {@link TickerSimulation} */
+	private final NewsCycle mCycle = new NewsCycle(new NewsCycle.Host() {
+		public void onNewsTimeout() {
+			NewsTickerView.this.onNewsTimeout();
+		}
+		
+		public void onFadedOut() {
+			fadedOut();
+		}
+		
+		public void onFadedIn() {
+			fadedIn();
+		}
+		
+		public void onTransitionFinished() {
+			transitionFinished();
+		}
+		
+		public void onFadeFrame(long frameTime) {
+			onFadeFrameChanged(frameTime);
+		}
+		
+		public void onTransitionFrame() {
+			invalidate();
+		}
+		
+		public void postFrame() {
+			mFrameDriver.postFrame();
+		}
+	});
+	
+	/** Time based fade animation, holds the currently applied alpha value */
+	private final FadeAnimator mFadeAnimator = mCycle.getFade();
 
-	/** THe index that points to the current news */
-	private int mIndex = -1;
+	/** Position of the current news and the pick of the next one */
+	private final NewsRotation mRotation = new NewsRotation();
 	
 	/** Loading text */
 	private String mLoadingText = "";
@@ -76,26 +170,224 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	/** Controls whether we has been detached */
 	private boolean bDetached = false;
 	
-	/** Last registered motion event */
-	private int mLastMotionEvent = -1;
+	/** Whether all scheduling is paused, we start paused until we get attached */
+	private boolean bPaused = true;
+	
+	/** Paused through {@link #pause()} by the app */
+	private boolean bUserPaused = false;
+	
+	/** Whether the screen is on, only reported on Jelly Bean and above */
+	private boolean bScreenOn = true;
+	
+	/** A news change was requested while paused, start over with it once resumed */
+	private boolean bChangeOnResume = false;
+	
+	/** Detects taps, drags and swipes */
+	private final SwipeDetector mSwipeDetector;
+	
+	/** Whether the news follow a drag of the user */
+	private boolean bDragging = false;
+	
+	/** Direction of the news shown next to the dragged one, 1 for the next news, -1 for the previous one, 0 if none yet */
+	private int mDragDirection = 0;
 	
-	/** NUmber of move events, a swipe needs at least 3 move events */
-	private int mNumMoveEvent = 0;
+	/** A drag got released towards a news, the next news change finishes it */
+	private boolean bDragCommitted = false;
+	
+	/** Finishes a released drag */
+	private final NewsTransition.DragSlide mDragTransition = new NewsTransition.DragSlide();
+	
+	/** The news a forward and a backward drag bring in, prepared when the drag starts */
+	private final DragNeighbour mDragNext = new DragNeighbour();
+	private final DragNeighbour mDragPrevious = new DragNeighbour();
 	
 	/** The news animation handler that will swap to the next news time by time */
 	private NewsTickerHandler mNewsTickerHandler;
 	
-	/** Fade in/out handler */
-	private FadeAnimationHandler mFadeAnimationHandler;
+	/** How fades are applied, one of {@link #FADE_MODE_TEXT_COLOR} or {@link #FADE_MODE_LAYER_ALPHA} */
+	private int mFadeMode = Compat.hasViewAlpha() ? FADE_MODE_LAYER_ALPHA : FADE_MODE_TEXT_COLOR;
+	
+	/** Text colors set by the user, the text color fade modulates the alpha of the color of the current state */
+	private ColorStateList mBaseTextColors;
+	
+	/** Set while we apply the faded text color so it is not taken as the new base color */
+	private boolean bApplyingTextAlpha = false;
+	
+	/** Alpha set on the view by the user, the layer alpha fade is applied on top of it */
+	private float mBaseAlpha = 1.f;
+	
+	/** Set while we apply the faded view alpha so it is not taken as the new base alpha */
+	private boolean bApplyingViewAlpha = false;
+	
+	/** How the news are presented, one of {@link #TICKER_MODE_PAGED} or {@link #TICKER_MODE_SCROLL} */
+	private int mTickerMode = TICKER_MODE_PAGED;
+	
+	/** Scroll speed in pixels per second */
+	private float mScrollSpeed = DEFAULT_SCROLL_SPEED;
+	
+	/** Pre-rendered tiles of the scroll mode */
+	private final ScrollStrip mScrollStrip = new ScrollStrip();
+	
+	/** Transition used to swap news, null for the classic fade-out, fade-in */
+	private NewsTransition mTransition = null;
+	
+	/** Transition that is running or about to run, the configured one or the one of breaking news */
+	private NewsTransition mRunningTransition = null;
+	
+	/** Transition used to bring in breaking news */
+	private final NewsTransition mBreakingTransition = new NewsTransition.Crossfade(BREAKING_NEWS_TRANSITION_DURATION);
+	
+	/** Breaking news waiting to be shown, they go before the rotation */
+	private final LinkedList<NewsHolder> mBreakingNews = new LinkedList<NewsHolder>();
+	
+	/** Positions of the upcoming news whose layouts are prefetched, reused */
+	private final int[] mUpcoming = new int[LAYOUT_PREFETCH_COUNT];
+	
+	/** Whether the shown news is a breaking news rather than one of the list */
+	private boolean bShowingBreakingNews = false;
+	
+	/** Whether news are drawn from precomputed layouts instead of being set as text */
+	private boolean bPrecomputedLayouts = false;
+	
+	/** Layouts of the current and upcoming news */
+	private final TextLayoutCache mLayoutCache = new TextLayoutCache(TextLayoutCache.DEFAULT_MAX_SIZE);
+	
+	/** Layout the current news is drawn from, null if the text view draws its text */
+	private StaticLayout mNewsLayout = null;
+	
+	/**
+	 * Line settings of the text view the layouts are built with, 0 lines for no limit. The text view
+	 * applies its attributes while it gets constructed, so these must not have an initializer.
+	 */
+	private int mMaxLines;
+	private boolean bHorizontallyScrolling;
 	
-	/** Will go from 0 to 1, used to handle the time left until the next news swap */
-	private float mTimeLeft = 0;
+	/** Whether the dwell time of a news is estimated from its text instead of using its time */
+	private boolean bAdaptiveDwell = false;
 	
-	/** Current time the news will be active */
-	private long mTimeToHandle;
+	/** Estimates and caches the dwell times of the adaptive mode */
+	private final ReadingTime mReadingTime = new ReadingTime();
 	
-	/** Time we started showing the current news */
-	private long mStartTime;
+	/** Progress of the running transition, runs like a fade in from 0 to 1 */
+	private final FadeAnimator mTransitionAnimator = mCycle.getTransition();
+	
+	/** Render snapshots of the outgoing and incoming news */
+	private final SnapshotCache mSnapshots = new SnapshotCache();
+	
+	/** Paint used to draw the snapshots */
+	private final Paint mSnapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+	
+	/** Vsync driven frame source used for the fades */
+	private FrameDriver mFrameDriver;
+	
+	/** Receives the frames of our frame driver */
+	private final FrameDriver.Callback mFrameCallback = new FrameDriver.Callback() {
+		public void doFrame(long frameTimeMillis) {
+			onAnimationFrame(frameTimeMillis);
+		}
+	};
+	
+	/** Geometry and countdown of the time line */
+	private final TimeLine mTimeLine = mCycle.getTimeLine();
+	
+	/** Updates the time line whenever it shrank by a pixel */
+	private final Runnable mTimeLineTick = new Runnable() {
+		public void run() {
+			updateTimeLine();
+		}
+	};
+	
+	/** Fired once the current news has been shown long enough */
+	private final Runnable mDwellTimeout = new Runnable() {
+		public void run() {
+			if ( mMetrics != null ) {
+				final long now = TickerClock.get().uptimeMillis();
+				mMetrics.record(TickerMetrics.EVENT_SWAP_LATENCY, now - mDwellTimer.getFiredWakeUpTime(), now);
+			}
+			if ( isTickerRunning() ) {
+				markSeen(mCurrentNews);
+				mCycle.onDwellTimeout();
+			}
+		}
+	};
+	
+	/** Timer of the dwell time of the current news */
+	private TickerTimer mDwellTimer;
+	
+	/** Timer of the next time line update */
+	private TickerTimer mTimeLineTimer;
+	
+	/** Whether our frames and timers are served by the shared {@link TickerScheduler} */
+	private boolean bUseSharedScheduler = false;
+	
+	/** Name of the sync group we change news in lockstep with, null if none */
+	private String mSyncGroup = null;
+	
+	/** Cache the news of our feed are persisted in, null until first needed */
+	private NewsCache mNewsCache = null;
+	
+	/** Id of the feed our news are cached under, null if they are not cached */
+	private String mFeedId = null;
+	
+	/** Whether the news shown came from the cache and are still waiting for fresh ones */
+	private boolean bShowingCachedNews = false;
+	
+	/** Resolves the links of news before they get tapped, null until first needed */
+	private LinkResolver mLinkResolver = null;
+	
+	/** Whether the images of the news are shown next to their text */
+	private boolean bShowImages = false;
+	
+	/** Holds the image of the current news, set as left compound drawable while images are shown */
+	private final ThumbnailDrawable mThumbnail = new ThumbnailDrawable();
+	
+	/** Renders the image of the news next to the dragged one */
+	private final ThumbnailDrawable mDragThumbnail = new ThumbnailDrawable();
+	
+	/** Side of the square image slot in pixels, 0 while there is none */
+	private int mThumbnailSize = 0;
+	
+	/** Key of the image of the current news, null if it has none */
+	private String mThumbnailKey = null;
+	
+	/** Decodes and caches the images of the news, null until first needed */
+	private ThumbnailCache mThumbnailCache = null;
+	
+	/** Shows the image of the current news once it got loaded in the background */
+	private final ThumbnailCache.Callback mThumbnailCallback = new ThumbnailCache.Callback() {
+		public void onThumbnailLoaded(String key) {
+			if ( key.equals(mThumbnailKey) && mThumbnail.getBitmap() == null ) {
+				showThumbnail(mCurrentNews);
+			}
+		}
+	};
+	
+	/** Whether news that were not shown yet go first */
+	private boolean bPreferUnseen = false;
+	
+	/** Ids of the news shown for their whole dwell time or tapped, null until first needed */
+	private SeenFilter mSeen = null;
+	
+	/** Whether news got seen since the seen news were stored */
+	private boolean bSeenChanged = false;
+	
+	/** Performance metrics we record into, null if disabled */
+	private TickerMetrics mMetrics;
+	
+	/** Counts our invalidates for the metrics */
+	private final TickerMetrics.InvalidateCounter mInvalidateCounter = new TickerMetrics.InvalidateCounter();
+	
+	/** Time the current news got shown */
+	private long mNewsShownAt = -1;
+	
+	/** Time of the last frame of the running fade, -1 before its first frame */
+	private long mLastFadeFrameTime = -1;
+	
+	/** Pages held while the news are paged from a {@link NewsPageSource}, null otherwise */
+	private NewsWindow mNewsWindow = null;
+	
+	/** Changes with every page source so pages of an old one are ignored */
+	private int mPageGeneration = 0;
 	
 	/** Paint instance used to draw a thin line tat indicates when the news get's swapped */
 	private Paint mTimeLeftPaint = new Paint();
@@ -130,6 +422,7 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	public NewsTickerView(Context context) {
 		super(context);
 		
+		mSwipeDetector = new SwipeDetector(context);
 		setOnTouchListener(this);
 		init();
 	}
@@ -155,17 +448,38 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 		mNoNewsText = attributes.getString(R.styleable.NewsTickerView_noNewsText);
 		if ( mNoNewsText == null )
 			mNoNewsText = getResources().getString(R.string.newsticker_nonewstext);
+		final int fadeMode = attributes.getInt(R.styleable.NewsTickerView_fadeMode, mFadeMode);
+		final int transitionDuration = attributes.getInt(R.styleable.NewsTickerView_transitionDuration, NewsTransition.DEFAULT_DURATION);
+		mTransition = NewsTransition.create(attributes.getInt(R.styleable.NewsTickerView_transition, NewsTransition.TYPE_FADE), transitionDuration);
+		mTickerMode = attributes.getInt(R.styleable.NewsTickerView_tickerMode, mTickerMode);
+		mScrollSpeed = attributes.getInt(R.styleable.NewsTickerView_scrollSpeed, DEFAULT_SCROLL_SPEED);
+		final boolean bSharedScheduler = attributes.getBoolean(R.styleable.NewsTickerView_sharedScheduler, false);
+		final String syncGroup = attributes.getString(R.styleable.NewsTickerView_syncGroup);
+		mFeedId = attributes.getString(R.styleable.NewsTickerView_feedId);
+		final int readingSpeed = attributes.getInt(R.styleable.NewsTickerView_readingSpeed, 0);
+		if ( readingSpeed > 0 ) {
+			mReadingTime.setWordsPerMinute(readingSpeed);
+			bAdaptiveDwell = true;
+		}
+		bShowImages = attributes.getBoolean(R.styleable.NewsTickerView_showImages, false);
+		bPreferUnseen = attributes.getBoolean(R.styleable.NewsTickerView_preferUnseen, false);
 		attributes.recycle();
 		
+		mSwipeDetector = new SwipeDetector(context);
 		setOnTouchListener(this);
 		init();
+		setFadeMode(fadeMode);
+		setUseSharedScheduler(bSharedScheduler);
+		setSyncGroup(syncGroup);
 	}
 	
 	private void init() {
 		// Get rid of any text that could be in here. We will set the news for it
 		setText("");
 		mNewsTickerHandler = new NewsTickerHandler(this);
-		mFadeAnimationHandler = new FadeAnimationHandler(this);
+		createScheduling();
+		mBaseTextColors = getTextColors();
+		mBaseAlpha = Compat.getAlpha(this);
 		mTimeLeftPaint.setColor(mTimeLineColor);
 		mTimeLeftPaint.setStrokeWidth(mTimeLineWidth);
 	}
@@ -175,6 +489,554 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 		mListener = listener;
 	}
 	
+	/**
+	 * Set how the news get faded in and out. {@link #FADE_MODE_LAYER_ALPHA} leaves the text untouched and
+	 * is only available on Honeycomb and above, older devices always use {@link #FADE_MODE_TEXT_COLOR}.
+	 */
+	public void setFadeMode(int fadeMode) {
+		if ( fadeMode == FADE_MODE_LAYER_ALPHA && !Compat.hasViewAlpha() ) {
+			fadeMode = FADE_MODE_TEXT_COLOR;
+		}
+		if ( fadeMode != mFadeMode ) {
+			// Reset whatever the old mode applied
+			final float alpha = mFadeAnimator.getAlpha();
+			mFadeAnimator.setAlpha(1.f);
+			updateTextAlpha();
+			Compat.setHardwareLayer(this, false);
+			mFadeMode = fadeMode;
+			mFadeAnimator.setAlpha(alpha);
+			updateTextAlpha();
+		}
+	}
+	
+	/** The current fade mode */
+	public int getFadeMode() {
+		return mFadeMode;
+	}
+	
+	/**
+	 * Set the transition used to swap news. Passing null restores the classic fade-out and fade-in
+	 * configured through {@link #setFadeMode(int)}.
+	 */
+	public void setTransition(NewsTransition transition) {
+		mTransition = transition;
+		if ( transition == null ) {
+			mTransitionAnimator.cancel();
+			mSnapshots.release();
+			invalidate();
+		}
+	}
+	
+	/**
+	 * Pick the next news by the priority, weight and expiry of the news instead of showing them in
+	 * order, see {@link NewsHolder#mPriority}. Expired news are skipped, once all of them expired the
+	 * ticker shows the no news text until new news arrive.
+	 */
+	public void setScheduledRotation(boolean scheduled) {
+		mRotation.setScheduled(scheduled, mNewsList);
+	}
+	
+	/** Whether the news are picked by priority, weight and expiry */
+	public boolean isScheduledRotation() {
+		return mRotation.isScheduled();
+	}
+	
+	/**
+	 * Show a breaking news right away. The current news is cut short and the breaking news crossfades
+	 * in, once its time ran out the rotation continues where it was. Only the paged mode shows breaking
+	 * news, while loading or paused they wait for the next news change.
+	 */
+	public void showBreakingNews(NewsHolder news) {
+		if ( news == null ) {
+			return;
+		}
+		mBreakingNews.add(news);
+		if ( !bIsLoadingNews && !bLoadingError && hasNews() && mTickerMode == TICKER_MODE_PAGED ) {
+			mCycle.cancelDwell();
+			mTransitionAnimator.cancel();
+			changeNews();
+		}
+	}
+	
+	/**
+	 * Record performance metrics of this ticker into the given metrics, null to stop recording. See
+	 * {@link TickerMetrics} for what gets recorded.
+	 */
+	public void setMetrics(TickerMetrics metrics) {
+		mMetrics = metrics;
+		mLastFadeFrameTime = -1;
+		mInvalidateCounter.reset();
+	}
+	
+	/** The metrics we record into, null if none */
+	public TickerMetrics getMetrics() {
+		return mMetrics;
+	}
+	
+	/**
+	 * Draw the news from text layouts that are built in advance on a background thread instead of
+	 * setting them as the text of the view. Swapping news then neither measures text nor requests a
+	 * layout pass. The layouts follow the lines, maximum lines and ellipsize settings of the view.
+	 * A view with a wrap_content width or height sizes itself to its text, it keeps setting the news as
+	 * text so use a fixed or match_parent size. Loading and error texts are always set as text.
+	 */
+	public void setPrecomputedLayouts(boolean precomputed) {
+		if ( precomputed == bPrecomputedLayouts ) {
+			return;
+		}
+		bPrecomputedLayouts = precomputed;
+		if ( !precomputed ) {
+			mLayoutCache.clear();
+			if ( mNewsLayout != null && mCurrentNews != null ) {
+				setText(mCurrentNews.mNews);
+			}
+		} else if ( mCurrentNews != null && !bIsLoadingNews && !bLoadingError && mTickerMode == TICKER_MODE_PAGED ) {
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	/** Whether news are drawn from precomputed layouts */
+	public boolean isUsingPrecomputedLayouts() {
+		return bPrecomputedLayouts;
+	}
+	
+	@Override
+	public void setText(CharSequence text, BufferType type) {
+		// Any text set on the text view replaces the layout of the news
+		mNewsLayout = null;
+		super.setText(text, type);
+	}
+	
+	@Override
+	public void setTextSize(int unit, float size) {
+		super.setTextSize(unit, size);
+		if ( mNewsLayout != null ) {
+			// Our fields are initialized as we have a layout, rebuild it with the new size
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	@Override
+	public void setLines(int lines) {
+		mMaxLines = lines;
+		super.setLines(lines);
+		if ( mNewsLayout != null ) {
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	@Override
+	public void setMaxLines(int maxLines) {
+		mMaxLines = maxLines;
+		super.setMaxLines(maxLines);
+		if ( mNewsLayout != null ) {
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	@Override
+	public void setHorizontallyScrolling(boolean whether) {
+		// Single line views scroll horizontally
+		bHorizontallyScrolling = whether;
+		super.setHorizontallyScrolling(whether);
+		if ( mNewsLayout != null ) {
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	@Override
+	public void setEllipsize(TextUtils.TruncateAt where) {
+		super.setEllipsize(where);
+		if ( mNewsLayout != null ) {
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	/**
+	 * Show every news as long as it takes to read it instead of for its fixed time. The dwell time
+	 * is estimated from the words of the news at the reading speed, plus some time for every line it
+	 * wraps to at the current width, and is clamped by {@link #setDwellTimeBounds(int, int)}.
+	 */
+	public void setAdaptiveDwell(boolean adaptive) {
+		bAdaptiveDwell = adaptive;
+	}
+	
+	/** Whether dwell times are estimated from the text of the news */
+	public boolean isAdaptiveDwell() {
+		return bAdaptiveDwell;
+	}
+	
+	/** Set the reading speed of the adaptive dwell time in words per minute */
+	public void setReadingSpeed(int wordsPerMinute) {
+		mReadingTime.setWordsPerMinute(wordsPerMinute);
+	}
+	
+	/** Reading speed of the adaptive dwell time in words per minute */
+	public int getReadingSpeed() {
+		return mReadingTime.getWordsPerMinute();
+	}
+	
+	/** Set the shortest and longest adaptive dwell time in milliseconds */
+	public void setDwellTimeBounds(int minMillis, int maxMillis) {
+		mReadingTime.setBounds(Math.max(FADE_DURATION, minMillis), maxMillis);
+	}
+	
+	/**
+	 * Show the image of every news next to its text, see {@link NewsHolder#mImage}. Images are loaded
+	 * and downsampled in the background into a memory bounded cache shared by all tickers, the image
+	 * of the next news is loaded while the current one is shown. Only the paged mode shows images.
+	 * <p>
+	 * Images are fit into a square slot as high as the text area which is set as the left compound
+	 * drawable, use drawablePadding to space it from the text. The slot stays while images are shown
+	 * so swapping news never changes the layout, news without an image leave it empty.
+	 */
+	public void setShowImages(boolean show) {
+		if ( show != bShowImages ) {
+			bShowImages = show;
+			updateThumbnailSlot();
+		}
+	}
+	
+	/** Whether the images of the news are shown */
+	public boolean isShowingImages() {
+		return bShowImages;
+	}
+	
+	/**
+	 * Show the news that were not seen yet before the ones that were. A news counts as seen once it was
+	 * shown for its whole dwell time or got tapped. The seen news are kept in a filter of fixed size that
+	 * remembers the last few thousand of them and is stored with the news cache under our feed id
+	 * whenever we pause, see {@link #setFeedId(String)}. Only the round robin rotation prefers unseen
+	 * news, the scheduled one goes by priority.
+	 */
+	public void setPreferUnseen(boolean prefer) {
+		bPreferUnseen = prefer;
+		if ( prefer ) {
+			loadSeen();
+		}
+		mRotation.setSeen(prefer ? mSeen : null);
+	}
+	
+	/** Whether news that were not seen yet go first */
+	public boolean isPreferringUnseen() {
+		return bPreferUnseen;
+	}
+	
+	/** Whether a news was seen, might rarely be true for a news that was not. Only tracked while unseen news are preferred. */
+	public boolean isSeen(NewsHolder news) {
+		return news != null && mSeen != null && mSeen.contains(news.getId());
+	}
+	
+	/** Forget which news were seen */
+	public void clearSeen() {
+		if ( mSeen != null ) {
+			mSeen.clear();
+			bSeenChanged = true;
+		}
+	}
+	
+	/** Remember that a news got seen */
+	private void markSeen(NewsHolder news) {
+		if ( bPreferUnseen && news != null ) {
+			loadSeen();
+			bSeenChanged |= mSeen.add(news.getId());
+		}
+	}
+	
+	/** Load the seen news of our feed unless we have them already */
+	private void loadSeen() {
+		if ( mSeen != null ) {
+			return;
+		}
+		if ( mFeedId != null && !isInEditMode() ) {
+			mSeen = SeenFilter.fromByteArray(getNewsCache().loadSeen(mFeedId));
+		}
+		if ( mSeen == null ) {
+			mSeen = new SeenFilter();
+		}
+		mRotation.setSeen(bPreferUnseen ? mSeen : null);
+	}
+	
+	/** Store the seen news under our feed id if they changed */
+	private void storeSeen() {
+		if ( bSeenChanged && mSeen != null && mFeedId != null && !isInEditMode() ) {
+			getNewsCache().storeSeenAsync(mFeedId, mSeen.toByteArray());
+		}
+		bSeenChanged = false;
+	}
+	
+	/** Time in milliseconds the given news is shown, not counting fades or transitions */
+	protected long getDwellMillis(NewsHolder news) {
+		if ( bAdaptiveDwell ) {
+			final int width = getWidth() - getCompoundPaddingLeft() - getCompoundPaddingRight();
+			return mReadingTime.getDwellMillis(news, getPaint(), width);
+		}
+		return news.mTime*1000L;
+	}
+	
+	/** Show the text of a news, from its precomputed layout if enabled, and its image */
+	private void showNewsText(NewsHolder news) {
+		if ( bPrecomputedLayouts && !isWrappingText() && updateLayoutStyle() ) {
+			if ( getText().length() > 0 ) {
+				setText("");
+			}
+			mNewsLayout = mLayoutCache.obtain(news.mNews != null ? news.mNews : "");
+			invalidate();
+			prefetchLayouts();
+		} else {
+			setText(news.mNews);
+		}
+		showThumbnail(news);
+	}
+	
+	/**
+	 * Fit the image slot to the height of the text area, or remove it if images are not shown. The
+	 * shown news is laid out again for the changed text width.
+	 */
+	private void updateThumbnailSlot() {
+		final int size = bShowImages ? Math.max(0, getHeight() - getPaddingTop() - getPaddingBottom()) : 0;
+		if ( size == mThumbnailSize ) {
+			return;
+		}
+		releaseThumbnail();
+		mThumbnailSize = size;
+		mThumbnail.setBounds(0, 0, size, size);
+		mDragThumbnail.setBounds(0, 0, size, size);
+		final Drawable[] drawables = getCompoundDrawables();
+		setCompoundDrawables(size > 0 ? mThumbnail : null, drawables[1], drawables[2], drawables[3]);
+		if ( mCurrentNews != null && !bIsLoadingNews && !bLoadingError && mTickerMode == TICKER_MODE_PAGED ) {
+			showNewsText(mCurrentNews);
+		}
+	}
+	
+	/** Show the image of a news in the slot, it gets loaded in the background if it is not cached */
+	private void showThumbnail(NewsHolder news) {
+		final boolean bShow = mThumbnailSize > 0 && news != null && news.hasImage() && !isInEditMode();
+		final String key = bShow ? ThumbnailCache.keyOf(news.mImage, mThumbnailSize) : null;
+		if ( key != null && key.equals(mThumbnailKey) && mThumbnail.getBitmap() != null ) {
+			return;
+		}
+		releaseThumbnail();
+		mThumbnailKey = key;
+		if ( bShow ) {
+			mThumbnail.setBitmap(getThumbnailCache().acquire(news.mImage, mThumbnailSize, mThumbnailCallback));
+		}
+	}
+	
+	/** Empty the image slot and let the cache evict the image */
+	private void releaseThumbnail() {
+		if ( mThumbnail.getBitmap() != null ) {
+			getThumbnailCache().release(mThumbnailKey);
+			mThumbnail.setBitmap(null);
+		}
+		mThumbnailKey = null;
+	}
+	
+	/** Load the image of the next news while the current one is shown */
+	private void prefetchThumbnail() {
+		final NewsHolder next = peekNextNews();
+		if ( mThumbnailSize > 0 && next != null && next.hasImage() && !isInEditMode() ) {
+			getThumbnailCache().prefetch(next.mImage, mThumbnailSize);
+		}
+	}
+	
+	private ThumbnailCache getThumbnailCache() {
+		if ( mThumbnailCache == null ) {
+			mThumbnailCache = ThumbnailCache.getDefault(getContext());
+		}
+		return mThumbnailCache;
+	}
+	
+	/** Draw an image drawable where the text view draws its left compound drawable */
+	private void drawThumbnail(Canvas canvas, ThumbnailDrawable thumbnail) {
+		final int compoundPaddingTop = getCompoundPaddingTop();
+		final int vspace = getHeight() - getCompoundPaddingBottom() - compoundPaddingTop;
+		canvas.save();
+		canvas.translate(getScrollX() + getPaddingLeft(), getScrollY() + compoundPaddingTop + (vspace - mThumbnailSize)/2);
+		thumbnail.draw(canvas);
+		canvas.restore();
+	}
+	
+	/** Whether the view sizes itself to its text, an empty text would collapse it */
+	private boolean isWrappingText() {
+		final ViewGroup.LayoutParams params = getLayoutParams();
+		return params != null && (params.width == ViewGroup.LayoutParams.WRAP_CONTENT || params.height == ViewGroup.LayoutParams.WRAP_CONTENT);
+	}
+	
+	/** Hand our text style to the layout cache, false if we have no size yet */
+	private boolean updateLayoutStyle() {
+		final int width = getWidth() - getCompoundPaddingLeft() - getCompoundPaddingRight();
+		if ( width <= 0 ) {
+			return false;
+		}
+		final Layout.Alignment alignment;
+		switch ( getGravity() & Gravity.HORIZONTAL_GRAVITY_MASK ) {
+			case Gravity.CENTER_HORIZONTAL:
+				alignment = Layout.Alignment.ALIGN_CENTER;
+				break;
+			case Gravity.RIGHT:
+				alignment = Layout.Alignment.ALIGN_OPPOSITE;
+				break;
+			default:
+				alignment = Layout.Alignment.ALIGN_NORMAL;
+				break;
+		}
+		final int maxLines = mMaxLines > 0 ? mMaxLines : Integer.MAX_VALUE;
+		mLayoutCache.setStyle(getPaint(), width, alignment, maxLines, getEllipsize(), !bHorizontallyScrolling);
+		return true;
+	}
+	
+	/**
+	 * Build the layouts of the news that come up next in the background, picked like {@link #peekNextNews()}
+	 * does: queued breaking news first, then the scheduled or the round robin rotation.
+	 */
+	private void prefetchLayouts() {
+		int prefetched = 0;
+		for ( NewsHolder breaking : mBreakingNews ) {
+			if ( prefetched == LAYOUT_PREFETCH_COUNT ) {
+				return;
+			}
+			prefetchLayout(breaking);
+			prefetched++;
+		}
+		final List<NewsHolder> news = mNewsList;
+		if ( news == null || news.isEmpty() ) {
+			return;
+		}
+		final int count = mRotation.peekUpcoming(news, TickerClock.get().currentTimeMillis(), mUpcoming);
+		for ( int i = 0; i < count && prefetched < LAYOUT_PREFETCH_COUNT; i++, prefetched++ ) {
+			prefetchLayout(news.get(mUpcoming[i]));
+		}
+	}
+	
+	private void prefetchLayout(NewsHolder news) {
+		if ( news != null && news.mNews != null ) {
+			mLayoutCache.prefetch(news.mNews);
+		}
+	}
+	
+	/** Draw the text and image of the current news, from its layout if there is one */
+	private void drawNewsText(Canvas canvas) {
+		if ( mNewsLayout == null ) {
+			super.onDraw(canvas);
+		} else {
+			drawLayout(canvas, mNewsLayout);
+			if ( mThumbnailSize > 0 ) {
+				// The text view is not drawing, draw its image slot ourselves
+				drawThumbnail(canvas, mThumbnail);
+			}
+		}
+	}
+	
+	/** Draw a news layout where the text view would draw its text */
+	private void drawLayout(Canvas canvas, StaticLayout layout) {
+		final int left = getCompoundPaddingLeft() + getScrollX();
+		final int right = getWidth() - getCompoundPaddingRight() + getScrollX();
+		final int compoundPaddingTop = getCompoundPaddingTop();
+		final int vspace = getHeight() - getCompoundPaddingBottom() - compoundPaddingTop;
+		int top = compoundPaddingTop + getScrollY();
+		final int gravity = getGravity() & Gravity.VERTICAL_GRAVITY_MASK;
+		if ( gravity == Gravity.CENTER_VERTICAL ) {
+			top += (vspace - layout.getHeight())/2;
+		} else if ( gravity == Gravity.BOTTOM ) {
+			top += vspace - layout.getHeight();
+		}
+		// The layout owns its paint, give it the current, possibly faded, text color
+		layout.getPaint().setColor(getCurrentTextColor());
+		canvas.save();
+		canvas.clipRect(left, compoundPaddingTop + getScrollY(), right, compoundPaddingTop + getScrollY() + vspace);
+		canvas.translate(left, top);
+		layout.draw(canvas);
+		canvas.restore();
+	}
+	
+	/** The transition used to swap news, null for the classic fade */
+	public NewsTransition getTransition() {
+		return mTransition;
+	}
+	
+	/**
+	 * Set how the news are presented. {@link #TICKER_MODE_SCROLL} renders all news into a strip of
+	 * recycled tiles and scrolls it endlessly at {@link #setScrollSpeed(float)}, tapping opens the news under the finger.
+	 */
+	public void setTickerMode(int tickerMode) {
+		if ( tickerMode == mTickerMode ) {
+			return;
+		}
+		mTickerMode = tickerMode;
+		mCycle.cancelDwell();
+		mFrameDriver.cancelFrame();
+		mFadeAnimator.setAlpha(1.f);
+		updateTextAlpha();
+		Compat.setHardwareLayer(this, false);
+		mTransitionAnimator.cancel();
+		if ( tickerMode != TICKER_MODE_SCROLL ) {
+			mScrollStrip.release();
+		}
+		mRotation.setIndex(-1);
+		updateFadingEdge();
+		changeNews();
+	}
+	
+	/** The current ticker mode */
+	public int getTickerMode() {
+		return mTickerMode;
+	}
+	
+	/** Set the speed of the scroll mode in pixels per second */
+	public void setScrollSpeed(float pixelsPerSecond) {
+		mScrollSpeed = pixelsPerSecond;
+	}
+	
+	/** Speed of the scroll mode in pixels per second */
+	public float getScrollSpeed() {
+		return mScrollSpeed;
+	}
+	
+	@Override
+	public void setTextColor(int color) {
+		setTextColor(ColorStateList.valueOf(color));
+	}
+	
+	@Override
+	public void setTextColor(ColorStateList colors) {
+		// Our fields are not yet initialized while the TextView constructor runs
+		if ( !bApplyingTextAlpha && mFadeAnimator != null && colors != null ) {
+			mBaseTextColors = colors;
+			if ( mFadeMode == FADE_MODE_TEXT_COLOR && mFadeAnimator.getAlpha() < 1.f ) {
+				updateTextAlpha();
+				return;
+			}
+		}
+		super.setTextColor(colors);
+	}
+	
+	@Override
+	protected void drawableStateChanged() {
+		super.drawableStateChanged();
+		if ( mFadeAnimator != null && mFadeMode == FADE_MODE_TEXT_COLOR && mFadeAnimator.getAlpha() < 1.f ) {
+			// The faded color is a single color, pick the one of the new state
+			updateTextAlpha();
+		}
+	}
+	
+	@Override
+	public void setAlpha(float alpha) {
+		// Our fields are not yet initialized while the View constructor runs
+		if ( !bApplyingViewAlpha && mFadeAnimator != null ) {
+			mBaseAlpha = alpha;
+			if ( mFadeMode == FADE_MODE_LAYER_ALPHA ) {
+				alpha *= mFadeAnimator.getAlpha();
+			}
+		}
+		super.setAlpha(alpha);
+	}
+	
+	/** The text color of the current state as set by the user, without the fade applied */
+	private int getBaseTextColor() {
+		return mBaseTextColors.getColorForState(getDrawableState(), mBaseTextColors.getDefaultColor());
+	}
+	
 	/** Set the res id of the view that will be used as the loading image */
 	public void setLoadingImageView(int resId) {
 		mLoadingImageViewId = resId;
@@ -190,14 +1052,20 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	    super.onRestoreInstanceState(ss.getSuperState());
 	    
 	    // Minus one because we will change the news when we are attached to the parent layout
-	    this.mIndex = ss.mNewsIndex-1;
+	    this.mRotation.setIndex(ss.mNewsIndex-1);
+	    // The news might come in a different order, look the shown one up by its id
+	    if ( ss.bHasNewsId ) {
+	    	this.mRotation.restore(ss.mNewsId);
+	    }
 	}
 	
 	@Override
 	public Parcelable onSaveInstanceState() {
 	    Parcelable superState = super.onSaveInstanceState();
 	    SavedState ss = new SavedState(superState);
-	    ss.mNewsIndex = this.mIndex;
+	    ss.mNewsIndex = this.mRotation.getIndex();
+	    ss.bHasNewsId = this.mCurrentNews != null && !this.bShowingBreakingNews;
+	    ss.mNewsId = ss.bHasNewsId ? this.mCurrentNews.getId() : 0;
 
 	    return ss;
 	}
@@ -205,6 +1073,232 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	@Override
 	protected void onWindowVisibilityChanged(int visibility) {
 		super.onWindowVisibilityChanged(visibility);
+		updateRunningState();
+	}
+	
+	@Override
+	protected void onVisibilityChanged(View changedView, int visibility) {
+		super.onVisibilityChanged(changedView, visibility);
+		updateRunningState();
+	}
+	
+	@Override
+	public void onScreenStateChanged(int screenState) {
+		super.onScreenStateChanged(screenState);
+		bScreenOn = screenState == SCREEN_STATE_ON;
+		updateRunningState();
+	}
+	
+	/**
+	 * Pause the ticker, e.g. from the onPause of the activity. Nothing gets scheduled until {@link #resume()}
+	 * is called, the current news continues with the exact dwell time it had left. The ticker also pauses
+	 * on its own whenever it, its window or the screen is not visible.
+	 */
+	public void pause() {
+		bUserPaused = true;
+		updateRunningState();
+	}
+	
+	/** Resume the ticker after {@link #pause()} */
+	public void resume() {
+		bUserPaused = false;
+		updateRunningState();
+	}
+	
+	/**
+	 * Serve our frames and timers from the process wide {@link TickerScheduler} instead of our own
+	 * handlers. Worth it as soon as several tickers are on screen, all of them are then advanced in a
+	 * single pass per frame.
+	 */
+	public void setUseSharedScheduler(boolean useShared) {
+		if ( useShared != bUseSharedScheduler ) {
+			bUseSharedScheduler = useShared;
+			rebuildScheduling();
+		}
+	}
+	
+	/** Whether the shared scheduler is used */
+	public boolean isUsingSharedScheduler() {
+		return bUseSharedScheduler;
+	}
+	
+	/**
+	 * Join a sync group of the shared scheduler, all running tickers of a group change their news in
+	 * lockstep. Implies {@link #setUseSharedScheduler(boolean)}, pass null to leave the group.
+	 */
+	public void setSyncGroup(String syncGroup) {
+		if ( !Utils.equals(syncGroup, mSyncGroup) || (syncGroup != null && !bUseSharedScheduler) ) {
+			mSyncGroup = syncGroup;
+			bUseSharedScheduler |= syncGroup != null;
+			rebuildScheduling();
+		}
+	}
+	
+	/** Name of our sync group, null if none */
+	public String getSyncGroup() {
+		return mSyncGroup;
+	}
+	
+	/**
+	 * Set the id of the feed our news belong to. Every news list we get is persisted under this id and
+	 * the last one is shown right away the next time a ticker with the same id gets attached, while the
+	 * app is still fetching fresh news. Pass null to stop caching.
+	 */
+	public void setFeedId(String feedId) {
+		if ( !Utils.equals(feedId, mFeedId) && mSeen != null ) {
+			// The seen news belong to the old feed
+			storeSeen();
+			mSeen = null;
+			mRotation.setSeen(null);
+		}
+		mFeedId = feedId;
+		if ( !bDetached && getWindowToken() != null ) {
+			if ( bPreferUnseen ) {
+				loadSeen();
+			}
+			loadCachedNews();
+		}
+	}
+	
+	/** Id of the feed our news are cached under, null if none */
+	public String getFeedId() {
+		return mFeedId;
+	}
+	
+	/** Set the cache our news are persisted in, by default the one of {@link NewsCache#getDefault(Context)} */
+	public void setNewsCache(NewsCache cache) {
+		mNewsCache = cache;
+	}
+	
+	/** The cache our news are persisted in */
+	public NewsCache getNewsCache() {
+		if ( mNewsCache == null ) {
+			mNewsCache = NewsCache.getDefault(getContext());
+		}
+		return mNewsCache;
+	}
+	
+	/**
+	 * Show the cached news of our feed if we got none yet. Only the header of the cache file is read and
+	 * only the news that get shown are paged in, so the first news shows up within the first frame.
+	 */
+	private void loadCachedNews() {
+		if ( mFeedId == null || mNewsList != null ) {
+			return;
+		}
+		final List<NewsHolder> cached = getNewsCache().load(mFeedId);
+		if ( cached != null && !cached.isEmpty() ) {
+			// The mapped list is read only already, no need to copy it
+			mNewsList = cached;
+			mRotation.reset(cached);
+			bShowingCachedNews = true;
+			bIsLoadingNews = false;
+			bLoadingError = false;
+			updateFadingEdge();
+			changeNews();
+		}
+	}
+	
+	/** Persist the current news under our feed id on the background thread of the cache */
+	private void storeNews() {
+		bShowingCachedNews = false;
+		if ( mFeedId != null && hasNews() ) {
+			getNewsCache().storeAsync(mFeedId, mNewsList);
+		}
+	}
+	
+	/** Create the frame driver and timers for the current scheduler settings */
+	private void createScheduling() {
+		if ( bUseSharedScheduler ) {
+			final TickerScheduler scheduler = TickerScheduler.getShared();
+			mFrameDriver = scheduler.createFrameDriver(mFrameCallback);
+			mDwellTimer = scheduler.createTimer(mDwellTimeout, mSyncGroup);
+			mTimeLineTimer = scheduler.createTimer(mTimeLineTick, null);
+		} else {
+			mFrameDriver = FrameDriver.create(mFrameCallback);
+			mDwellTimer = TickerTimer.create(mDwellTimeout);
+			mTimeLineTimer = TickerTimer.create(mTimeLineTick);
+		}
+		mFrameDriver.setRefreshRate(getDisplayRefreshRate());
+		mCycle.setTimers(mDwellTimer, mTimeLineTimer);
+		updateSyncState();
+	}
+	
+	/** Refresh rate of the default display in frames per second, 0 if unknown */
+	private float getDisplayRefreshRate() {
+		final WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+		return windowManager != null ? windowManager.getDefaultDisplay().getRefreshRate() : 0.f;
+	}
+	
+	/** Move everything that is scheduled over to a new frame driver and timers */
+	private void rebuildScheduling() {
+		final TickerTimer dwellTimer = mDwellTimer;
+		final TickerTimer timeLineTimer = mTimeLineTimer;
+		final boolean bFramePending = mFrameDriver.isFramePending();
+		mFrameDriver.cancelFrame();
+		
+		createScheduling();
+		dwellTimer.release();
+		timeLineTimer.release();
+		if ( bFramePending ) {
+			mFrameDriver.postFrame();
+		}
+		updateTimeLine();
+	}
+	
+	/** Tell our dwell timer whether sync group members have to wait for us */
+	private void updateSyncState() {
+		mDwellTimer.setActive(isTickerRunning() && !bIsLoadingNews && !bLoadingError && hasNews() && mTickerMode == TICKER_MODE_PAGED);
+	}
+	
+	/** Whether the ticker is currently scheduling any work */
+	public boolean isTickerRunning() {
+		return !bDetached && !bPaused;
+	}
+	
+	/** Pause or resume depending on whether we can be seen at all */
+	private void updateRunningState() {
+		final boolean bShouldRun = !bDetached && !bUserPaused && bScreenOn
+				&& getWindowVisibility() == VISIBLE && isShown();
+		if ( bShouldRun && bPaused ) {
+			onResumeTicker();
+		} else if ( !bShouldRun && !bPaused ) {
+			onPauseTicker();
+		}
+	}
+	
+	/** Stop all scheduled work and remember where we were */
+	private void onPauseTicker() {
+		bPaused = true;
+		mCycle.pause();
+		mDwellTimer.setActive(false);
+		mFrameDriver.cancelFrame();
+		storeSeen();
+	}
+	
+	/** Continue where we left off when we got paused */
+	private void onResumeTicker() {
+		bPaused = false;
+		updateSyncState();
+		if ( mCurrentNews == null || bChangeOnResume ) {
+			// Nothing was running yet
+			bChangeOnResume = false;
+			mCycle.reset();
+			changeNews();
+			return;
+		}
+		
+		// Shift everything that is time based by the time we spent paused
+		mCycle.resume();
+		if ( mTickerMode == TICKER_MODE_SCROLL ) {
+			// The tiles got released if we were detached
+			mScrollStrip.setSize(getWidth(), getHeight());
+		}
+		if ( mCycle.isAnimating() || isScrolling() ) {
+			mFrameDriver.postFrame();
+		}
+		applyPendingNews();
+		updateTimeLine();
 	}
 	
 	/** Try to cache the loading image */
@@ -226,29 +1320,54 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	protected void onAttachedToWindow() {
 		super.onAttachedToWindow();
 		
-		// Start ticking :D
-		changeNews();
+		// Start ticking :D or continue where we were when we got detached
+		bDetached = false;
+		if ( bPreferUnseen ) {
+			loadSeen();
+		}
+		if ( mCurrentNews != null && !bIsLoadingNews && !bLoadingError && mTickerMode == TICKER_MODE_PAGED ) {
+			// Our image got released when we were detached
+			showThumbnail(mCurrentNews);
+		}
+		loadCachedNews();
+		updateRunningState();
 	}
 	
 	@Override
 	protected void onDetachedFromWindow() {
 		super.onDetachedFromWindow();
 		
-		// Once detached stop all handlers
-		synchronized (this) {
-			bDetached=true;
-			mNewsTickerHandler.removeMessages(0);
-			mFadeAnimationHandler.removeMessages(FadeAnimationHandler.FADE_IN_CODE);
-			mFadeAnimationHandler.removeMessages(FadeAnimationHandler.FADE_OUT_CODE);
-			
-			// Release cached images
-			if ( mLoadingImageView != null ) {
-				mLoadingImageView.setBackgroundDrawable(null);
-				mLoadingImageView.clearAnimation();
-				mLoadingImageView = null;
-				mLoadingImageAnimation = null;
+		// Once detached stop all handlers, we continue if we get attached again
+		bDetached=true;
+		updateRunningState();
+		mSwipeDetector.release();
+		if ( bDragging || bDragCommitted ) {
+			cancelDrag();
+			if ( mCurrentNews != null ) {
+				mCycle.holdDwell(getDwellMillis(mCurrentNews));
 			}
 		}
+		if ( mTransitionAnimator.isRunning() ) {
+			// The snapshots are about to be released, jump to the end of the transition
+			mTransitionAnimator.cancel();
+			if ( mCurrentNews != null ) {
+				mCycle.holdDwell(getDwellMillis(mCurrentNews));
+			}
+		}
+		mSnapshots.release();
+		mScrollStrip.release();
+		mLayoutCache.clear();
+		mReadingTime.clear();
+		releaseThumbnail();
+		Compat.setHardwareLayer(this, false);
+		
+		// Release cached images
+		if ( mLoadingImageView != null ) {
+			mLoadingImageView.setBackgroundDrawable(null);
+			mLoadingImageView.clearAnimation();
+			mLoadingImageView = null;
+			mLoadingImageAnimation = null;
+		}
 	}
 
 	@Override
@@ -264,67 +1383,245 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 			super.onWindowFocusChanged(hasWindowFocus);
 	}
 	
-	@Override
-	public boolean isFocused() {
-		return true;
+	@Override
+	public boolean isFocused() {
+		return true;
+	}
+	
+	@Override
+	public boolean onTouch(View v, MotionEvent event) {
+		if ( bIsLoadingNews && !bDragging ) {
+			return false;
+		}
+		switch ( mSwipeDetector.onTouchEvent(event, getWidth()) ) {
+			case SwipeDetector.GESTURE_TAP:
+				// Get the right URL and fire the intent
+				if ( bLoadingError ) {
+					if ( mListener != null )
+						mListener.onNewsTapFailed();
+				} else if ( isScrolling() ) {
+					final int index = mScrollStrip.hitTest(event.getX());
+					openNews(index >= 0 && index < mNewsList.size() ? mNewsList.get(index) : null);
+				} else {
+					openNews(mCurrentNews);
+				}
+				return true;
+			case SwipeDetector.GESTURE_DRAG_START:
+				startDrag();
+				return true;
+			case SwipeDetector.GESTURE_DRAG:
+				updateDrag();
+				return true;
+			case SwipeDetector.GESTURE_FORWARD:
+				endDrag(1);
+				return true;
+			case SwipeDetector.GESTURE_BACKWARD:
+				endDrag(-1);
+				return true;
+			case SwipeDetector.GESTURE_CANCEL:
+				endDrag(0);
+				return true;
+		}
+		// Keep receiving the gesture
+		return event.getActionMasked() == MotionEvent.ACTION_DOWN;
+	}
+	
+	/**
+	 * Let the news follow the finger, the current news is rendered into a snapshot once. The layouts and
+	 * images of both neighbours as well as the snapshot they are drawn into are prepared here, so moving
+	 * the finger does not allocate anything.
+	 */
+	private void startDrag() {
+		if ( !isTickerRunning() || bIsLoadingNews || bLoadingError || !hasNews() || isScrolling()
+				|| mCurrentNews == null || getWidth() <= 0 || getHeight() <= 0 ) {
+			return;
+		}
+		// Our parents must not steal the drag from us
+		if ( getParent() != null ) {
+			getParent().requestDisallowInterceptTouchEvent(true);
+		}
+		// Hold the current news while dragging
+		mCycle.cancelDwell();
+		mTransitionAnimator.cancel();
+		mFadeAnimator.setAlpha(1.f);
+		updateTextAlpha();
+		Compat.setHardwareLayer(this, false);
+		captureSnapshot(SnapshotCache.OUTGOING);
+		releaseDragNeighbours();
+		if ( updateLayoutStyle() ) {
+			prepareDragNeighbour(mDragNext, peekNextNews());
+			prepareDragNeighbour(mDragPrevious, peekPreviousNews());
+		}
+		mSnapshots.obtainCanvas(SnapshotCache.INCOMING, getWidth(), getHeight());
+		bDragging = true;
+		mDragDirection = 0;
+		updateDrag();
+	}
+	
+	/** Follow the finger, the news next to the dragged one is only rendered when the direction changes */
+	private void updateDrag() {
+		if ( !bDragging ) {
+			return;
+		}
+		final int direction = mSwipeDetector.getDragOffset() <= 0 ? 1 : -1;
+		if ( direction != mDragDirection ) {
+			mDragDirection = direction;
+			final DragNeighbour neighbour = direction > 0 ? mDragNext : mDragPrevious;
+			final Canvas canvas = mSnapshots.obtainCanvas(SnapshotCache.INCOMING, getWidth(), getHeight());
+			if ( neighbour.mLayout != null ) {
+				canvas.save();
+				canvas.translate(-getScrollX(), -getScrollY());
+				drawLayout(canvas, neighbour.mLayout);
+				if ( neighbour.mImage != null ) {
+					mDragThumbnail.setBitmap(neighbour.mImage);
+					mDragThumbnail.setAlpha(255);
+					drawThumbnail(canvas, mDragThumbnail);
+					mDragThumbnail.setBitmap(null);
+				}
+				canvas.restore();
+			}
+		}
+		invalidate();
+	}
+	
+	/** Lay out a news next to the dragged one and pin its image if it is cached, images are not loaded for a drag */
+	private void prepareDragNeighbour(DragNeighbour neighbour, NewsHolder news) {
+		if ( news == null || news.mNews == null ) {
+			return;
+		}
+		neighbour.mLayout = mLayoutCache.obtain(news.mNews);
+		if ( mThumbnailSize > 0 && news.hasImage() && !isInEditMode() ) {
+			neighbour.mImage = getThumbnailCache().acquire(news.mImage, mThumbnailSize, null);
+			if ( neighbour.mImage != null ) {
+				neighbour.mImageKey = ThumbnailCache.keyOf(news.mImage, mThumbnailSize);
+			}
+		}
+	}
+	
+	/** Unpin the images of the neighbours of the last drag */
+	private void releaseDragNeighbours() {
+		mDragNext.release(mThumbnailCache);
+		mDragPrevious.release(mThumbnailCache);
+	}
+	
+	/**
+	 * The drag got released.
+	 * @param direction 1 to show the next news, -1 for the previous one, 0 to settle back
+	 */
+	private void endDrag(int direction) {
+		if ( !bDragging ) {
+			return;
+		}
+		bDragging = false;
+		releaseDragNeighbours();
+		final float fraction = Math.min(1.f, Math.abs(mSwipeDetector.getDragOffset())/getWidth());
+		if ( direction != 0 ) {
+			mDragTransition.set(fraction, 1.f, direction);
+			bDragCommitted = true;
+			changeNews(direction < 0);
+		} else {
+			// Slide back and show the current news for its whole time again
+			mDragTransition.set(fraction, 0.f, mDragDirection);
+			mRunningTransition = mDragTransition;
+			mCycle.startTransition(mDragTransition.getDuration(), getDwellMillis(mCurrentNews));
+			if ( showTimeLine() ) {
+				updateTimeLine();
+			}
+			invalidate();
+		}
+	}
+	
+	/** Throw away a running drag, the current news simply stays */
+	private void cancelDrag() {
+		if ( bDragging ) {
+			bDragging = false;
+			invalidate();
+		}
+		releaseDragNeighbours();
+		bDragCommitted = false;
+	}
+	
+	/** Fire the link of the given news if it has one */
+	private void openNews(NewsHolder news) {
+		if ( news != null ) {
+			markSeen(news);
+			String link = news.mLink;
+			if ( link != null && link.length() > 0 ) {
+				// Always try, a dead link is only a hint as the package manager might not see its handler
+				final LinkResolver resolver = getLinkResolver();
+				final Intent intent = resolver.getIntent(link);
+				boolean bStarted = startLink(link, intent);
+				if ( !bStarted ) {
+					resolver.forget(link);
+					if ( intent.getComponent() != null ) {
+						// The handler we resolved is gone, let the system pick another one
+						bStarted = startLink(link, resolver.getIntent(link));
+					}
+				}
+				if ( mListener != null ) {
+					if ( bStarted ) {
+						mListener.onNewsTap();
+					} else {
+						mListener.onNewsTapFailed();
+					}
+				}
+			}
+		}
+	}
+	
+	/** Start the activity of a link, false if there is none */
+	private boolean startLink(String link, Intent intent) {
+		try {
+			getContext().startActivity(intent);
+			return true;
+		} catch ( ActivityNotFoundException e ) {
+			Log.e(TAG, "Could not launch activity for link '"+link+"' with error: "+Log.getStackTraceString(e));
+			return false;
+		}
+	}
+	
+	/**
+	 * Whether the link of a news is probably dead because no activity we can see opens it or other links
+	 * of its host. Links are resolved in the background while their news are about to be shown, unknown
+	 * links are not dead. This is a hint only, from Android 11 on apps that the app does not declare to
+	 * query are invisible to it and tapping the news still tries to open the link.
+	 */
+	public boolean hasDeadLink(NewsHolder news) {
+		if ( news == null || news.mLink == null || news.mLink.length() == 0 ) {
+			return true;
+		}
+		return getLinkResolver().getState(news.mLink) == LinkResolver.LINK_DEAD;
+	}
+	
+	private LinkResolver getLinkResolver() {
+		if ( mLinkResolver == null ) {
+			mLinkResolver = LinkResolver.getDefault(getContext());
+		}
+		return mLinkResolver;
 	}
 	
-	@Override
-	public boolean onTouch(View v, MotionEvent event) {
-		boolean bResult = false;
-		if ( !bIsLoadingNews ) {
-			int action = event.getAction();
-			switch(action)
-			{
-				case MotionEvent.ACTION_DOWN: 
-				case MotionEvent.ACTION_MOVE:
-					mLastMotionEvent = action;
-					if ( action == MotionEvent.ACTION_MOVE )
-						mNumMoveEvent++;
-					break;
-				case MotionEvent.ACTION_UP:
-					if ( mLastMotionEvent == MotionEvent.ACTION_DOWN || mNumMoveEvent < MOVE_ACTOIN_THRESHOLD ) {
-						// TODO: If there where a loading error launch the loading error delegate!
-						// bLoadingError
-						// Get the right URL and fire the intent
-						if ( bLoadingError ) {
-							if ( mListener != null )
-								mListener.onNewsTapFailed();
-						} else if (hasNews() && mIndex >= 0 && mIndex < mNewsList.size() ) {
-							String link = mNewsList.get(mIndex).mLink;
-							if ( link != null && link.length() > 0 ) {
-								try {
-									Intent i = new Intent(Intent.ACTION_VIEW);
-									i.setData(Uri.parse(link));
-									getContext().startActivity(i);
-								} catch ( ActivityNotFoundException e) {
-									Log.e(TAG, "Could not launch activity for link '"+link+"' with error: "+Log.getStackTraceString(e));
-								}
-								if ( mListener != null )
-									mListener.onNewsTap();
-							}
-						}
-						bResult = true;
-					} else if ( mLastMotionEvent == MotionEvent.ACTION_MOVE ) {
-						changeNews();
-						bResult = true;
-					}
-					
-					Log.e(TAG, "mNumMoveEvent: "+ mNumMoveEvent);
-					
-					mLastMotionEvent = -1;
-					mNumMoveEvent = 0;
-					break;
-			}
+	/** Resolve the links of the current and the next news so tapping them opens right away */
+	private void prepareLinks(NewsHolder news) {
+		if ( isInEditMode() ) {
+			return;
+		}
+		getLinkResolver().prepare(news.mLink);
+		final NewsHolder next = peekNextNews();
+		if ( next != null ) {
+			getLinkResolver().prepare(next.mLink);
 		}
-		return bResult;
 	}
 	
 	/**
 	 * Check if we should show the timeline or not
 	 */
 	public boolean showTimeLine() {
-		return bEnableTimeLine && hasNews();
+		return bEnableTimeLine && hasNews() && mTickerMode == TICKER_MODE_PAGED;
+	}
+	
+	/** Whether the continuous scroll mode is showing news right now */
+	private boolean isScrolling() {
+		return mTickerMode == TICKER_MODE_SCROLL && !bIsLoadingNews && !bLoadingError && mScrollStrip.isReady();
 	}
 	
 	/**
@@ -332,7 +1629,13 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	 * our cached version.
 	 */
 	public void onStartLoading() {
+		if ( bShowingCachedNews ) {
+			// Keep the cached news running until the fresh ones arrive
+			return;
+		}
 		bIsLoadingNews = true;
+		updateSyncState();
+		releaseThumbnail();
 		if (mLoadingImageView == null) {
 			cacheLoadingImage();
 		}
@@ -362,19 +1665,261 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 		}
 	}
 	
-	/** Set the news :D */
+	/**
+	 * Set the news :D The list is copied, later changes to it are not seen by the ticker. This restarts
+	 * the rotation, use {@link #submitNews(List)} to update the news while they are shown.
+	 */
 	public void setNews(List<NewsHolder> newsList) {
-		synchronized (this) {
-			mNewsList = newsList;
-			bIsLoadingNews = false;
-			bLoadingError = false;
+		clearNewsPageSource();
+		setNewsSnapshot(newsList != null ? Collections.unmodifiableList(new ArrayList<NewsHolder>(newsList)) : null);
+	}
+	
+	/**
+	 * Set the news from a batch, e.g. one received from another process. The batch is not copied and
+	 * its news are only decoded once they are about to be shown.
+	 */
+	public void setNews(NewsBatch batch) {
+		clearNewsPageSource();
+		setNewsSnapshot(batch != null ? batch.asList() : null);
+	}
+	
+	/**
+	 * Set the news from a store, meant for very large feeds. The ticker sees the news the store holds
+	 * right now and only creates holders for the news it shows.
+	 */
+	public void setNews(NewsStore store) {
+		clearNewsPageSource();
+		setNewsSnapshot(store != null ? store.asList() : null);
+	}
+	
+	/** Start over with the given read only news snapshot */
+	private void setNewsSnapshot(List<NewsHolder> newsList) {
+		mNewsList = newsList;
+		mRotation.reset(newsList);
+		bIsLoadingNews = false;
+		bLoadingError = false;
+		storeNews();
+		
+		// If we have no news this is actually an error!
+		if ( newsList != null && newsList.size() == 0 ) {
+			onNewsLoadingFailed(mNoNewsText);
+		}
+		updateFadingEdge();
+		changeNews();
+	}
+	
+	/** Append news to the end of the rotation without interrupting the current one */
+	public void appendNews(List<NewsHolder> news) {
+		if ( news == null || news.isEmpty() ) {
+			return;
+		}
+		final int oldSize = mNewsList != null ? mNewsList.size() : 0;
+		applyNews(SplicedNewsList.append(mNewsList, news), NewsDiff.forAppend(oldSize, news.size()));
+	}
+	
+	/** Append a single news to the end of the rotation */
+	public void appendNews(NewsHolder news) {
+		appendNews(Collections.singletonList(news));
+	}
+	
+	/**
+	 * Remove the news at the given position. If it is the one being shown it stays until its time
+	 * ran out and the rotation continues with the news that followed it.
+	 */
+	public void removeNews(int index) {
+		if ( mNewsList == null || index < 0 || index >= mNewsList.size() ) {
+			return;
+		}
+		applyNews(SplicedNewsList.remove(mNewsList, index, 1), NewsDiff.forRemove(mNewsList.size(), index));
+	}
+	
+	/** Remove the given news, matched by its link or by its text if it has no link */
+	public void removeNews(NewsHolder news) {
+		if ( mNewsList == null ) {
+			return;
+		}
+		final String key = NewsDiff.keyOf(news);
+		final int size = mNewsList.size();
+		for ( int i = 0; i < size; i++ ) {
+			if ( key.equals(NewsDiff.keyOf(mNewsList.get(i))) ) {
+				removeNews(i);
+				return;
+			}
+		}
+	}
+	
+	/** Replace the news at the given position, the shown text is updated in place if it is the current one */
+	public void updateNews(int index, NewsHolder news) {
+		if ( mNewsList == null || index < 0 || index >= mNewsList.size() || news == null ) {
+			return;
+		}
+		applyNews(SplicedNewsList.set(mNewsList, index, news), NewsDiff.forUpdate(mNewsList.size(), index));
+	}
+	
+	/**
+	 * Submit a new version of the news list. It is diffed against the current one in linear time,
+	 * the shown news, its time line and any running fade are kept as long as it is still present.
+	 * The list is copied.
+	 */
+	public void submitNews(List<NewsHolder> newsList) {
+		final List<NewsHolder> newList = newsList != null ? Collections.unmodifiableList(new ArrayList<NewsHolder>(newsList)) : Collections.<NewsHolder>emptyList();
+		applyNews(newList, NewsDiff.compute(mNewsList, newList));
+	}
+	
+	/** Swap in a new read only news snapshot and move our position to where the diff put it */
+	private void applyNews(List<NewsHolder> newList, NewsDiff diff) {
+		final boolean bShowing = mTickerMode == TICKER_MODE_SCROLL ? mScrollStrip.isReady() : mCurrentNews != null;
+		if ( newList.isEmpty() || bLoadingError || !hasNews() || !bShowing ) {
+			// Nothing shown we could keep, behave like a fresh list
+			mRotation.setIndex(-1);
+			setNewsSnapshot(newList);
+			return;
+		}
+		if ( diff.isEmpty() ) {
+			// Fresh news identical to the cached ones, nothing to store either
+			bShowingCachedNews = false;
+			return;
+		}
+		
+		mNewsList = newList;
+		storeNews();
+		if ( mTickerMode == TICKER_MODE_SCROLL ) {
+			mRotation.remap(mNewsList, diff);
+			mScrollStrip.remapItems(mNewsList, diff);
+			return;
+		}
+		
+		// A news that is gone keeps being shown, the rotation continues with the one that followed it
+		final int oldIndex = mRotation.getIndex();
+		mRotation.remap(mNewsList, diff);
+		if ( oldIndex >= 0 && diff.getNewIndex(oldIndex) >= 0 && diff.isChanged(oldIndex) && !bShowingBreakingNews ) {
+			// Update the text in place, the time line and fades keep running
+			mCurrentNews = mNewsList.get(mRotation.getIndex());
+			showNewsText(mCurrentNews);
+			prepareLinks(mCurrentNews);
+			prefetchThumbnail();
+		}
+	}
+	
+	/**
+	 * Publish a new version of the news list from any thread. The list is copied and diffed against
+	 * the current news on the calling thread, then handed over to the UI thread through an atomic
+	 * reference without any locking. The UI thread applies it like {@link #submitNews(List)} on its
+	 * next tick, if several versions get published in between only the latest one is applied.
+	 */
+	public void publishNews(List<NewsHolder> newsList) {
+		final List<NewsHolder> base = mNewsList;
+		final ArrayList<NewsHolder> snapshot = newsList != null ? new ArrayList<NewsHolder>(newsList) : new ArrayList<NewsHolder>();
+		final PendingNews pending = new PendingNews(base, snapshot, NewsDiff.compute(base, snapshot));
+		if ( mPendingNews.getAndSet(pending) == null ) {
+			// Nobody is waiting for a pickup yet, make sure the UI thread wakes up
+			mNewsTickerHandler.sendEmptyMessage(NewsTickerHandler.MSG_APPLY_PENDING_NEWS);
+		}
+	}
+	
+	/** Apply the latest published news snapshot if there is one, UI thread only */
+	private void applyPendingNews() {
+		final PendingNews pending = mPendingNews.getAndSet(null);
+		if ( pending != null ) {
+			// The diff is only valid if nothing changed the news since it got computed
+			final NewsDiff diff = pending.mBase == mNewsList ? pending.mDiff : NewsDiff.compute(mNewsList, pending.mNews);
+			applyNews(Collections.unmodifiableList(pending.mNews), diff);
+		}
+	}
+	
+	/**
+	 * Page the news from the given source instead of holding all of them. The ticker only keeps a window
+	 * of pages, asks for the next page once it is within prefetchDistance news of the end of the window
+	 * and drops pages it has shown. Only the paged ticker mode going in plain list order drops pages, a
+	 * scheduled rotation or one preferring unseen news does not show the news in window order. Setting
+	 * news directly ends paging, pass null to stop it.
+	 * @param pageSize Number of news requested per page
+	 * @param prefetchDistance Number of news left in the window when the next page is requested
+	 */
+	public void setNewsPageSource(NewsPageSource source, int pageSize, int prefetchDistance) {
+		clearNewsPageSource();
+		if ( source != null ) {
+			mNewsWindow = new NewsWindow(source, pageSize, prefetchDistance);
+			mRotation.setIndex(-1);
+			mNewsList = null;
+			onStartLoading();
+			requestNextPage();
+		}
+	}
+	
+	/** Stop paging, pages still in flight are ignored */
+	private void clearNewsPageSource() {
+		mNewsWindow = null;
+		mPageGeneration++;
+	}
+	
+	/** Ask the page source for the next page */
+	private void requestNextPage() {
+		final int generation = mPageGeneration;
+		final int position = mNewsWindow.requestPage();
+		mNewsWindow.mSource.loadPage(position, mNewsWindow.mPageSize, new NewsPageSource.PageCallback() {
+			public void onPageLoaded(List<NewsHolder> news) {
+				final ArrayList<NewsHolder> page = news != null ? new ArrayList<NewsHolder>(news) : new ArrayList<NewsHolder>();
+				mNewsTickerHandler.post(new Runnable() {
+					public void run() {
+						pageLoaded(generation, position, page);
+					}
+				});
+			}
 			
-			// If we have no news this is actually an error!
-			if ( newsList != null && newsList.size() == 0 ) {
-				onNewsLoadingFailed(mNoNewsText);
+			public void onPageFailed() {
+				mNewsTickerHandler.post(new Runnable() {
+					public void run() {
+						if ( generation == mPageGeneration ) {
+							mNewsWindow.onPageFailed();
+						}
+					}
+				});
+			}
+		});
+	}
+	
+	/** A requested page arrived on the UI thread */
+	private void pageLoaded(int generation, int position, ArrayList<NewsHolder> page) {
+		if ( generation != mPageGeneration ) {
+			return;
+		}
+		if ( page.isEmpty() ) {
+			mNewsWindow.onEndReached();
+			if ( !hasNews() ) {
+				onNoNewsFound();
+			} else {
+				updateNewsWindow();
 			}
+			return;
+		}
+		mNewsWindow.onPageLoaded(position, page.size());
+		if ( hasNews() ) {
+			appendNews(page);
+		} else {
+			setNewsSnapshot(Collections.unmodifiableList(page));
+		}
+		mNewsWindow.mSource.onWindowChanged(mNewsList.size());
+		updateNewsWindow();
+	}
+	
+	/** Drop the pages we are done with and request the next one if we are getting close to the end */
+	private void updateNewsWindow() {
+		if ( mNewsWindow == null || !hasNews() ) {
+			return;
+		}
+		final int index = mRotation.getIndex();
+		// Only in list order the news before the current one have all been shown
+		final boolean bRelease = mTickerMode == TICKER_MODE_PAGED && mRotation.isRoundRobin() && index > 0;
+		final int released = bRelease ? mNewsWindow.releasePagesBefore(index) : 0;
+		if ( released > 0 ) {
+			final int size = mNewsList.size();
+			applyNews(SplicedNewsList.remove(mNewsList, 0, released), NewsDiff.forRemove(size, 0, released));
+			mNewsWindow.mSource.onWindowChanged(mNewsList.size());
+		}
+		if ( mNewsWindow.needsPage(Math.max(mRotation.getIndex(), 0), mNewsList.size()) ) {
+			requestNextPage();
 		}
-		changeNews();
 	}
 	
 	/** We got some news */
@@ -386,6 +1931,8 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	public void onNoNewsFound() {
 		bLoadingError = true;
 		bIsLoadingNews = false;
+		updateSyncState();
+		releaseThumbnail();
 		setText(this.mNoNewsText);
 	}
 	
@@ -393,6 +1940,8 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	public void onNewsLoadingFailed( String errorText ) {
 		bLoadingError = true;
 		bIsLoadingNews = false;
+		updateSyncState();
+		releaseThumbnail();
 		setText(errorText != "" ? errorText: this.mLoadingErrorText);
 		onStopLoading();
 		if ( mListener != null )
@@ -413,73 +1962,303 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	 * Change to next news
 	 */
 	public void changeNews() {
+		changeNews(false);
+	}
+	
+	/**
+	 * Change to the previous news in list order. Breaking news are not shown when going back.
+	 */
+	public void showPreviousNews() {
+		cancelDrag();
+		changeNews(true);
+	}
+	
+	private void changeNews(boolean bBackward) {
+		if ( mMetrics == null ) {
+			swapNews(bBackward);
+			return;
+		}
+		Compat.beginTraceSection(TRACE_CHANGE_NEWS);
+		try {
+			swapNews(bBackward);
+		} finally {
+			Compat.endTraceSection();
+		}
+	}
+	
+	private void swapNews(boolean bBackward) {
+		// A released drag has its outgoing snapshot ready and slides in from where the finger left it
+		final boolean bDragged = bDragCommitted && mSnapshots.getBitmap(SnapshotCache.OUTGOING) != null;
+		bDragCommitted = false;
+		if ( bDragging ) {
+			// Changed while the user drags, e.g. by a breaking news, drop the drag
+			bDragging = false;
+			releaseDragNeighbours();
+		}
+		applyPendingNews();
+		updateSyncState();
 		// Once detached stop all handlers
-		synchronized (this) {
-			if ( !bDetached && !bIsLoadingNews && hasNews() ) {
-				// Update index
-				mIndex++;		
-				mIndex = mIndex % mNewsList.size();
-				
-				// Get the news
-				try {
-					NewsHolder news = mNewsList.get(mIndex);					
-					if ( news != null ) {					
-						// Set text
-						setText(news.mNews);
-						
-						// Start fade-in
-						mFadeAnimationHandler.startFadeIn();
-						
-						// Start time handling too
-						if ( showTimeLine() ) {
-							mTimeToHandle = (long) ((news.mTime+FADE_TIME*2)*1000);
-							mStartTime = System.currentTimeMillis();
-						}
-						onStopLoading();
+		if ( !isTickerRunning() ) {
+			// Do it once we are visible again
+			bChangeOnResume = true;
+		} else if ( !bIsLoadingNews && hasNews() && mTickerMode == TICKER_MODE_SCROLL ) {
+			startScrolling();
+		} else if ( !bIsLoadingNews && hasNews() ) {
+			// Breaking news go first, the rotation continues where it was afterwards
+			final NewsHolder breaking = bBackward ? null : mBreakingNews.poll();
+			
+			// Render what we show right now before swapping the text
+			final boolean bTransition;
+			if ( bDragged ) {
+				mRunningTransition = mDragTransition;
+				bTransition = true;
+			} else {
+				bTransition = prepareTransition(breaking != null ? mBreakingTransition : mTransition);
+			}
+			
+			// Update index
+			if ( breaking == null ) {
+				if ( bBackward ) {
+					mRotation.previous(mNewsList);
+				} else if ( mRotation.next(mNewsList, TickerClock.get().currentTimeMillis()) < 0 ) {
+					onAllNewsExpired();
+					return;
+				}
+			}
+			
+			// Get the news
+			try {
+				NewsHolder news = breaking != null ? breaking : mNewsList.get(mRotation.getIndex());
+				if ( news != null ) {					
+					// Set text
+					final long now = TickerClock.get().uptimeMillis();
+					if ( mMetrics != null && mNewsShownAt >= 0 ) {
+						mMetrics.record(TickerMetrics.EVENT_DWELL, now - mNewsShownAt, now);
+					}
+					mNewsShownAt = now;
+					mCurrentNews = news;
+					bShowingBreakingNews = breaking != null;
+					showNewsText(news);
+					prepareLinks(news);
+					prefetchThumbnail();
+					
+					// Start fade-in or the transition from the old news
+					if ( bTransition ) {
+						startTransition();
 					} else {
-						// Failed to set news. This should never happen!
-						Log.e(TAG, "News loading finished but no news found for index("+mIndex+"), news size("+mNewsList.size()+")");
-						onNewsLoadingFailed();
+						startFadeIn();
 					}
-				} catch ( Exception e ) {
+					
+					// The cycle started the time line too
+					if ( showTimeLine() ) {
+						updateTimeLine();
+					}
+					onStopLoading();
+					updateNewsWindow();
+				} else {
 					// Failed to set news. This should never happen!
-					Log.e(TAG, "News loading finished but no news found for index("+mIndex+"), news size("+mNewsList.size()+")");
+					Log.e(TAG, "News loading finished but no news found for index("+mRotation.getIndex()+"), news size("+mNewsList.size()+")");
 					onNewsLoadingFailed();
 				}
+			} catch ( Exception e ) {
+				// Failed to set news. This should never happen!
+				Log.e(TAG, "News loading finished but no news found for index("+mRotation.getIndex()+"), news size("+mNewsList.size()+")");
+				onNewsLoadingFailed();
 			}
 		}
 	}
 	
+	/** Every news of the scheduled rotation expired, show the no news text until new news arrive */
+	private void onAllNewsExpired() {
+		mCurrentNews = null;
+		bShowingBreakingNews = false;
+		mCycle.cancelDwell();
+		mTransitionAnimator.cancel();
+		mFadeAnimator.setAlpha(1.f);
+		updateTextAlpha();
+		Compat.setHardwareLayer(this, false);
+		mTimeLine.stop();
+		updateTimeLine();
+		onNoNewsFound();
+	}
+	
 	/** Called once we faded the news in */
 	public void fadedIn() {
-		synchronized (this) {
-			if ( !bDetached ) {
-				mFadeAlpha = 1.f;
-				updateTextAlpha();
-				
-				if ( hasNews() ) {
-					// Set new time
-					NewsHolder news = mNewsList.get(mIndex);					
-					if ( news != null ) {	
-						mNewsTickerHandler.sleep((news.mTime-FADE_TIME)*1000);
-					}
-				}
-			}
+		if ( isTickerRunning() ) {
+			mFadeAnimator.setAlpha(1.f);
+			updateTextAlpha();
+			Compat.setHardwareLayer(this, false);
 		}
 	}
 	
 	/** Called once the fade out has been finished */
 	public void fadedOut() {
-		synchronized (this) {
-			if ( !bDetached ) {
-				changeNews();
-			}
+		if ( isTickerRunning() ) {
+			changeNews();
+		}
+	}
+	
+	/** (Re)start the continuous scroll with the current news */
+	private void startScrolling() {
+		setText("");
+		releaseThumbnail();
+		mScrollStrip.setTextPaint(getPaint(), getBaseTextColor(), (int) getTextSize()*2);
+		mScrollStrip.setItems(mNewsList);
+		mScrollStrip.setSize(getWidth(), getHeight());
+		mCycle.restartScroll();
+		mFrameDriver.postFrame();
+		invalidate();
+		onStopLoading();
+	}
+	
+	/** Called once the current news has been shown long enough */
+	protected void onNewsTimeout() {
+		if ( mTransition != null ) {
+			changeNews();
+		} else {
+			startFadeOut();
+		}
+	}
+	
+	/** The news a forward swipe would bring in, without changing anything */
+	private NewsHolder peekNextNews() {
+		final NewsHolder breaking = mBreakingNews.peek();
+		if ( breaking != null ) {
+			return breaking;
+		}
+		final List<NewsHolder> news = mNewsList;
+		if ( news == null || news.isEmpty() ) {
+			return null;
+		}
+		final int index = mRotation.peekNext(news, TickerClock.get().currentTimeMillis());
+		return index >= 0 ? news.get(index) : null;
+	}
+	
+	/** The news a backward swipe would bring in */
+	private NewsHolder peekPreviousNews() {
+		final List<NewsHolder> news = mNewsList;
+		return news != null && !news.isEmpty() ? news.get(mRotation.peekPrevious(news)) : null;
+	}
+	
+	/**
+	 * Snapshot the currently shown news if the given transition should be used for the next swap.
+	 * @return True if the transition can be run
+	 */
+	private boolean prepareTransition(NewsTransition transition) {
+		mRunningTransition = transition;
+		if ( transition == null || mRotation.getIndex() < 0 || getWidth() <= 0 || getHeight() <= 0 ) {
+			return false;
+		}
+		// Transitions compose the snapshots themselves, the text must be fully opaque
+		mFadeAnimator.setAlpha(1.f);
+		updateTextAlpha();
+		Compat.setHardwareLayer(this, false);
+		captureSnapshot(SnapshotCache.OUTGOING);
+		return true;
+	}
+	
+	/** Snapshot the incoming news and start composing both of them */
+	private void startTransition() {
+		captureSnapshot(SnapshotCache.INCOMING);
+		mCycle.startTransition(mRunningTransition.getDuration(), getDwellMillis(mCurrentNews));
+		invalidate();
+	}
+	
+	/** Render the text as it is right now into the given snapshot slot */
+	private void captureSnapshot(int slot) {
+		final Canvas canvas = mSnapshots.obtainCanvas(slot, getWidth(), getHeight());
+		canvas.save();
+		canvas.translate(-getScrollX(), -getScrollY());
+		drawNewsText(canvas);
+		canvas.restore();
+	}
+	
+	/** Called once the transition to the current news has finished, the cycle already counts down its dwell time */
+	protected void transitionFinished() {
+	}
+	
+	/** Start fading the current news in */
+	protected void startFadeIn() {
+		startFade(FadeAnimator.FADE_IN);
+	}
+	
+	/** Start fading the current news out */
+	protected void startFadeOut() {
+		startFade(FadeAnimator.FADE_OUT);
+	}
+	
+	private void startFade(int direction) {
+		mLastFadeFrameTime = -1;
+		if ( direction == FadeAnimator.FADE_IN ) {
+			mCycle.startFadeIn(mCurrentNews != null ? getDwellMillis(mCurrentNews) : DEFAULT_UPDATE_RATE*1000L);
+		} else {
+			mCycle.startFadeOut();
+		}
+		if ( mFadeMode == FADE_MODE_LAYER_ALPHA ) {
+			// Only hold the layer while fading, the text is rendered once into it and then just composited
+			Compat.setHardwareLayer(this, true);
+		}
+		updateTextAlpha();
+	}
+	
+	/**
+	 * Advance the scroll and the running fade or transition to the given frame time. Everything is
+	 * derived from the elapsed time so dropped frames do not stretch it.
+	 */
+	protected void onAnimationFrame(long frameTimeMillis) {
+		if ( !isTickerRunning() ) {
+			return;
+		}
+		applyPendingNews();
+		if ( isScrolling() ) {
+			mScrollStrip.scroll(mCycle.scroll(frameTimeMillis, mScrollSpeed));
+			invalidate();
+			mFrameDriver.postFrame();
+		}
+		mCycle.onFrame(frameTimeMillis);
+	}
+	
+	/** Apply the alpha of the fade the cycle just advanced */
+	private void onFadeFrameChanged(long frameTimeMillis) {
+		if ( mMetrics == null ) {
+			updateTextAlpha();
+			return;
+		}
+		Compat.beginTraceSection(TRACE_FADE);
+		try {
+			updateTextAlpha();
+		} finally {
+			Compat.endTraceSection();
+		}
+		if ( mLastFadeFrameTime >= 0 ) {
+			mMetrics.record(TickerMetrics.EVENT_FADE_JITTER, (frameTimeMillis - mLastFadeFrameTime)*1000 - mFrameDriver.getFrameInterval(),
+					frameTimeMillis);
 		}
+		mLastFadeFrameTime = mFadeAnimator.isRunning() ? frameTimeMillis : -1;
 	}
 	
-	/** Update text with current alpha value */
+	/**
+	 * Update text with current alpha value. The layer alpha fade scales the alpha the user set on the view,
+	 * the text color fade the alpha of the text color of the current state. Once the text is opaque again
+	 * the text colors of the user are restored with all their states.
+	 */
 	protected void updateTextAlpha() {
-		NewsTickerView.this.setTextColor(Utils.combineColor(NewsTickerView.this.getCurrentTextColor(),NewsTickerView.this.mFadeAlpha));
+		final float alpha = mFadeAnimator.getAlpha();
+		if ( mFadeMode == FADE_MODE_LAYER_ALPHA ) {
+			bApplyingViewAlpha = true;
+			Compat.setAlpha(this, mBaseAlpha*alpha);
+			bApplyingViewAlpha = false;
+			mThumbnail.setAlpha(255);
+		} else {
+			mThumbnail.setAlpha((int) (alpha*255 + 0.5f));
+			bApplyingTextAlpha = true;
+			if ( alpha >= 1.f ) {
+				setTextColor(mBaseTextColors);
+			} else {
+				setTextColor(Utils.modulateAlpha(getBaseTextColor(), alpha));
+			}
+			bApplyingTextAlpha = false;
+		}
 	}
 	
 	@Override
@@ -492,54 +2271,139 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 		}
 	};
 	
+	/** Re-apply the fading edge once the time line visibility might have changed, never call it while drawing */
+	private void updateFadingEdge() {
+		setHorizontalFadingEdgeEnabled(isHorizontalFadingEdgeEnabled());
+	}
+	
 	@Override
-	protected void onDraw(Canvas canvas) {
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		updateThumbnailSlot();
+		if ( mNewsLayout != null ) {
+			// Lay the news out for the new width
+			showNewsText(mCurrentNews);
+		}
+		updateTimeLine();
+		if ( mTickerMode == TICKER_MODE_SCROLL ) {
+			mScrollStrip.setSize(w, h);
+			if ( isScrolling() ) {
+				mFrameDriver.postFrame();
+			}
+		}
+	}
+	
+	/** Compute the time line geometry, the bar runs along the bottom of the text area */
+	private boolean layoutTimeLine() {
+		final int compoundPaddingTop = getCompoundPaddingTop();
+		final int vspace = getHeight() - getCompoundPaddingBottom() - compoundPaddingTop;
+		final int hspace = getWidth() - getCompoundPaddingRight() - getCompoundPaddingLeft();
+		final float strokeWidth = mTimeLeftPaint.getStrokeWidth();
+		final int y = compoundPaddingTop + (vspace - getHeight()) / 2 + vspace - (int) (strokeWidth*0.5f);
+		return mTimeLine.setBounds(getPaddingLeft(), y, hspace, strokeWidth);
+	}
+	
+	/**
+	 * Update the time line length and invalidate only the strip that changed. The next update is
+	 * scheduled for the time the bar will have shrunk by another pixel, at most once per frame.
+	 */
+	private void updateTimeLine() {
+		if ( !isTickerRunning() ) {
+			mCycle.cancelTimeLine();
+			return;
+		}
 		
-		super.onDraw(canvas);
+		final boolean bGeometryChanged = layoutTimeLine();
+		final int oldLength = mTimeLine.getLength();
+		final int length = mCycle.updateTimeLine(showTimeLine());
 		
-		if ( showTimeLine() ) {
-			setHorizontalFadingEdgeEnabled(true);
-			final long currentTime = System.currentTimeMillis();
-			if ( currentTime <= mStartTime + mTimeToHandle ) {
-				mTimeLeft = 1-Utils.clamp((currentTime-mStartTime)/(float)mTimeToHandle,0,1);
-				if ( mTimeLeft > 0 ) {				    
-					// Get all data we need
-					final int right = getRight();
-			        final int bottom = getBottom();
-			        final int top = getTop();
-			        final int left = getLeft();
-			        final int height = getHeight();
-			        final int paddingLeft = getPaddingLeft();			        
-			        final int strokeWidth = (int) (mTimeLeftPaint.getStrokeWidth()*0.5f);			        
-			        final int compoundPaddingLeft = getCompoundPaddingLeft();
-			        final int compoundPaddingTop = getCompoundPaddingTop();
-			        final int compoundPaddingRight = getCompoundPaddingRight();
-			        final int compoundPaddingBottom = getCompoundPaddingBottom();
-			        final int scrollX = getScrollX();
-			        final int scrollY = getScrollY();
-			        
-			        // Compute the them with it's padding
-			        int vspace = bottom - top - compoundPaddingBottom - compoundPaddingTop;
-		            int hspace = right - left - compoundPaddingRight - compoundPaddingLeft;
-
-	                canvas.save();
-	                // Translate it taking the scrollx and scrolly into account, they are used when centering the text and such
-	                // If we do not translate the canvas when the view is centered we would be drawing outside
-	                canvas.translate(scrollX + paddingLeft, scrollY + compoundPaddingTop + (vspace - height) / 2);
-	                canvas.drawLine(left, vspace-strokeWidth, hspace*mTimeLeft, vspace-strokeWidth, mTimeLeftPaint);
-	                canvas.restore();
-					
-	                // Push changes to device
-					invalidate();
-				}
-			}
+		if ( bGeometryChanged ) {
+			invalidate();
+		} else if ( length != oldLength ) {
+			final int left = mTimeLine.getLeft() + getScrollX();
+			final int top = mTimeLine.getDamageTop() + getScrollY();
+			final int bottom = mTimeLine.getDamageBottom() + getScrollY();
+			invalidate(left + Math.min(length, oldLength), top, left + Math.max(length, oldLength) + 1, bottom);
+		}
+	}
+	
+	@Override
+	protected void onDraw(Canvas canvas) {
+		final TickerMetrics metrics = mMetrics;
+		if ( metrics == null ) {
+			drawTicker(canvas);
+			return;
+		}
+		Compat.beginTraceSection(TRACE_DRAW);
+		final long start = System.nanoTime();
+		try {
+			drawTicker(canvas);
+		} finally {
+			Compat.endTraceSection();
+		}
+		metrics.record(TickerMetrics.EVENT_DRAW, (System.nanoTime() - start)/1000, TickerClock.get().uptimeMillis());
+	}
+	
+	@Override
+	public void invalidate() {
+		if ( mMetrics != null ) {
+			mInvalidateCounter.onInvalidate(mMetrics, TickerClock.get().uptimeMillis());
+		}
+		super.invalidate();
+	}
+	
+	@Override
+	public void invalidate(int l, int t, int r, int b) {
+		if ( mMetrics != null ) {
+			mInvalidateCounter.onInvalidate(mMetrics, TickerClock.get().uptimeMillis());
+		}
+		super.invalidate(l, t, r, b);
+	}
+	
+	/** Draw the news, the running transition or drag and the time line */
+	private void drawTicker(Canvas canvas) {
+		if ( isScrolling() ) {
+			mScrollStrip.draw(canvas, getScrollX(), getScrollY());
+		} else if ( bDragging ) {
+			// Both news follow the finger
+			final int scrollX = getScrollX();
+			final int scrollY = getScrollY();
+			canvas.save();
+			canvas.clipRect(scrollX, scrollY, scrollX + getWidth(), scrollY + getHeight());
+			canvas.translate(scrollX, scrollY);
+			NewsTransition.DragSlide.draw(canvas, mSnapshots.getBitmap(SnapshotCache.OUTGOING), mSnapshots.getBitmap(SnapshotCache.INCOMING),
+					Math.abs(mSwipeDetector.getDragOffset()), mDragDirection, mSnapshotPaint);
+			canvas.restore();
+		} else if ( mTransitionAnimator.isRunning() && mRunningTransition != null ) {
+			// Compose the snapshots in view space, the text is not drawn while the transition runs
+			final int scrollX = getScrollX();
+			final int scrollY = getScrollY();
+			canvas.save();
+			canvas.clipRect(scrollX, scrollY, scrollX + getWidth(), scrollY + getHeight());
+			canvas.translate(scrollX, scrollY);
+			mRunningTransition.draw(canvas, mSnapshots.getBitmap(SnapshotCache.OUTGOING), mSnapshots.getBitmap(SnapshotCache.INCOMING),
+					mRunningTransition.getInterpolation(mTransitionAnimator.getAlpha()), mSnapshotPaint);
+			canvas.restore();
+		} else {
+			drawNewsText(canvas);
+		}
+		
+		// Just draw what the last time line update decided, the draw path never invalidates
+		final int length = mTimeLine.getLength();
+		if ( length > 0 && showTimeLine() ) {
+			final int left = mTimeLine.getLeft() + getScrollX();
+			final int y = mTimeLine.getY() + getScrollY();
+			canvas.drawLine(left, y, left + length, y, mTimeLeftPaint);
 		}
 	}
 	
 	/**
-	 * Inner class used to make a fixed timed animation of the curl effect.
+	 * Handler used to hand news published from other threads over to the UI thread.
 	 */
 	static class NewsTickerHandler extends Handler {		
+		/** A news snapshot has been published from another thread */
+		static final int MSG_APPLY_PENDING_NEWS = 1;
+		
 		WeakReference<NewsTickerView> mNewsTickerRef;
 		
 		public NewsTickerHandler(NewsTickerView ticker) {
@@ -548,88 +2412,104 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 		
 		@Override
 		public void handleMessage(Message msg) {
-			synchronized (this) {
-				NewsTickerView ticker = mNewsTickerRef.get();
-				if ( ticker != null && !ticker.bDetached ) {
-					ticker.mFadeAnimationHandler.startFadeOut();
-				}
+			NewsTickerView ticker = mNewsTickerRef.get();
+			if ( ticker != null && msg.what == MSG_APPLY_PENDING_NEWS ) {
+				ticker.applyPendingNews();
 			}
 		}
-
-		public void sleep(long millis) {
-			this.removeMessages(0);
-			sendMessageDelayed(obtainMessage(0), millis);
-		}
 	}
 	
 	/**
-	 * Handler used to fade out and in.
+	 * A news snapshot published from another thread together with its diff against the news it was
+	 * published on top of. Immutable once created.
 	 */
-	static class FadeAnimationHandler extends Handler {
-		private static final int FADE_OUT_CODE = 0;
-		private static final int FADE_IN_CODE = 1;
-		
-		WeakReference<NewsTickerView> mNewsTickerRef;
+	static final class PendingNews {
+		final List<NewsHolder> mBase;
+		final ArrayList<NewsHolder> mNews;
+		final NewsDiff mDiff;
 		
-		public FadeAnimationHandler(NewsTickerView ticker) {
-			mNewsTickerRef = new WeakReference<NewsTickerView>(ticker);
+		PendingNews(List<NewsHolder> base, ArrayList<NewsHolder> news, NewsDiff diff) {
+			mBase = base;
+			mNews = news;
+			mDiff = diff;
 		}
+	}
+	
+	/**
+	 * A news next to the dragged one: its layout and its image, which stays pinned until the drag ends.
+	 */
+	private static final class DragNeighbour {
+		StaticLayout mLayout = null;
+		Bitmap mImage = null;
+		String mImageKey = null;
 		
+		void release(ThumbnailCache cache) {
+			if ( mImageKey != null && cache != null ) {
+				cache.release(mImageKey);
+			}
+			mLayout = null;
+			mImage = null;
+			mImageKey = null;
+		}
+	}
+	
+	/**
+	 * Fixed size drawable the images of the news are swapped into, showing another image only redraws
+	 * it. Images are fit into its bounds keeping their aspect ratio.
+	 */
+	static final class ThumbnailDrawable extends Drawable {
+		private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		private final Rect mSource = new Rect();
+		private final Rect mDestination = new Rect();
+		private Bitmap mBitmap = null;
 		
-		@Override
-		public void handleMessage(Message msg) {
-			synchronized (this) {
-				NewsTickerView ticker = mNewsTickerRef.get();
-				if ( ticker != null && !ticker.bDetached ) {
-					int direction = (msg.what == FADE_IN_CODE)?1:-1;
-					ticker.mFadeAlpha += (FADE_ANIMATION_RATE_SECS/(float)FADE_TIME)*direction;
-					ticker.updateTextAlpha();
-					
-					if ( ticker.mFadeAlpha <= 0.f && (msg.what == FADE_OUT_CODE) ) {
-						ticker.fadedOut();
-					} else if ( ticker.mFadeAlpha >= 1.f && (msg.what == FADE_IN_CODE) ) {
-						ticker.fadedIn();
-					} else {
-						sleep(msg.what);
-					}
-				}
+		/** Show the given bitmap, null to show nothing */
+		void setBitmap(Bitmap bitmap) {
+			if ( bitmap != mBitmap ) {
+				mBitmap = bitmap;
+				invalidateSelf();
 			}
 		}
 		
-		public void startFadeIn() {
-			NewsTickerView ticker = mNewsTickerRef.get();
-			if ( ticker != null ) {
-				ticker.mFadeAlpha = 0;
-				ticker.updateTextAlpha();
-				startAnimation(FADE_IN_CODE);
+		Bitmap getBitmap() {
+			return mBitmap;
+		}
+		
+		@Override
+		public void draw(Canvas canvas) {
+			if ( mBitmap == null ) {
+				return;
 			}
+			final Rect bounds = getBounds();
+			final int width = mBitmap.getWidth();
+			final int height = mBitmap.getHeight();
+			final float scale = Math.min(bounds.width()/(float) width, bounds.height()/(float) height);
+			final int scaledWidth = (int) (width*scale + 0.5f);
+			final int scaledHeight = (int) (height*scale + 0.5f);
+			final int left = bounds.left + (bounds.width() - scaledWidth)/2;
+			final int top = bounds.top + (bounds.height() - scaledHeight)/2;
+			mSource.set(0, 0, width, height);
+			mDestination.set(left, top, left + scaledWidth, top + scaledHeight);
+			canvas.drawBitmap(mBitmap, mSource, mDestination, mPaint);
 		}
 		
-		public void startFadeOut() {
-			NewsTickerView ticker = mNewsTickerRef.get();
-			if ( ticker != null ) {
-				ticker.mFadeAlpha = 1;
-				ticker.updateTextAlpha();
-				startAnimation(FADE_OUT_CODE);
+		@Override
+		public void setAlpha(int alpha) {
+			if ( alpha != mPaint.getAlpha() ) {
+				mPaint.setAlpha(alpha);
+				invalidateSelf();
 			}
 		}
 		
-		/**
-		 * Start the fade animation
-		 */
-		private void startAnimation(int code) {
-			this.removeMessages(FADE_OUT_CODE);
-			this.removeMessages(FADE_IN_CODE);
-			sendMessage(obtainMessage(code));
+		@Override
+		public void setColorFilter(ColorFilter colorFilter) {
+			mPaint.setColorFilter(colorFilter);
+			invalidateSelf();
 		}
 		
-		/**
-		 * Sleep and then start again
-		 */
-		public void sleep(int code) {
-			this.removeMessages(FADE_OUT_CODE);
-			this.removeMessages(FADE_IN_CODE);
-			sendMessageDelayed(obtainMessage(code), FADE_ANIMATION_RATE);
+		@Override
+		public int getOpacity() {
+			return PixelFormat.TRANSLUCENT;
 		}
 	}
 	
@@ -640,6 +2520,11 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 	 */
 	static class SavedState extends BaseSavedState {
 		public int mNewsIndex;
+		
+		/** Id of the shown news, only valid if bHasNewsId is set */
+		public long mNewsId;
+		public boolean bHasNewsId;
+		
 		SavedState(Parcelable superState) {
 			super(superState);
 		}
@@ -647,12 +2532,16 @@ public class NewsTickerView extends TextView implements OnTouchListener {
 		private SavedState(Parcel in) {
 			super(in);
 			this.mNewsIndex = in.readInt();
+			this.bHasNewsId = in.readInt() != 0;
+			this.mNewsId = in.readLong();
 		}
 		
 		@Override
 		public void writeToParcel(Parcel out, int flags) {
 			super.writeToParcel(out, flags);
 			out.writeInt(this.mNewsIndex);
+			out.writeInt(this.bHasNewsId ? 1 : 0);
+			out.writeLong(this.mNewsId);
 		}
 		
 		// required field that makes Parcelables from a Parcel
@@ -1,42 +1,203 @@
 package com.mystictreegames.ui.newstickerview;
 
+import java.util.List;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.widget.RemoteViews;
 
+/**
+ * Home screen widget that rotates the cached news of a feed. The news are read from the same
+ * {@link NewsCache} the {@link NewsTickerView} persists its news in, the feed is set through the
+ * <code>newsticker_widget_feed_id</code> string resource.
+ * <p>
+ * On Honeycomb and above the news are fed by {@link NewsTickerWidgetService} into an AdapterViewFlipper
+ * that rotates them on its own, the widget itself never wakes up for that. Older devices show one news
+ * that changes on every refresh. Refreshes are scheduled as inexact repeating alarms on the elapsed
+ * realtime clock, the system batches them with other alarms and never wakes the device for them. Apps
+ * that fetched new news should call {@link #notifyNewsChanged(Context)}.
+ * <p>
+ * Add the following to the manifest of your app:
+ * <pre>
+ * &lt;receiver android:name="com.mystictreegames.ui.newstickerview.NewsTickerWidgetProvider" &gt;
+ *     &lt;intent-filter&gt;
+ *         &lt;action android:name="android.appwidget.action.APPWIDGET_UPDATE" /&gt;
+ *         &lt;action android:name="com.mystictreegames.ui.newstickerview.action.REFRESH_WIDGET" /&gt;
+ *     &lt;/intent-filter&gt;
+ *     &lt;meta-data android:name="android.appwidget.provider" android:resource="@xml/news_ticket_widget" /&gt;
+ * &lt;/receiver&gt;
+ * &lt;service android:name="com.mystictreegames.ui.newstickerview.NewsTickerWidgetService"
+ *     android:permission="android.permission.BIND_REMOTEVIEWS" android:exported="false" /&gt;
+ * </pre>
+ * @author Moritz 'Moss' Wundke (b.thax.dcg@gmail.com)
+ *
+ */
 public class NewsTickerWidgetProvider extends AppWidgetProvider {
-	//private static final String ACTION_CLICK = "ACTION_CLICK";
+	public static final String TAG = "NewsTickerWidgetProvider";
+
+	/** Broadcast sent by our alarm to reload the news */
+	public static final String ACTION_REFRESH = "com.mystictreegames.ui.newstickerview.action.REFRESH_WIDGET";
+
+	/** Extra holding the feed id for the widget service */
+	public static final String EXTRA_FEED_ID = "com.mystictreegames.ui.newstickerview.extra.FEED_ID";
+
+	/** How often the news are reloaded from the cache */
+	public static final long REFRESH_INTERVAL = AlarmManager.INTERVAL_HALF_HOUR;
+
+	@Override
+	public void onEnabled(Context context) {
+		super.onEnabled(context);
+		scheduleRefresh(context);
+	}
+
+	@Override
+	public void onDisabled(Context context) {
+		super.onDisabled(context);
+		final AlarmManager alarms = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+		alarms.cancel(getRefreshIntent(context));
+	}
+
+	@Override
+	public void onReceive(Context context, Intent intent) {
+		if ( ACTION_REFRESH.equals(intent.getAction()) ) {
+			refresh(context);
+		} else {
+			super.onReceive(context, intent);
+		}
+	}
 
 	@Override
 	public void onUpdate(Context context, AppWidgetManager appWidgetManager,
 			int[] appWidgetIds) {
-		
-		/*
-		// Get all ids
-		ComponentName thisWidget = new ComponentName(context,
-				NewsTickerWidgetProvider.class);
-		int[] allWidgetIds = appWidgetManager.getAppWidgetIds(thisWidget);
-		for (int widgetId : allWidgetIds) {
-			// Create some random data
-			int number = (new Random().nextInt(100));
-
-			RemoteViews remoteViews = new RemoteViews(context.getPackageName(),
-					R.layout.news_ticker_widget);
-			Log.w("WidgetExample", String.valueOf(number));
-			// Set the text
-			remoteViews.setTextViewText(R.id.update, String.valueOf(number));
-
-			// Register an onClickListener
-			Intent intent = new Intent(context, NewsTickerWidgetProvider.class);
-
-			intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-			intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds);
-
-			PendingIntent pendingIntent = PendingIntent.getBroadcast(context,
-					0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
-			remoteViews.setOnClickPendingIntent(R.id.update, pendingIntent);
-			appWidgetManager.updateAppWidget(widgetId, remoteViews);
-		}
-		*/
+		updateWidgets(context, appWidgetManager, appWidgetIds);
+		// Alarms do not survive a reboot, the system sends us an update after it
+		scheduleRefresh(context);
+	}
+
+	/**
+	 * Tell all widgets the cached news changed. Waits for pending writes of the default {@link NewsCache}
+	 * so it can be called right after handing news to a ticker, safe to call from any thread.
+	 */
+	public static void notifyNewsChanged(Context context) {
+		final Context appContext = context.getApplicationContext();
+		NewsCache.getDefault(appContext).runAfterWrites(new Runnable() {
+			public void run() {
+				refresh(appContext);
+			}
+		});
+	}
+
+	/** Id of the feed shown by the widget */
+	public static String getFeedId(Context context) {
+		return context.getString(R.string.newsticker_widget_feed_id);
+	}
+
+	/** Reload the news of all widgets */
+	static void refresh(Context context) {
+		final AppWidgetManager manager = AppWidgetManager.getInstance(context);
+		final int[] appWidgetIds = manager.getAppWidgetIds(new ComponentName(context, NewsTickerWidgetProvider.class));
+		if ( appWidgetIds == null || appWidgetIds.length == 0 ) {
+			return;
+		}
+		if ( HoneycombWidget.isAvailable() ) {
+			// Only the collection reloads, the widget layout stays as it is
+			manager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.news_flipper);
+		} else {
+			updateWidgets(context, manager, appWidgetIds);
+		}
+	}
+
+	/**
+	 * Build the views once and push them to all widgets in a single call. Before Ice Cream Sandwich the
+	 * remote adapter is bound to a single widget id, so there every widget gets views of its own.
+	 */
+	static void updateWidgets(Context context, AppWidgetManager manager, int[] appWidgetIds) {
+		if ( appWidgetIds == null || appWidgetIds.length == 0 ) {
+			return;
+		}
+		if ( !HoneycombWidget.isAvailable() ) {
+			manager.updateAppWidget(appWidgetIds, buildSingleNewsViews(context));
+		} else if ( HoneycombWidget.isBoundPerWidget() ) {
+			for ( int appWidgetId : appWidgetIds ) {
+				manager.updateAppWidget(appWidgetId, HoneycombWidget.buildViews(context, appWidgetId));
+			}
+		} else {
+			manager.updateAppWidget(appWidgetIds, HoneycombWidget.buildViews(context, AppWidgetManager.INVALID_APPWIDGET_ID));
+		}
+	}
+
+	/** Views showing a single news, the news changes with every refresh */
+	private static RemoteViews buildSingleNewsViews(Context context) {
+		final RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.news_ticker_widget);
+		final List<NewsHolder> news = NewsCache.getDefault(context).load(getFeedId(context));
+		if ( news == null || news.isEmpty() ) {
+			views.setTextViewText(R.id.update, context.getString(R.string.newsticker_loadingtext));
+			return views;
+		}
+		// Derive the news from the clock so we do not need to remember anything between refreshes
+		final NewsHolder holder = news.get((int) ((System.currentTimeMillis()/REFRESH_INTERVAL) % news.size()));
+		views.setTextViewText(R.id.update, holder.mNews);
+		if ( holder.mLink != null && holder.mLink.length() > 0 ) {
+			final Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(holder.mLink));
+			views.setOnClickPendingIntent(R.id.update, PendingIntent.getActivity(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT));
+		}
+		return views;
+	}
+
+	/** Schedule the periodic reload, replaces any previous schedule */
+	private static void scheduleRefresh(Context context) {
+		final AlarmManager alarms = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+		alarms.setInexactRepeating(AlarmManager.ELAPSED_REALTIME, SystemClock.elapsedRealtime() + REFRESH_INTERVAL,
+				REFRESH_INTERVAL, getRefreshIntent(context));
+	}
+
+	private static PendingIntent getRefreshIntent(Context context) {
+		final Intent intent = new Intent(context, NewsTickerWidgetProvider.class);
+		intent.setAction(ACTION_REFRESH);
+		return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+	}
+
+	/**
+	 * Collection backed widget, only loaded on Honeycomb and above.
+	 */
+	static final class HoneycombWidget {
+		static boolean isAvailable() {
+			return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+		}
+
+		/** Whether the remote adapter takes the id of the widget it is bound to, API 11 to 13 */
+		static boolean isBoundPerWidget() {
+			return Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+		}
+
+		/**
+		 * Views of the collection widget.
+		 * @param appWidgetId The widget the adapter is bound to, only used if {@link #isBoundPerWidget()}
+		 */
+		@SuppressWarnings("deprecation")
+		static RemoteViews buildViews(Context context, int appWidgetId) {
+			final RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.news_ticker_widget);
+			final Intent service = new Intent(context, NewsTickerWidgetService.class);
+			service.putExtra(EXTRA_FEED_ID, getFeedId(context));
+			if ( isBoundPerWidget() ) {
+				views.setRemoteAdapter(appWidgetId, R.id.news_flipper, service);
+			} else {
+				views.setRemoteAdapter(R.id.news_flipper, service);
+			}
+			views.setEmptyView(R.id.news_flipper, R.id.update);
+
+			// Every news fills in its link
+			final Intent open = new Intent(Intent.ACTION_VIEW);
+			views.setPendingIntentTemplate(R.id.news_flipper, PendingIntent.getActivity(context, 0, open, PendingIntent.FLAG_UPDATE_CURRENT));
+			return views;
+		}
 	}
 }
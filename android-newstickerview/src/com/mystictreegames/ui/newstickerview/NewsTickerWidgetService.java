@@ -0,0 +1,87 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.List;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.widget.RemoteViews;
+import android.widget.RemoteViewsService;
+
+/**
+ * Feeds the cached news of a feed into the flipper of the {@link NewsTickerWidgetProvider}. The cache
+ * file is only mapped when the data set changes, news are decoded one by one as the flipper asks for
+ * them. Requires Honeycomb or above.
+ */
+public class NewsTickerWidgetService extends RemoteViewsService {
+	@Override
+	public RemoteViewsFactory onGetViewFactory(Intent intent) {
+		String feedId = intent.getStringExtra(NewsTickerWidgetProvider.EXTRA_FEED_ID);
+		if ( feedId == null ) {
+			feedId = NewsTickerWidgetProvider.getFeedId(this);
+		}
+		return new NewsViewsFactory(getApplicationContext(), feedId);
+	}
+
+	/**
+	 * Creates one remote view per cached news.
+	 */
+	static final class NewsViewsFactory implements RemoteViewsFactory {
+		private final Context mContext;
+		private final String mFeedId;
+		private List<NewsHolder> mNews;
+
+		NewsViewsFactory(Context context, String feedId) {
+			mContext = context;
+			mFeedId = feedId;
+		}
+
+		public void onCreate() {
+		}
+
+		public void onDataSetChanged() {
+			// Called on a binder thread, mapping the cache is fine here
+			mNews = NewsCache.getDefault(mContext).load(mFeedId);
+		}
+
+		public void onDestroy() {
+			mNews = null;
+		}
+
+		public int getCount() {
+			return mNews != null ? mNews.size() : 0;
+		}
+
+		public RemoteViews getViewAt(int position) {
+			final RemoteViews views = new RemoteViews(mContext.getPackageName(), R.layout.news_ticker_widget_item);
+			if ( mNews == null || position >= mNews.size() ) {
+				return views;
+			}
+			final NewsHolder news = mNews.get(position);
+			views.setTextViewText(R.id.news_text, news.mNews);
+			if ( news.mLink != null && news.mLink.length() > 0 ) {
+				final Intent fillIn = new Intent();
+				fillIn.setData(Uri.parse(news.mLink));
+				views.setOnClickFillInIntent(R.id.news_text, fillIn);
+			}
+			return views;
+		}
+
+		public RemoteViews getLoadingView() {
+			// The default loading view is fine
+			return null;
+		}
+
+		public int getViewTypeCount() {
+			return 1;
+		}
+
+		public long getItemId(int position) {
+			return position;
+		}
+
+		public boolean hasStableIds() {
+			return false;
+		}
+	}
+}
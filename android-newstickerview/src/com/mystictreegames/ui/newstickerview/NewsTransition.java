@@ -0,0 +1,198 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * A transition between two news of a {@link NewsTickerView}. The ticker renders the outgoing and the
+ * incoming news into cached snapshots once and then asks the transition to compose both of them on
+ * every frame, so the text itself is never laid out or drawn again while the transition runs.
+ * <p>
+ * Extend this class to create custom transitions, the built-in ones are {@link Crossfade},
+ * {@link Slide} and {@link VerticalRoll}. Set one using {@link NewsTickerView#setTransition(NewsTransition)}.
+ */
+public abstract class NewsTransition {
+	/** Default duration of the built-in transitions in milliseconds */
+	public static final int DEFAULT_DURATION = 500;
+
+	/** Attribute value for the classic fade-out, fade-in */
+	public static final int TYPE_FADE = 0;
+
+	/** Attribute value for {@link Crossfade} */
+	public static final int TYPE_CROSSFADE = 1;
+
+	/** Attribute value for {@link Slide} */
+	public static final int TYPE_SLIDE = 2;
+
+	/** Attribute value for {@link VerticalRoll} */
+	public static final int TYPE_ROLL = 3;
+
+	/** Duration of the transition in milliseconds */
+	private final long mDuration;
+
+	protected NewsTransition(long duration) {
+		mDuration = duration;
+	}
+
+	/** Duration of the transition in milliseconds */
+	public long getDuration() {
+		return mDuration;
+	}
+
+	/**
+	 * Map the linear progress of the transition to the progress passed to {@link #draw}. Eases in
+	 * and out by default.
+	 */
+	protected float getInterpolation(float progress) {
+		return progress*progress*(3.f-2.f*progress);
+	}
+
+	/**
+	 * Draw the transition. The canvas is positioned at the top left corner of the ticker and both
+	 * snapshots have the size of the ticker.
+	 * @param canvas Canvas to draw into
+	 * @param outgoing Snapshot of the news that is leaving
+	 * @param incoming Snapshot of the news that is entering
+	 * @param progress Interpolated progress of the transition
+	 * @param paint Paint to draw the snapshots with, must be left with an alpha of 255
+	 */
+	public abstract void draw(Canvas canvas, Bitmap outgoing, Bitmap incoming, float progress, Paint paint);
+
+	/**
+	 * Create one of the built-in transitions from its attribute value.
+	 * @return The transition or null for {@link #TYPE_FADE}
+	 */
+	public static NewsTransition create(int type, long duration) {
+		switch ( type ) {
+			case TYPE_CROSSFADE:
+				return new Crossfade(duration);
+			case TYPE_SLIDE:
+				return new Slide(duration);
+			case TYPE_ROLL:
+				return new VerticalRoll(duration);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Blends the incoming news over the outgoing one.
+	 */
+	public static class Crossfade extends NewsTransition {
+		public Crossfade() {
+			this(DEFAULT_DURATION);
+		}
+
+		public Crossfade(long duration) {
+			super(duration);
+		}
+
+		@Override
+		public void draw(Canvas canvas, Bitmap outgoing, Bitmap incoming, float progress, Paint paint) {
+			final int alpha = (int) (255*progress);
+			paint.setAlpha(255-alpha);
+			canvas.drawBitmap(outgoing, 0, 0, paint);
+			paint.setAlpha(alpha);
+			canvas.drawBitmap(incoming, 0, 0, paint);
+			paint.setAlpha(255);
+		}
+	}
+
+	/**
+	 * Pushes the outgoing news out to the left while the incoming one enters from the right.
+	 */
+	public static class Slide extends NewsTransition {
+		public Slide() {
+			this(DEFAULT_DURATION);
+		}
+
+		public Slide(long duration) {
+			super(duration);
+		}
+
+		@Override
+		public void draw(Canvas canvas, Bitmap outgoing, Bitmap incoming, float progress, Paint paint) {
+			final float offset = outgoing.getWidth()*progress;
+			canvas.drawBitmap(outgoing, -offset, 0, paint);
+			canvas.drawBitmap(incoming, outgoing.getWidth()-offset, 0, paint);
+		}
+	}
+
+	/**
+	 * Rolls the outgoing news out to the top while the incoming one enters from the bottom.
+	 */
+	public static class VerticalRoll extends NewsTransition {
+		public VerticalRoll() {
+			this(DEFAULT_DURATION);
+		}
+
+		public VerticalRoll(long duration) {
+			super(duration);
+		}
+
+		@Override
+		public void draw(Canvas canvas, Bitmap outgoing, Bitmap incoming, float progress, Paint paint) {
+			final float offset = outgoing.getHeight()*progress;
+			canvas.drawBitmap(outgoing, 0, -offset, paint);
+			canvas.drawBitmap(incoming, 0, outgoing.getHeight()-offset, paint);
+		}
+	}
+
+	/**
+	 * Finishes a drag of the ticker: slides both news from where the finger left them either all the
+	 * way to the incoming news or back to the outgoing one. Reconfigured for every drag.
+	 */
+	static final class DragSlide extends NewsTransition {
+		/** Duration of sliding the whole width */
+		static final int FULL_DURATION = 300;
+
+		private float mFrom;
+		private float mTo;
+		private int mDirection;
+		private long mDragDuration;
+
+		DragSlide() {
+			super(FULL_DURATION);
+		}
+
+		/**
+		 * Set where the slide starts and ends.
+		 * @param from Fraction of the width the news got dragged
+		 * @param to 1 to finish the swap, 0 to settle back
+		 * @param direction 1 if the incoming news enters from the right, -1 from the left
+		 */
+		void set(float from, float to, int direction) {
+			mFrom = from;
+			mTo = to;
+			mDirection = direction;
+			mDragDuration = (long) (FULL_DURATION*Math.abs(to - from));
+		}
+
+		@Override
+		public long getDuration() {
+			return mDragDuration;
+		}
+
+		@Override
+		protected float getInterpolation(float progress) {
+			// Decelerate, the news already moves with the speed of the finger
+			final float t = 1.f - progress;
+			return 1.f - t*t;
+		}
+
+		@Override
+		public void draw(Canvas canvas, Bitmap outgoing, Bitmap incoming, float progress, Paint paint) {
+			draw(canvas, outgoing, incoming, outgoing.getWidth()*(mFrom + (mTo - mFrom)*progress), mDirection, paint);
+		}
+
+		/** Draw both news with the outgoing one moved by the given distance */
+		static void draw(Canvas canvas, Bitmap outgoing, Bitmap incoming, float offset, int direction, Paint paint) {
+			final float x = -direction*offset;
+			canvas.drawBitmap(outgoing, x, 0, paint);
+			if ( incoming != null ) {
+				canvas.drawBitmap(incoming, x + direction*outgoing.getWidth(), 0, paint);
+			}
+		}
+	}
+}
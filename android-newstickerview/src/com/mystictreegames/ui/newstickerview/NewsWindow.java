@@ -0,0 +1,89 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.ArrayList;
+
+/**
+ * Bookkeeping of the pages a ticker holds while paging news from a {@link NewsPageSource}. The news
+ * themselves live in the news list of the ticker, this only tracks where the pages start, which one
+ * to request next and whether the whole feed fits into the window.
+ */
+final class NewsWindow {
+	final NewsPageSource mSource;
+	final int mPageSize;
+	final int mPrefetchDistance;
+
+	/** Number of news of every held page, oldest first */
+	private final ArrayList<Integer> mPages = new ArrayList<Integer>();
+
+	/** Feed position of the next page to request */
+	private int mNextPosition = 0;
+
+	/** Whether a page request is running */
+	private boolean bRequested = false;
+
+	/** The whole feed is held, the ticker just wraps around */
+	private boolean bComplete = false;
+
+	/** Whether any page got dropped so far */
+	private boolean bReleased = false;
+
+	NewsWindow(NewsPageSource source, int pageSize, int prefetchDistance) {
+		mSource = source;
+		mPageSize = Math.max(1, pageSize);
+		mPrefetchDistance = Math.max(1, prefetchDistance);
+	}
+
+	/** Whether the next page should be requested while showing the given position of the window */
+	public boolean needsPage(int index, int windowSize) {
+		return !bRequested && !bComplete && windowSize - index <= mPrefetchDistance;
+	}
+
+	/**
+	 * Mark the next page as requested.
+	 * @return The feed position of the page
+	 */
+	public int requestPage() {
+		bRequested = true;
+		return mNextPosition;
+	}
+
+	/** A page request failed, it will be requested again */
+	public void onPageFailed() {
+		bRequested = false;
+	}
+
+	/** A page got appended to the window */
+	public void onPageLoaded(int position, int count) {
+		bRequested = false;
+		mPages.add(count);
+		mNextPosition = position + count;
+	}
+
+	/**
+	 * The feed has no news at the requested position. If nothing has been dropped yet the window
+	 * holds the whole feed, otherwise we start over at its first news.
+	 */
+	public void onEndReached() {
+		bRequested = false;
+		if ( !bReleased || mNextPosition == 0 ) {
+			// Either everything is held or the feed is empty, stop asking
+			bComplete = true;
+		} else {
+			mNextPosition = 0;
+		}
+	}
+
+	/**
+	 * Number of news at the start of the window that belong to pages completely before the given
+	 * position. Those pages are forgotten, the caller must drop the news. Only valid if the news are
+	 * shown in window order, so every news before the position has been shown.
+	 */
+	public int releasePagesBefore(int index) {
+		int released = 0;
+		while ( mPages.size() > 1 && mPages.get(0) <= index - released ) {
+			released += mPages.remove(0);
+		}
+		bReleased |= released > 0;
+		return released;
+	}
+}
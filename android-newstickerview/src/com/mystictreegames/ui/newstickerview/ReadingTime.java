@@ -0,0 +1,152 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Paint;
+
+/**
+ * Estimates how long a news needs to be shown from how long it takes to read it instead of using its
+ * fixed time. The estimate is based on the number of words at a given reading speed, texts that are
+ * hardly separated by spaces like CJK scripts are counted by glyphs instead. Every wrapped line adds the
+ * time the eye needs to jump back, so the same news dwells longer on a narrow ticker. The result is
+ * clamped to a minimum and a maximum.
+ * <p>
+ * Dwell times are cached per text, so holders created on access for the same news share them, and only
+ * measured again once the text size or the width changed.
+ */
+final class ReadingTime {
+	/** Default reading speed in words per minute */
+	public static final int DEFAULT_WORDS_PER_MINUTE = 200;
+
+	/** Default shortest dwell time in milliseconds */
+	public static final int DEFAULT_MIN_DWELL = 3000;
+
+	/** Default longest dwell time in milliseconds */
+	public static final int DEFAULT_MAX_DWELL = 20000;
+
+	/** Glyphs that make up a word for texts that are not separated by spaces */
+	private static final int GLYPHS_PER_WORD = 5;
+
+	/**
+	 * Texts with less than one whitespace in this many characters are counted by glyphs. Spaced scripts
+	 * stay well above it even with long compound words, CJK texts with the odd space stay below.
+	 */
+	private static final int MAX_CHARS_PER_SPACE = 20;
+
+	/** Time in milliseconds to notice a new news before reading starts */
+	private static final int SETTLE_TIME = 500;
+
+	/** Time in milliseconds to jump back to the start of the next line */
+	private static final int LINE_TIME = 200;
+
+	/** Number of news we keep dwell times for */
+	private static final int MAX_ENTRIES = 256;
+
+	/** Dwell times by text, the dwell time only depends on the text */
+	private final LinkedHashMap<String, Long> mDwellTimes = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private int mWordsPerMinute = DEFAULT_WORDS_PER_MINUTE;
+	private int mMinDwell = DEFAULT_MIN_DWELL;
+	private int mMaxDwell = DEFAULT_MAX_DWELL;
+
+	/** Text size and width the cached dwell times were measured with */
+	private float mTextSize = -1;
+	private int mWidth = -1;
+
+	/** Set the reading speed in words per minute */
+	public void setWordsPerMinute(int wordsPerMinute) {
+		if ( wordsPerMinute != mWordsPerMinute ) {
+			mWordsPerMinute = Math.max(1, wordsPerMinute);
+			mDwellTimes.clear();
+		}
+	}
+
+	public int getWordsPerMinute() {
+		return mWordsPerMinute;
+	}
+
+	/** Set the shortest and longest dwell time in milliseconds */
+	public void setBounds(int minDwell, int maxDwell) {
+		mMinDwell = Math.max(0, minDwell);
+		mMaxDwell = Math.max(mMinDwell, maxDwell);
+		mDwellTimes.clear();
+	}
+
+	public int getMinDwell() {
+		return mMinDwell;
+	}
+
+	public int getMaxDwell() {
+		return mMaxDwell;
+	}
+
+	/** Drop all cached dwell times */
+	public void clear() {
+		mDwellTimes.clear();
+	}
+
+	/**
+	 * Get the dwell time of a news.
+	 * @param paint Paint the news text is drawn with
+	 * @param width Width available to the text, 0 or less if not laid out yet
+	 * @return The dwell time in milliseconds
+	 */
+	public long getDwellMillis(NewsHolder news, Paint paint, int width) {
+		final float textSize = paint.getTextSize();
+		if ( textSize != mTextSize || width != mWidth ) {
+			mTextSize = textSize;
+			mWidth = width;
+			mDwellTimes.clear();
+		}
+		final String text = news.mNews != null ? news.mNews : "";
+		final Long cached = mDwellTimes.get(text);
+		if ( cached != null ) {
+			return cached;
+		}
+		final long dwell = measure(text, paint, width);
+		mDwellTimes.put(text, dwell);
+		return dwell;
+	}
+
+	private long measure(String text, Paint paint, int width) {
+		// Count words, glyphs and whitespace in a single pass
+		int words = 0;
+		int glyphs = 0;
+		int spaces = 0;
+		boolean bInWord = false;
+		for ( int i = 0; i < text.length(); ) {
+			final int codePoint = text.codePointAt(i);
+			i += Character.charCount(codePoint);
+			if ( Character.isWhitespace(codePoint) ) {
+				spaces++;
+				bInWord = false;
+			} else {
+				glyphs++;
+				if ( !bInWord ) {
+					words++;
+					bInWord = true;
+				}
+			}
+		}
+		if ( spaces*MAX_CHARS_PER_SPACE < glyphs + spaces ) {
+			// Hardly any spaces, the words we counted are whole sentences
+			words = Math.max(words, (glyphs + GLYPHS_PER_WORD - 1) / GLYPHS_PER_WORD);
+		}
+
+		int lines = 1;
+		if ( width > 0 && text.length() > 0 ) {
+			lines = Math.max(1, (int) Math.ceil(paint.measureText(text) / width));
+		}
+
+		final long dwell = SETTLE_TIME + words*60000L/mWordsPerMinute + (lines - 1)*LINE_TIME;
+		return Math.max(mMinDwell, Math.min(mMaxDwell, dwell));
+	}
+}
@@ -0,0 +1,301 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.List;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+/**
+ * Endless horizontal strip of news used by the continuous scroll mode of the {@link NewsTickerView}.
+ * <p>
+ * The news are laid out one after another on a virtual tape which gets rendered into a fixed number of
+ * equally sized tile bitmaps, just enough to cover the view. Once a tile scrolled out to the left it is
+ * recycled: it gets cleared, filled with the next part of the tape and appended on the right. Memory
+ * stays constant no matter how many news there are or how long they are.
+ * <p>
+ * A news that crosses a tile edge is drawn as a whole into every tile it touches, shifted by the part
+ * the previous tiles already showed, and the tile clips it. Cutting the text into runs instead would
+ * split surrogate pairs and break kerning, ligatures and the shaping of complex and RTL scripts, glyphs
+ * would visibly shift at the seams.
+ */
+final class ScrollStrip {
+	/** Maximum width of a single tile, smaller tiles spread the rendering work over more frames */
+	public static final int MAX_TILE_WIDTH = 256;
+
+	/**
+	 * A single tile of the strip with the news it shows, a news starts at each of the span positions.
+	 */
+	static final class Tile {
+		Bitmap mBitmap;
+		Canvas mCanvas;
+		int[] mSpanStart = new int[4];
+		int[] mSpanItem = new int[4];
+		int mSpanCount;
+
+		void addSpan(int start, int item) {
+			if ( mSpanCount == mSpanStart.length ) {
+				// Only grows for tiles with lots of tiny news, stays allocated afterwards
+				int[] starts = new int[mSpanCount*2];
+				int[] items = new int[mSpanCount*2];
+				System.arraycopy(mSpanStart, 0, starts, 0, mSpanCount);
+				System.arraycopy(mSpanItem, 0, items, 0, mSpanCount);
+				mSpanStart = starts;
+				mSpanItem = items;
+			}
+			mSpanStart[mSpanCount] = start;
+			mSpanItem[mSpanCount] = item;
+			mSpanCount++;
+		}
+
+		int hitTest(int x) {
+			for ( int i = mSpanCount-1; i >= 0; i-- ) {
+				if ( mSpanStart[i] <= x ) {
+					return mSpanItem[i];
+				}
+			}
+			return -1;
+		}
+	}
+
+	/** Paint used to render the text into the tiles */
+	private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+	/** Paint used to draw the tiles */
+	private final Paint mTilePaint = new Paint();
+
+	/** The tiles, used as a ring buffer starting at mFirstTile */
+	private Tile[] mTiles = new Tile[0];
+
+	/** Index of the left most tile */
+	private int mFirstTile;
+
+	/** Position of the left edge of the first tile relative to the view, always <= 0 */
+	private float mOffset;
+
+	private int mTileWidth;
+	private int mHeight;
+	private float mBaseline;
+
+	/** Gap between two news in pixels */
+	private int mGap = 1;
+
+	/** The news of the tape */
+	private List<NewsHolder> mItems;
+
+	/** News the next tile fill continues with */
+	private int mFillItem;
+
+	/** Pixels of the news the next tile fill continues with that previous tiles already show */
+	private float mFillOffset;
+
+	/** Width of the news the next tile fill continues with */
+	private float mFillWidth;
+
+	/** Gap pixels still to be emitted before the next news starts */
+	private int mFillGap;
+
+	/** Whether the tiles contain valid content */
+	private boolean bFilled;
+
+	/**
+	 * Set the size of the strip, tiles get only reallocated when the size really changed.
+	 */
+	public void setSize(int width, int height) {
+		final int tileWidth = Math.min(Math.max(width, 1), MAX_TILE_WIDTH);
+		final int count = width > 0 && height > 0 ? (width + tileWidth - 1) / tileWidth + 1 : 0;
+		if ( tileWidth == mTileWidth && height == mHeight && count == mTiles.length ) {
+			return;
+		}
+		release();
+		mTileWidth = tileWidth;
+		mHeight = height;
+		mTiles = new Tile[count];
+		for ( int i = 0; i < count; i++ ) {
+			Tile tile = new Tile();
+			tile.mBitmap = Bitmap.createBitmap(tileWidth, height, Bitmap.Config.ARGB_8888);
+			tile.mCanvas = new Canvas(tile.mBitmap);
+			mTiles[i] = tile;
+		}
+		updateBaseline();
+		bFilled = false;
+	}
+
+	/** Set the text appearance used for the news */
+	public void setTextPaint(Paint paint, int color, int gap) {
+		mTextPaint.set(paint);
+		mTextPaint.setColor(color);
+		mGap = Math.max(1, gap);
+		updateBaseline();
+		bFilled = false;
+	}
+
+	/** Set the news to scroll, the tape restarts with the first one */
+	public void setItems(List<NewsHolder> items) {
+		mItems = items;
+		bFilled = false;
+	}
+
+	/**
+	 * Swap in an updated news list without restarting the tape. Tiles already rendered keep their
+	 * content, the tape continues with the news that followed in the old list.
+	 */
+	public void remapItems(List<NewsHolder> items, NewsDiff diff) {
+		mItems = items;
+		if ( !bFilled ) {
+			return;
+		}
+		if ( items == null || items.isEmpty() ) {
+			bFilled = false;
+			return;
+		}
+		for ( Tile tile : mTiles ) {
+			for ( int i = 0; i < tile.mSpanCount; i++ ) {
+				tile.mSpanItem[i] = diff.getNewIndex(tile.mSpanItem[i]);
+			}
+		}
+		
+		final int newIndex = diff.getNewIndex(mFillItem);
+		if ( mFillGap > 0 ) {
+			// Between two news, the gap belongs to the previous one
+			mFillItem = newIndex >= 0 ? newIndex : (diff.getNextSurvivor(mFillItem) - 1 + items.size()) % items.size();
+		} else if ( mFillOffset > 0 && (newIndex < 0 || diff.isChanged(mFillItem)) ) {
+			// The news being rendered is gone or changed, cut it and continue with the next one
+			mFillItem = newIndex >= 0 ? (newIndex + 1) % items.size() : diff.getNextSurvivor(mFillItem);
+			mFillOffset = 0;
+		} else {
+			mFillItem = newIndex >= 0 ? newIndex : diff.getNextSurvivor(mFillItem);
+		}
+	}
+	
+	/** Whether there is something to scroll */
+	public boolean isReady() {
+		return mTiles.length > 0 && mItems != null && mItems.size() > 0;
+	}
+
+	/** Release all tiles */
+	public void release() {
+		for ( Tile tile : mTiles ) {
+			tile.mBitmap.recycle();
+		}
+		mTiles = new Tile[0];
+		mTileWidth = 0;
+		mHeight = 0;
+		bFilled = false;
+	}
+
+	/**
+	 * Scroll the strip to the left by the given amount of pixels, tiles that left the view are
+	 * refilled with the upcoming news.
+	 */
+	public void scroll(float pixels) {
+		if ( !isReady() ) {
+			return;
+		}
+		if ( !bFilled ) {
+			restart();
+		}
+		mOffset -= pixels;
+		while ( mOffset <= -mTileWidth ) {
+			mOffset += mTileWidth;
+			fillTile(mTiles[mFirstTile]);
+			mFirstTile = (mFirstTile + 1) % mTiles.length;
+		}
+	}
+
+	/** Draw the strip with its top left corner at the given position */
+	public void draw(Canvas canvas, float left, float top) {
+		if ( !isReady() ) {
+			return;
+		}
+		if ( !bFilled ) {
+			restart();
+		}
+		final int count = mTiles.length;
+		for ( int i = 0; i < count; i++ ) {
+			canvas.drawBitmap(mTiles[(mFirstTile + i) % count].mBitmap, left + mOffset + i*mTileWidth, top, mTilePaint);
+		}
+	}
+
+	/**
+	 * Find the news at the given horizontal position relative to the left edge of the strip.
+	 * @return Index of the news or -1
+	 */
+	public int hitTest(float x) {
+		if ( !bFilled || mTiles.length == 0 ) {
+			return -1;
+		}
+		final float tapeX = x - mOffset;
+		final int tile = (int) (tapeX / mTileWidth);
+		if ( tapeX < 0 || tile >= mTiles.length ) {
+			return -1;
+		}
+		return mTiles[(mFirstTile + tile) % mTiles.length].hitTest((int) (tapeX - tile*mTileWidth));
+	}
+
+	private void updateBaseline() {
+		mBaseline = (mHeight - (mTextPaint.ascent() + mTextPaint.descent())) * 0.5f;
+	}
+
+	/** Refill all tiles from the start of the tape */
+	private void restart() {
+		mFirstTile = 0;
+		mOffset = 0;
+		mFillItem = 0;
+		mFillOffset = 0;
+		mFillGap = 0;
+		bFilled = true;
+		for ( Tile tile : mTiles ) {
+			fillTile(tile);
+		}
+	}
+
+	/** Render the next part of the tape into the given tile */
+	private void fillTile(Tile tile) {
+		tile.mBitmap.eraseColor(0);
+		tile.mSpanCount = 0;
+		final int itemCount = mItems.size();
+		if ( mFillItem >= itemCount ) {
+			mFillItem = 0;
+		}
+		// Whatever the tile starts with belongs to the news we continue
+		tile.addSpan(0, mFillItem);
+		float x = 0;
+		while ( x < mTileWidth ) {
+			if ( mFillGap > 0 ) {
+				final int gap = Math.min(mFillGap, (int) Math.ceil(mTileWidth - x));
+				x += gap;
+				mFillGap -= gap;
+				if ( mFillGap == 0 ) {
+					mFillItem = (mFillItem + 1) % itemCount;
+				}
+				continue;
+			}
+
+			final NewsHolder news = mItems.get(mFillItem);
+			final String text = news != null && news.mNews != null ? news.mNews : "";
+			if ( mFillOffset == 0 ) {
+				tile.addSpan((int) x, mFillItem);
+				mFillWidth = mTextPaint.measureText(text);
+			}
+
+			// Draw the whole news continuing where the previous tile cut it, the tile clips the rest
+			if ( mFillWidth > 0 ) {
+				tile.mCanvas.drawText(text, x - mFillOffset, mBaseline, mTextPaint);
+			}
+
+			final float remaining = mFillWidth - mFillOffset;
+			if ( x + remaining <= mTileWidth ) {
+				// The news ends in this tile
+				x += remaining;
+				mFillOffset = 0;
+				mFillGap = mGap;
+			} else {
+				// Continue with the rest of the news in the next tile
+				mFillOffset += mTileWidth - x;
+				x = mTileWidth;
+			}
+		}
+	}
+}
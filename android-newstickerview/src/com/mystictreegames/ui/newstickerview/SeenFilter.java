@@ -0,0 +1,162 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact set of the ids of the news a ticker has shown, two generations of a Bloom filter. Adding and
+ * looking up an id takes constant time and the memory is fixed no matter how large the feed is: once
+ * the current generation holds {@link #getCapacity()} ids it replaces the previous one, so the oldest
+ * ids are forgotten. A news that was not seen is taken for seen about once in a hundred lookups, a seen
+ * news is never taken for unseen while it is remembered.
+ */
+final class SeenFilter {
+	/** Default number of bits of a generation, 2KB */
+	public static final int DEFAULT_BITS = 16*1024;
+
+	/** Bits spent on every id, together with the hash count this gives about 1% false positives */
+	private static final int BITS_PER_ID = 10;
+
+	/** Number of bits set for every id */
+	private static final int HASH_COUNT = 7;
+
+	/** Magic number at the start of a serialized filter, 'NTS1' */
+	static final int MAGIC = 0x4E545331;
+
+	/** Size of the serialized header: magic, bits, count */
+	static final int HEADER_SIZE = 12;
+
+	private final int mBits;
+	private long[] mCurrent;
+	private long[] mPrevious;
+
+	/** Ids added to the current generation */
+	private int mCount = 0;
+
+	SeenFilter() {
+		this(DEFAULT_BITS);
+	}
+
+	SeenFilter(int bits) {
+		mBits = Math.max(64, (bits + 63) & ~63);
+		mCurrent = new long[mBits/64];
+		mPrevious = new long[mBits/64];
+	}
+
+	/** Number of ids a generation holds before it becomes the previous one */
+	public int getCapacity() {
+		return mBits/BITS_PER_ID;
+	}
+
+	/** Whether the id was added and not forgotten yet, or collides with ids that were */
+	public boolean contains(long id) {
+		final long hash = mix(id);
+		return contains(mCurrent, hash) || contains(mPrevious, hash);
+	}
+
+	/**
+	 * Add an id.
+	 * @return False if it was contained already
+	 */
+	public boolean add(long id) {
+		final long hash = mix(id);
+		if ( contains(mCurrent, hash) ) {
+			return false;
+		}
+		if ( mCount >= getCapacity() ) {
+			// Start a new generation, reusing the arrays of the oldest one
+			final long[] oldest = mPrevious;
+			mPrevious = mCurrent;
+			mCurrent = oldest;
+			for ( int i = 0; i < mCurrent.length; i++ ) {
+				mCurrent[i] = 0;
+			}
+			mCount = 0;
+		}
+		final int h1 = (int) hash;
+		final int h2 = (int) (hash >>> 32);
+		for ( int i = 0; i < HASH_COUNT; i++ ) {
+			final int bit = bitOf(h1, h2, i);
+			mCurrent[bit >>> 6] |= 1L << bit;
+		}
+		mCount++;
+		return true;
+	}
+
+	/** Forget all ids */
+	public void clear() {
+		for ( int i = 0; i < mCurrent.length; i++ ) {
+			mCurrent[i] = 0;
+			mPrevious[i] = 0;
+		}
+		mCount = 0;
+	}
+
+	/** Serialize the filter, see {@link #fromByteArray(byte[])} */
+	public byte[] toByteArray() {
+		final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + mCurrent.length*16).order(ByteOrder.BIG_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(mBits);
+		buffer.putInt(mCount);
+		for ( int i = 0; i < mCurrent.length; i++ ) {
+			buffer.putLong(mCurrent[i]);
+		}
+		for ( int i = 0; i < mPrevious.length; i++ ) {
+			buffer.putLong(mPrevious[i]);
+		}
+		return buffer.array();
+	}
+
+	/** Restore a filter written by {@link #toByteArray()}, null if the data is missing or malformed */
+	public static SeenFilter fromByteArray(byte[] data) {
+		if ( data == null || data.length < HEADER_SIZE ) {
+			return null;
+		}
+		final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+		final int bits = buffer.getInt(4);
+		if ( buffer.getInt(0) != MAGIC || bits <= 0 || (bits & 63) != 0 || data.length != HEADER_SIZE + bits/64*16 ) {
+			return null;
+		}
+		final SeenFilter filter = new SeenFilter(bits);
+		filter.mCount = buffer.getInt(8);
+		buffer.position(HEADER_SIZE);
+		for ( int i = 0; i < filter.mCurrent.length; i++ ) {
+			filter.mCurrent[i] = buffer.getLong();
+		}
+		for ( int i = 0; i < filter.mPrevious.length; i++ ) {
+			filter.mPrevious[i] = buffer.getLong();
+		}
+		return filter;
+	}
+
+	private boolean contains(long[] bits, long hash) {
+		final int h1 = (int) hash;
+		final int h2 = (int) (hash >>> 32);
+		for ( int i = 0; i < HASH_COUNT; i++ ) {
+			final int bit = bitOf(h1, h2, i);
+			if ( (bits[bit >>> 6] & (1L << bit)) == 0 ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Bit of the i-th hash, derived from two halves of a single hash */
+	private int bitOf(int h1, int h2, int i) {
+		int combined = h1 + i*h2;
+		if ( combined < 0 ) {
+			combined = ~combined;
+		}
+		return combined % mBits;
+	}
+
+	/** Spread the bits of an id, ids might be sequential */
+	private static long mix(long id) {
+		id ^= id >>> 33;
+		id *= 0xFF51AFD7ED558CCDL;
+		id ^= id >>> 33;
+		id *= 0xC4CEB9FE1A85EC53L;
+		id ^= id >>> 33;
+		return id;
+	}
+}
@@ -0,0 +1,55 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * Holds the two render snapshots used by the news transitions. Bitmaps are only allocated when the
+ * size of the ticker changes and are otherwise cleared and reused, so running transitions does not
+ * produce any garbage.
+ */
+final class SnapshotCache {
+	/** Slot of the outgoing news */
+	public static final int OUTGOING = 0;
+
+	/** Slot of the incoming news */
+	public static final int INCOMING = 1;
+
+	private final Bitmap[] mBitmaps = new Bitmap[2];
+	private final Canvas[] mCanvases = new Canvas[2];
+
+	/**
+	 * Get a cleared canvas that renders into the given slot. The bitmap is reused if it already has
+	 * the requested size.
+	 */
+	public Canvas obtainCanvas(int slot, int width, int height) {
+		Bitmap bitmap = mBitmaps[slot];
+		if ( bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height ) {
+			if ( bitmap != null ) {
+				bitmap.recycle();
+			}
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			mBitmaps[slot] = bitmap;
+			mCanvases[slot] = new Canvas(bitmap);
+		} else {
+			bitmap.eraseColor(0);
+		}
+		return mCanvases[slot];
+	}
+
+	/** The snapshot of the given slot, might be null if nothing got rendered yet */
+	public Bitmap getBitmap(int slot) {
+		return mBitmaps[slot];
+	}
+
+	/** Release both snapshots */
+	public void release() {
+		for ( int i = 0; i < mBitmaps.length; i++ ) {
+			if ( mBitmaps[i] != null ) {
+				mBitmaps[i].recycle();
+				mBitmaps[i] = null;
+				mCanvases[i] = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read only news list made of ranges of other read only lists, used to append, remove and replace news
+ * of a snapshot without copying it. Copying the list view of a {@link NewsStore} or a {@link NewsBatch}
+ * would create a holder for every news, a splice only keeps the ranges and looks a position up by binary
+ * search over them. Splices of splices are flattened into their ranges, and once the ranges get short
+ * the news are simply copied into a plain list.
+ */
+final class SplicedNewsList extends AbstractList<NewsHolder> implements RandomAccess, NewsRecords {
+	/** Ranges are copied into a plain list once they hold fewer news than this on average */
+	private static final int MIN_AVERAGE_RANGE = 16;
+
+	/** The list every range reads from */
+	private final List<NewsHolder>[] mSources;
+
+	/** The records of every source */
+	private final NewsRecords[] mRecords;
+
+	/** Position of the first news of every range in its source */
+	private final int[] mStarts;
+
+	/** Position of the first news of every range in this list, the entry after the last range holds the size */
+	private final int[] mPositions;
+
+	private SplicedNewsList(List<NewsHolder>[] sources, int[] starts, int[] positions) {
+		mSources = sources;
+		mStarts = starts;
+		mPositions = positions;
+		mRecords = new NewsRecords[sources.length];
+		for ( int i = 0; i < sources.length; i++ ) {
+			mRecords[i] = NewsRecords.HolderRecords.of(sources[i]);
+		}
+	}
+
+	/** The news of a read only list followed by the given news, which are copied */
+	static List<NewsHolder> append(List<NewsHolder> list, List<NewsHolder> news) {
+		final Builder builder = new Builder();
+		if ( list != null ) {
+			builder.add(list, 0, list.size());
+		}
+		final List<NewsHolder> appended = Collections.unmodifiableList(new ArrayList<NewsHolder>(news));
+		builder.add(appended, 0, appended.size());
+		return builder.build();
+	}
+
+	/** A read only list without the given range */
+	static List<NewsHolder> remove(List<NewsHolder> list, int index, int count) {
+		final Builder builder = new Builder();
+		builder.add(list, 0, index);
+		builder.add(list, index + count, list.size() - index - count);
+		return builder.build();
+	}
+
+	/** A read only list with the news at the given position replaced */
+	static List<NewsHolder> set(List<NewsHolder> list, int index, NewsHolder news) {
+		final Builder builder = new Builder();
+		builder.add(list, 0, index);
+		builder.add(Collections.singletonList(news), 0, 1);
+		builder.add(list, index + 1, list.size() - index - 1);
+		return builder.build();
+	}
+
+	@Override
+	public NewsHolder get(int index) {
+		final int range = rangeOf(index);
+		return mSources[range].get(mStarts[range] + index - mPositions[range]);
+	}
+
+	@Override
+	public int size() {
+		return mPositions[mSources.length];
+	}
+
+	public int getTime(int index) {
+		final int range = rangeOf(index);
+		return mRecords[range].getTime(mStarts[range] + index - mPositions[range]);
+	}
+
+	public int getPriority(int index) {
+		final int range = rangeOf(index);
+		return mRecords[range].getPriority(mStarts[range] + index - mPositions[range]);
+	}
+
+	public int getWeight(int index) {
+		final int range = rangeOf(index);
+		return mRecords[range].getWeight(mStarts[range] + index - mPositions[range]);
+	}
+
+	public long getExpiry(int index) {
+		final int range = rangeOf(index);
+		return mRecords[range].getExpiry(mStarts[range] + index - mPositions[range]);
+	}
+
+	public byte[] getUtf8(int index, int field) {
+		final int range = rangeOf(index);
+		return mRecords[range].getUtf8(mStarts[range] + index - mPositions[range], field);
+	}
+
+	/** The range holding the given position */
+	private int rangeOf(int index) {
+		if ( index < 0 || index >= size() ) {
+			throw new IndexOutOfBoundsException("Index "+index+", size "+size());
+		}
+		int low = 0;
+		int high = mSources.length - 1;
+		while ( low < high ) {
+			final int middle = (low + high + 1) >>> 1;
+			if ( mPositions[middle] <= index ) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Collects the ranges of a splice, merging ranges that continue each other.
+	 */
+	static final class Builder {
+		private final ArrayList<List<NewsHolder>> mSources = new ArrayList<List<NewsHolder>>();
+		private final ArrayList<int[]> mRanges = new ArrayList<int[]>();
+		private int mSize = 0;
+
+		/** Add a range of a read only list */
+		void add(List<NewsHolder> list, int start, int count) {
+			if ( count <= 0 ) {
+				return;
+			}
+			if ( list instanceof SplicedNewsList ) {
+				// Take over the ranges it is made of
+				final SplicedNewsList spliced = (SplicedNewsList) list;
+				final int end = start + count;
+				for ( int range = spliced.rangeOf(start); range < spliced.mSources.length && spliced.mPositions[range] < end; range++ ) {
+					final int from = Math.max(start, spliced.mPositions[range]);
+					final int to = Math.min(end, spliced.mPositions[range + 1]);
+					add(spliced.mSources[range], spliced.mStarts[range] + from - spliced.mPositions[range], to - from);
+				}
+				return;
+			}
+			final int last = mSources.size() - 1;
+			if ( last >= 0 && mSources.get(last) == list && mRanges.get(last)[0] + mRanges.get(last)[1] == start ) {
+				mRanges.get(last)[1] += count;
+			} else {
+				mSources.add(list);
+				mRanges.add(new int[] { start, count });
+			}
+			mSize += count;
+		}
+
+		/** The spliced list, the source itself if it is a single whole list */
+		@SuppressWarnings("unchecked")
+		List<NewsHolder> build() {
+			final int ranges = mSources.size();
+			if ( ranges == 0 ) {
+				return Collections.emptyList();
+			}
+			if ( ranges == 1 && mRanges.get(0)[0] == 0 && mRanges.get(0)[1] == mSources.get(0).size() ) {
+				return mSources.get(0);
+			}
+			if ( ranges*MIN_AVERAGE_RANGE > mSize ) {
+				// Short ranges, a plain copy is smaller and faster
+				final ArrayList<NewsHolder> copy = new ArrayList<NewsHolder>(mSize);
+				for ( int i = 0; i < ranges; i++ ) {
+					final int[] range = mRanges.get(i);
+					copy.addAll(mSources.get(i).subList(range[0], range[0] + range[1]));
+				}
+				return Collections.unmodifiableList(copy);
+			}
+			final List<NewsHolder>[] sources = new List[ranges];
+			final int[] starts = new int[ranges];
+			final int[] positions = new int[ranges + 1];
+			for ( int i = 0; i < ranges; i++ ) {
+				sources[i] = mSources.get(i);
+				starts[i] = mRanges.get(i)[0];
+				positions[i + 1] = positions[i] + mRanges.get(i)[1];
+			}
+			return new SplicedNewsList(sources, starts, positions);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
+
+/**
+ * Turns the touch events of a ticker into taps, horizontal drags and swipes to the next or previous
+ * news. A drag only starts once the finger moved further than the touch slop, so the number or rate
+ * of move events does not matter. On release the drag is committed if it was flung fast enough in its
+ * own direction or dragged past half of the width, otherwise it settles back.
+ * <p>
+ * The velocity tracker is obtained once and reused, nothing is allocated while handling events.
+ */
+final class SwipeDetector {
+	/** The event needs no reaction */
+	public static final int GESTURE_NONE = 0;
+
+	/** The finger got lifted without moving further than the touch slop */
+	public static final int GESTURE_TAP = 1;
+
+	/** A horizontal drag started, {@link #getDragOffset()} holds its offset */
+	public static final int GESTURE_DRAG_START = 2;
+
+	/** The drag moved */
+	public static final int GESTURE_DRAG = 3;
+
+	/** The drag got released towards the next news */
+	public static final int GESTURE_FORWARD = 4;
+
+	/** The drag got released towards the previous news */
+	public static final int GESTURE_BACKWARD = 5;
+
+	/** The drag got released or cancelled without changing the news */
+	public static final int GESTURE_CANCEL = 6;
+
+	private static final int STATE_IDLE = 0;
+	private static final int STATE_PRESSED = 1;
+	private static final int STATE_DRAGGING = 2;
+
+	private final int mTouchSlop;
+	private final int mMinFlingVelocity;
+	private final int mMaxFlingVelocity;
+
+	/** Reused for every gesture, released with {@link #release()} */
+	private VelocityTracker mVelocityTracker = null;
+
+	private int mState = STATE_IDLE;
+	private float mDownX;
+	private float mDownY;
+	private float mDragOffset;
+
+	SwipeDetector(Context context) {
+		final ViewConfiguration configuration = ViewConfiguration.get(context);
+		mTouchSlop = configuration.getScaledTouchSlop();
+		mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+		mMaxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+	}
+
+	/**
+	 * Feed a touch event.
+	 * @param width Width of the ticker, a drag past half of it is committed without a fling
+	 * @return One of the GESTURE constants
+	 */
+	public int onTouchEvent(MotionEvent event, int width) {
+		switch ( event.getActionMasked() ) {
+			case MotionEvent.ACTION_DOWN:
+				if ( mVelocityTracker == null ) {
+					mVelocityTracker = VelocityTracker.obtain();
+				} else {
+					mVelocityTracker.clear();
+				}
+				mVelocityTracker.addMovement(event);
+				mDownX = event.getX();
+				mDownY = event.getY();
+				mDragOffset = 0;
+				mState = STATE_PRESSED;
+				return GESTURE_NONE;
+
+			case MotionEvent.ACTION_MOVE:
+				if ( mState == STATE_IDLE ) {
+					return GESTURE_NONE;
+				}
+				mVelocityTracker.addMovement(event);
+				final float dx = event.getX() - mDownX;
+				if ( mState == STATE_PRESSED ) {
+					final float adx = Math.abs(dx);
+					final float ady = Math.abs(event.getY() - mDownY);
+					if ( adx > mTouchSlop && adx > ady ) {
+						// Start following from the slop so the news does not jump
+						mDownX += dx > 0 ? mTouchSlop : -mTouchSlop;
+						mDragOffset = event.getX() - mDownX;
+						mState = STATE_DRAGGING;
+						return GESTURE_DRAG_START;
+					} else if ( ady > mTouchSlop ) {
+						// A vertical gesture, not ours
+						mState = STATE_IDLE;
+					}
+					return GESTURE_NONE;
+				}
+				mDragOffset = dx;
+				return GESTURE_DRAG;
+
+			case MotionEvent.ACTION_UP:
+				if ( mState == STATE_PRESSED ) {
+					mState = STATE_IDLE;
+					return GESTURE_TAP;
+				} else if ( mState == STATE_DRAGGING ) {
+					mState = STATE_IDLE;
+					mVelocityTracker.addMovement(event);
+					mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+					final float velocity = mVelocityTracker.getXVelocity();
+					if ( Math.abs(velocity) >= mMinFlingVelocity ) {
+						// A fling back towards the start cancels the drag
+						if ( mDragOffset == 0 || (velocity < 0) == (mDragOffset < 0) ) {
+							return velocity < 0 ? GESTURE_FORWARD : GESTURE_BACKWARD;
+						}
+						return GESTURE_CANCEL;
+					}
+					if ( width > 0 && Math.abs(mDragOffset) > width/2 ) {
+						return mDragOffset < 0 ? GESTURE_FORWARD : GESTURE_BACKWARD;
+					}
+					return GESTURE_CANCEL;
+				}
+				return GESTURE_NONE;
+
+			case MotionEvent.ACTION_CANCEL:
+				final boolean bWasDragging = mState == STATE_DRAGGING;
+				mState = STATE_IDLE;
+				return bWasDragging ? GESTURE_CANCEL : GESTURE_NONE;
+		}
+		return GESTURE_NONE;
+	}
+
+	/** Whether a drag is running */
+	public boolean isDragging() {
+		return mState == STATE_DRAGGING;
+	}
+
+	/** Horizontal offset of the drag, negative towards the next news */
+	public float getDragOffset() {
+		return mDragOffset;
+	}
+
+	/** Forget the running gesture and release the velocity tracker */
+	public void release() {
+		mState = STATE_IDLE;
+		if ( mVelocityTracker != null ) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+/**
+ * Least recently used cache of text layouts for the news of a ticker, bounded by the estimated memory
+ * of the layouts. Layouts of upcoming news are built on a background thread so swapping the news only
+ * needs to draw an existing layout instead of measuring the text and laying out the view again.
+ * <p>
+ * All layouts share the text style captured by
+ * {@link #setStyle(TextPaint, int, Layout.Alignment, int, TextUtils.TruncateAt, boolean)}, the cache is
+ * cleared whenever it changes. Like the text view a layout is cut to the maximum number of lines, or
+ * kept on one line if the text does not wrap, and ellipsized where it got cut. Every layout owns a copy
+ * of the paint so the UI thread can set the current text color on it before drawing.
+ */
+final class TextLayoutCache {
+	public static final String TAG = "TextLayoutCache";
+
+	/** Default memory budget in bytes */
+	public static final int DEFAULT_MAX_SIZE = 256*1024;
+
+	/** Rough memory cost of a layout besides its text and lines */
+	private static final int LAYOUT_OVERHEAD = 256;
+
+	/** Rough memory cost of every line of a layout */
+	private static final int LINE_COST = 64;
+
+	/** Builds the layouts of upcoming news, shared by all caches */
+	private static ExecutorService sBuilder;
+
+	/** Layouts by text, iterated from the least recently used one */
+	private final LinkedHashMap<String, StaticLayout> mLayouts = new LinkedHashMap<String, StaticLayout>(16, 0.75f, true);
+
+	/** Texts queued on the builder */
+	private final HashSet<String> mPending = new HashSet<String>();
+
+	private final int mMaxSize;
+	private int mSize = 0;
+
+	/** Style all layouts are built with, never modified once set */
+	private TextPaint mPaint;
+	private int mWidth;
+	private Layout.Alignment mAlignment = Layout.Alignment.ALIGN_NORMAL;
+	private int mMaxLines = Integer.MAX_VALUE;
+	private TextUtils.TruncateAt mEllipsize = null;
+	private boolean bWrap = true;
+
+	/** Changes with every style, layouts built for an older style are thrown away */
+	private int mGeneration = 0;
+
+	TextLayoutCache(int maxSize) {
+		mMaxSize = maxSize;
+	}
+
+	/**
+	 * Set the style of the layouts, clears the cache if it changed. Only the text metrics of the paint
+	 * are compared, a different text color does not need new layouts.
+	 * @param maxLines Number of lines a wrapping text is cut to
+	 * @param ellipsize Where a cut text gets its ellipsis, null to just cut it. A marquee needs the text
+	 * view, the text is just cut then.
+	 * @param bWrap Whether the text wraps at the width, if not it stays on one line like a horizontally
+	 * scrolling text view
+	 */
+	public synchronized void setStyle(TextPaint paint, int width, Layout.Alignment alignment, int maxLines, TextUtils.TruncateAt ellipsize, boolean bWrap) {
+		if ( ellipsize == TextUtils.TruncateAt.MARQUEE ) {
+			ellipsize = null;
+		}
+		maxLines = Math.max(1, maxLines);
+		if ( mPaint != null && width == mWidth && alignment == mAlignment && maxLines == mMaxLines
+				&& ellipsize == mEllipsize && bWrap == this.bWrap && sameMetrics(paint, mPaint) ) {
+			return;
+		}
+		mPaint = new TextPaint(paint);
+		mWidth = width;
+		mAlignment = alignment;
+		mMaxLines = maxLines;
+		mEllipsize = ellipsize;
+		this.bWrap = bWrap;
+		mGeneration++;
+		clearLocked();
+	}
+
+	/** Get the layout of a text, building it right away if it is not cached */
+	public StaticLayout obtain(String text) {
+		final int generation;
+		synchronized ( this ) {
+			final StaticLayout layout = mLayouts.get(text);
+			if ( layout != null ) {
+				return layout;
+			}
+			generation = mGeneration;
+		}
+		return put(text, build(text), generation);
+	}
+
+	/** Build the layout of a text on the background thread unless it is cached or queued already */
+	public synchronized void prefetch(final String text) {
+		if ( mPaint == null || mLayouts.containsKey(text) || !mPending.add(text) ) {
+			return;
+		}
+		final int generation = mGeneration;
+		getBuilder().execute(new Runnable() {
+			public void run() {
+				synchronized ( TextLayoutCache.this ) {
+					mPending.remove(text);
+					if ( generation != mGeneration ) {
+						return;
+					}
+				}
+				put(text, build(text), generation);
+			}
+		});
+	}
+
+	/** Drop all layouts */
+	public synchronized void clear() {
+		mGeneration++;
+		clearLocked();
+	}
+
+	private void clearLocked() {
+		mLayouts.clear();
+		mPending.clear();
+		mSize = 0;
+	}
+
+	/** Build a layout with the current style, the style fields are only read under the lock */
+	private StaticLayout build(String text) {
+		final TextPaint paint;
+		final int width;
+		final Layout.Alignment alignment;
+		final int maxLines;
+		final TextUtils.TruncateAt ellipsize;
+		final boolean bWrap;
+		synchronized ( this ) {
+			paint = new TextPaint(mPaint);
+			width = Math.max(0, mWidth);
+			alignment = mAlignment;
+			maxLines = mMaxLines;
+			ellipsize = mEllipsize;
+			bWrap = this.bWrap;
+		}
+		if ( !bWrap ) {
+			// One line, as wide as the text unless it gets ellipsized
+			final CharSequence line = ellipsize != null ? TextUtils.ellipsize(text, paint, width, ellipsize) : text;
+			final int lineWidth = Math.max(width, (int) Math.ceil(Layout.getDesiredWidth(line, paint)));
+			return new StaticLayout(line, paint, lineWidth, alignment, 1.f, 0.f, true);
+		}
+		final StaticLayout layout = new StaticLayout(text, paint, width, alignment, 1.f, 0.f, true);
+		if ( layout.getLineCount() <= maxLines ) {
+			return layout;
+		}
+		// Drop the lines past the last one, which ends with the ellipsis if there is one
+		final int lastStart = layout.getLineStart(maxLines - 1);
+		final CharSequence last = ellipsize != null ? TextUtils.ellipsize(text.substring(lastStart), paint, width, ellipsize)
+				: text.substring(lastStart, layout.getLineEnd(maxLines - 1));
+		return new StaticLayout(text.substring(0, lastStart) + last, paint, width, alignment, 1.f, 0.f, true);
+	}
+
+	/** Cache a layout if it still has the current style and evict until we fit our budget */
+	private synchronized StaticLayout put(String text, StaticLayout layout, int generation) {
+		if ( generation != mGeneration ) {
+			return layout;
+		}
+		final StaticLayout previous = mLayouts.put(text, layout);
+		if ( previous != null ) {
+			mSize -= sizeOf(text, previous);
+		}
+		mSize += sizeOf(text, layout);
+		final Iterator<Map.Entry<String, StaticLayout>> iterator = mLayouts.entrySet().iterator();
+		while ( mSize > mMaxSize && iterator.hasNext() ) {
+			final Map.Entry<String, StaticLayout> eldest = iterator.next();
+			if ( eldest.getValue() == layout ) {
+				// Never evict what we just built
+				continue;
+			}
+			mSize -= sizeOf(eldest.getKey(), eldest.getValue());
+			iterator.remove();
+		}
+		return layout;
+	}
+
+	private static int sizeOf(String text, StaticLayout layout) {
+		return LAYOUT_OVERHEAD + text.length()*2 + layout.getLineCount()*LINE_COST;
+	}
+
+	private static boolean sameMetrics(Paint a, Paint b) {
+		final Typeface typeface = a.getTypeface();
+		return a.getTextSize() == b.getTextSize() && a.getTextScaleX() == b.getTextScaleX()
+				&& a.getFlags() == b.getFlags() && (typeface == null ? b.getTypeface() == null : typeface.equals(b.getTypeface()));
+	}
+
+	private static synchronized ExecutorService getBuilder() {
+		if ( sBuilder == null ) {
+			sBuilder = Executors.newSingleThreadExecutor(Utils.newBackgroundThreadFactory(TAG));
+		}
+		return sBuilder;
+	}
+}
@@ -0,0 +1,376 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Least recently used cache of the news images shown next to the headlines, shared by all tickers and
+ * bounded by the bytes of its bitmaps. Images are read and decoded on a background thread, downsampled
+ * on decode to about the height they are drawn at, so swapping news never decodes on the UI thread.
+ * <p>
+ * Bitmaps a ticker shows are pinned and never evicted. Evicted bitmaps are kept in a small pool and
+ * decoded into again on Honeycomb and above, so scrolling through a feed of images does not churn the
+ * heap. From Ice Cream Sandwich on the cache trims itself when the system runs low on memory.
+ */
+final class ThumbnailCache {
+	public static final String TAG = "ThumbnailCache";
+
+	/** Part of the memory class of the app the cache may use, one sixteenth */
+	private static final int MEMORY_CLASS_SHARE = 16;
+
+	/** Part of the cache size evicted bitmaps kept for reuse may use, one fourth */
+	private static final int REUSE_SHARE = 4;
+
+	/** KitKat, decodes into any bitmap that is large enough */
+	private static final int KITKAT = 19;
+
+	/** Bytes of a pixel of the ARGB_8888 thumbnails */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	/** Images larger than this are not loaded at all */
+	public static final int MAX_IMAGE_BYTES = 4*1024*1024;
+
+	/**
+	 * Receives the thumbnails loaded in the background, on the UI thread. The thumbnail must be fetched
+	 * again through {@link ThumbnailCache#acquire(String, int, Callback)}, it might already have been
+	 * evicted.
+	 */
+	interface Callback {
+		void onThumbnailLoaded(String key);
+	}
+
+	/** Decodes the images of all tickers */
+	private static ExecutorService sDecoder;
+
+	/** Cache shared by all tickers of the app */
+	private static ThumbnailCache sDefault;
+
+	private final ContentResolver mResolver;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	/** Thumbnails by image and height, iterated from the least recently used one */
+	private final LinkedHashMap<String, Entry> mThumbnails = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/** Keys queued on the decoder */
+	private final HashSet<String> mPending = new HashSet<String>();
+
+	/** Evicted bitmaps we can decode into */
+	private final LinkedList<Bitmap> mReusable = new LinkedList<Bitmap>();
+
+	private final int mMaxSize;
+	private int mSize = 0;
+	private int mReusableSize = 0;
+
+	ThumbnailCache(Context context, int maxSize) {
+		mResolver = context.getContentResolver();
+		mMaxSize = maxSize;
+	}
+
+	/** The cache shared by all tickers, sized by the memory class of the app */
+	public static synchronized ThumbnailCache getDefault(Context context) {
+		if ( sDefault == null ) {
+			final Context application = context.getApplicationContext();
+			final ActivityManager activityManager = (ActivityManager) application.getSystemService(Context.ACTIVITY_SERVICE);
+			final int maxSize = activityManager.getMemoryClass()*1024*1024/MEMORY_CLASS_SHARE;
+			sDefault = new ThumbnailCache(application, maxSize);
+			Compat.registerTrimCallbacks(application, sDefault);
+		}
+		return sDefault;
+	}
+
+	/** Key of the thumbnail of an image at the given height */
+	static String keyOf(String image, int height) {
+		return height+"|"+image;
+	}
+
+	/**
+	 * Get the thumbnail of an image at the given height and pin it so it is not evicted until it got
+	 * released. If it is not cached it gets loaded in the background and null is returned, the callback
+	 * is told once it is ready.
+	 * @param callback Told once the thumbnail got loaded, may be null to only prefetch it
+	 */
+	public Bitmap acquire(String image, int height, Callback callback) {
+		final String key = keyOf(image, height);
+		synchronized ( this ) {
+			final Entry entry = mThumbnails.get(key);
+			if ( entry != null ) {
+				entry.mPins++;
+				return entry.mBitmap;
+			}
+		}
+		load(image, height, key, callback);
+		return null;
+	}
+
+	/** Load the thumbnail of an image in the background unless it is cached or queued already */
+	public void prefetch(String image, int height) {
+		final String key = keyOf(image, height);
+		synchronized ( this ) {
+			if ( mThumbnails.containsKey(key) ) {
+				return;
+			}
+		}
+		load(image, height, key, null);
+	}
+
+	/** Release a thumbnail pinned by {@link #acquire(String, int, Callback)} */
+	public synchronized void release(String key) {
+		final Entry entry = mThumbnails.get(key);
+		if ( entry != null && entry.mPins > 0 ) {
+			entry.mPins--;
+		}
+	}
+
+	/**
+	 * Trim the cache for the given {@link ComponentCallbacks2} level. The reuse pool goes as soon as the
+	 * UI is hidden, half of the cache once memory runs low and everything that is not shown once the app
+	 * is well down the background list.
+	 */
+	public synchronized void trimMemory(int level) {
+		if ( level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ) {
+			evict(0, null);
+		} else if ( level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+				|| level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL ) {
+			evict(mMaxSize/2, null);
+		}
+		mReusable.clear();
+		mReusableSize = 0;
+	}
+
+	private void load(final String image, final int height, final String key, final Callback callback) {
+		synchronized ( this ) {
+			if ( !mPending.add(key) && callback == null ) {
+				return;
+			}
+		}
+		// A queued load of the same key does nothing but tell its callback the thumbnail is there
+		getDecoder().execute(new Runnable() {
+			public void run() {
+				final boolean bCached;
+				synchronized ( ThumbnailCache.this ) {
+					bCached = mThumbnails.containsKey(key);
+					if ( bCached ) {
+						mPending.remove(key);
+					}
+				}
+				if ( !bCached ) {
+					final Bitmap bitmap = decode(image, height);
+					synchronized ( ThumbnailCache.this ) {
+						if ( bitmap != null ) {
+							put(key, bitmap);
+						}
+						mPending.remove(key);
+					}
+					if ( bitmap == null ) {
+						return;
+					}
+				}
+				if ( callback != null ) {
+					mHandler.post(new Runnable() {
+						public void run() {
+							callback.onThumbnailLoaded(key);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/** Cache a thumbnail and evict until we fit our budget */
+	private void put(String key, Bitmap bitmap) {
+		final Entry entry = new Entry(bitmap);
+		final Entry previous = mThumbnails.put(key, entry);
+		if ( previous != null ) {
+			mSize -= previous.mSize;
+		}
+		mSize += entry.mSize;
+		evict(mMaxSize, entry);
+	}
+
+	/**
+	 * Evict the least recently used thumbnails that are not pinned until we fit the given size.
+	 * @param keep Entry that is never evicted, e.g. the one we just decoded, may be null
+	 */
+	private void evict(int maxSize, Entry keep) {
+		final Iterator<Entry> iterator = mThumbnails.values().iterator();
+		while ( mSize > maxSize && iterator.hasNext() ) {
+			final Entry entry = iterator.next();
+			if ( entry.mPins > 0 || entry == keep ) {
+				// Never evict what is shown
+				continue;
+			}
+			mSize -= entry.mSize;
+			iterator.remove();
+			recycle(entry);
+		}
+	}
+
+	/** Keep an evicted bitmap to decode into if the pool has room for it */
+	private void recycle(Entry entry) {
+		if ( Compat.canReuseBitmaps() && entry.mBitmap.isMutable() && mReusableSize + entry.mSize <= mMaxSize/REUSE_SHARE ) {
+			mReusable.add(entry.mBitmap);
+			mReusableSize += entry.mSize;
+		}
+	}
+
+	/** Take a pooled bitmap the given image can be decoded into, null if there is none */
+	private synchronized Bitmap takeReusable(BitmapFactory.Options options) {
+		final Iterator<Bitmap> iterator = mReusable.iterator();
+		while ( iterator.hasNext() ) {
+			final Bitmap bitmap = iterator.next();
+			if ( canDecodeInto(bitmap, options) ) {
+				iterator.remove();
+				mReusableSize -= sizeOf(bitmap);
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	/** Read and decode an image downsampled to about the given height, null if that failed */
+	private Bitmap decode(String image, int height) {
+		final byte[] data;
+		try {
+			data = read(image);
+		} catch ( IOException e ) {
+			Log.e(TAG, "Failed to load image '"+image+"': "+Log.getStackTraceString(e));
+			return null;
+		}
+		final BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		if ( options.outWidth <= 0 || options.outHeight <= 0 ) {
+			Log.e(TAG, "Image '"+image+"' can not be decoded");
+			return null;
+		}
+		// Thumbnails are fit into a square, the longer side decides how far we can sample down
+		final int longerSide = Math.max(options.outWidth, options.outHeight);
+		int sampleSize = 1;
+		while ( longerSide/(sampleSize*2) >= height ) {
+			sampleSize *= 2;
+		}
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+		if ( Compat.canReuseBitmaps() ) {
+			Compat.setReusableBitmap(options, takeReusable(options));
+		}
+		try {
+			return decode(data, options);
+		} catch ( OutOfMemoryError e ) {
+			Log.e(TAG, "Out of memory decoding image '"+image+"'");
+			return null;
+		}
+	}
+
+	private static Bitmap decode(byte[] data, BitmapFactory.Options options) {
+		try {
+			return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		} catch ( IllegalArgumentException e ) {
+			// The pooled bitmap did not fit after all, decode into a new one
+			Compat.setReusableBitmap(options, null);
+			return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		}
+	}
+
+	/**
+	 * Whether an image can be decoded into the given bitmap. KitKat reuses any bitmap that is large
+	 * enough, before that only bitmaps of the exact size of an image that is not sampled down.
+	 */
+	private static boolean canDecodeInto(Bitmap bitmap, BitmapFactory.Options options) {
+		final int sampleSize = Math.max(1, options.inSampleSize);
+		if ( Build.VERSION.SDK_INT >= KITKAT ) {
+			final int width = (options.outWidth + sampleSize - 1)/sampleSize;
+			final int height = (options.outHeight + sampleSize - 1)/sampleSize;
+			return width*height*BYTES_PER_PIXEL <= sizeOf(bitmap);
+		}
+		return sampleSize == 1 && bitmap.getWidth() == options.outWidth && bitmap.getHeight() == options.outHeight
+				&& bitmap.getConfig() == Bitmap.Config.ARGB_8888;
+	}
+
+	/** Read the whole image, from the network, a content provider or a file */
+	private byte[] read(String image) throws IOException {
+		final Uri uri = Uri.parse(image);
+		final String scheme = uri.getScheme();
+		final InputStream in;
+		if ( "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme) ) {
+			final HttpURLConnection connection = (HttpURLConnection) new URL(image).openConnection();
+			connection.setConnectTimeout(NewsSource.HTTP_TIMEOUT);
+			connection.setReadTimeout(NewsSource.HTTP_TIMEOUT);
+			final int status = connection.getResponseCode();
+			if ( status != HttpURLConnection.HTTP_OK ) {
+				connection.disconnect();
+				throw new IOException("HTTP "+status+" for "+image);
+			}
+			in = connection.getInputStream();
+		} else if ( scheme == null ) {
+			in = new FileInputStream(image);
+		} else {
+			in = mResolver.openInputStream(uri);
+			if ( in == null ) {
+				throw new IOException("No content for "+image);
+			}
+		}
+		try {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8*1024];
+			int read;
+			while ( (read = in.read(buffer)) >= 0 ) {
+				out.write(buffer, 0, read);
+				if ( out.size() > MAX_IMAGE_BYTES ) {
+					throw new IOException("Image is larger than "+MAX_IMAGE_BYTES+" bytes");
+				}
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	static int sizeOf(Bitmap bitmap) {
+		return bitmap.getRowBytes()*bitmap.getHeight();
+	}
+
+	private static synchronized ExecutorService getDecoder() {
+		if ( sDecoder == null ) {
+			sDecoder = Executors.newSingleThreadExecutor(Utils.newBackgroundThreadFactory(TAG));
+		}
+		return sDecoder;
+	}
+
+	/**
+	 * A cached thumbnail and the number of tickers showing it.
+	 */
+	static final class Entry {
+		final Bitmap mBitmap;
+		final int mSize;
+		int mPins = 0;
+
+		Entry(Bitmap bitmap) {
+			mBitmap = bitmap;
+			mSize = sizeOf(bitmap);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.os.SystemClock;
+
+/**
+ * The clock all ticker timing goes through. Dwell times, fades, the time line and the timers use the
+ * monotonic {@link #uptimeMillis()} which never jumps, the wall clock is only used to compare against
+ * the expiry times of news which are wall clock times themselves.
+ * <p>
+ * The default clock is the system clock. Another clock can be injected with {@link #setDefault(TickerClock)},
+ * e.g. the virtual clock of {@link TickerSimulation}. Handler based timers and vsync frames always run on
+ * the system uptime, so only inject a different clock together with timers and frames driven by it.
+ */
+public abstract class TickerClock {
+	/** The system clock, uptime is {@link SystemClock#uptimeMillis()} */
+	public static final TickerClock SYSTEM = new TickerClock() {
+		@Override
+		public long uptimeMillis() {
+			return SystemClock.uptimeMillis();
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+
+	private static volatile TickerClock sDefault = SYSTEM;
+
+	/** Monotonic time in milliseconds, the time base of all ticker timing */
+	public abstract long uptimeMillis();
+
+	/** Wall clock time in milliseconds, only used for the expiry times of news */
+	public abstract long currentTimeMillis();
+
+	/** The clock used by all tickers */
+	public static TickerClock get() {
+		return sDefault;
+	}
+
+	/** Replace the clock used by all tickers, null restores the system clock */
+	public static void setDefault(TickerClock clock) {
+		sDefault = clock != null ? clock : SYSTEM;
+	}
+}
@@ -0,0 +1,201 @@
+package com.mystictreegames.ui.newstickerview;
+
+/**
+ * Opt-in performance metrics of a {@link NewsTickerView}. Set one with {@link NewsTickerView#setMetrics(TickerMetrics)}
+ * and the ticker records how long drawing takes, how regular the frames of its fades are, how late news
+ * get swapped, how long every news was shown and how often it invalidates. Events go into a fixed size
+ * ring buffer, are aggregated per type and are handed to an optional {@link Listener} as they happen,
+ * e.g. to forward them to telemetry. While metrics are set the ticker also emits systrace sections on
+ * Jelly Bean MR2 and above.
+ * <p>
+ * Recording never allocates and a ticker without metrics only pays for a null check. Like the ticker
+ * the metrics must only be used from the UI thread, several tickers may share one instance.
+ */
+public final class TickerMetrics {
+	/** Time spent in onDraw, in microseconds */
+	public static final int EVENT_DRAW = 0;
+
+	/**
+	 * Interval between two fade frames minus the frame interval of the ticker, the refresh interval of the
+	 * display or 16ms before Jelly Bean, in microseconds
+	 */
+	public static final int EVENT_FADE_JITTER = 1;
+
+	/** Time the dwell timer fired after it was scheduled to, in milliseconds */
+	public static final int EVENT_SWAP_LATENCY = 2;
+
+	/** Time a news was shown until it got swapped, in milliseconds */
+	public static final int EVENT_DWELL = 3;
+
+	/**
+	 * Invalidates per second of a ticker, recorded once a second of continuous invalidates passed. Idle
+	 * gaps of a second or longer start a new count instead of diluting the rate. Every ticker counts its
+	 * own invalidates.
+	 */
+	public static final int EVENT_INVALIDATE_RATE = 4;
+
+	/** Number of event types */
+	public static final int EVENT_TYPE_COUNT = 5;
+
+	/** Default number of events kept in the ring buffer */
+	public static final int DEFAULT_CAPACITY = 512;
+
+	/** Length of the window invalidates are counted in, in milliseconds */
+	private static final int INVALIDATE_WINDOW = 1000;
+
+	/**
+	 * Receives every recorded event on the UI thread. Must be cheap and must not allocate if the
+	 * metrics are meant to stay allocation free.
+	 */
+	public interface Listener {
+		/**
+		 * @param type One of the EVENT constants
+		 * @param value Value of the event in the unit of its type
+		 * @param time Uptime of the event in milliseconds
+		 */
+		void onEvent(int type, long value, long time);
+	}
+
+	private final int[] mTypes;
+	private final long[] mValues;
+	private final long[] mTimes;
+
+	/** Slot the next event is written to */
+	private int mHead = 0;
+
+	/** Number of events held */
+	private int mCount = 0;
+
+	private final long[] mTypeCounts = new long[EVENT_TYPE_COUNT];
+	private final long[] mTypeSums = new long[EVENT_TYPE_COUNT];
+	private final long[] mTypeMax = new long[EVENT_TYPE_COUNT];
+
+	private Listener mListener = null;
+
+	/** Changes with every {@link #clear()}, invalidate counts started before are dropped */
+	private int mGeneration = 0;
+
+	public TickerMetrics() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public TickerMetrics(int capacity) {
+		capacity = Math.max(1, capacity);
+		mTypes = new int[capacity];
+		mValues = new long[capacity];
+		mTimes = new long[capacity];
+	}
+
+	/** Set the listener receiving every event, null for none */
+	public void setListener(Listener listener) {
+		mListener = listener;
+	}
+
+	/** Record an event, the oldest one is overwritten once the buffer is full */
+	public void record(int type, long value, long time) {
+		mTypes[mHead] = type;
+		mValues[mHead] = value;
+		mTimes[mHead] = time;
+		mHead = (mHead + 1) % mTypes.length;
+		if ( mCount < mTypes.length ) {
+			mCount++;
+		}
+		mTypeCounts[type]++;
+		mTypeSums[type] += value;
+		if ( mTypeCounts[type] == 1 || value > mTypeMax[type] ) {
+			mTypeMax[type] = value;
+		}
+		if ( mListener != null ) {
+			mListener.onEvent(type, value, time);
+		}
+	}
+
+	/** Number of events in the ring buffer */
+	public int getEventCount() {
+		return mCount;
+	}
+
+	/** Type of the event at the given position of the ring buffer, 0 is the oldest one */
+	public int getEventType(int index) {
+		return mTypes[slot(index)];
+	}
+
+	/** Value of the event at the given position of the ring buffer, 0 is the oldest one */
+	public long getEventValue(int index) {
+		return mValues[slot(index)];
+	}
+
+	/** Uptime of the event at the given position of the ring buffer, 0 is the oldest one */
+	public long getEventTime(int index) {
+		return mTimes[slot(index)];
+	}
+
+	/** Number of events of a type recorded since the last {@link #clear()}, including overwritten ones */
+	public long getCount(int type) {
+		return mTypeCounts[type];
+	}
+
+	/** Average value of a type since the last {@link #clear()} */
+	public float getMean(int type) {
+		return mTypeCounts[type] > 0 ? mTypeSums[type]/(float) mTypeCounts[type] : 0.f;
+	}
+
+	/** Largest value of a type since the last {@link #clear()} */
+	public long getMax(int type) {
+		return mTypeMax[type];
+	}
+
+	/** Drop all events and aggregates */
+	public void clear() {
+		mHead = 0;
+		mCount = 0;
+		for ( int i = 0; i < EVENT_TYPE_COUNT; i++ ) {
+			mTypeCounts[i] = 0;
+			mTypeSums[i] = 0;
+			mTypeMax[i] = 0;
+		}
+		mGeneration++;
+	}
+
+	private int slot(int index) {
+		if ( index < 0 || index >= mCount ) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+mCount);
+		}
+		return (mHead - mCount + index + mTypes.length) % mTypes.length;
+	}
+
+	/**
+	 * Invalidate count of one ticker, so tickers sharing the metrics do not add up to one rate.
+	 */
+	static final class InvalidateCounter {
+		/** Start of the current window, -1 if none */
+		private long mWindowStart = -1;
+		private long mLastInvalidate = -1;
+		private int mInvalidates = 0;
+
+		/** Generation of the metrics the window was started for */
+		private int mGeneration = -1;
+
+		/** Count an invalidate, records the rate into the metrics once a second passed */
+		void onInvalidate(TickerMetrics metrics, long now) {
+			if ( mWindowStart < 0 || mGeneration != metrics.mGeneration || now - mLastInvalidate >= INVALIDATE_WINDOW ) {
+				// First invalidate after being idle or cleared, the partial window says nothing about the rate
+				mWindowStart = now;
+				mInvalidates = 0;
+				mGeneration = metrics.mGeneration;
+			} else if ( now - mWindowStart >= INVALIDATE_WINDOW ) {
+				// The window ends with the first invalidate after it, scale to a whole second
+				metrics.record(EVENT_INVALIDATE_RATE, mInvalidates*1000L/(now - mWindowStart), now);
+				mWindowStart = now;
+				mInvalidates = 0;
+			}
+			mLastInvalidate = now;
+			mInvalidates++;
+		}
+
+		/** Start over with the next invalidate, e.g. for other metrics */
+		void reset() {
+			mWindowStart = -1;
+		}
+	}
+}
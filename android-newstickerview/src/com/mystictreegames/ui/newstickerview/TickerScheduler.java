@@ -0,0 +1,300 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import android.os.Handler;
+
+/**
+ * Process wide scheduler that coalesces the work of many {@link NewsTickerView}s. Tickers that opt in
+ * through {@link NewsTickerView#setUseSharedScheduler(boolean)} get their frames from a single vsync
+ * callback which advances the fades, transitions and scrolling of all of them in one pass, and their
+ * dwell and time line timers are served by a single handler wake up that fires every timer due within
+ * the same frame.
+ * <p>
+ * Tickers can also join a sync group using {@link NewsTickerView#setSyncGroup(String)}. All running
+ * tickers of a group wait for each other and change their news in lockstep once the last one of them
+ * is done showing its current news.
+ * <p>
+ * Like the views it serves the scheduler must only be used from the UI thread.
+ */
+public final class TickerScheduler {
+	/** Timers due within this many milliseconds are fired together */
+	public static final int COALESCE_WINDOW = FrameDriver.FALLBACK_FRAME_INTERVAL/2;
+
+	/** The shared instance */
+	private static TickerScheduler sShared;
+
+	/** The one frame source of all tickers */
+	private final FrameDriver mFrameDriver;
+
+	/** Frame drivers waiting for the next frame */
+	private ArrayList<ClientFrameDriver> mFrameClients = new ArrayList<ClientFrameDriver>();
+
+	/** Frame drivers of the frame being dispatched, swapped with mFrameClients every frame */
+	private ArrayList<ClientFrameDriver> mDispatchingClients = new ArrayList<ClientFrameDriver>();
+
+	/** All scheduled timers */
+	private final ArrayList<SharedTimer> mTimers = new ArrayList<SharedTimer>();
+
+	/** Timers being fired */
+	private final ArrayList<SharedTimer> mDueTimers = new ArrayList<SharedTimer>();
+
+	/** Sync groups by name */
+	private final HashMap<String, SyncGroup> mGroups = new HashMap<String, SyncGroup>();
+
+	/** Wakes us up for the next timer */
+	private final Handler mHandler = new Handler();
+
+	/** Uptime our handler wakes us up at, -1 if not scheduled */
+	private long mScheduledWakeUp = -1;
+
+	private final Runnable mRunTimers = new Runnable() {
+		public void run() {
+			runTimers();
+		}
+	};
+
+	private TickerScheduler() {
+		mFrameDriver = FrameDriver.create(new FrameDriver.Callback() {
+			public void doFrame(long frameTimeMillis) {
+				dispatchFrame(frameTimeMillis);
+			}
+		});
+	}
+
+	/** Get the shared scheduler, must be called from the UI thread */
+	public static TickerScheduler getShared() {
+		if ( sShared == null ) {
+			sShared = new TickerScheduler();
+		}
+		return sShared;
+	}
+
+	/** Create a frame driver whose frames are delivered together with all others */
+	FrameDriver createFrameDriver(FrameDriver.Callback callback) {
+		return new ClientFrameDriver(callback);
+	}
+
+	/**
+	 * Create a timer served by the shared wake up.
+	 * @param syncGroup Name of the sync group the timer waits for, null if it fires on its own
+	 */
+	TickerTimer createTimer(Runnable callback, String syncGroup) {
+		SyncGroup group = null;
+		if ( syncGroup != null ) {
+			group = mGroups.get(syncGroup);
+			if ( group == null ) {
+				group = new SyncGroup(syncGroup);
+				mGroups.put(syncGroup, group);
+			}
+		}
+		final SharedTimer timer = new SharedTimer(callback, group);
+		if ( group != null ) {
+			group.mMembers.add(timer);
+		}
+		return timer;
+	}
+
+	/** Number of frame requests waiting for the next frame */
+	public int getPendingFrameCount() {
+		return mFrameClients.size();
+	}
+
+	/** Number of scheduled timers */
+	public int getScheduledTimerCount() {
+		return mTimers.size();
+	}
+
+	private void requestClientFrame(ClientFrameDriver client) {
+		mFrameClients.add(client);
+		mFrameDriver.postFrame();
+	}
+
+	private void cancelClientFrame(ClientFrameDriver client) {
+		mFrameClients.remove(client);
+		if ( mFrameClients.isEmpty() ) {
+			mFrameDriver.cancelFrame();
+		}
+	}
+
+	/** Deliver one frame to everybody that asked for it */
+	private void dispatchFrame(long frameTimeMillis) {
+		// Swap the lists so clients can request the next frame while we dispatch
+		final ArrayList<ClientFrameDriver> clients = mFrameClients;
+		mFrameClients = mDispatchingClients;
+		mDispatchingClients = clients;
+		final int count = clients.size();
+		for ( int i = 0; i < count; i++ ) {
+			clients.get(i).dispatchFrame(frameTimeMillis);
+		}
+		clients.clear();
+	}
+
+	private void addTimer(SharedTimer timer) {
+		mTimers.add(timer);
+		updateWakeUp();
+	}
+
+	private void removeTimer(SharedTimer timer) {
+		// A wake up that has nothing to do anymore is cheaper than finding the next one
+		mTimers.remove(timer);
+	}
+
+	/** Make sure our handler wakes us up for the earliest timer */
+	private void updateWakeUp() {
+		long next = -1;
+		final int count = mTimers.size();
+		for ( int i = 0; i < count; i++ ) {
+			final long wakeUp = mTimers.get(i).mWakeUpTime;
+			if ( next < 0 || wakeUp < next ) {
+				next = wakeUp;
+			}
+		}
+		if ( next >= 0 && (mScheduledWakeUp < 0 || next < mScheduledWakeUp) ) {
+			mHandler.removeCallbacks(mRunTimers);
+			mHandler.postAtTime(mRunTimers, next);
+			mScheduledWakeUp = next;
+		}
+	}
+
+	/** Fire all timers that are due within this frame */
+	private void runTimers() {
+		mScheduledWakeUp = -1;
+		final long limit = TickerClock.get().uptimeMillis() + COALESCE_WINDOW;
+		for ( int i = mTimers.size()-1; i >= 0; i-- ) {
+			final SharedTimer timer = mTimers.get(i);
+			if ( timer.mWakeUpTime <= limit ) {
+				mTimers.remove(i);
+				mDueTimers.add(timer);
+			}
+		}
+		for ( int i = mDueTimers.size()-1; i >= 0; i-- ) {
+			mDueTimers.get(i).dispatch();
+		}
+		mDueTimers.clear();
+		updateWakeUp();
+	}
+
+	/**
+	 * Frame driver whose frames come from the shared frame callback.
+	 */
+	final class ClientFrameDriver extends FrameDriver {
+		ClientFrameDriver(Callback callback) {
+			super(callback);
+		}
+
+		@Override
+		protected void onPostFrame() {
+			requestClientFrame(this);
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			cancelClientFrame(this);
+		}
+
+		@Override
+		protected boolean isVsync() {
+			return mFrameDriver.isVsync();
+		}
+	}
+
+	/**
+	 * Timer fired by the shared wake up, optionally waiting for the other timers of its sync group.
+	 */
+	final class SharedTimer extends TickerTimer {
+		private final SyncGroup mGroup;
+
+		/** Whether the owning ticker is running, inactive timers are not waited for */
+		boolean bActive = true;
+
+		/** Time this timer asked to fire at while waiting for its group, -1 if not waiting */
+		long mRequestedTime = -1;
+
+		SharedTimer(Runnable callback, SyncGroup group) {
+			super(callback);
+			mGroup = group;
+		}
+
+		@Override
+		protected void onSchedule(long uptimeMillis) {
+			if ( mGroup != null ) {
+				mRequestedTime = uptimeMillis;
+				mGroup.check();
+			} else {
+				addTimer(this);
+			}
+		}
+
+		@Override
+		protected void onCancel() {
+			mRequestedTime = -1;
+			removeTimer(this);
+		}
+
+		@Override
+		public void setActive(boolean active) {
+			if ( active != bActive ) {
+				bActive = active;
+				if ( mGroup != null ) {
+					// The others might have been waiting for us only
+					mGroup.check();
+				}
+			}
+		}
+
+		@Override
+		public void release() {
+			super.release();
+			if ( mGroup != null ) {
+				mGroup.mMembers.remove(this);
+				if ( mGroup.mMembers.isEmpty() ) {
+					mGroups.remove(mGroup.mName);
+				} else {
+					mGroup.check();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Timers that fire together once all active ones asked to fire.
+	 */
+	final class SyncGroup {
+		final String mName;
+		final ArrayList<SharedTimer> mMembers = new ArrayList<SharedTimer>();
+
+		SyncGroup(String name) {
+			mName = name;
+		}
+
+		/** Release the group at the latest requested time if every active member is waiting */
+		void check() {
+			long deadline = -1;
+			final int count = mMembers.size();
+			for ( int i = 0; i < count; i++ ) {
+				final SharedTimer member = mMembers.get(i);
+				if ( !member.bActive ) {
+					continue;
+				}
+				if ( member.mRequestedTime < 0 ) {
+					// Still busy with its current news
+					return;
+				}
+				deadline = Math.max(deadline, member.mRequestedTime);
+			}
+			if ( deadline < 0 ) {
+				return;
+			}
+			for ( int i = 0; i < count; i++ ) {
+				final SharedTimer member = mMembers.get(i);
+				if ( member.bActive && member.mRequestedTime >= 0 ) {
+					member.mRequestedTime = -1;
+					member.mWakeUpTime = deadline;
+					addTimer(member);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,480 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless harness that runs a {@link NewsTickerView} on a virtual clock, so a whole day of swapping
+ * news takes a few seconds on a plain JVM. The paged mode runs the very same {@link NewsCycle} and
+ * {@link NewsRotation} the ticker uses, with the fade-out, fade-in cycle or with transitions, the scroll
+ * mode scrolls by the same {@link NewsCycle#scroll(long, float)}. The harness only plays the host of the
+ * cycle like the ticker does: its timers fire on the virtual clock after a random delivery latency,
+ * frames arrive on a virtual vsync and the ticker may get paused and resumed now and then.
+ * <p>
+ * The resulting {@link Report} tells how far the swaps drifted from the planned schedule, how late the
+ * frames that finished a fade came, how far the time line was off when the news actually got swapped,
+ * how far the scroll fell behind and how many wake ups it took. Run it with:
+ * <pre>gradle :benchmarks:simulate -PsimulationArgs='[hours] [max latency ms] [seed] [fade|transition|scroll] [minutes between pauses]'</pre>
+ * No Android class is touched while simulating.
+ */
+public final class TickerSimulation {
+	/** Interval of the virtual vsync in microseconds */
+	public static final int FRAME_INTERVAL_MICROS = 16667;
+
+	/** Length in pixels of the simulated time line */
+	public static final int TIME_LINE_LENGTH = 480;
+
+	/** Default number of simulated news */
+	public static final int DEFAULT_NEWS_COUNT = 20;
+
+	/** Duration of the simulated transitions in milliseconds */
+	public static final int TRANSITION_DURATION = 300;
+
+	/** Speed of the simulated scroll in pixels per second */
+	public static final int SCROLL_SPEED = 80;
+
+	/** Longest simulated pause in milliseconds */
+	public static final int MAX_PAUSE = 60*1000;
+
+	private final VirtualClock mClock = new VirtualClock();
+	private final Random mRandom;
+	private final int mMaxLatency;
+
+	/** The simulated news, shown for their time like a ticker without adaptive dwell times */
+	private final List<NewsHolder> mNews;
+
+	private final NewsRotation mRotation = new NewsRotation();
+
+	/** Plays the host of the cycle like NewsTickerView does */
+	private final NewsCycle mCycle = new NewsCycle(new NewsCycle.Host() {
+		public void onNewsTimeout() {
+			// NewsTickerView#onNewsTimeout
+			if ( mTransitionDuration > 0 ) {
+				changeNews();
+			} else {
+				mCycle.startFadeOut();
+			}
+		}
+
+		public void onFadedOut() {
+			changeNews();
+		}
+
+		public void onFadedIn() {
+			mReport.onFade(mClock.mUptime - mCycle.getFade().getEndTime());
+		}
+
+		public void onTransitionFinished() {
+			mReport.onFade(mClock.mUptime - mCycle.getTransition().getEndTime());
+		}
+
+		public void onFadeFrame(long frameTime) {
+		}
+
+		public void onTransitionFrame() {
+		}
+
+		public void postFrame() {
+			TickerSimulation.this.postFrame();
+		}
+	});
+
+	private final ArrayList<VirtualTimer> mTimers = new ArrayList<VirtualTimer>();
+
+	/** Time of the requested frame, -1 if none */
+	private long mFrameTime = -1;
+
+	/** Duration of the transition between news, 0 for the fade-out, fade-in cycle */
+	private long mTransitionDuration = 0;
+
+	/** Scroll speed in pixels per second, 0 for the paged mode */
+	private float mScrollSpeed = 0.f;
+
+	/** Average time between pauses, 0 to never pause */
+	private long mPauseInterval = 0;
+
+	/** Uptime the ticker gets paused or resumed at, -1 if never */
+	private long mNextToggle = -1;
+
+	private boolean bPaused = false;
+	private long mPausedAt;
+
+	private NewsHolder mCurrentNews;
+
+	/** Time the next swap is planned at by the schedule, -1 before the first swap */
+	private long mPlannedSwap = -1;
+
+	/** Uptime the scroll started at and the time it spent paused since */
+	private long mScrollStart = -1;
+	private long mScrollPaused;
+
+	/** Distance scrolled so far in pixels */
+	private double mScrolled;
+
+	private final Report mReport = new Report();
+
+	/**
+	 * @param news The news to rotate, not empty
+	 * @param maxLatency Timers fire up to this many milliseconds late
+	 * @param seed Seed of the latencies
+	 */
+	public TickerSimulation(List<NewsHolder> news, int maxLatency, long seed) {
+		mNews = news;
+		mMaxLatency = Math.max(0, maxLatency);
+		mRandom = new Random(seed);
+		mCycle.getTimeLine().setBounds(0, 0, TIME_LINE_LENGTH, 2);
+		mCycle.setTimers(new VirtualTimer(new Runnable() {
+			public void run() {
+				// NewsTickerView#mDwellTimeout
+				mCycle.onDwellTimeout();
+			}
+		}), new VirtualTimer(new Runnable() {
+			public void run() {
+				mCycle.updateTimeLine(true);
+			}
+		}));
+	}
+
+	/** Simulation of a given number of news with random times between 5 and 15 seconds */
+	public static TickerSimulation create(int newsCount, int maxLatency, long seed) {
+		final Random random = new Random(seed);
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		for ( int i = 0; i < Math.max(1, newsCount); i++ ) {
+			news.add(new NewsHolder("News "+i, null, 5 + random.nextInt(11)));
+		}
+		return new TickerSimulation(news, maxLatency, seed);
+	}
+
+	/** Pick the news by priority, weight and expiry like {@link NewsTickerView#setScheduledRotation(boolean)} */
+	public void setScheduledRotation(boolean scheduled) {
+		mRotation.setScheduled(scheduled, mNews);
+	}
+
+	/** Swap the news with a transition of the given duration like {@link NewsTickerView#setTransition(NewsTransition)}, 0 to fade */
+	public void setTransitionDuration(long duration) {
+		mTransitionDuration = Math.max(0, duration);
+	}
+
+	/** Scroll the news at the given speed like {@link NewsTickerView#TICKER_MODE_SCROLL}, 0 for the paged mode */
+	public void setScrollSpeed(float speed) {
+		mScrollSpeed = Math.max(0.f, speed);
+	}
+
+	/**
+	 * Pause the ticker now and then like a view that goes off screen, for up to {@link #MAX_PAUSE}.
+	 * @param interval Average time between two pauses, 0 to never pause
+	 */
+	public void setPauseInterval(long interval) {
+		mPauseInterval = Math.max(0, interval);
+	}
+
+	/**
+	 * Run the rotation for the given virtual time.
+	 * @return The report of the run
+	 */
+	public Report run(long durationMillis) {
+		final TickerClock previous = TickerClock.get();
+		TickerClock.setDefault(mClock);
+		try {
+			final long end = mClock.mUptime + durationMillis;
+			mNextToggle = nextToggle(false);
+			changeNews();
+			while ( true ) {
+				final VirtualTimer timer = nextTimer();
+				final long timerTime = timer != null ? timer.mDueTime : Long.MAX_VALUE;
+				final long frameTime = mFrameTime >= 0 ? mFrameTime : Long.MAX_VALUE;
+				final long toggleTime = mNextToggle >= 0 ? mNextToggle : Long.MAX_VALUE;
+				final long next = Math.min(Math.min(timerTime, frameTime), toggleTime);
+				if ( next == Long.MAX_VALUE || next > end ) {
+					break;
+				}
+				mClock.mUptime = next;
+				if ( next == toggleTime ) {
+					togglePause();
+				} else if ( next == frameTime ) {
+					mFrameTime = -1;
+					mReport.mFrames++;
+					onAnimationFrame(next);
+				} else {
+					mTimers.remove(timer);
+					mReport.mTimerWakeUps++;
+					timer.dispatch();
+				}
+			}
+			mClock.mUptime = end;
+			if ( mScrollStart >= 0 ) {
+				final long scrolling = end - mScrollStart - mScrollPaused - (bPaused ? end - mPausedAt : 0);
+				mReport.mScrollLag = (long) (scrolling - mScrolled*1000.0/mScrollSpeed);
+			}
+			return mReport;
+		} finally {
+			TickerClock.setDefault(previous);
+		}
+	}
+
+	/** NewsTickerView#changeNews */
+	private void changeNews() {
+		final long now = mClock.mUptime;
+		if ( mScrollSpeed > 0 ) {
+			// NewsTickerView#startScrolling
+			mScrollStart = now;
+			mCycle.restartScroll();
+			postFrame();
+			return;
+		}
+		if ( mPlannedSwap >= 0 ) {
+			mReport.onSwap(now - mPlannedSwap, now - mCycle.getTimeLine().getEndTime());
+		}
+		final int index = mRotation.next(mNews, mClock.currentTimeMillis());
+		if ( index < 0 ) {
+			// NewsTickerView#onAllNewsExpired, nothing is scheduled anymore
+			mCycle.cancelDwell();
+			return;
+		}
+		mCurrentNews = mNews.get(index);
+		final long dwell = getDwellMillis(mCurrentNews);
+		final long timeToSwap;
+		if ( mTransitionDuration > 0 ) {
+			mCycle.startTransition(mTransitionDuration, dwell);
+			timeToSwap = NewsCycle.timeToSwap(dwell, mTransitionDuration);
+		} else {
+			mCycle.startFadeIn(dwell);
+			timeToSwap = NewsCycle.timeToSwap(dwell);
+		}
+		mCycle.updateTimeLine(true);
+		// Plan from the previous plan so late swaps add up instead of being forgiven
+		mPlannedSwap = (mPlannedSwap >= 0 ? mPlannedSwap : now) + timeToSwap;
+	}
+
+	/** NewsTickerView#onAnimationFrame */
+	private void onAnimationFrame(long frameTime) {
+		if ( bPaused ) {
+			return;
+		}
+		if ( mScrollSpeed > 0 ) {
+			mScrolled += mCycle.scroll(frameTime, mScrollSpeed);
+			postFrame();
+		}
+		mCycle.onFrame(frameTime);
+	}
+
+	/** NewsTickerView#onPauseTicker and NewsTickerView#onResumeTicker */
+	private void togglePause() {
+		final long now = mClock.mUptime;
+		bPaused = !bPaused;
+		mReport.mPauses += bPaused ? 1 : 0;
+		if ( bPaused ) {
+			mPausedAt = now;
+			mCycle.pause();
+			mFrameTime = -1;
+		} else {
+			final long pausedFor = now - mPausedAt;
+			mCycle.resume();
+			if ( mPlannedSwap >= 0 ) {
+				mPlannedSwap += pausedFor;
+			}
+			mScrollPaused += pausedFor;
+			if ( mCycle.isAnimating() || mScrollSpeed > 0 ) {
+				postFrame();
+			}
+			mCycle.updateTimeLine(true);
+		}
+		mNextToggle = nextToggle(bPaused);
+	}
+
+	/** Uptime of the next pause or resume, -1 if the ticker never pauses */
+	private long nextToggle(boolean bPaused) {
+		if ( mPauseInterval <= 0 ) {
+			return -1;
+		}
+		final long delay = bPaused ? 1 + mRandom.nextInt(MAX_PAUSE) : 1 + (long) (mRandom.nextDouble()*2*mPauseInterval);
+		return mClock.mUptime + delay;
+	}
+
+	/** NewsTickerView#getDwellMillis without adaptive dwell times */
+	private static long getDwellMillis(NewsHolder news) {
+		return news.mTime*1000L;
+	}
+
+	/** Request a frame on the next virtual vsync */
+	private void postFrame() {
+		if ( mFrameTime < 0 ) {
+			// First vsync whose millisecond frame time lies after now
+			long vsync = mClock.mUptime*1000L / FRAME_INTERVAL_MICROS + 1;
+			while ( vsync*FRAME_INTERVAL_MICROS / 1000L <= mClock.mUptime ) {
+				vsync++;
+			}
+			mFrameTime = vsync*FRAME_INTERVAL_MICROS / 1000L;
+		}
+	}
+
+	private VirtualTimer nextTimer() {
+		VirtualTimer next = null;
+		for ( int i = 0; i < mTimers.size(); i++ ) {
+			final VirtualTimer timer = mTimers.get(i);
+			if ( next == null || timer.mDueTime < next.mDueTime ) {
+				next = timer;
+			}
+		}
+		return next;
+	}
+
+	public static void main(String[] args) {
+		final int hours = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+		final int maxLatency = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		final long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		final String mode = args.length > 3 ? args[3] : "fade";
+		final int pauseMinutes = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+		final TickerSimulation simulation = create(DEFAULT_NEWS_COUNT, maxLatency, seed);
+		if ( "transition".equals(mode) ) {
+			simulation.setTransitionDuration(TRANSITION_DURATION);
+		} else if ( "scroll".equals(mode) ) {
+			simulation.setScrollSpeed(SCROLL_SPEED);
+		}
+		simulation.setPauseInterval(pauseMinutes*60L*1000L);
+		final long start = System.nanoTime();
+		final Report report = simulation.run(hours*60L*60L*1000L);
+		System.out.println("Simulated "+hours+"h of "+mode+" with up to "+maxLatency+"ms timer latency in "
+				+(System.nanoTime()-start)/1000000L+"ms");
+		System.out.println(report);
+	}
+
+	/**
+	 * Timing accuracy of a simulation run, all times in milliseconds.
+	 */
+	public static final class Report {
+		int mSwaps;
+		long mFinalDrift;
+		long mMaxDrift;
+		long mTotalDrift;
+		int mFades;
+		long mMaxFadeError;
+		long mTotalFadeError;
+		long mMaxTimeLineError;
+		long mTotalTimeLineError;
+		int mTimerWakeUps;
+		int mFrames;
+		int mPauses;
+		long mScrollLag;
+
+		void onSwap(long drift, long timeLineError) {
+			mSwaps++;
+			mFinalDrift = drift;
+			mTotalDrift += drift;
+			mMaxDrift = Math.max(mMaxDrift, Math.abs(drift));
+			mTotalTimeLineError += timeLineError;
+			mMaxTimeLineError = Math.max(mMaxTimeLineError, Math.abs(timeLineError));
+		}
+
+		void onFade(long error) {
+			mFades++;
+			mTotalFadeError += error;
+			mMaxFadeError = Math.max(mMaxFadeError, Math.abs(error));
+		}
+
+		/** Number of news swaps */
+		public int getSwaps() {
+			return mSwaps;
+		}
+
+		/** How late the last swap was compared to the planned schedule */
+		public long getFinalDrift() {
+			return mFinalDrift;
+		}
+
+		/** Largest distance of a swap from the planned schedule */
+		public long getMaxDrift() {
+			return mMaxDrift;
+		}
+
+		/** Average time the frame that finished a fade or transition came after its planned end */
+		public float getMeanFadeError() {
+			return mFades > 0 ? mTotalFadeError/(float) mFades : 0.f;
+		}
+
+		/** Largest time the frame that finished a fade or transition came after its planned end */
+		public long getMaxFadeError() {
+			return mMaxFadeError;
+		}
+
+		/** Average time the swap happened after the time line ran out, negative if before */
+		public float getMeanTimeLineError() {
+			return mSwaps > 0 ? mTotalTimeLineError/(float) mSwaps : 0.f;
+		}
+
+		/** Largest distance between a swap and the end of its time line */
+		public long getMaxTimeLineError() {
+			return mMaxTimeLineError;
+		}
+
+		/** Number of timer wake ups */
+		public int getTimerWakeUps() {
+			return mTimerWakeUps;
+		}
+
+		/** Number of frames */
+		public int getFrames() {
+			return mFrames;
+		}
+
+		/** Number of times the ticker got paused */
+		public int getPauses() {
+			return mPauses;
+		}
+
+		/** Time the scroll fell behind its speed over the whole run, 0 in the paged mode */
+		public long getScrollLag() {
+			return mScrollLag;
+		}
+
+		@Override
+		public String toString() {
+			return "swaps="+mSwaps
+					+" drift(final="+mFinalDrift+"ms max="+mMaxDrift+"ms mean="+(mSwaps > 0 ? mTotalDrift/mSwaps : 0)+"ms)"
+					+" fadeError(mean="+getMeanFadeError()+"ms max="+mMaxFadeError+"ms)"
+					+" timeLineError(mean="+getMeanTimeLineError()+"ms max="+mMaxTimeLineError+"ms)"
+					+" scrollLag="+mScrollLag+"ms pauses="+mPauses
+					+" wakeUps(timers="+mTimerWakeUps+" frames="+mFrames+")";
+		}
+	}
+
+	/**
+	 * Clock that only moves when the simulation moves it.
+	 */
+	static final class VirtualClock extends TickerClock {
+		long mUptime = 0;
+
+		@Override
+		public long uptimeMillis() {
+			return mUptime;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return mUptime;
+		}
+	}
+
+	/**
+	 * Timer firing on the virtual clock, late by a random latency like a busy looper.
+	 */
+	final class VirtualTimer extends TickerTimer {
+		long mDueTime;
+
+		VirtualTimer(Runnable callback) {
+			super(callback);
+		}
+
+		@Override
+		protected void onSchedule(long uptimeMillis) {
+			mDueTime = uptimeMillis + (mMaxLatency > 0 ? mRandom.nextInt(mMaxLatency + 1) : 0);
+			mTimers.add(this);
+		}
+
+		@Override
+		protected void onCancel() {
+			mTimers.remove(this);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.mystictreegames.ui.newstickerview;
+
+import android.os.Handler;
+
+/**
+ * One-shot timer used by the ticker to wake up once the current news has been shown long enough or
+ * once the time line needs to be redrawn. Times are in the {@link TickerClock#uptimeMillis()} time base.
+ * The default implementation posts to its own {@link Handler}, the {@link TickerScheduler} provides
+ * timers that share a single wake up between many tickers.
+ */
+abstract class TickerTimer {
+	/** Run once the timer fired */
+	protected final Runnable mCallback;
+
+	/** Uptime the timer fires at, -1 if not scheduled */
+	protected long mWakeUpTime = -1;
+
+	/** Uptime the timer was due at when it fired the last time, -1 if it never fired */
+	private long mFiredWakeUpTime = -1;
+
+	protected TickerTimer(Runnable callback) {
+		mCallback = callback;
+	}
+
+	/** Create a standalone timer. Must be called from the UI thread. */
+	public static TickerTimer create(Runnable callback) {
+		return new HandlerTimer(callback);
+	}
+
+	/** Fire after the given delay, replaces any pending schedule */
+	public final void schedule(long delayMillis) {
+		scheduleAt(TickerClock.get().uptimeMillis() + delayMillis);
+	}
+
+	/** Fire at the given uptime, replaces any pending schedule */
+	public final void scheduleAt(long uptimeMillis) {
+		if ( mWakeUpTime >= 0 ) {
+			onCancel();
+		}
+		mWakeUpTime = uptimeMillis;
+		onSchedule(uptimeMillis);
+	}
+
+	/**
+	 * Cancel the timer.
+	 * @return The time that was left until it would have fired or -1 if it was not scheduled
+	 */
+	public final long cancel() {
+		if ( mWakeUpTime < 0 ) {
+			return -1;
+		}
+		final long remaining = Math.max(0, mWakeUpTime - TickerClock.get().uptimeMillis());
+		mWakeUpTime = -1;
+		onCancel();
+		return remaining;
+	}
+
+	/** Whether the timer is scheduled */
+	public final boolean isScheduled() {
+		return mWakeUpTime >= 0;
+	}
+
+	/** Uptime the timer fires at, -1 if not scheduled */
+	public final long getWakeUpTime() {
+		return mWakeUpTime;
+	}
+
+	/** Uptime the timer was due at when it fired the last time, compare with the current time for its latency */
+	public final long getFiredWakeUpTime() {
+		return mFiredWakeUpTime;
+	}
+
+	/**
+	 * Tell the timer whether its owner is running. Only matters for timers that synchronize with
+	 * others, an inactive timer is not waited for.
+	 */
+	public void setActive(boolean active) {
+	}
+
+	/** Release the timer, it must not be used afterwards */
+	public void release() {
+		cancel();
+	}
+
+	/** Fire the timer */
+	protected final void dispatch() {
+		if ( mWakeUpTime >= 0 ) {
+			mFiredWakeUpTime = mWakeUpTime;
+			mWakeUpTime = -1;
+			mCallback.run();
+		}
+	}
+
+	protected abstract void onSchedule(long uptimeMillis);
+
+	protected abstract void onCancel();
+
+	/**
+	 * Timer backed by its own handler.
+	 */
+	static final class HandlerTimer extends TickerTimer implements Runnable {
+		private final Handler mHandler = new Handler();
+
+		HandlerTimer(Runnable callback) {
+			super(callback);
+		}
+
+		@Override
+		public void run() {
+			dispatch();
+		}
+
+		@Override
+		protected void onSchedule(long uptimeMillis) {
+			mHandler.postAtTime(this, uptimeMillis);
+		}
+
+		@Override
+		protected void onCancel() {
+			mHandler.removeCallbacks(this);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.mystictreegames.ui.newstickerview;
+
+/**
+ * Geometry and timing of the time-line bar that shows how long the current news will stay. The
+ * bar shrinks from its full length to zero over the duration of the news. It only needs a redraw
+ * once its length changed by a whole pixel, so the owner can ask for the time of the next change
+ * and sleep until then instead of redrawing every frame.
+ */
+final class TimeLine {
+	/** Time the current news started */
+	private long mStartTime;
+
+	/** Time the current news will be active */
+	private long mDuration;
+
+	/** Left edge of the bar in view coordinates */
+	private int mLeft;
+
+	/** Vertical center of the bar in view coordinates */
+	private int mY;
+
+	/** Length of the bar when it is full */
+	private int mMaxLength;
+
+	/** Half of the stroke width rounded up, used for the damage rect */
+	private int mHalfStroke;
+
+	/** Length the bar got drawn with the last time */
+	private int mLength;
+
+	/**
+	 * Set the geometry of the bar.
+	 * @return True if the geometry changed
+	 */
+	public boolean setBounds(int left, int y, int maxLength, float strokeWidth) {
+		final int halfStroke = (int) Math.ceil(strokeWidth*0.5f);
+		maxLength = Math.max(0, maxLength);
+		if ( left != mLeft || y != mY || maxLength != mMaxLength || halfStroke != mHalfStroke ) {
+			mLeft = left;
+			mY = y;
+			mMaxLength = maxLength;
+			mHalfStroke = halfStroke;
+			return true;
+		}
+		return false;
+	}
+
+	/** Start a new countdown */
+	public void start(long startTime, long duration) {
+		mStartTime = startTime;
+		mDuration = duration;
+	}
+
+	/** Time the current countdown reaches zero */
+	public long getEndTime() {
+		return mStartTime + mDuration;
+	}
+
+	/** Move the start of the countdown by the given time, used to skip time spent paused */
+	public void shift(long delta) {
+		mStartTime += delta;
+	}
+
+	/** Stop the countdown, the bar will have no length from now on */
+	public void stop() {
+		mDuration = 0;
+	}
+
+	/** The time left in the range [0,1] at the given time */
+	public float getTimeLeft(long now) {
+		if ( mDuration <= 0 ) {
+			return 0.f;
+		}
+		return 1.f-Utils.clamp((now-mStartTime)/(float)mDuration, 0.f, 1.f);
+	}
+
+	/** Length in pixels of the bar at the given time */
+	public int computeLength(long now) {
+		return (int) (mMaxLength*getTimeLeft(now));
+	}
+
+	/**
+	 * Time at which the bar will be one pixel shorter than it is at the given length.
+	 * @return The time of the next change or -1 if the bar is already empty.
+	 */
+	public long nextChangeTime(int length) {
+		if ( length <= 0 || mMaxLength <= 0 || mDuration <= 0 ) {
+			return -1;
+		}
+		// length(t) = maxLength*(1-(t-start)/duration) drops below 'length' right after this point
+		return mStartTime + (mDuration*(mMaxLength-length))/mMaxLength + 1;
+	}
+
+	/** The length the bar got drawn with */
+	public int getLength() {
+		return mLength;
+	}
+
+	/** Update the length the bar gets drawn with */
+	public void setLength(int length) {
+		mLength = length;
+	}
+
+	public int getLeft() {
+		return mLeft;
+	}
+
+	public int getY() {
+		return mY;
+	}
+
+	/** Top of the damage rect of the bar */
+	public int getDamageTop() {
+		return mY - mHalfStroke;
+	}
+
+	/** Bottom of the damage rect of the bar */
+	public int getDamageBottom() {
+		return mY + mHalfStroke + 1;
+	}
+}
@@ -1,5 +1,8 @@
 package com.mystictreegames.ui.newstickerview;
 
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * Static class containing useful mathematic related methods.
  * @author Moritz 'Moss' Wundke (b.thax.dcg@gmail.com)
@@ -7,6 +10,9 @@ package com.mystictreegames.ui.newstickerview;
  */
 public class Utils {
 	
+	/** Shared empty byte array */
+	public static final byte[] EMPTY_BYTES = new byte[0];
+	
 	/** Shifter used to set an alpha byte into a argb color integer value */
 	public static final int ALPHA_COLOR_SHIFTER = 24;
 	
@@ -38,4 +44,127 @@ public class Utils {
 		int argb = (rgb & 0x00FFFFFF) | ( iAlpha << ALPHA_COLOR_SHIFTER);
 		return argb;
 	}
+	
+	/** Scale the alpha of an argb value by a linear alpha, keeping the colors original transparency */
+	public static int modulateAlpha(int argb, float alpha) {
+		int iAlpha = (int)((argb >>> ALPHA_COLOR_SHIFTER) * clamp(alpha, 0.f, 1.f) + 0.5f);
+		return (argb & 0x00FFFFFF) | ( iAlpha << ALPHA_COLOR_SHIFTER);
+	}
+	
+	/** Null safe equality check */
+	public static boolean equals(Object a, Object b) {
+		return a == b || (a != null && a.equals(b));
+	}
+	
+	/** 64 bit FNV-1a hash of a string, stable across processes and platform versions */
+	public static long hash64(String string) {
+		long hash = 0xCBF29CE484222325L;
+		final int length = string.length();
+		for ( int i = 0; i < length; i++ ) {
+			hash ^= string.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+	
+	/** Thread factory for low priority daemon threads with the given name */
+	public static ThreadFactory newBackgroundThreadFactory(final String name) {
+		return new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		};
+	}
+	
+	/** Encode a string as UTF-8 */
+	public static byte[] toUtf8(String string) {
+		try {
+			return string.getBytes("UTF-8");
+		} catch ( UnsupportedEncodingException e ) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/** Encode a range of chars as UTF-8 without creating a string, unpaired surrogates become '?' */
+	public static byte[] toUtf8(char[] chars, int offset, int length) {
+		final int end = offset + length;
+		int size = 0;
+		for ( int i = offset; i < end; i++ ) {
+			final char c = chars[i];
+			if ( c < 0x80 ) {
+				size++;
+			} else if ( c < 0x800 ) {
+				size += 2;
+			} else if ( Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1]) ) {
+				size += 4;
+				i++;
+			} else {
+				size += isSurrogate(c) ? 1 : 3;
+			}
+		}
+		final byte[] bytes = new byte[size];
+		int position = 0;
+		for ( int i = offset; i < end; i++ ) {
+			final char c = chars[i];
+			if ( c < 0x80 ) {
+				bytes[position++] = (byte) c;
+			} else if ( c < 0x800 ) {
+				bytes[position++] = (byte) (0xC0 | (c >> 6));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if ( Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1]) ) {
+				final int codePoint = Character.toCodePoint(c, chars[++i]);
+				bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if ( isSurrogate(c) ) {
+				bytes[position++] = '?';
+			} else {
+				bytes[position++] = (byte) (0xE0 | (c >> 12));
+				bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return bytes;
+	}
+	
+	private static boolean isSurrogate(char c) {
+		return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+	}
+	
+	/** Encode ISO-8859-1 bytes as UTF-8 */
+	public static byte[] latin1ToUtf8(byte[] latin1, int offset, int length) {
+		int size = length;
+		for ( int i = offset; i < offset + length; i++ ) {
+			if ( latin1[i] < 0 ) {
+				size++;
+			}
+		}
+		final byte[] bytes = new byte[size];
+		int position = 0;
+		for ( int i = offset; i < offset + length; i++ ) {
+			final int c = latin1[i] & 0xFF;
+			if ( c < 0x80 ) {
+				bytes[position++] = (byte) c;
+			} else {
+				bytes[position++] = (byte) (0xC0 | (c >> 6));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return bytes;
+	}
+	
+	/** Decode UTF-8 bytes into a string */
+	public static String fromUtf8(byte[] bytes, int offset, int length) {
+		try {
+			return new String(bytes, offset, length, "UTF-8");
+		} catch ( UnsupportedEncodingException e ) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
 }
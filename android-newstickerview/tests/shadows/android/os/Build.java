@@ -0,0 +1,18 @@
+package android.os;
+
+/**
+ * Stand-in of the build information for the JVM tests and benchmarks, the platform reads it from native
+ * properties. Predates the Choreographer so the frame driver runs on its handler.
+ */
+public final class Build {
+	private Build() {
+	}
+
+	public static final class VERSION {
+		public static final int SDK_INT = 8;
+	}
+
+	public static final class VERSION_CODES {
+		public static final int JELLY_BEAN = 16;
+	}
+}
@@ -0,0 +1,77 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in of the platform handler for the JVM tests and benchmarks, the platform looper is native.
+ * Every handler posts to a single shared thread that stands in for the main looper, use
+ * {@link #runOnMain(Runnable)} to get onto it.
+ */
+public class Handler {
+	private static final ScheduledExecutorService sMain = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "main");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/** Pending posts, so they can be removed */
+	private final List<Post> mPosts = new ArrayList<Post>();
+
+	/** Run a task on the main thread, as a test would from the UI */
+	public static void runOnMain(Runnable task) {
+		sMain.execute(task);
+	}
+
+	public final boolean post(Runnable r) {
+		return postDelayed(r, 0);
+	}
+
+	public final boolean postDelayed(Runnable r, long delayMillis) {
+		final Post post = new Post(r);
+		synchronized ( mPosts ) {
+			mPosts.add(post);
+			post.mFuture = sMain.schedule(post, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+		}
+		return true;
+	}
+
+	public final boolean postAtTime(Runnable r, long uptimeMillis) {
+		return postDelayed(r, uptimeMillis - SystemClock.uptimeMillis());
+	}
+
+	public final void removeCallbacks(Runnable r) {
+		synchronized ( mPosts ) {
+			for ( int i = mPosts.size() - 1; i >= 0; i-- ) {
+				final Post post = mPosts.get(i);
+				if ( post.mTask == r ) {
+					post.mFuture.cancel(false);
+					mPosts.remove(i);
+				}
+			}
+		}
+	}
+
+	private final class Post implements Runnable {
+		final Runnable mTask;
+		ScheduledFuture<?> mFuture;
+
+		Post(Runnable task) {
+			mTask = task;
+		}
+
+		public void run() {
+			synchronized ( mPosts ) {
+				mPosts.remove(this);
+			}
+			mTask.run();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package android.os;
+
+/**
+ * In-memory stand-in of the native platform parcel for the JVM tests and benchmarks. Values are stored
+ * in a growable array in the order they were written, which is enough to test and measure the
+ * marshalling code of the library. It does not model the cost of the native parcel or of binder
+ * transactions.
+ */
+public final class Parcel {
+	private Object[] mValues = new Object[16];
+	private long[] mPrimitives = new long[16];
+	private int mSize = 0;
+	private int mPosition = 0;
+
+	private Parcel() {
+	}
+
+	public static Parcel obtain() {
+		return new Parcel();
+	}
+
+	public void recycle() {
+		mSize = 0;
+		mPosition = 0;
+	}
+
+	public int dataSize() {
+		return mSize;
+	}
+
+	public int dataPosition() {
+		return mPosition;
+	}
+
+	public void setDataPosition(int position) {
+		mPosition = position;
+	}
+
+	public void writeInt(int value) {
+		grow();
+		mPrimitives[mSize++] = value;
+	}
+
+	public void writeLong(long value) {
+		grow();
+		mPrimitives[mSize++] = value;
+	}
+
+	public void writeString(String value) {
+		grow();
+		mValues[mSize++] = value;
+	}
+
+	public void writeByteArray(byte[] value) {
+		grow();
+		mValues[mSize++] = value != null ? value.clone() : null;
+	}
+
+	public int readInt() {
+		return (int) mPrimitives[mPosition++];
+	}
+
+	public long readLong() {
+		return mPrimitives[mPosition++];
+	}
+
+	public String readString() {
+		return (String) mValues[mPosition++];
+	}
+
+	public byte[] createByteArray() {
+		final byte[] value = (byte[]) mValues[mPosition++];
+		return value != null ? value.clone() : null;
+	}
+
+	private void grow() {
+		if ( mSize == mValues.length ) {
+			final Object[] values = new Object[mSize*2];
+			System.arraycopy(mValues, 0, values, 0, mSize);
+			mValues = values;
+			final long[] primitives = new long[mSize*2];
+			System.arraycopy(mPrimitives, 0, primitives, 0, mSize);
+			mPrimitives = primitives;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * Stand-in of the native platform clock for the JVM tests and benchmarks, uptime is the monotonic time
+ * since the VM started.
+ */
+public final class SystemClock {
+	private static final long sStart = System.nanoTime();
+
+	private SystemClock() {
+	}
+
+	public static long uptimeMillis() {
+		return (System.nanoTime() - sStart)/1000000L;
+	}
+}
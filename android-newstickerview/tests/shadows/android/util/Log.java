@@ -0,0 +1,40 @@
+package android.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Stand-in of the native platform log for the JVM tests and benchmarks, errors and warnings go to
+ * standard error.
+ */
+public final class Log {
+	private Log() {
+	}
+
+	public static int d(String tag, String msg) {
+		return 0;
+	}
+
+	public static int i(String tag, String msg) {
+		return 0;
+	}
+
+	public static int w(String tag, String msg) {
+		System.err.println("W/"+tag+": "+msg);
+		return 0;
+	}
+
+	public static int e(String tag, String msg) {
+		System.err.println("E/"+tag+": "+msg);
+		return 0;
+	}
+
+	public static String getStackTraceString(Throwable tr) {
+		if ( tr == null ) {
+			return "";
+		}
+		final StringWriter writer = new StringWriter();
+		tr.printStackTrace(new PrintWriter(writer));
+		return writer.toString();
+	}
+}
@@ -0,0 +1,165 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import android.os.Parcel;
+
+/**
+ * Encoding of the {@link NewsBatch} and its round trip through a parcel.
+ */
+public class NewsBatchTest {
+	/** Text, link and id beyond Latin-1 */
+	private static final String JAPANESE = "\u65e5\u672c\u8a9e\u306e\u30cb\u30e5\u30fc\u30b9";
+	private static final String JAPANESE_LINK = "http://\u4f8b\u3048.jp/\u30d1\u30b9/1";
+
+	static void assertSameNews(NewsHolder expected, NewsHolder actual) {
+		assertEquals(expected.mNews, actual.mNews);
+		assertEquals(expected.mLink, actual.mLink);
+		assertEquals(expected.mImage, actual.mImage);
+		assertEquals(expected.mId, actual.mId);
+		assertEquals(expected.mTime, actual.mTime);
+		assertEquals(expected.mPriority, actual.mPriority);
+		assertEquals(expected.mWeight, actual.mWeight);
+		assertEquals(expected.mExpiry, actual.mExpiry);
+	}
+
+	private static NewsHolder news(String text, String link, String image, String id) {
+		final NewsHolder news = new NewsHolder(text, link, 5, 1, 2, 1372680000000L);
+		news.mImage = image;
+		news.mId = id;
+		return news;
+	}
+
+	private static String readUtf8(ByteBuffer buffer, int length) throws Exception {
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	@Test
+	public void binaryLayout() throws Exception {
+		final NewsHolder news = new NewsHolder("Hi", "http://a.com/x/1", 5, 2, 3, 7);
+		news.mId = "id";
+		final ByteBuffer buffer = ByteBuffer.wrap(NewsBatch.encode(Arrays.asList(news)));
+
+		// Header
+		assertEquals(NewsBatch.MAGIC, buffer.getInt());
+		assertEquals(NewsBatch.VERSION, buffer.getInt());
+		assertEquals(1, buffer.getInt());
+		assertEquals(2, buffer.getInt());
+
+		// The host, then the directory below it
+		assertEquals(-1, buffer.getInt());
+		assertEquals(13, buffer.getInt());
+		assertEquals("http://a.com/", readUtf8(buffer, 13));
+		assertEquals(0, buffer.getInt());
+		assertEquals(2, buffer.getInt());
+		assertEquals("x/", readUtf8(buffer, 2));
+
+		// Offset table
+		final int record = NewsBatch.HEADER_SIZE + 8 + 13 + 8 + 2 + 4;
+		assertEquals(record, buffer.getInt());
+
+		// Record
+		assertEquals(record, buffer.position());
+		assertEquals(5, buffer.getInt());
+		assertEquals(2, buffer.getInt());
+		assertEquals(3, buffer.getInt());
+		assertEquals(7, buffer.getLong());
+		assertEquals(1, buffer.getInt());
+		assertEquals(-1, buffer.getInt());
+		assertEquals(NewsBatch.RECORD_SIZE, buffer.position() - record);
+		assertEquals(2, buffer.getInt());
+		assertEquals("Hi", readUtf8(buffer, 2));
+		assertEquals(1, buffer.getInt());
+		assertEquals("1", readUtf8(buffer, 1));
+		assertEquals(0, buffer.getInt());
+		assertEquals(2, buffer.getInt());
+		assertEquals("id", readUtf8(buffer, 2));
+		assertEquals(0, buffer.remaining());
+	}
+
+	@Test
+	public void nestedPrefixesRoundTrip() throws Exception {
+		final List<NewsHolder> news = new ArrayList<NewsHolder>();
+		news.add(news("Deep", "http://a.com/x/y/1", "http://a.com/x/y/img.png", null));
+		news.add(news("Shallow", "http://a.com/x/2", "http://a.com/img.png", null));
+		news.add(news("Host only", "http://a.com/3", null, null));
+		news.add(news("Other host", "https://b.org/x/y/4", "https://b.org/x/y/4.png", null));
+		news.add(news("No scheme", "a.com/x/5", null, null));
+		final ByteBuffer buffer = ByteBuffer.wrap(NewsBatch.encode(news));
+		// http://a.com/, x/y/, x/, https://b.org/, x/y/ below the other host
+		assertEquals(5, buffer.getInt(12));
+
+		final NewsBatch batch = NewsBatch.create(news);
+		assertEquals(news.size(), batch.size());
+		for ( int i = 0; i < news.size(); i++ ) {
+			assertSameNews(news.get(i), batch.get(i));
+			assertSameNews(news.get(i), batch.asList().get(i));
+		}
+	}
+
+	@Test
+	public void nullAndEmptyFields() {
+		final List<NewsHolder> news = new ArrayList<NewsHolder>();
+		news.add(news(null, null, null, null));
+		news.add(news("", "", "", ""));
+		final NewsBatch batch = NewsBatch.create(news);
+		// Everything is stored as the empty string, a missing image or id reads as none
+		for ( int i = 0; i < news.size(); i++ ) {
+			final NewsHolder decoded = batch.get(i);
+			assertEquals("", decoded.mNews);
+			assertEquals("", decoded.mLink);
+			assertNull(decoded.mImage);
+			assertNull(decoded.mId);
+		}
+	}
+
+	@Test
+	public void textBeyondLatin1() {
+		final List<NewsHolder> news = new ArrayList<NewsHolder>();
+		news.add(news(JAPANESE, JAPANESE_LINK, JAPANESE_LINK + ".png", JAPANESE));
+		news.add(news("Caf\u00e9 \u20ac", "http://example.com/caf\u00e9", null, "\u00fc"));
+		final NewsBatch batch = NewsBatch.create(news);
+		assertSameNews(news.get(0), batch.get(0));
+		assertSameNews(news.get(1), batch.get(1));
+	}
+
+	@Test
+	public void parcelRoundTrip() {
+		final List<NewsHolder> news = new ArrayList<NewsHolder>();
+		for ( int i = 0; i < 100; i++ ) {
+			news.add(news("News "+i, "http://example.com/news/"+i, i % 2 == 0 ? "http://example.com/img/"+i+".png" : null, "id-"+i));
+		}
+		final NewsBatch batch = NewsBatch.create(news);
+		final Parcel parcel = Parcel.obtain();
+		batch.writeToParcel(parcel, 0);
+		parcel.setDataPosition(0);
+		final NewsBatch read = NewsBatch.CREATOR.createFromParcel(parcel);
+		parcel.recycle();
+		assertEquals(batch.getByteSize(), read.getByteSize());
+		assertEquals(news.size(), read.size());
+		for ( int i = 0; i < news.size(); i++ ) {
+			assertSameNews(news.get(i), read.get(i));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void otherVersionsAreRejected() throws Exception {
+		final byte[] data = NewsBatch.encode(new ArrayList<NewsHolder>());
+		ByteBuffer.wrap(data).putInt(4, NewsBatch.VERSION + 1);
+		final Parcel parcel = Parcel.obtain();
+		parcel.writeInt(0);
+		parcel.writeByteArray(data);
+		parcel.setDataPosition(0);
+		NewsBatch.CREATOR.createFromParcel(parcel);
+	}
+}
@@ -0,0 +1,208 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Timing of the {@link NewsCycle} the ticker and its simulation share, and whole days of it run by the
+ * {@link TickerSimulation}.
+ */
+public class NewsCycleTest {
+	/** One day of virtual time */
+	private static final long DAY = 24L*60L*60L*1000L;
+
+	/** A swap may come one vsync plus the timer latency late, but it must never add up */
+	private static final long MAX_DRIFT = TickerSimulation.FRAME_INTERVAL_MICROS/1000 + 1 + 4;
+
+	private final TickerSimulation.VirtualClock mClock = new TickerSimulation.VirtualClock();
+	private TickerClock mPreviousClock;
+
+	/** Timer that only remembers when it is due, the test dispatches it */
+	private static final class DueTimer extends TickerTimer {
+		DueTimer(Runnable callback) {
+			super(callback);
+		}
+
+		@Override
+		protected void onSchedule(long uptimeMillis) {
+		}
+
+		@Override
+		protected void onCancel() {
+		}
+	}
+
+	/** Host that counts what the cycle asked for */
+	private static class CountingHost implements NewsCycle.Host {
+		NewsCycle mCycle;
+		int mTimeouts;
+		int mFadedIn;
+		int mFadedOut;
+		int mFrames;
+
+		public void onNewsTimeout() {
+			mTimeouts++;
+		}
+
+		public void onFadedOut() {
+			mFadedOut++;
+		}
+
+		public void onFadedIn() {
+			mFadedIn++;
+		}
+
+		public void onTransitionFinished() {
+		}
+
+		public void onFadeFrame(long frameTime) {
+		}
+
+		public void onTransitionFrame() {
+		}
+
+		public void postFrame() {
+			mFrames++;
+		}
+	}
+
+	@Before
+	public void setUp() {
+		mPreviousClock = TickerClock.get();
+		TickerClock.setDefault(mClock);
+	}
+
+	@After
+	public void tearDown() {
+		TickerClock.setDefault(mPreviousClock);
+	}
+
+	@Test
+	public void timeToSwapCoversTheFadesOrTheTransition() {
+		assertEquals(5000 + NewsCycle.FADE_DURATION, NewsCycle.timeToSwap(5000));
+		assertEquals(5300, NewsCycle.timeToSwap(5000, 300));
+		// Fade in, dwell timer, fade out
+		assertEquals(NewsCycle.timeToSwap(5000), NewsCycle.FADE_DURATION + NewsCycle.dwellAfterFadeIn(5000) + NewsCycle.FADE_DURATION);
+	}
+
+	@Test
+	public void lateFramesDoNotDelayTheDwellTimer() {
+		final CountingHost host = new CountingHost();
+		final NewsCycle cycle = new NewsCycle(host);
+		final DueTimer dwellTimer = new DueTimer(null);
+		cycle.setTimers(dwellTimer, new DueTimer(null));
+		cycle.startFadeIn(5000);
+		assertEquals(1, host.mFrames);
+
+		// The frame that finishes the fade comes long after it ended
+		mClock.mUptime = NewsCycle.FADE_DURATION + 40;
+		cycle.onFrame(mClock.mUptime);
+		assertEquals(1, host.mFadedIn);
+		assertEquals(5000, dwellTimer.getWakeUpTime());
+		// The time line ends with the fade out
+		assertEquals(NewsCycle.timeToSwap(5000), cycle.getTimeLine().getEndTime());
+	}
+
+	@Test
+	public void pausedTimeIsSkipped() {
+		final CountingHost host = new CountingHost();
+		final NewsCycle cycle = new NewsCycle(host);
+		final DueTimer dwellTimer = new DueTimer(null);
+		cycle.setTimers(dwellTimer, new DueTimer(null));
+		cycle.startFadeIn(5000);
+		mClock.mUptime = NewsCycle.FADE_DURATION;
+		cycle.onFrame(mClock.mUptime);
+		mClock.mUptime = 2000;
+		cycle.pause();
+		assertFalse(dwellTimer.isScheduled());
+		mClock.mUptime = 7000;
+		cycle.resume();
+		assertEquals(10000, dwellTimer.getWakeUpTime());
+		assertEquals(NewsCycle.timeToSwap(5000) + 5000, cycle.getTimeLine().getEndTime());
+	}
+
+	@Test
+	public void fadeOutStartsWhenTheDwellTimerWasDue() {
+		final CountingHost host = new CountingHost() {
+			@Override
+			public void onNewsTimeout() {
+				super.onNewsTimeout();
+				mCycle.startFadeOut();
+			}
+		};
+		final NewsCycle cycle = new NewsCycle(host);
+		host.mCycle = cycle;
+		final DueTimer dwellTimer = new DueTimer(new Runnable() {
+			public void run() {
+				cycle.onDwellTimeout();
+			}
+		});
+		cycle.setTimers(dwellTimer, new DueTimer(null));
+		cycle.startFadeIn(5000);
+		mClock.mUptime = NewsCycle.FADE_DURATION;
+		cycle.onFrame(mClock.mUptime);
+
+		// The timer gets to run a bit late
+		mClock.mUptime = dwellTimer.getWakeUpTime() + 10;
+		dwellTimer.dispatch();
+		assertEquals(1, host.mTimeouts);
+		assertEquals(5000 + NewsCycle.FADE_DURATION, cycle.getFade().getEndTime());
+
+		// So does the next news
+		mClock.mUptime = cycle.getFade().getEndTime() + 16;
+		cycle.onFrame(mClock.mUptime);
+		assertEquals(1, host.mFadedOut);
+		cycle.startFadeIn(5000);
+		assertEquals(NewsCycle.timeToSwap(5000)*2, cycle.getTimeLine().getEndTime());
+	}
+
+	@Test
+	public void fadeCycleKeepsTheSchedule() {
+		final TickerSimulation.Report report = TickerSimulation.create(TickerSimulation.DEFAULT_NEWS_COUNT, 4, 1).run(DAY);
+		// About ten seconds per news plus the fade
+		assertEquals(7850, report.getSwaps(), 700);
+		assertDrift(report);
+		// Fades are noticed on the first vsync after their end
+		assertTrue(report.getMaxFadeError() <= MAX_DRIFT);
+	}
+
+	@Test
+	public void transitionsKeepTheSchedule() {
+		final TickerSimulation simulation = TickerSimulation.create(TickerSimulation.DEFAULT_NEWS_COUNT, 4, 2);
+		simulation.setTransitionDuration(TickerSimulation.TRANSITION_DURATION);
+		final TickerSimulation.Report report = simulation.run(DAY);
+		assertTrue(report.getSwaps() > 8000);
+		assertDrift(report);
+	}
+
+	@Test
+	public void pausesDoNotShiftTheSchedule() {
+		final TickerSimulation simulation = TickerSimulation.create(TickerSimulation.DEFAULT_NEWS_COUNT, 4, 3);
+		simulation.setPauseInterval(10L*60L*1000L);
+		final TickerSimulation.Report report = simulation.run(DAY);
+		assertTrue(report.getPauses() > 50);
+		assertDrift(report);
+	}
+
+	@Test
+	public void scrollKeepsItsSpeed() {
+		final TickerSimulation simulation = TickerSimulation.create(TickerSimulation.DEFAULT_NEWS_COUNT, 4, 4);
+		simulation.setScrollSpeed(TickerSimulation.SCROLL_SPEED);
+		simulation.setPauseInterval(10L*60L*1000L);
+		final TickerSimulation.Report report = simulation.run(DAY);
+		assertTrue(report.getPauses() > 50);
+		// Only the very first frame does not move
+		assertTrue("scroll lag "+report.getScrollLag(), Math.abs(report.getScrollLag()) <= MAX_DRIFT*2);
+	}
+
+	private static void assertDrift(TickerSimulation.Report report) {
+		assertTrue("max drift "+report.getMaxDrift(), report.getMaxDrift() <= MAX_DRIFT);
+		assertTrue("final drift "+report.getFinalDrift(), Math.abs(report.getFinalDrift()) <= MAX_DRIFT);
+		assertTrue("time line error "+report.getMaxTimeLineError(), report.getMaxTimeLineError() <= MAX_DRIFT);
+	}
+}
@@ -0,0 +1,168 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Mapping of old to new positions computed by {@link NewsDiff}.
+ */
+public class NewsDiffTest {
+	private static NewsHolder news(String text, String link) {
+		return new NewsHolder(text, link, 5);
+	}
+
+	private static List<NewsHolder> list(NewsHolder... news) {
+		return new ArrayList<NewsHolder>(Arrays.asList(news));
+	}
+
+	@Test
+	public void identicalListsAreEmpty() {
+		final List<NewsHolder> news = list(news("a", "http://a"), news("b", "http://b"));
+		final NewsDiff diff = NewsDiff.compute(news, list(news("a", "http://a"), news("b", "http://b")));
+		assertTrue(diff.isEmpty());
+		assertEquals(0, diff.getNewIndex(0));
+		assertEquals(1, diff.getNewIndex(1));
+	}
+
+	@Test
+	public void movedNewsAreFollowed() {
+		final NewsDiff diff = NewsDiff.compute(list(news("a", "http://a"), news("b", "http://b"), news("c", "http://c")),
+				list(news("c", "http://c"), news("new", "http://new"), news("a", "http://a"), news("b", "http://b")));
+		assertFalse(diff.isEmpty());
+		assertEquals(2, diff.getNewIndex(0));
+		assertEquals(3, diff.getNewIndex(1));
+		assertEquals(0, diff.getNewIndex(2));
+		assertEquals(1, diff.getInsertedCount());
+		assertEquals(0, diff.getRemovedCount());
+		assertEquals(4, diff.getNewSize());
+	}
+
+	@Test
+	public void removedNewsMapToTheNextSurvivor() {
+		final NewsDiff diff = NewsDiff.compute(list(news("a", "http://a"), news("b", "http://b"), news("c", "http://c")),
+				list(news("a", "http://a"), news("c", "http://c")));
+		assertEquals(-1, diff.getNewIndex(1));
+		assertEquals(1, diff.getNextSurvivor(1));
+		assertEquals(1, diff.getRemovedCount());
+		assertEquals(0, diff.getInsertedCount());
+	}
+
+	@Test
+	public void nextSurvivorWrapsAround() {
+		final NewsDiff diff = NewsDiff.compute(list(news("a", "http://a"), news("b", "http://b"), news("c", "http://c")),
+				list(news("a", "http://a")));
+		assertEquals(0, diff.getNextSurvivor(2));
+	}
+
+	@Test
+	public void nothingSurvivedStartsOver() {
+		final NewsDiff diff = NewsDiff.compute(list(news("a", "http://a")), list(news("b", "http://b")));
+		assertEquals(-1, diff.getNewIndex(0));
+		assertEquals(0, diff.getNextSurvivor(0));
+		assertEquals(-1, NewsDiff.compute(list(news("a", "http://a")), Collections.<NewsHolder>emptyList()).getNextSurvivor(0));
+	}
+
+	@Test
+	public void duplicateKeysMatchInOrder() {
+		final NewsDiff diff = NewsDiff.compute(list(news("x", ""), news("y", "http://y"), news("x", "")),
+				list(news("y", "http://y"), news("x", ""), news("x", "")));
+		assertEquals(1, diff.getNewIndex(0));
+		assertEquals(0, diff.getNewIndex(1));
+		assertEquals(2, diff.getNewIndex(2));
+		assertEquals(0, diff.getInsertedCount());
+		assertEquals(0, diff.getRemovedCount());
+	}
+
+	@Test
+	public void surplusDuplicatesAreRemoved() {
+		final NewsDiff diff = NewsDiff.compute(list(news("x", ""), news("x", ""), news("x", "")), list(news("x", "")));
+		assertEquals(0, diff.getNewIndex(0));
+		assertEquals(-1, diff.getNewIndex(1));
+		assertEquals(-1, diff.getNewIndex(2));
+		assertEquals(2, diff.getRemovedCount());
+	}
+
+	@Test
+	public void changedContentIsReported() {
+		final NewsHolder image = news("a", "http://a");
+		image.mImage = "http://a/image.png";
+		final NewsDiff diff = NewsDiff.compute(list(news("a", "http://a"), news("b", "http://b")),
+				list(image, news("b changed", "http://b")));
+		assertTrue(diff.isChanged(0));
+		assertTrue(diff.isChanged(1));
+		assertEquals(2, diff.getChangedCount());
+		assertEquals(0, diff.getNewIndex(0));
+	}
+
+	@Test
+	public void idsWinOverLinks() {
+		final NewsHolder before = news("a", "http://a?session=1");
+		before.mId = "guid-a";
+		final NewsHolder after = news("a", "http://a?session=2");
+		after.mId = "guid-a";
+		final NewsDiff diff = NewsDiff.compute(list(before), list(after));
+		assertEquals(0, diff.getNewIndex(0));
+		assertTrue(diff.isChanged(0));
+	}
+
+	@Test
+	public void idsFollowTheirKey() {
+		final NewsHolder news = news("a", "http://a");
+		final long byLink = news.getId();
+		assertEquals(byLink, news.getId());
+		news.mId = "guid-a";
+		assertEquals(Utils.hash64("guid-a"), news.getId());
+		news.mId = null;
+		assertEquals(byLink, news.getId());
+	}
+
+	@Test
+	public void appendKeepsPositions() {
+		final NewsDiff diff = NewsDiff.forAppend(3, 2);
+		for ( int i = 0; i < 3; i++ ) {
+			assertEquals(i, diff.getNewIndex(i));
+		}
+		assertEquals(5, diff.getNewSize());
+		assertEquals(2, diff.getInsertedCount());
+	}
+
+	@Test
+	public void removeShiftsTheRest() {
+		final NewsDiff diff = NewsDiff.forRemove(5, 1, 2);
+		assertEquals(0, diff.getNewIndex(0));
+		assertEquals(-1, diff.getNewIndex(1));
+		assertEquals(-1, diff.getNewIndex(2));
+		assertEquals(1, diff.getNewIndex(3));
+		assertEquals(2, diff.getNewIndex(4));
+		assertEquals(1, diff.getNextSurvivor(1));
+		assertEquals(3, diff.getNewSize());
+		assertEquals(2, diff.getRemovedCount());
+	}
+
+	@Test
+	public void updateOnlyChangesOne() {
+		final NewsDiff diff = NewsDiff.forUpdate(3, 1);
+		assertFalse(diff.isChanged(0));
+		assertTrue(diff.isChanged(1));
+		assertFalse(diff.isChanged(2));
+		assertEquals(1, diff.getChangedCount());
+		assertEquals(2, diff.getNewIndex(2));
+		assertFalse(diff.isEmpty());
+	}
+
+	@Test
+	public void outOfRangePositionsAreRemoved() {
+		final NewsDiff diff = NewsDiff.forUpdate(2, 0);
+		assertEquals(-1, diff.getNewIndex(-1));
+		assertEquals(-1, diff.getNewIndex(2));
+		assertFalse(diff.isChanged(5));
+	}
+}
@@ -0,0 +1,165 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Parsing of the RSS, Atom and JSON fixtures next to this class.
+ */
+public class NewsParserTest {
+	/** Parse a fixture, stopping after the given number of news */
+	private static List<NewsHolder> parse(NewsParser parser, String fixture, final int limit) throws Exception {
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		final InputStream in = NewsParserTest.class.getResourceAsStream(fixture);
+		try {
+			parser.parse(in, new NewsParser.Callback() {
+				public boolean onNews(NewsHolder holder) {
+					news.add(holder);
+					return news.size() < limit;
+				}
+			});
+		} finally {
+			in.close();
+		}
+		return news;
+	}
+
+	private static List<NewsHolder> parse(NewsParser parser, String fixture) throws Exception {
+		return parse(parser, fixture, Integer.MAX_VALUE);
+	}
+
+	/** 2013-07-01T12:00:00Z */
+	private static final long EXPIRY = 1372680000000L;
+
+	private static void assertNews(String text, String link, int time, NewsHolder news) {
+		assertEquals(text, news.mNews);
+		assertEquals(link, news.mLink);
+		assertEquals(time, news.mTime);
+	}
+
+	private static void assertSchedule(int priority, int weight, long expiry, NewsHolder news) {
+		assertEquals(priority, news.mPriority);
+		assertEquals(weight, news.mWeight);
+		assertEquals(expiry, news.mExpiry);
+	}
+
+	@Test
+	public void rssItems() throws Exception {
+		final List<NewsHolder> news = parse(NewsParser.xml().setDefaultTime(7), "rss.xml");
+		assertEquals(4, news.size());
+		assertNews("First news", "http://example.com/1", 7, news.get(0));
+		assertNews("Second <b>news</b>", "http://example.com/2", 7, news.get(1));
+		assertNews("Third news with spaces", "", 7, news.get(2));
+		assertNews("Caf\u00e9 & umlauts \u00fc", "http://example.com/4", 7, news.get(3));
+		assertSchedule(2, 3, EXPIRY, news.get(0));
+		assertSchedule(0, 1, 0, news.get(1));
+		assertSchedule(0, 1, 0, news.get(2));
+		assertEquals("http://example.com/img/1.jpg", news.get(0).mImage);
+		assertEquals("http://example.com/img/2.png", news.get(1).mImage);
+		assertEquals(null, news.get(2).mImage);
+		// Thumbnails go first
+		assertEquals("http://example.com/thumb/4.jpg", news.get(3).mImage);
+		assertEquals("tag:example.com,2013:1", news.get(0).mId);
+		assertEquals(null, news.get(1).mId);
+		assertEquals(null, news.get(2).mId);
+		assertEquals("http://example.com/4", news.get(3).mId);
+	}
+
+	@Test
+	public void atomEntries() throws Exception {
+		final List<NewsHolder> news = parse(NewsParser.xml(), "atom.xml");
+		assertEquals(3, news.size());
+		assertNews("First entry", "http://example.com/1", NewsCycle.DEFAULT_UPDATE_RATE, news.get(0));
+		assertNews("Second entry", "http://example.com/2", NewsCycle.DEFAULT_UPDATE_RATE, news.get(1));
+		assertNews("Entry without a link", "", NewsCycle.DEFAULT_UPDATE_RATE, news.get(2));
+		assertSchedule(0, 1, EXPIRY + 500, news.get(0));
+		assertSchedule(0, 1, 0, news.get(1));
+		assertEquals("http://example.com/img/1.png", news.get(0).mImage);
+		assertEquals(null, news.get(1).mImage);
+		assertEquals("urn:example:1", news.get(0).mId);
+		assertEquals("urn:example:2", news.get(1).mId);
+		assertEquals(null, news.get(2).mId);
+	}
+
+	@Test
+	public void jsonArrayOfTheTopLevelObject() throws Exception {
+		final List<NewsHolder> news = parse(NewsParser.json().setDefaultTime(3), "news.json");
+		assertEquals(3, news.size());
+		assertNews("First news", "http://example.com/1", 5, news.get(0));
+		assertNews("Second news", "", 3, news.get(1));
+		assertNews("Third news", "http://example.com/3", 20, news.get(2));
+		assertSchedule(0, 1, EXPIRY, news.get(0));
+		assertSchedule(0, 1, 0, news.get(1));
+		assertSchedule(1, 4, EXPIRY, news.get(2));
+		assertEquals("http://example.com/img/1.jpg", news.get(0).mImage);
+		assertEquals(null, news.get(1).mImage);
+		assertEquals(null, news.get(2).mImage);
+		// Empty ids are no ids, numbers are read as strings
+		assertEquals("news-1", news.get(0).mId);
+		assertEquals(null, news.get(1).mId);
+		assertEquals("3", news.get(2).mId);
+	}
+
+	@Test
+	public void jsonCustomFields() throws Exception {
+		final String json = "[ { \"headline\": \"Renamed\", \"url\": \"http://example.com/r\", \"seconds\": 9, \"title\": \"Ignored\", \"guid\": \"g-1\", \"id\": \"ignored\" } ]";
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		new NewsParser.JsonFeedParser().setFields("headline", "url", "seconds").setIdField("guid").parse(new ByteArrayInputStream(json.getBytes("UTF-8")), new NewsParser.Callback() {
+			public boolean onNews(NewsHolder holder) {
+				news.add(holder);
+				return true;
+			}
+		});
+		assertEquals(1, news.size());
+		assertNews("Renamed", "http://example.com/r", 9, news.get(0));
+		assertEquals("g-1", news.get(0).mId);
+	}
+
+	@Test
+	public void expiryFormats() {
+		assertEquals(EXPIRY, NewsParser.parseExpiry(" 1372680000000 "));
+		assertEquals(EXPIRY, NewsParser.parseExpiry("2013-07-01T12:00:00Z"));
+		assertEquals(EXPIRY, NewsParser.parseExpiry("2013-07-01 12:00:00"));
+		assertEquals(EXPIRY, NewsParser.parseExpiry("2013-07-01T07:30:00-04:30"));
+		assertEquals(EXPIRY + 123, NewsParser.parseExpiry("2013-07-01T12:00:00.123456Z"));
+		assertEquals(EXPIRY - 12*3600*1000, NewsParser.parseExpiry("2013-07-01"));
+		assertEquals(0, NewsParser.parseExpiry("tomorrow"));
+		assertEquals(0, NewsParser.parseExpiry(null));
+	}
+
+	@Test
+	public void callbackStopsParsing() throws Exception {
+		assertEquals(2, parse(NewsParser.xml(), "rss.xml", 2).size());
+		assertEquals(1, parse(NewsParser.xml(), "atom.xml", 1).size());
+		assertEquals(2, parse(NewsParser.json(), "news.json", 2).size());
+	}
+
+	@Test
+	public void malformedXmlIsAnIOException() throws Exception {
+		final byte[] xml = "<rss><channel><item><title>Cut".getBytes("UTF-8");
+		try {
+			NewsParser.xml().parse(new ByteArrayInputStream(xml), new NewsParser.Callback() {
+				public boolean onNews(NewsHolder news) {
+					return true;
+				}
+			});
+			fail("Parsed a truncated feed");
+		} catch ( IOException e ) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void collapseWhitespace() {
+		assertEquals("a b c", NewsParser.collapseWhitespace("  a\n\tb   c \r\n"));
+		assertEquals("", NewsParser.collapseWhitespace(" \n "));
+	}
+}
@@ -0,0 +1,135 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Picks of the {@link NewsRotation} the ticker and its simulation share.
+ */
+public class NewsRotationTest {
+	private static List<NewsHolder> news(int count) {
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		for ( int i = 0; i < count; i++ ) {
+			news.add(new NewsHolder("news "+i, "", 5));
+		}
+		return news;
+	}
+
+	@Test
+	public void roundRobinWrapsAround() {
+		final List<NewsHolder> news = news(3);
+		final NewsRotation rotation = new NewsRotation();
+		assertEquals(0, rotation.next(news, 0));
+		assertEquals(1, rotation.next(news, 0));
+		assertEquals(2, rotation.next(news, 0));
+		assertEquals(0, rotation.next(news, 0));
+		assertEquals(2, rotation.previous(news));
+	}
+
+	@Test
+	public void unseenNewsGoFirst() {
+		final List<NewsHolder> news = news(4);
+		final SeenFilter seen = new SeenFilter();
+		seen.add(news.get(0).getId());
+		seen.add(news.get(1).getId());
+		final NewsRotation rotation = new NewsRotation();
+		rotation.setSeen(seen);
+		assertEquals(2, rotation.next(news, 0));
+		assertEquals(3, rotation.next(news, 0));
+		seen.add(news.get(2).getId());
+		seen.add(news.get(3).getId());
+		// Everything was seen, just go on
+		assertEquals(0, rotation.next(news, 0));
+	}
+
+	@Test
+	public void onlyListOrderIsRoundRobin() {
+		final List<NewsHolder> news = news(3);
+		final NewsRotation rotation = new NewsRotation();
+		assertTrue(rotation.isRoundRobin());
+		// The news before the current one need not have been shown, the paged ticker keeps them
+		rotation.setSeen(new SeenFilter());
+		assertFalse(rotation.isRoundRobin());
+		rotation.setSeen(null);
+		rotation.setScheduled(true, news);
+		assertFalse(rotation.isRoundRobin());
+		rotation.setScheduled(false, news);
+		assertTrue(rotation.isRoundRobin());
+	}
+
+	@Test
+	public void restoredNewsComesFirst() {
+		final List<NewsHolder> news = news(5);
+		final NewsRotation rotation = new NewsRotation();
+		rotation.restore(news.get(3).getId());
+		assertEquals(3, rotation.peekNext(news, 0));
+		assertEquals(3, rotation.next(news, 0));
+		assertEquals(4, rotation.next(news, 0));
+	}
+
+	@Test
+	public void scheduledRotationEndsOnceAllNewsExpired() {
+		final List<NewsHolder> news = news(3);
+		news.get(0).mExpiry = 1000;
+		news.get(1).mExpiry = 2000;
+		news.get(2).mExpiry = 2000;
+		final NewsRotation rotation = new NewsRotation();
+		rotation.setScheduled(true, news);
+		assertEquals(0, rotation.next(news, 500));
+		assertEquals(1, rotation.next(news, 1500));
+		assertEquals(2, rotation.next(news, 1500));
+		assertEquals(1, rotation.next(news, 1500));
+
+		// The expired news must not come back in list order
+		final int[] upcoming = new int[4];
+		assertEquals(-1, rotation.peekNext(news, 2000));
+		assertEquals(0, rotation.peekUpcoming(news, 2000, upcoming));
+		assertEquals(-1, rotation.next(news, 2000));
+		assertEquals(-1, rotation.next(news, 3000));
+		// The last shown news is still the current one
+		assertEquals(1, rotation.getIndex());
+
+		// Fresh news start the rotation over
+		final List<NewsHolder> fresh = news(2);
+		rotation.reset(fresh);
+		assertEquals(0, rotation.next(fresh, 3000));
+	}
+
+	@Test
+	public void remapContinuesAfterRemovedNews() {
+		final List<NewsHolder> news = news(5);
+		final NewsRotation rotation = new NewsRotation();
+		rotation.setIndex(2);
+		final List<NewsHolder> removed = SplicedNewsList.remove(news, 1, 2);
+		rotation.remap(removed, NewsDiff.forRemove(news.size(), 1, 2));
+		// The news that followed the shown one comes next
+		assertEquals(1, rotation.peekNext(removed, 0));
+		assertEquals("news 3", removed.get(rotation.next(removed, 0)).mNews);
+	}
+
+	@Test
+	public void peekUpcomingMatchesTheNextPicks() {
+		final List<NewsHolder> news = news(6);
+		for ( int i = 0; i < news.size(); i++ ) {
+			news.get(i).mWeight = 1 + i % 3;
+		}
+		for ( boolean scheduled : new boolean[] { false, true } ) {
+			final NewsRotation rotation = new NewsRotation();
+			rotation.setScheduled(scheduled, news);
+			final int[] upcoming = new int[4];
+			for ( int round = 0; round < 20; round++ ) {
+				assertEquals(4, rotation.peekUpcoming(news, 0, upcoming));
+				assertEquals(upcoming[0], rotation.peekNext(news, 0));
+				for ( int i = 0; i < upcoming.length; i++ ) {
+					assertEquals(upcoming[i], rotation.next(news, 0));
+				}
+			}
+		}
+	}
+}
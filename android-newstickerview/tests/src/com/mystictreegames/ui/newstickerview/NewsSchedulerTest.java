@@ -0,0 +1,77 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Picks of the {@link NewsScheduler} and the upcoming news it reports without picking them.
+ */
+public class NewsSchedulerTest {
+	private static List<NewsHolder> news(int... weights) {
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		for ( int i = 0; i < weights.length; i++ ) {
+			news.add(new NewsHolder("news "+i, "", 5, 0, weights[i], 0));
+		}
+		return news;
+	}
+
+	@Test
+	public void weightsShowNewsMoreOften() {
+		final NewsScheduler scheduler = new NewsScheduler();
+		scheduler.reset(news(1, 2, 1));
+		final int[] shown = new int[3];
+		for ( int i = 0; i < 400; i++ ) {
+			shown[scheduler.next(0)]++;
+		}
+		assertEquals(100, shown[0]);
+		assertEquals(200, shown[1]);
+		assertEquals(100, shown[2]);
+	}
+
+	@Test
+	public void priorityGoesFirst() {
+		final List<NewsHolder> news = news(1, 1, 1);
+		news.get(2).mPriority = 1;
+		final NewsScheduler scheduler = new NewsScheduler();
+		scheduler.reset(news);
+		// One round ahead, then in list order with the others
+		assertEquals(2, scheduler.next(0));
+		assertEquals(0, scheduler.next(0));
+		assertEquals(1, scheduler.next(0));
+		assertEquals(2, scheduler.next(0));
+	}
+
+	@Test
+	public void peekMatchesTheNextPicks() {
+		final List<NewsHolder> news = news(1, 3, 1, 2, 1, 5);
+		news.get(4).mPriority = 2;
+		final NewsScheduler scheduler = new NewsScheduler();
+		scheduler.reset(news);
+		final int[] upcoming = new int[4];
+		for ( int round = 0; round < 50; round++ ) {
+			assertEquals(4, scheduler.peek(0, upcoming));
+			assertEquals(upcoming[0], scheduler.peek(0));
+			for ( int i = 0; i < upcoming.length; i++ ) {
+				assertEquals(upcoming[i], scheduler.next(0));
+			}
+		}
+	}
+
+	@Test
+	public void peekSkipsExpiredNews() {
+		final List<NewsHolder> news = news(1, 1, 1);
+		news.get(1).mExpiry = 1000;
+		final NewsScheduler scheduler = new NewsScheduler();
+		scheduler.reset(news);
+		final int[] upcoming = new int[5];
+		assertEquals(5, scheduler.peek(2000, upcoming));
+		for ( int i = 0; i < upcoming.length; i++ ) {
+			assertEquals(i % 2 == 0 ? 0 : 2, upcoming[i]);
+		}
+		assertEquals(2, scheduler.getActiveCount());
+	}
+}
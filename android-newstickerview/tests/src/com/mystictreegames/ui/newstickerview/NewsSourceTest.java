@@ -0,0 +1,221 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.os.Handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Loads through a {@link NewsSource} from a local HTTP server: news stream in while the feed is still
+ * written, the parser blocks once the buffer is full and failures of any kind end up in the listener.
+ */
+public class NewsSourceTest {
+	private static final int TIMEOUT = 10;
+	private static final int FEED_SIZE = 500;
+
+	private HttpServer mServer;
+
+	/** Released by a test to let the server write the rest of the feed */
+	private final CountDownLatch mRestOfFeed = new CountDownLatch(1);
+
+	@Before
+	public void startServer() throws IOException {
+		mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		mServer.createContext("/feed", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				// Chunked, the first news is flushed on its own
+				exchange.sendResponseHeaders(200, 0);
+				final OutputStream out = exchange.getResponseBody();
+				try {
+					out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?><rss><channel>".getBytes("UTF-8"));
+					out.write(item(0));
+					out.flush();
+					if ( !mRestOfFeed.await(TIMEOUT, TimeUnit.SECONDS) ) {
+						return;
+					}
+					for ( int i = 1; i < FEED_SIZE; i++ ) {
+						out.write(item(i));
+					}
+					out.write("</channel></rss>".getBytes("UTF-8"));
+				} catch ( InterruptedException e ) {
+					// Server stopped
+				} finally {
+					out.close();
+				}
+			}
+		});
+		mServer.createContext("/missing", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+			}
+		});
+		mServer.start();
+	}
+
+	@After
+	public void stopServer() {
+		mRestOfFeed.countDown();
+		mServer.stop(0);
+	}
+
+	private static byte[] item(int i) throws IOException {
+		return ("<item><title>News "+i+"</title><link>http://example.com/"+i+"</link></item>\n").getBytes("UTF-8");
+	}
+
+	private String url(String path) {
+		return "http://127.0.0.1:"+mServer.getAddress().getPort()+path;
+	}
+
+	/**
+	 * Collects what a load delivers.
+	 */
+	private static final class Result implements NewsSource.Listener {
+		final CountDownLatch mFirst = new CountDownLatch(1);
+		final CountDownLatch mDone = new CountDownLatch(1);
+		final AtomicInteger mDelivered = new AtomicInteger();
+		final AtomicReference<String> mFirstNews = new AtomicReference<String>();
+		final AtomicReference<IOException> mError = new AtomicReference<IOException>();
+		volatile int mFinished = -1;
+
+		public void onNewsParsed(List<NewsHolder> news, boolean bFirst) {
+			if ( bFirst ) {
+				mFirstNews.set(news.get(0).mNews);
+				mFirst.countDown();
+			}
+			mDelivered.addAndGet(news.size());
+		}
+
+		public void onSourceFinished(int count) {
+			mFinished = count;
+			mDone.countDown();
+		}
+
+		public void onSourceFailed(IOException error) {
+			mError.set(error);
+			mDone.countDown();
+		}
+	}
+
+	/** Start the load on the main thread, like a ticker would */
+	private static void load(final NewsSource source, final NewsSource.Listener listener) {
+		Handler.runOnMain(new Runnable() {
+			public void run() {
+				source.load(listener);
+			}
+		});
+	}
+
+	@Test
+	public void firstNewsArrivesBeforeTheFeedIsComplete() throws Exception {
+		final Result result = new Result();
+		load(NewsSource.fromUrl(url("/feed"), NewsParser.xml()), result);
+		assertTrue("First news not delivered while the feed was open", result.mFirst.await(TIMEOUT, TimeUnit.SECONDS));
+		assertEquals("News 0", result.mFirstNews.get());
+		assertEquals(1, result.mDone.getCount());
+
+		mRestOfFeed.countDown();
+		assertTrue(result.mDone.await(TIMEOUT, TimeUnit.SECONDS));
+		assertNull(result.mError.get());
+		assertEquals(FEED_SIZE, result.mFinished);
+		assertEquals(FEED_SIZE, result.mDelivered.get());
+	}
+
+	@Test
+	public void parserBlocksWhileTheMainThreadIsBehind() throws Exception {
+		final int bufferSize = 8;
+		final AtomicInteger parsed = new AtomicInteger();
+		final NewsSource source = NewsSource.fromUrl(url("/feed"), NewsParser.xml());
+		source.setBufferSize(bufferSize);
+		source.setFilter(new NewsSource.Filter() {
+			public NewsHolder filter(NewsHolder news) {
+				parsed.incrementAndGet();
+				return news;
+			}
+		});
+		final Result result = new Result();
+		load(source, result);
+		assertTrue(result.mFirst.await(TIMEOUT, TimeUnit.SECONDS));
+
+		// Stall the main thread so nothing is drained while the rest of the feed is read
+		final CountDownLatch stalled = new CountDownLatch(1);
+		final CountDownLatch resume = new CountDownLatch(1);
+		Handler.runOnMain(new Runnable() {
+			public void run() {
+				stalled.countDown();
+				try {
+					resume.await(TIMEOUT, TimeUnit.SECONDS);
+				} catch ( InterruptedException e ) {
+					// Let the test go on
+				}
+			}
+		});
+		assertTrue(stalled.await(TIMEOUT, TimeUnit.SECONDS));
+		mRestOfFeed.countDown();
+
+		// The buffer fills up and the parser waits with one more news in hand
+		final long deadline = System.currentTimeMillis() + TIMEOUT*1000;
+		while ( parsed.get() < bufferSize + 2 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(200);
+		assertEquals(bufferSize + 2, parsed.get());
+
+		resume.countDown();
+		assertTrue(result.mDone.await(TIMEOUT, TimeUnit.SECONDS));
+		assertNull(result.mError.get());
+		assertEquals(FEED_SIZE, result.mDelivered.get());
+		assertEquals(FEED_SIZE, parsed.get());
+	}
+
+	@Test
+	public void httpErrorsFailTheLoad() throws Exception {
+		final Result result = new Result();
+		load(NewsSource.fromUrl(url("/missing"), NewsParser.xml()), result);
+		assertTrue(result.mDone.await(TIMEOUT, TimeUnit.SECONDS));
+		assertTrue(result.mError.get().getMessage().contains("404"));
+		assertEquals(0, result.mDelivered.get());
+	}
+
+	@Test
+	public void runtimeErrorsFailTheLoad() throws Exception {
+		final NewsSource source = new NewsSource(new NewsSource.StreamOpener() {
+			public InputStream open() {
+				return NewsParserTest.class.getResourceAsStream("rss.xml");
+			}
+		}, NewsParser.xml());
+		final AtomicInteger count = new AtomicInteger();
+		source.setFilter(new NewsSource.Filter() {
+			public NewsHolder filter(NewsHolder news) {
+				if ( count.incrementAndGet() == 3 ) {
+					throw new IllegalStateException("Broken filter");
+				}
+				return news;
+			}
+		});
+		final Result result = new Result();
+		load(source, result);
+		assertTrue(result.mDone.await(TIMEOUT, TimeUnit.SECONDS));
+		assertTrue(result.mError.get().getCause() instanceof IllegalStateException);
+		assertEquals(2, result.mDelivered.get());
+	}
+}
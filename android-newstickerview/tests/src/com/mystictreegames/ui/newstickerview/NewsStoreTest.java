@@ -0,0 +1,153 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static com.mystictreegames.ui.newstickerview.NewsBatchTest.assertSameNews;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Packing of the {@link NewsStore} and its list view.
+ */
+public class NewsStoreTest {
+	private static NewsHolder news(int i) {
+		final NewsHolder news = new NewsHolder("News "+i, "http://example.com/"+i, i, i % 3, 1 + i % 2, i*1000L);
+		news.mImage = i % 2 == 0 ? "http://example.com/img/"+i+".png" : null;
+		news.mId = i % 3 == 0 ? "id-"+i : null;
+		return news;
+	}
+
+	private static List<NewsHolder> news(int from, int to) {
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		for ( int i = from; i < to; i++ ) {
+			news.add(news(i));
+		}
+		return news;
+	}
+
+	private static void assertStored(List<NewsHolder> expected, NewsStore store) {
+		assertEquals(expected.size(), store.size());
+		for ( int i = 0; i < expected.size(); i++ ) {
+			final NewsHolder news = expected.get(i);
+			assertSameNews(news, store.get(i));
+			assertEquals(news.mNews, store.getText(i));
+			assertEquals(news.mLink, store.getLink(i));
+			assertEquals(news.mImage, store.getImage(i));
+			assertEquals(news.mId, store.getId(i));
+			assertEquals(news.mTime, store.getTime(i));
+			assertEquals(news.mExpiry, store.getExpiry(i));
+		}
+	}
+
+	private static void assertList(List<NewsHolder> expected, List<NewsHolder> list) {
+		assertEquals(expected.size(), list.size());
+		for ( int i = 0; i < expected.size(); i++ ) {
+			assertSameNews(expected.get(i), list.get(i));
+		}
+	}
+
+	@Test
+	public void roundTrip() {
+		final List<NewsHolder> news = news(0, 100);
+		final NewsStore store = NewsStore.of(news);
+		assertStored(news, store);
+		assertList(news, store.asList());
+	}
+
+	@Test
+	public void nullAndEmptyFields() {
+		final NewsStore store = new NewsStore();
+		store.add(new NewsHolder(null, null, 1));
+		final NewsHolder empty = new NewsHolder("", "", 2);
+		empty.mImage = "";
+		empty.mId = "";
+		store.add(empty);
+		// Links are stored as the empty string, a missing image or id reads as none
+		for ( int i = 0; i < store.size(); i++ ) {
+			assertEquals("", store.getText(i));
+			assertEquals("", store.getLink(i));
+			assertNull(store.getImage(i));
+			assertNull(store.getId(i));
+			assertNull(store.get(i).mImage);
+		}
+	}
+
+	@Test
+	public void textBeyondLatin1() throws Exception {
+		final NewsStore store = new NewsStore(1);
+		final NewsHolder wide = new NewsHolder("\u65e5\u672c\u8a9e\u306e\u30cb\u30e5\u30fc\u30b9", "http://\u4f8b\u3048.jp/\u30d1\u30b9/1", 5);
+		wide.mImage = "http://\u4f8b\u3048.jp/\u753b\u50cf.png";
+		wide.mId = "\u30cb\u30e5\u30fc\u30b9-1";
+		final NewsHolder latin1 = new NewsHolder("Caf\u00e9", "http://example.com/caf\u00e9", 5);
+		latin1.mId = "\u00fc";
+		store.add(wide);
+		store.add(latin1);
+		assertSameNews(wide, store.get(0));
+		assertSameNews(latin1, store.get(1));
+
+		// Both the byte per char and the UTF-8 strings come out as UTF-8
+		final NewsStore.StoreList list = (NewsStore.StoreList) store.asList();
+		assertArrayEquals(wide.mLink.getBytes("UTF-8"), list.getUtf8(0, NewsRecords.FIELD_LINK));
+		assertArrayEquals(wide.mImage.getBytes("UTF-8"), list.getUtf8(0, NewsRecords.FIELD_IMAGE));
+		assertArrayEquals(latin1.mNews.getBytes("UTF-8"), list.getUtf8(1, NewsRecords.FIELD_TEXT));
+		assertArrayEquals(latin1.mLink.getBytes("UTF-8"), list.getUtf8(1, NewsRecords.FIELD_LINK));
+		assertArrayEquals(latin1.mId.getBytes("UTF-8"), list.getUtf8(1, NewsRecords.FIELD_ID));
+	}
+
+	@Test
+	public void listKeepsItsNewsWhileTheStoreGrows() {
+		final NewsStore store = new NewsStore(1);
+		final List<NewsHolder> first = news(0, 10);
+		for ( NewsHolder news : first ) {
+			store.add(news);
+		}
+		final List<NewsHolder> list = store.asList();
+
+		// Growing moves every buffer, the list keeps reading the old ones
+		final List<NewsHolder> all = new ArrayList<NewsHolder>(first);
+		for ( NewsHolder news : news(10, 1000) ) {
+			store.add(news);
+			all.add(news);
+		}
+		assertList(first, list);
+		assertList(all, store.asList());
+		assertStored(all, store);
+	}
+
+	@Test
+	public void trimToSize() {
+		final List<NewsHolder> news = news(0, 50);
+		final NewsStore store = new NewsStore(200);
+		for ( NewsHolder holder : news ) {
+			store.add(holder);
+		}
+		final List<NewsHolder> list = store.asList();
+		store.trimToSize();
+		assertStored(news, store);
+		assertList(news, list);
+
+		// A trimmed store still grows
+		final List<NewsHolder> all = new ArrayList<NewsHolder>(news);
+		all.addAll(news(50, 60));
+		for ( NewsHolder holder : news(50, 60) ) {
+			store.add(holder);
+		}
+		assertStored(all, store);
+	}
+
+	@Test
+	public void trimToSizeOfAnEmptyStore() {
+		final NewsStore store = new NewsStore();
+		store.trimToSize();
+		assertEquals(0, store.size());
+		final List<NewsHolder> news = news(0, 3);
+		for ( NewsHolder holder : news ) {
+			store.add(holder);
+		}
+		assertStored(news, store);
+	}
+}
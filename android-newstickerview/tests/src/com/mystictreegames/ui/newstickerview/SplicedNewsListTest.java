@@ -0,0 +1,173 @@
+package com.mystictreegames.ui.newstickerview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Edits of read only news snapshots through {@link SplicedNewsList} and the records of the lists it reads.
+ */
+public class SplicedNewsListTest {
+	private static NewsStore store(int size) {
+		final NewsStore store = new NewsStore();
+		for ( int i = 0; i < size; i++ ) {
+			store.add("news "+i, "http://example.com/"+i, i % 7);
+		}
+		return store;
+	}
+
+	private static List<NewsHolder> holders(int from, int to) {
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>();
+		for ( int i = from; i < to; i++ ) {
+			news.add(new NewsHolder("news "+i, "http://example.com/"+i, i % 7));
+		}
+		return news;
+	}
+
+	private static void assertTexts(List<NewsHolder> news, int... numbers) {
+		assertEquals(numbers.length, news.size());
+		for ( int i = 0; i < numbers.length; i++ ) {
+			assertEquals("news "+numbers[i], news.get(i).mNews);
+		}
+	}
+
+	@Test
+	public void appendToAStoreKeepsItLazy() {
+		final List<NewsHolder> news = SplicedNewsList.append(store(1000).asList(), holders(1000, 1002));
+		assertTrue(news instanceof SplicedNewsList);
+		assertEquals(1002, news.size());
+		assertEquals("news 999", news.get(999).mNews);
+		assertEquals("news 1001", news.get(1001).mNews);
+		assertEquals(1001 % 7, ((NewsRecords) news).getTime(1001));
+	}
+
+	@Test
+	public void removeAndSetSplitRanges() {
+		List<NewsHolder> news = store(100).asList();
+		news = SplicedNewsList.remove(news, 10, 5);
+		news = SplicedNewsList.set(news, 0, new NewsHolder("news -1", "", 1));
+		assertEquals(95, news.size());
+		assertEquals("news -1", news.get(0).mNews);
+		assertEquals("news 9", news.get(9).mNews);
+		assertEquals("news 15", news.get(10).mNews);
+		assertEquals("news 99", news.get(94).mNews);
+	}
+
+	@Test
+	public void splicesOfSplicesAreFlattened() {
+		List<NewsHolder> news = store(200).asList();
+		for ( int i = 0; i < 5; i++ ) {
+			news = SplicedNewsList.remove(news, 0, 10);
+		}
+		// Removing from the front only narrows the single range, it never nests
+		assertEquals(150, news.size());
+		assertEquals("news 50", news.get(0).mNews);
+		assertEquals("news 199", news.get(149).mNews);
+	}
+
+	@Test
+	public void shortRangesAreCopied() {
+		final List<NewsHolder> news = SplicedNewsList.remove(Collections.unmodifiableList(holders(0, 10)), 3, 1);
+		assertFalse(news instanceof SplicedNewsList);
+		assertTexts(news, 0, 1, 2, 4, 5, 6, 7, 8, 9);
+	}
+
+	@Test
+	public void wholeSourceIsReturnedAsIs() {
+		final List<NewsHolder> source = store(50).asList();
+		assertSame(source, SplicedNewsList.remove(source, 50, 0));
+	}
+
+	@Test
+	public void recordsReadTheStore() {
+		final List<NewsHolder> news = SplicedNewsList.remove(store(100).asList(), 0, 1);
+		final NewsRecords records = (NewsRecords) news;
+		assertArrayEquals(Utils.toUtf8("news 1"), records.getUtf8(0, NewsRecords.FIELD_TEXT));
+		assertArrayEquals(Utils.toUtf8("http://example.com/1"), records.getUtf8(0, NewsRecords.FIELD_LINK));
+		assertEquals(1, records.getWeight(0));
+	}
+
+	@Test
+	public void storeKeepsTheSchedule() {
+		final NewsStore store = new NewsStore();
+		store.add(new NewsHolder("scheduled", "", 5, 2, 3, 1000L));
+		store.add("plain", "", 5);
+		// Short lists are copied, their records are read through the holders
+		final List<NewsHolder> news = SplicedNewsList.append(store.asList(), holders(0, 1));
+		final NewsRecords records = NewsRecords.HolderRecords.of(news);
+		assertEquals(2, records.getPriority(0));
+		assertEquals(3, records.getWeight(0));
+		assertEquals(1000L, records.getExpiry(0));
+		assertEquals(0, records.getPriority(1));
+		assertEquals(1, records.getWeight(1));
+		assertEquals(0, records.getExpiry(1));
+		assertEquals(3, news.get(0).mWeight);
+		assertEquals(1000L, store.get(0).mExpiry);
+	}
+
+	@Test
+	public void storeKeepsTheImages() {
+		final NewsStore store = new NewsStore();
+		final NewsHolder news = new NewsHolder("with image", "http://example.com/1", 5);
+		news.mImage = "http://example.com/img/\u6f22.png";
+		store.add(news);
+		store.add("without image", "", 5);
+		final List<NewsHolder> list = store.asList();
+		store.trimToSize();
+		assertEquals(news.mImage, store.getImage(0));
+		assertEquals(news.mImage, list.get(0).mImage);
+		assertEquals(null, list.get(1).mImage);
+		final NewsRecords records = (NewsRecords) list;
+		assertArrayEquals(Utils.toUtf8(news.mImage), records.getUtf8(0, NewsRecords.FIELD_IMAGE));
+		assertArrayEquals(Utils.EMPTY_BYTES, records.getUtf8(1, NewsRecords.FIELD_IMAGE));
+	}
+
+	@Test
+	public void storeKeepsTheIds() {
+		final NewsStore store = new NewsStore();
+		final NewsHolder news = new NewsHolder("with id", "http://example.com/1?session=1", 5);
+		news.mId = "guid-1";
+		store.add(news);
+		store.add("without id", "http://example.com/2", 5);
+		assertEquals("guid-1", store.getId(0));
+		assertEquals(null, store.getId(1));
+		final List<NewsHolder> list = store.asList();
+		assertEquals("guid-1", list.get(0).mId);
+		assertEquals(news.getId(), list.get(0).getId());
+		assertArrayEquals(Utils.toUtf8("guid-1"), ((NewsRecords) list).getUtf8(0, NewsRecords.FIELD_ID));
+		assertArrayEquals(Utils.EMPTY_BYTES, ((NewsRecords) list).getUtf8(1, NewsRecords.FIELD_ID));
+	}
+
+	@Test
+	public void storeListsAreSnapshots() {
+		final NewsStore store = store(10);
+		final List<NewsHolder> before = store.asList();
+		for ( int i = 10; i < 1000; i++ ) {
+			store.add("news "+i, "", 1);
+		}
+		store.trimToSize();
+		assertEquals(10, before.size());
+		assertEquals("news 9", before.get(9).mNews);
+		assertEquals(1000, store.asList().size());
+	}
+
+	@Test
+	public void recordsEncodeUtf8() {
+		final NewsStore store = new NewsStore();
+		final String text = "caf\u00e9 \u6f22\u5b57 \ud83d\ude00 \ud800";
+		store.add(text, "http://example.com/caf\u00e9", 1);
+		store.add("x", "http://example.com/\u6f22", 1);
+		final NewsRecords records = (NewsRecords) store.asList();
+		assertArrayEquals(Utils.toUtf8(text), records.getUtf8(0, NewsRecords.FIELD_TEXT));
+		assertArrayEquals(Utils.toUtf8("http://example.com/caf\u00e9"), records.getUtf8(0, NewsRecords.FIELD_LINK));
+		assertArrayEquals(Utils.toUtf8("http://example.com/\u6f22"), records.getUtf8(1, NewsRecords.FIELD_LINK));
+	}
+}
@@ -0,0 +1,29 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.List;
+
+/**
+ * Stub of the ticker for the JVM tests, only what {@link NewsSource} feeds. The constants of the
+ * schedule live in {@link NewsCycle}.
+ * The real view needs the platform.
+ */
+public class NewsTickerView {
+	public void onStartLoading() {
+	}
+
+	public void setNews(List<NewsHolder> news) {
+	}
+
+	public void appendNews(List<NewsHolder> news) {
+	}
+
+	public boolean hasNews() {
+		return false;
+	}
+
+	public void onNoNewsFound() {
+	}
+
+	public void onNewsLoadingFailed() {
+	}
+}
@@ -0,0 +1,39 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.os.Parcel;
+
+/**
+ * Parcel round trip of a single news. Runs against the in-memory parcel stub, so it measures the
+ * marshalling code of {@link NewsHolder} and not the native parcel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NewsHolderParcelBenchmark {
+	private final NewsHolder mNews = new NewsHolder("Local team wins the cup after a thrilling final",
+			"http://news.example.com/sports/2012/cup-final", 10, 1, 2, 0);
+	private final Parcel mParcel = Parcel.obtain();
+
+	@Benchmark
+	public NewsHolder roundTrip() {
+		mParcel.recycle();
+		mNews.writeToParcel(mParcel, 0);
+		mParcel.setDataPosition(0);
+		return NewsHolder.CREATOR.createFromParcel(mParcel);
+	}
+}
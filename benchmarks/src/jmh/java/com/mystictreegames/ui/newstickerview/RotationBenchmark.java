@@ -0,0 +1,64 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Picking the next news in changeNews through the {@link NewsRotation} the ticker uses: round robin
+ * over the news snapshot, round robin preferring unseen news when every news was seen already, which
+ * scans the most, or through the scheduler of the scheduled rotation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RotationBenchmark {
+	@Param({"10", "1000", "100000"})
+	public int mSize;
+
+	private List<NewsHolder> mNews;
+	private final NewsRotation mRoundRobin = new NewsRotation();
+	private final NewsRotation mUnseen = new NewsRotation();
+	private final NewsRotation mScheduled = new NewsRotation();
+
+	@Setup
+	public void setup() {
+		mNews = Collections.unmodifiableList(SetNewsBenchmark.createNews(mSize, 0));
+		final SeenFilter seen = new SeenFilter();
+		for ( int i = 0; i < mNews.size(); i++ ) {
+			seen.add(mNews.get(i).getId());
+		}
+		mUnseen.setSeen(seen);
+		mScheduled.setScheduled(true, mNews);
+	}
+
+	@Benchmark
+	public NewsHolder roundRobin() {
+		return mNews.get(mRoundRobin.next(mNews, 0));
+	}
+
+	@Benchmark
+	public NewsHolder roundRobinAllSeen() {
+		return mNews.get(mUnseen.next(mNews, 0));
+	}
+
+	@Benchmark
+	public NewsHolder scheduled() {
+		return mNews.get(mScheduled.next(mNews, 0));
+	}
+}
@@ -0,0 +1,80 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of handing news lists to the ticker: the snapshot setNews takes and the diff an
+ * incremental update computes, for a refresh with equal news, a single changed news and an append.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SetNewsBenchmark {
+	@Param({"10", "1000", "100000"})
+	public int mSize;
+
+	private List<NewsHolder> mOld;
+	private List<NewsHolder> mRefreshed;
+	private List<NewsHolder> mOneChanged;
+	private List<NewsHolder> mAppended;
+
+	/** News with distinct links, the same seed gives equal news */
+	static ArrayList<NewsHolder> createNews(int size, int seed) {
+		final ArrayList<NewsHolder> news = new ArrayList<NewsHolder>(size);
+		for ( int i = 0; i < size; i++ ) {
+			news.add(new NewsHolder("Headline number "+i+" of the feed "+seed, "http://news.example.com/item/"+i, 5 + i%10));
+		}
+		return news;
+	}
+
+	@Setup
+	public void setup() {
+		mOld = Collections.unmodifiableList(createNews(mSize, 0));
+		mRefreshed = createNews(mSize, 0);
+		final ArrayList<NewsHolder> oneChanged = createNews(mSize, 0);
+		oneChanged.get(mSize/2).mNews = "Breaking: headline changed";
+		mOneChanged = oneChanged;
+		final ArrayList<NewsHolder> appended = createNews(mSize, 0);
+		appended.add(new NewsHolder("Appended headline", "http://news.example.com/item/appended", 5));
+		mAppended = appended;
+	}
+
+	/** The copy setNews takes of the list handed in */
+	@Benchmark
+	public List<NewsHolder> snapshot() {
+		return Collections.unmodifiableList(new ArrayList<NewsHolder>(mRefreshed));
+	}
+
+	@Benchmark
+	public NewsDiff diffRefresh() {
+		return NewsDiff.compute(mOld, mRefreshed);
+	}
+
+	@Benchmark
+	public NewsDiff diffOneChanged() {
+		return NewsDiff.compute(mOld, mOneChanged);
+	}
+
+	@Benchmark
+	public NewsDiff diffAppend() {
+		return NewsDiff.compute(mOld, mAppended);
+	}
+}
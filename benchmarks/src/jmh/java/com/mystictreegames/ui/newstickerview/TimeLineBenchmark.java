@@ -0,0 +1,61 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The time line geometry the ticker computes on every time line update and draw.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeLineBenchmark {
+	private static final long DURATION = 11000;
+
+	private final TimeLine mTimeLine = new TimeLine();
+	private long mNow;
+
+	@Setup
+	public void setup() {
+		mTimeLine.setBounds(8, 40, 480, 2.f);
+		mTimeLine.start(0, DURATION);
+		mNow = 0;
+	}
+
+	/** Advance by a frame, start over once the countdown ran out */
+	private long nextTime() {
+		mNow += 16;
+		if ( mNow > DURATION ) {
+			mNow = 0;
+		}
+		return mNow;
+	}
+
+	/** Length update and the time of the next pixel change, what every time line tick does */
+	@Benchmark
+	public long update() {
+		final long now = nextTime();
+		final int length = mTimeLine.computeLength(now);
+		mTimeLine.setLength(length);
+		return mTimeLine.nextChangeTime(length);
+	}
+
+	/** Geometry check done on every size change and tick */
+	@Benchmark
+	public boolean setBounds() {
+		return mTimeLine.setBounds(8, 40, 480 + (int) (nextTime() & 1), 2.f);
+	}
+}
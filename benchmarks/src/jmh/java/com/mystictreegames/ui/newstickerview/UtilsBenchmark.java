@@ -0,0 +1,51 @@
+package com.mystictreegames.ui.newstickerview;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Color and clamp helpers called for every fade step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilsBenchmark {
+	private int mColor = 0xFF336699;
+	private float mAlpha = 0.f;
+
+	/** Walk the alpha through [0,1] so branches are not constant */
+	private float nextAlpha() {
+		mAlpha += 0.0137f;
+		if ( mAlpha > 1.f ) {
+			mAlpha -= 1.f;
+		}
+		return mAlpha;
+	}
+
+	@Benchmark
+	public int combineColor() {
+		return Utils.combineColor(mColor, nextAlpha());
+	}
+
+	@Benchmark
+	public int modulateAlpha() {
+		return Utils.modulateAlpha(mColor, nextAlpha());
+	}
+
+	@Benchmark
+	public float clamp() {
+		return Utils.clamp(nextAlpha()*2.f - 0.5f, 0.f, 1.f);
+	}
+}
@@ -0,0 +1,18 @@
+package android.os;
+
+/**
+ * Stub of the platform interface for the JVM benchmarks.
+ */
+public interface Parcelable {
+	int CONTENTS_FILE_DESCRIPTOR = 0x0001;
+
+	int describeContents();
+
+	void writeToParcel(Parcel dest, int flags);
+
+	interface Creator<T> {
+		T createFromParcel(Parcel source);
+
+		T[] newArray(int size);
+	}
+}
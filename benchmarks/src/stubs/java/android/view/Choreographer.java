@@ -0,0 +1,24 @@
+package android.view;
+
+/**
+ * Stub of the vsync source for the JVM benchmarks, never used since {@link android.os.Build.VERSION#SDK_INT}
+ * predates it.
+ */
+public final class Choreographer {
+	public interface FrameCallback {
+		void doFrame(long frameTimeNanos);
+	}
+
+	private Choreographer() {
+	}
+
+	public static Choreographer getInstance() {
+		throw new UnsupportedOperationException("No vsync on the JVM");
+	}
+
+	public void postFrameCallback(FrameCallback callback) {
+	}
+
+	public void removeFrameCallback(FrameCallback callback) {
+	}
+}